@@ -0,0 +1,71 @@
+package pl.inventory.system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+
+/**
+ * Test data of the benchmarks: rooms filled with generated items and temporary directories for the database files.
+ */
+public final class BenchmarkData {
+
+  public static final int ITEMS_PER_ROOM = 100;
+
+  private BenchmarkData() {
+  }
+
+  public static Item item(long number) {
+    return Item.builder()
+        .inventoryNumber(inventoryNumber(number))
+        .description("Benchmark item " + number)
+        .incomingDate(LocalDate.of(2020, 1, 1).plusDays(number % 1000))
+        .itemQuantity(1)
+        .itemPrice(BigDecimal.valueOf(number % 10_000, 2))
+        .documentNumber("BNC/" + number % 100)
+        .build();
+  }
+
+  public static String inventoryNumber(long number) {
+    return "BNC-" + number;
+  }
+
+  /**
+   * Generates rooms holding the given number of items in total ({@value #ITEMS_PER_ROOM} items per room).
+   */
+  public static List<Room> rooms(int items) {
+    List<Room> rooms = new ArrayList<>();
+    for (int first = 0; first < items; first += ITEMS_PER_ROOM) {
+      List<Item> roomItems = new ArrayList<>();
+      for (int number = first; number < Math.min(items, first + ITEMS_PER_ROOM); number++) {
+        roomItems.add(item(number));
+      }
+      rooms.add(Room.builder().roomNumber("R" + first / ITEMS_PER_ROOM).itemsList(roomItems).build());
+    }
+    return rooms;
+  }
+
+  public static Path createTempDirectory() {
+    try {
+      return Files.createTempDirectory("inventory-benchmark");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static void deleteDirectory(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
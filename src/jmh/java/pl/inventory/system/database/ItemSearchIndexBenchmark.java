@@ -0,0 +1,69 @@
+package pl.inventory.system.database;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.inventory.system.BenchmarkData;
+import pl.inventory.system.model.Item;
+
+/**
+ * Latency of the {@link ItemSearchIndex} queries for indexes of up to a million items: a prefix of the inventory
+ * numbers, a word shared by all items and the words narrowed down to a single item (intersection of a large and
+ * a small set of ids). Each query returns at most {@value #LIMIT} ids, as the search endpoint by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ItemSearchIndexBenchmark {
+
+  private static final int LIMIT = 50;
+
+  @Param({"10000", "1000000"})
+  public int items;
+
+  private ItemSearchIndex index;
+
+  @Setup(Level.Trial)
+  public void createIndex() {
+    index = new ItemSearchIndex();
+    for (long number = 0; number < items; number++) {
+      Item item = BenchmarkData.item(number);
+      item.setId(number + 1);
+      index.index(item);
+    }
+  }
+
+  @Benchmark
+  public List<Long> searchNumberPrefix() {
+    return index.search(BenchmarkData.inventoryNumber(randomNumber() / 10), LIMIT);
+  }
+
+  @Benchmark
+  public List<Long> searchCommonWord() {
+    return index.search("item", LIMIT);
+  }
+
+  @Benchmark
+  public List<Long> searchWords() {
+    return index.search("benchmark item " + randomNumber(), LIMIT);
+  }
+
+  private long randomNumber() {
+    return ThreadLocalRandom.current().nextLong(items);
+  }
+}
@@ -0,0 +1,119 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.inventory.system.BenchmarkData;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.FileService;
+import pl.inventory.system.utils.IdProvider;
+import pl.inventory.system.utils.JsonService;
+
+/**
+ * Throughput of the {@link FileBasedDatabase} operations for databases of different sizes and storage modes.
+ * The database is created in a temporary directory, filled with generated rooms before each iteration
+ * and removed after it, so the mutating benchmarks do not change the database size seen by the next iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBasedDatabaseBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  public int items;
+
+  @Param({"rewrite", "journal"})
+  public String storageMode;
+
+  private final FileService fileService = new FileService();
+  private final JsonService serializer = new JsonService();
+  private Path directory;
+  private FileBasedDatabase database;
+  private Long[] roomIds;
+  private long nextItemNumber;
+
+  @Setup(Level.Iteration)
+  public void createDatabase() {
+    directory = BenchmarkData.createTempDirectory();
+    String directoryName = directory.toString();
+    database = new FileBasedDatabase(storage("ROOMS", directoryName), storage("ITEMS", directoryName),
+        new IdProvider(FileManager.createFile("ID_ITEM.txt", directoryName), fileService, 1000L),
+        new IdProvider(FileManager.createFile("ID_ROOM.txt", directoryName), fileService, 1000L),
+        serializer);
+    roomIds = database.saveAll(BenchmarkData.rooms(items)).toArray(Long[]::new);
+    nextItemNumber = items;
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteDatabase() {
+    BenchmarkData.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public Optional<Room> getById() {
+    return database.getByProperty(randomRoomId());
+  }
+
+  @Benchmark
+  public Optional<Item> getItemByNumber() {
+    return database.getItemByProperty(BenchmarkData.inventoryNumber(ThreadLocalRandom.current().nextLong(items)));
+  }
+
+  @Benchmark
+  public Optional<Room> saveItem() {
+    return database.saveInObjectWithProperty(randomRoomId(), BenchmarkData.item(nextItemNumber++));
+  }
+
+  @Benchmark
+  public Optional<Item> updateItem() {
+    long number = ThreadLocalRandom.current().nextLong(items);
+    return database.updateItemByProperty(BenchmarkData.inventoryNumber(number), BenchmarkData.item(number));
+  }
+
+  /**
+   * Deletes a room and saves it again, so the size of the database stays the same during the iteration.
+   */
+  @Benchmark
+  public Long deleteRoom() {
+    int index = ThreadLocalRandom.current().nextInt(roomIds.length);
+    Room room = database.deleteByProperty(roomIds[index]).orElseThrow();
+    roomIds[index] = database.save(room);
+    return roomIds[index];
+  }
+
+  @Benchmark
+  public void getAll(Blackhole blackhole) {
+    blackhole.consume(database.getAll());
+  }
+
+  private FileStorage storage(String name, String directoryName) {
+    return "journal".equals(storageMode)
+        ? new JournalFileStorage(FileManager.createFile(name + ".txt", directoryName),
+            FileManager.createFile(name + "_JOURNAL.txt", directoryName), fileService, serializer)
+        : new RewriteFileStorage(FileManager.createFile(name + ".txt", directoryName), fileService);
+  }
+
+  private Long randomRoomId() {
+    return roomIds[ThreadLocalRandom.current().nextInt(roomIds.length)];
+  }
+}
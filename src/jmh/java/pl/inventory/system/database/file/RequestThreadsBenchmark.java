@@ -0,0 +1,154 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.inventory.system.BenchmarkData;
+import pl.inventory.system.database.AsyncDatabase;
+import pl.inventory.system.database.ExecutorAsyncDatabase;
+import pl.inventory.system.database.StorageExecutor;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.FileService;
+import pl.inventory.system.utils.IdProvider;
+import pl.inventory.system.utils.JsonService;
+
+/**
+ * Load test of the request threads: a burst of concurrent requests (reads of a room and, for a part of them,
+ * saves of an item forced with the {@code commit} sync policy) handled by the {@link FileBasedDatabase}
+ * in journal mode, along the path of the asynchronous endpoints: the request thread passes the operation
+ * to the {@link ExecutorAsyncDatabase} and is released, the operation runs on the {@link StorageExecutor}.
+ * The {@code platform} mode handles the burst with a pool of {@value #PLATFORM_THREADS} request threads
+ * (the default of Tomcat) and the bounded storage executor of the default configuration, the {@code virtual}
+ * mode with a virtual thread per request and per operation, as with {@code spring.threads.virtual.enabled=true}.
+ * The score is the time of the whole burst; the requests per second are the burst size divided by the score.
+ * <p>The operations waiting for the group commit of their saves keep the storage threads, so the batches
+ * of the group commit are at most as large as the pool of {@value #STORAGE_THREADS} threads and the operations
+ * over the capacity of its queue are rejected (answered with 503 by the endpoints). Virtual threads are unmounted
+ * while waiting, so all operations of the burst join the batches. The rejected requests of each iteration
+ * are printed.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestThreadsBenchmark {
+
+  private static final int PLATFORM_THREADS = 200;
+  private static final int STORAGE_THREADS = 16;
+  private static final int STORAGE_QUEUE_CAPACITY = 1000;
+  private static final int ITEMS = 10_000;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"200", "2000"})
+  public int burst;
+
+  @Param({"20"})
+  public int writePercent;
+
+  private final FileService fileService = new FileService("commit", 0L);
+  private final JsonService serializer = new JsonService();
+  private final AtomicLong nextItemNumber = new AtomicLong(ITEMS);
+  private final AtomicLong rejectedRequests = new AtomicLong();
+  private ExecutorService executor;
+  private StorageExecutor storageExecutor;
+  private Path directory;
+  private AsyncDatabase<Room, Item> database;
+  private Long[] roomIds;
+
+  @Setup(Level.Trial)
+  public void createExecutor() {
+    boolean virtual = "virtual".equals(threads);
+    executor = virtual
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    storageExecutor = virtual
+        ? StorageExecutor.virtual(STORAGE_THREADS + STORAGE_QUEUE_CAPACITY)
+        : StorageExecutor.bounded(STORAGE_THREADS, STORAGE_QUEUE_CAPACITY);
+  }
+
+  @Setup(Level.Iteration)
+  public void createDatabase() {
+    directory = BenchmarkData.createTempDirectory();
+    String directoryName = directory.toString();
+    FileBasedDatabase fileDatabase = new FileBasedDatabase(storage("ROOMS", directoryName), storage("ITEMS", directoryName),
+        new IdProvider(FileManager.createFile("ID_ITEM.txt", directoryName), fileService, 1000L),
+        new IdProvider(FileManager.createFile("ID_ROOM.txt", directoryName), fileService, 1000L),
+        serializer);
+    roomIds = fileDatabase.saveAll(BenchmarkData.rooms(ITEMS)).toArray(Long[]::new);
+    database = new ExecutorAsyncDatabase<>(fileDatabase, storageExecutor);
+    rejectedRequests.set(0);
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteDatabase() {
+    System.out.println("Rejected requests: " + rejectedRequests.get());
+    BenchmarkData.deleteDirectory(directory);
+  }
+
+  @TearDown(Level.Trial)
+  public void closeExecutor() {
+    executor.shutdown();
+    storageExecutor.close();
+    fileService.close();
+  }
+
+  @Benchmark
+  public void requests() throws InterruptedException, ExecutionException {
+    List<Future<CompletableFuture<?>>> requests = new ArrayList<>(burst);
+    for (int i = 0; i < burst; i++) {
+      requests.add(executor.submit(this::request));
+    }
+    for (Future<CompletableFuture<?>> request : requests) {
+      request.get().handle((result, failure) -> {
+        if (failure instanceof RejectedExecutionException) {
+          rejectedRequests.incrementAndGet();
+        } else if (failure != null) {
+          throw new IllegalStateException(failure);
+        }
+        return result;
+      }).join();
+    }
+  }
+
+  private CompletableFuture<?> request() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Long roomId = roomIds[random.nextInt(roomIds.length)];
+    if (random.nextInt(100) < writePercent) {
+      return database.saveInObjectWithProperty(roomId, BenchmarkData.item(nextItemNumber.getAndIncrement()));
+    }
+    return database.getByProperty(roomId);
+  }
+
+  private FileStorage storage(String name, String directoryName) {
+    return new JournalFileStorage(FileManager.createFile(name + ".txt", directoryName),
+        FileManager.createFile(name + "_JOURNAL.txt", directoryName), fileService, serializer);
+  }
+}
@@ -0,0 +1,61 @@
+package pl.inventory.system.utils;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.inventory.system.BenchmarkData;
+import pl.inventory.system.model.Room;
+
+/**
+ * Throughput of the binary (de)serialisation of a single room holding the given number of items,
+ * to be compared with {@link JsonServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryServiceBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  public int items;
+
+  private final BinaryService serializer = new BinaryService();
+  private Room room;
+  private String document;
+
+  @Setup
+  public void createRoom() {
+    room = Room.builder()
+        .id(1L)
+        .roomNumber("R0")
+        .itemsList(BenchmarkData.rooms(items).stream().flatMap(generated -> generated.getItemsList().stream()).toList())
+        .build();
+    document = serializer.serialize(room);
+  }
+
+  @Benchmark
+  public String serialize() {
+    return serializer.serialize(room);
+  }
+
+  @Benchmark
+  public Room deserialize() {
+    return serializer.deserialize(document, Room.class);
+  }
+
+  @Benchmark
+  public Long readId() {
+    return serializer.readId(document);
+  }
+}
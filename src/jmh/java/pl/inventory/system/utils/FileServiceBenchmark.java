@@ -0,0 +1,66 @@
+package pl.inventory.system.utils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.inventory.system.BenchmarkData;
+
+/**
+ * Throughput of writing and reading the room file with the given number of items
+ * ({@value BenchmarkData#ITEMS_PER_ROOM} items per line).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileServiceBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  public int items;
+
+  private final FileService fileService = new FileService();
+  private Path directory;
+  private Path roomFile;
+  private List<String> lines;
+
+  @Setup
+  public void createFile() {
+    directory = BenchmarkData.createTempDirectory();
+    roomFile = FileManager.createFile("ROOMS.txt", directory.toString());
+    JsonService serializer = new JsonService();
+    lines = BenchmarkData.rooms(items).stream()
+        .map(serializer::objectToJson)
+        .toList();
+    fileService.writeLinesToFile(roomFile, lines);
+  }
+
+  @TearDown
+  public void deleteFile() {
+    BenchmarkData.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public Path writeLinesToFile() {
+    fileService.writeLinesToFile(roomFile, lines);
+    return roomFile;
+  }
+
+  @Benchmark
+  public List<String> readAllFile() {
+    return fileService.readAllFile(roomFile);
+  }
+}
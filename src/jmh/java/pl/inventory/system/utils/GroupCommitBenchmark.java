@@ -0,0 +1,58 @@
+package pl.inventory.system.utils;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.inventory.system.BenchmarkData;
+
+/**
+ * Throughput of appending single lines to one file by concurrent writers with the given sync policy.
+ * With the group commit, the lines enqueued concurrently are written (and forced) together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class GroupCommitBenchmark {
+
+  @Param({"commit", "interval", "os"})
+  public String syncPolicy;
+
+  private FileService fileService;
+  private Path directory;
+  private Path journalFile;
+
+  @Setup
+  public void createFile() {
+    fileService = new FileService(syncPolicy, 10L);
+    directory = BenchmarkData.createTempDirectory();
+    journalFile = FileManager.createFile("JOURNAL.txt", directory.toString());
+  }
+
+  @TearDown
+  public void deleteFile() {
+    fileService.close();
+    BenchmarkData.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public Path appendLineToFile() {
+    fileService.appendLineToFile(journalFile, "SAVE\t1\t0\t{\"id\":1,\"roomNumber\":\"101\"}");
+    return journalFile;
+  }
+}
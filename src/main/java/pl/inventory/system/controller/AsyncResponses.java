@@ -0,0 +1,48 @@
+package pl.inventory.system.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Responses of the endpoints completed asynchronously, when the operation of the
+ * {@link pl.inventory.system.database.AsyncDatabase} is finished, so the servlet thread is released while
+ * the operation is queued or running. A failed operation is answered with 500 (INTERNAL SERVER ERROR),
+ * an operation rejected by the full storage executor with 503 (SERVICE UNAVAILABLE).
+ */
+@Slf4j
+final class AsyncResponses {
+
+  private AsyncResponses() {
+  }
+
+  /**
+   * Completes the response of the operation, handling its failure.
+   * @param response starts the operation and maps its result to the response;
+   * @param errorLog logs the failure of the operation;
+   * @return future of the response;
+   */
+  static <T> CompletableFuture<ResponseEntity<T>> of(Supplier<CompletableFuture<ResponseEntity<T>>> response,
+                                                     Consumer<Throwable> errorLog) {
+    CompletableFuture<ResponseEntity<T>> started;
+    try {
+      started = response.get();
+    } catch (RuntimeException e) {
+      started = CompletableFuture.failedFuture(e);
+    }
+    return started.exceptionally(failure -> {
+      Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+      if (cause instanceof RejectedExecutionException) {
+        log.warn("Request rejected, the queue of the storage operations is full");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+      }
+      errorLog.accept(cause);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    });
+  }
+}
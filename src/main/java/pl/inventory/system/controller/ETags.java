@@ -0,0 +1,69 @@
+package pl.inventory.system.controller;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Conditional responses of the endpoints, tagged with the version of the database content. The strong ETag
+ * of a response is the version read before its content, so the content is at least as new as the tag.
+ * A request whose {@code If-None-Match} header holds the current version is answered with 304 (NOT MODIFIED)
+ * before the content is read. The wildcard ({@code *}) matches any existing representation, so it is evaluated
+ * after the content is read: 304 if the content is found (200), the response as it is otherwise (e.g. 404).
+ * The version is read through the {@link pl.inventory.system.database.AsyncDatabase}, like the content, so
+ * a database reading it from the storage does not hold the servlet thread.
+ * Without a version (the database does not keep it) the responses are not tagged.
+ */
+final class ETags {
+
+  private ETags() {
+  }
+
+  /**
+   * Completes the response unless the client already holds the current version.
+   * @param ifNoneMatch value of the {@code If-None-Match} header (may be null);
+   * @param version     future of the current version of the content of the response;
+   * @param response    reads the content and maps it to the response, tagged if successful (200);
+   * @return future of the response;
+   */
+  static <T> CompletableFuture<ResponseEntity<T>> ifNoneMatch(String ifNoneMatch,
+                                                              CompletableFuture<Optional<Long>> version,
+                                                              Supplier<CompletableFuture<ResponseEntity<T>>> response) {
+    return version.thenCompose(current -> current.isEmpty() ? response.get() : tagged(ifNoneMatch, current.get(), response));
+  }
+
+  private static <T> CompletableFuture<ResponseEntity<T>> tagged(String ifNoneMatch,
+                                                                 Long version,
+                                                                 Supplier<CompletableFuture<ResponseEntity<T>>> response) {
+    String etag = "\"" + version + "\"";
+    if (matches(ifNoneMatch, etag)) {
+      return CompletableFuture.completedFuture(notModified(etag));
+    }
+    return response.get().thenApply(entity -> {
+      if (!HttpStatus.OK.equals(entity.getStatusCode())) {
+        return entity;
+      }
+      if (matches(ifNoneMatch, "*")) {
+        return notModified(etag);
+      }
+      return ResponseEntity.status(HttpStatus.OK).headers(entity.getHeaders()).eTag(etag).body(entity.getBody());
+    });
+  }
+
+  private static <T> ResponseEntity<T> notModified(String etag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+  }
+
+  private static boolean matches(String ifNoneMatch, String tag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    return Arrays.stream(ifNoneMatch.split(","))
+        .map(String::strip)
+        .map(listed -> listed.startsWith("W/") ? listed.substring(2) : listed)
+        .anyMatch(tag::equals);
+  }
+}
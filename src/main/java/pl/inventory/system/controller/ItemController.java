@@ -2,21 +2,33 @@ package pl.inventory.system.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.inventory.system.model.BulkResult;
+import pl.inventory.system.model.BulkResult.Status;
 import pl.inventory.system.model.Item;
-import pl.inventory.system.model.Room;
+import pl.inventory.system.model.ItemFilter;
+import pl.inventory.system.model.RoomItem;
 import pl.inventory.system.service.ItemService;
+import pl.inventory.system.utils.JsonService;
 
 @SuppressWarnings(value = {"unused"})
 @Slf4j
@@ -25,162 +37,211 @@ import pl.inventory.system.service.ItemService;
 @RequestMapping(value = {"v1/item"}, produces = {"application/json;charset=UTF-8"})
 public class ItemController {
 
+  private static final int DEFAULT_SEARCH_LIMIT = 50;
+
   private final ItemService service;
+  private final JsonService serializer;
 
   @Autowired
-  public ItemController(ItemService service) {
+  public ItemController(ItemService service, JsonService serializer) {
     this.service = service;
+    this.serializer = serializer;
   }
 
-  @Operation(method = "GET", summary = "Retrieving of all Item entities from the database")
+  @Operation(method = "GET", summary = "Retrieving of all Item entities from the database, optionally paginated (by id) and filtered")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-all"})
-  ResponseEntity<List<Item>> getAllItems() {
+  CompletableFuture<ResponseEntity<List<Item>>> getAllItems(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @ParameterObject ItemFilter filter,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                            String ifNoneMatch) {
+    if (!PageResponses.isValidLimit(limit)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+    }
+    return AsyncResponses.of(() -> {
+      if (PageResponses.isPaginated(cursor, limit, filter)) {
+        return service.getPageAsync(cursor, PageResponses.limitOrAll(limit), filter).thenApply(PageResponses::of);
+      }
+      return ETags.ifNoneMatch(ifNoneMatch, service.getVersionAsync(), () -> service.getAllAsync().thenApply(PageResponses::ofAll));
+    }, e -> log.error("Unexpected error while Items download: ", e));
+  }
+
+  @Operation(method = "GET", summary = "Streaming all Item entities from the database as NDJSON (one Item per line)")
+  @RequestMapping(method = RequestMethod.GET, value = {"/get-all"}, produces = {"application/x-ndjson;charset=UTF-8"})
+  ResponseEntity<StreamingResponseBody> streamAllItems() {
     try {
-      List<Item> itemsList = service.getAll();
-      return !itemsList.isEmpty()
-          ? ResponseEntity.status(HttpStatus.OK).body(itemsList)
-          : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+      Stream<Item> items = service.streamAll();
+      return ResponseEntity.status(HttpStatus.OK)
+          .contentType(MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+          .body(output -> {
+            try (items) {
+              serializer.writeJsonLines(output, items);
+            }
+          });
     } catch (Exception e) {
-      log.error("Unexpected error while Items download: ", e);
+      log.error("Unexpected error while Items streaming: ", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
   }
 
   @Operation(method = "GET", summary = "Retrieving an Item entity from the database by specified ID")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-by/id/{id}"})
-  ResponseEntity<Item> getItemById(@PathVariable(value = "id") Long id) {
-    try {
-      Optional<Item> optionalItem = service.getById(id);
-      return optionalItem.map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with id: {} download: ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Item>> getItemById(@PathVariable(value = "id") Long id) {
+    return AsyncResponses.of(() -> service.getByIdAsync(id).thenApply(optionalItem -> optionalItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with id: {} download: ", id, e));
   }
 
   @Operation(method = "GET", summary = "Retrieving an Item entity from the database by specified number")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-by/number/"})
-  ResponseEntity<Item> getItemByNumber(@RequestParam (value = "n") String number) {
-    try {
-      Optional<Item> optionalItem = service.getByNumber(number);
-      return optionalItem.map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with number: {} download: ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  CompletableFuture<ResponseEntity<Item>> getItemByNumber(@RequestParam (value = "n") String number) {
+    return AsyncResponses.of(() -> service.getByNumberAsync(number).thenApply(optionalItem -> optionalItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with number: {} download: ", number, e));
+  }
+
+  @Operation(method = "GET", summary = "Searching Item entities by the prefix of the inventory number or by the words "
+      + "of the description, ignoring the case and the Polish diacritics")
+  @RequestMapping(method = RequestMethod.GET, value = {"/search"})
+  CompletableFuture<ResponseEntity<List<Item>>> search(@RequestParam(value = "q") String query,
+                                                       @RequestParam(value = "limit", required = false) Integer limit) {
+    if (query.isBlank() || !PageResponses.isValidLimit(limit)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
     }
+    return AsyncResponses.of(() -> service.searchAsync(query, limit == null ? DEFAULT_SEARCH_LIMIT : limit)
+            .thenApply(PageResponses::ofAll),
+        e -> log.error("Unexpected error while searching Items by: {}", query, e));
   }
 
   @Operation(method = "PUT", summary = "Creating an Item entity in the database by specified Room ID")
   @RequestMapping(method = RequestMethod.PUT, value = {"/save-by/id/{id}"})
-  ResponseEntity<Long> saveInRoomId(@PathVariable(name = "id") Long id, @RequestBody Item item) {
-    try {
-      Optional<Room> savedRoom = service.saveToRoomId(id, item);
-      return savedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.CREATED).body(room.getId()))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while saving Item with id: {}", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Long>> saveInRoomId(@PathVariable(name = "id") Long id, @RequestBody Item item) {
+    return AsyncResponses.of(() -> service.saveToRoomIdAsync(id, item).thenApply(savedRoom -> savedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.CREATED).body(room.getId()))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while saving Item with id: {}", id, e));
   }
 
   @Operation(method = "PUT", summary = "Creating an Item entity in the database by specified Room number")
   @RequestMapping(method = RequestMethod.PUT, value = {"/save-by/number/"})
-  ResponseEntity<String> saveInRoomNumber(@RequestParam(value = "n") String number, @RequestBody Item item) {
+  CompletableFuture<ResponseEntity<String>> saveInRoomNumber(@RequestParam(value = "n") String number, @RequestBody Item item) {
+    return AsyncResponses.of(() -> service.saveToRoomNumberAsync(number, item).thenApply(savedRoom -> savedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.CREATED).body(room.getRoomNumber()))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while saving Item with number: {}", number, e));
+  }
+
+  @Operation(method = "PUT", summary = "Creating multiple Item entities (JSON array or NDJSON) in their Rooms with a single database write")
+  @RequestMapping(method = RequestMethod.PUT, value = {"/bulk"}, consumes = {"application/json", "application/x-ndjson"})
+  CompletableFuture<ResponseEntity<List<BulkResult>>> saveAll(@RequestBody String content) {
+    List<Optional<RoomItem>> records;
     try {
-      Optional<Room> savedRoom = service.saveToRoomNumber(number, item);
-      return savedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.CREATED).body(room.getRoomNumber()))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while saving Item with number: {}", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+      records = serializer.jsonRecordsToObjects(content, RoomItem.class);
+    } catch (RuntimeException e) {
+      log.warn("Items import rejected, the content is not a valid JSON array or NDJSON: {}", e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
     }
+    if (records.isEmpty()) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+    }
+    List<RoomItem> roomItems = records.stream()
+        .flatMap(Optional::stream)
+        .filter(roomItem -> roomItem.getItem() != null)
+        .toList();
+    return AsyncResponses.of(() -> service.saveAllAsync(roomItems).thenApply(savedItems -> bulkResponse(records, savedItems)),
+        e -> log.error("Unexpected error while Items import: ", e));
   }
 
-  @Operation(method = "GET", summary = "Retrieving of all Item entities from database by specified Room number")
+  @Operation(method = "GET", summary = "Retrieving of all Item entities from database by specified Room number, "
+      + "optionally paginated (by id) and filtered")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-all-by/number/"})
-  ResponseEntity<List<Item>> getAllByRoomNumber(@RequestParam(value = "n") String number) {
-    try {
-      List<Item> itemList = service.getAllByRoomNumber(number);
-      return !itemList.isEmpty()
-          ? ResponseEntity.status(HttpStatus.OK).body(itemList)
-          : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-    } catch (Exception e) {
-      log.error("Unexpected error while retrieving Items from Room number: {}", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  CompletableFuture<ResponseEntity<List<Item>>> getAllByRoomNumber(@RequestParam(value = "n") String number,
+                                                                   @RequestParam(value = "cursor", required = false) Long cursor,
+                                                                   @RequestParam(value = "limit", required = false) Integer limit,
+                                                                   @ParameterObject ItemFilter filter) {
+    if (!PageResponses.isValidLimit(limit)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
     }
+    return AsyncResponses.of(() -> {
+      if (PageResponses.isPaginated(cursor, limit, filter)) {
+        return service.getPageByRoomNumberAsync(number, cursor, PageResponses.limitOrAll(limit), filter).thenApply(PageResponses::of);
+      }
+      return service.getAllByRoomNumberAsync(number).thenApply(PageResponses::ofAll);
+    }, e -> log.error("Unexpected error while retrieving Items from Room number: {}", number, e));
   }
 
-  @Operation(method = "GET", summary = "Retrieving of all Item entities from database by specified Room ID")
+  @Operation(method = "GET", summary = "Retrieving of all Item entities from database by specified Room ID, "
+      + "optionally paginated (by id) and filtered")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-all-by/id/{id}"})
-  ResponseEntity<List<Item>> getAllByRoomId(@PathVariable(name = "id") Long id) {
-    try {
-      List<Item> itemList = service.getAllByRoomId(id);
-      return !itemList.isEmpty()
-          ? ResponseEntity.status(HttpStatus.OK).body(itemList)
-          : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-    } catch (Exception e) {
-      log.error("Unexpected error while retrieving Items from Room with id: {}", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  CompletableFuture<ResponseEntity<List<Item>>> getAllByRoomId(@PathVariable(name = "id") Long id,
+                                                               @RequestParam(value = "cursor", required = false) Long cursor,
+                                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                                               @ParameterObject ItemFilter filter,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                               String ifNoneMatch) {
+    if (!PageResponses.isValidLimit(limit)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
     }
+    return AsyncResponses.of(() -> {
+      if (PageResponses.isPaginated(cursor, limit, filter)) {
+        return service.getPageByRoomIdAsync(id, cursor, PageResponses.limitOrAll(limit), filter).thenApply(PageResponses::of);
+      }
+      return ETags.ifNoneMatch(ifNoneMatch, service.getVersionByRoomIdAsync(id),
+          () -> service.getAllByRoomIdAsync(id).thenApply(PageResponses::ofAll));
+    }, e -> log.error("Unexpected error while retrieving Items from Room with id: {}", id, e));
   }
 
   @Operation(method = "DELETE", summary = "Deleting an Item entity from the database by specified id")
   @RequestMapping(method = RequestMethod.DELETE, value = {"/delete-by/id/{id}"})
-  ResponseEntity<String> deleteByRoomId(@PathVariable(name = "id") Long id) {
-    try {
-      Optional<Item> removedItem = service.deleteById(id);
-      return removedItem
-          .map(item -> ResponseEntity.status(HttpStatus.OK).body(String.valueOf(id)))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with id: {} removing: ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<String>> deleteByRoomId(@PathVariable(name = "id") Long id) {
+    return AsyncResponses.of(() -> service.deleteByIdAsync(id).thenApply(removedItem -> removedItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(String.valueOf(id)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with id: {} removing: ", id, e));
   }
 
   @Operation(method = "DELETE", summary = "Deleting an Item entity from the database by specified number")
   @RequestMapping(method = RequestMethod.DELETE, value = {"/delete-by/number/"})
-  ResponseEntity<String> deleteByRoomNumber(@RequestParam(value = "n") String number) {
-    try {
-      Optional<Item> removedItem = service.deleteByNumber(number);
-      return removedItem
-          .map(item -> ResponseEntity.status(HttpStatus.OK).body(number))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with number: {} removing: ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<String>> deleteByRoomNumber(@RequestParam(value = "n") String number) {
+    return AsyncResponses.of(() -> service.deleteByNumberAsync(number).thenApply(removedItem -> removedItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(number))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with number: {} removing: ", number, e));
   }
 
   @Operation(method = "PUT", summary = "Updating an Item entity in the database by specified id")
   @RequestMapping(method = RequestMethod.PUT, value = {"/update-by/id/{id}"})
-  ResponseEntity<Item> updateByRoomId(@PathVariable(name = "id") Long id, @RequestBody Item updateItem) {
-    try {
-      Optional<Item> updatedItem = service.updateById(id, updateItem);
-      return updatedItem
-          .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with id: {} updating: ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Item>> updateByRoomId(@PathVariable(name = "id") Long id, @RequestBody Item updateItem) {
+    return AsyncResponses.of(() -> service.updateByIdAsync(id, updateItem).thenApply(updatedItem -> updatedItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with id: {} updating: ", id, e));
   }
 
   @Operation(method = "PUT", summary = "Updating an Item entity in the database by specified number")
   @RequestMapping(method = RequestMethod.PUT, value = {"/update-by/number/"})
-  ResponseEntity<Item> updateByRoomNumber(@RequestParam(name = "n") String number, @RequestBody Item updateItem) {
-    try {
-      Optional<Item> updatedItem = service.updateByNumber(number, updateItem);
-      return updatedItem
-          .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Unexpected error while Item with number: {} updating: ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  CompletableFuture<ResponseEntity<Item>> updateByRoomNumber(@RequestParam(name = "n") String number, @RequestBody Item updateItem) {
+    return AsyncResponses.of(() -> service.updateByNumberAsync(number, updateItem).thenApply(updatedItem -> updatedItem
+            .map(item -> ResponseEntity.status(HttpStatus.OK).body(item))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while Item with number: {} updating: ", number, e));
+  }
+
+  private static ResponseEntity<List<BulkResult>> bulkResponse(List<Optional<RoomItem>> records, List<Optional<Item>> savedItems) {
+    List<BulkResult> results = new ArrayList<>();
+    int savedIndex = 0;
+    for (int i = 0; i < records.size(); i++) {
+      if (records.get(i).map(RoomItem::getItem).isEmpty()) {
+        results.add(BulkResult.builder().index(i).status(Status.REJECTED).message("Malformed Item record").build());
+        continue;
+      }
+      Optional<Item> savedItem = savedItems.get(savedIndex++);
+      results.add(savedItem.isPresent()
+          ? BulkResult.builder().index(i).id(savedItem.get().getId()).status(Status.CREATED).build()
+          : BulkResult.builder().index(i).status(Status.NOT_FOUND).message("Room does not exist").build());
     }
+    return ResponseEntity.status(HttpStatus.OK).body(results);
   }
 }
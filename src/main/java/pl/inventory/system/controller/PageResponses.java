@@ -0,0 +1,49 @@
+package pl.inventory.system.controller;
+
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import pl.inventory.system.model.ItemFilter;
+import pl.inventory.system.model.Page;
+
+/**
+ * Responses of the paginated listing endpoints. The objects of the page are returned as the body
+ * and the cursor of the next page (if any) in the {@value #NEXT_CURSOR_HEADER} header. Without the pagination
+ * all objects are returned as the body.
+ */
+final class PageResponses {
+
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private PageResponses() {
+  }
+
+  static boolean isPaginated(Long cursor, Integer limit, ItemFilter filter) {
+    return cursor != null || limit != null || !filter.isEmpty();
+  }
+
+  static boolean isValidLimit(Integer limit) {
+    return limit == null || limit > 0;
+  }
+
+  static int limitOrAll(Integer limit) {
+    return limit == null ? Integer.MAX_VALUE : limit;
+  }
+
+  static <T> ResponseEntity<List<T>> of(Page<T> page) {
+    if (page.getContent().isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+    }
+    return response.body(page.getContent());
+  }
+
+  static <T> ResponseEntity<List<T>> ofAll(List<T> objects) {
+    return !objects.isEmpty()
+        ? ResponseEntity.status(HttpStatus.OK).body(objects)
+        : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+  }
+}
@@ -0,0 +1,49 @@
+package pl.inventory.system.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import pl.inventory.system.model.Valuation;
+import pl.inventory.system.service.ReportService;
+
+@SuppressWarnings(value = {"unused"})
+@Slf4j
+@RestController
+@Tag(name = "Report Controller")
+@RequestMapping(value = {"v1/report"}, produces = {"application/json;charset=UTF-8"})
+public class ReportController {
+
+  private final ReportService service;
+
+  @Autowired
+  public ReportController(ReportService service) {
+    this.service = service;
+  }
+
+  @Operation(method = "GET", summary = "Valuation of the whole inventory: value (quantity times price) and number "
+      + "of the items in use and of the disposed items")
+  @RequestMapping(method = RequestMethod.GET, value = {"/valuation"})
+  CompletableFuture<ResponseEntity<Valuation>> getValuation() {
+    return AsyncResponses.of(() -> service.getValuationAsync().thenApply(valuation -> valuation
+            .map(value -> ResponseEntity.status(HttpStatus.OK).body(value))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while inventory valuation: ", e));
+  }
+
+  @Operation(method = "GET", summary = "Valuation of the items of the Room with specified ID")
+  @RequestMapping(method = RequestMethod.GET, value = {"/valuation/room/{id}"})
+  CompletableFuture<ResponseEntity<Valuation>> getRoomValuation(@PathVariable(name = "id") Long id) {
+    return AsyncResponses.of(() -> service.getRoomValuationAsync(id).thenApply(valuation -> valuation
+            .map(value -> ResponseEntity.status(HttpStatus.OK).body(value))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Unexpected error while valuation of Room with id: {}", id, e));
+  }
+}
@@ -2,20 +2,32 @@ package pl.inventory.system.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import pl.inventory.system.model.BulkResult;
+import pl.inventory.system.model.BulkResult.Status;
+import pl.inventory.system.model.ItemFilter;
 import pl.inventory.system.model.Room;
 import pl.inventory.system.service.RoomService;
+import pl.inventory.system.utils.JsonService;
 
 @SuppressWarnings(value = {"unused"})
 @Slf4j
@@ -25,121 +37,153 @@ import pl.inventory.system.service.RoomService;
 public class RoomController {
 
   private final RoomService service;
+  private final JsonService serializer;
 
   @Autowired
-  public RoomController(RoomService service) {
+  public RoomController(RoomService service, JsonService serializer) {
     this.service = service;
+    this.serializer = serializer;
   }
 
   @Operation(method = "POST", summary = "Creation of Room entities in the database")
   @RequestMapping(method = RequestMethod.POST, value = {"/save"})
-  ResponseEntity<Long> save(@RequestBody Room room) {
+  CompletableFuture<ResponseEntity<Long>> save(@RequestBody Room room) {
+    return AsyncResponses.of(() -> service.saveAsync(room).thenApply(RoomController::savedResponse),
+        e -> log.error("Unexpected error while Room saving: ", e));
+  }
+
+  @Operation(method = "POST", summary = "Creation of multiple Room entities (JSON array or NDJSON) with a single database write")
+  @RequestMapping(method = RequestMethod.POST, value = {"/bulk"}, consumes = {"application/json", "application/x-ndjson"})
+  CompletableFuture<ResponseEntity<List<BulkResult>>> saveAll(@RequestBody String content) {
+    List<Optional<Room>> records;
     try {
-      Long savedRoomId = service.save(room);
-      return savedRoomId > 0
-          ? ResponseEntity.status(HttpStatus.CREATED).body(savedRoomId)
-          : ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-    } catch (Exception e) {
-      log.error("Unexpected error while Room saving: ", e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+      records = serializer.jsonRecordsToObjects(content, Room.class);
+    } catch (RuntimeException e) {
+      log.warn("Rooms import rejected, the content is not a valid JSON array or NDJSON: {}", e.getMessage());
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+    }
+    if (records.isEmpty()) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
     }
+    List<Room> rooms = records.stream()
+        .flatMap(Optional::stream)
+        .toList();
+    return AsyncResponses.of(() -> service.saveAllAsync(rooms).thenApply(savedRoomIds -> bulkResponse(records, savedRoomIds)),
+        e -> log.error("Unexpected error while Rooms import: ", e));
   }
 
-  @Operation(method = "GET", summary = "Retrieving all Room entities from the database")
+  @Operation(method = "GET", summary = "Retrieving all Room entities from the database, optionally paginated (by id) "
+      + "and limited to the Rooms containing Items meeting the filter")
   @RequestMapping(method = RequestMethod.GET, value = {"/get/all"})
-  ResponseEntity<List<Room>> getAll() {
+  CompletableFuture<ResponseEntity<List<Room>>> getAll(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                       @RequestParam(value = "limit", required = false) Integer limit,
+                                                       @ParameterObject ItemFilter filter,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                       String ifNoneMatch) {
+    if (!PageResponses.isValidLimit(limit)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+    }
+    return AsyncResponses.of(() -> {
+      if (PageResponses.isPaginated(cursor, limit, filter)) {
+        return service.getPageAsync(cursor, PageResponses.limitOrAll(limit), filter).thenApply(PageResponses::of);
+      }
+      return ETags.ifNoneMatch(ifNoneMatch, service.getVersionAsync(), () -> service.getAllAsync().thenApply(PageResponses::ofAll));
+    }, e -> log.error("Error occurred in RoomController while fetching all rooms: ", e));
+  }
+
+  @Operation(method = "GET", summary = "Streaming all Room entities from the database as NDJSON (one Room per line)")
+  @RequestMapping(method = RequestMethod.GET, value = {"/get/all"}, produces = {"application/x-ndjson;charset=UTF-8"})
+  ResponseEntity<StreamingResponseBody> streamAll() {
     try {
-      List<Room> roomList = service.getAll();
-      return !roomList.isEmpty()
-          ? ResponseEntity.ok(roomList)
-          : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+      Stream<Room> rooms = service.streamAll();
+      return ResponseEntity.status(HttpStatus.OK)
+          .contentType(MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+          .body(output -> {
+            try (rooms) {
+              serializer.writeJsonLines(output, rooms);
+            }
+          });
     } catch (Exception e) {
-      log.error("Error occurred in RoomController while fetching all rooms: ", e);
+      log.error("Error occurred in RoomController while streaming all rooms: ", e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
   }
 
   @Operation(method = "GET", summary = "Retrieving Room entity by specified ID from the database")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-by/id/{id}"})
-  ResponseEntity<Room> getById(@PathVariable(name = "id") Long id) {
-    try {
-      Optional<Room> searchedRoom = service.getById(id);
-      return searchedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while fetching room (id {}): ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Room>> getById(@PathVariable(name = "id") Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return AsyncResponses.of(() -> ETags.ifNoneMatch(ifNoneMatch, service.getVersionByIdAsync(id),
+            () -> service.getByIdAsync(id).thenApply(searchedRoom -> searchedRoom
+                .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build()))),
+        e -> log.error("Error occurred in RoomController while fetching room (id {}): ", id, e));
   }
 
   @Operation(method = "GET", summary = "Retrieving Room entity by specified number from the database")
   @RequestMapping(method = RequestMethod.GET, value = {"/get-by/number/"})
-  ResponseEntity<Room> getByNumber(@RequestParam(value = "n") String number) {
-    try {
-      Optional<Room> searchedRoom = service.getByNumber(number);
-      return searchedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while fetching room (number {}): ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Room>> getByNumber(@RequestParam(value = "n") String number) {
+    return AsyncResponses.of(() -> service.getByNumberAsync(number).thenApply(searchedRoom -> searchedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Error occurred in RoomController while fetching room (number {}): ", number, e));
   }
 
   @Operation(method = "DELETE", summary = "Deletion of Room entity by specified ID from the database")
   @RequestMapping(method = RequestMethod.DELETE, value = {"/delete-by/id/{id}"})
-  ResponseEntity<String> deleteById(@PathVariable(name = "id") Long id) {
-    try {
-      Optional<Room> removedRoom = service.deleteById(id);
-      return removedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(String.valueOf(id)))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while room removing (id {}): ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<String>> deleteById(@PathVariable(name = "id") Long id) {
+    return AsyncResponses.of(() -> service.deleteByIdAsync(id).thenApply(removedRoom -> removedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.OK).body(String.valueOf(id)))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Error occurred in RoomController while room removing (id {}): ", id, e));
   }
 
   @Operation(method = "DELETE", summary = "Deletion of Room entity by specified number from the database")
   @RequestMapping(method = RequestMethod.DELETE, value = {"/delete-by/number/"})
-  ResponseEntity<String> deleteByNumber(@RequestParam(name = "n") String number) {
-    try {
-      Optional<Room> removedRoom = service.deleteByNumber(number);
-      return removedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(number))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while room removing (number {}): ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<String>> deleteByNumber(@RequestParam(name = "n") String number) {
+    return AsyncResponses.of(() -> service.deleteByNumberAsync(number).thenApply(removedRoom -> removedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.OK).body(number))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Error occurred in RoomController while room removing (number {}): ", number, e));
   }
 
   @Operation(method = "PUT", summary = "Updating of Room entity by specified ID")
   @RequestMapping(method = RequestMethod.PUT, value = {"/update-by/id/{id}"})
-  ResponseEntity<Room> updateById(@PathVariable(name = "id") Long id, @RequestBody Room updateRoom) {
-    try {
-      Optional<Room> updatedRoom = service.updateById(id, updateRoom);
-      return updatedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while room updating (id {}): ", id, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+  CompletableFuture<ResponseEntity<Room>> updateById(@PathVariable(name = "id") Long id, @RequestBody Room updateRoom) {
+    return AsyncResponses.of(() -> service.updateByIdAsync(id, updateRoom).thenApply(updatedRoom -> updatedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Error occurred in RoomController while room updating (id {}): ", id, e));
   }
 
   @Operation(method = "PUT", summary = "Updating of Room entity by specified number")
   @RequestMapping(method = RequestMethod.PUT, value = {"/update-by/number/"})
-  ResponseEntity<Room> updateByNumber(@RequestParam(value = "n") String number, @RequestBody Room updateRoom) {
-    try {
-      Optional<Room> updatedRoom = service.updateByNumber(number, updateRoom);
-      return updatedRoom
-          .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
-          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
-    } catch (Exception e) {
-      log.error("Error occurred in RoomController while room updating (number {}): ", number, e);
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+  CompletableFuture<ResponseEntity<Room>> updateByNumber(@RequestParam(value = "n") String number, @RequestBody Room updateRoom) {
+    return AsyncResponses.of(() -> service.updateByNumberAsync(number, updateRoom).thenApply(updatedRoom -> updatedRoom
+            .map(room -> ResponseEntity.status(HttpStatus.OK).body(room))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build())),
+        e -> log.error("Error occurred in RoomController while room updating (number {}): ", number, e));
+  }
+
+  private static ResponseEntity<Long> savedResponse(Long savedRoomId) {
+    return savedRoomId > 0
+        ? ResponseEntity.status(HttpStatus.CREATED).body(savedRoomId)
+        : ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+  }
+
+  private static ResponseEntity<List<BulkResult>> bulkResponse(List<Optional<Room>> records, List<Long> savedRoomIds) {
+    List<BulkResult> results = new ArrayList<>();
+    int savedIndex = 0;
+    for (int i = 0; i < records.size(); i++) {
+      if (records.get(i).isEmpty()) {
+        results.add(BulkResult.builder().index(i).status(Status.REJECTED).message("Malformed Room record").build());
+        continue;
+      }
+      Long savedRoomId = savedRoomIds.get(savedIndex++);
+      results.add(savedRoomId > 0
+          ? BulkResult.builder().index(i).id(savedRoomId).status(Status.CREATED).build()
+          : BulkResult.builder().index(i).status(Status.REJECTED).message("Room must contain at least one Item").build());
     }
+    return ResponseEntity.status(HttpStatus.OK).body(results);
   }
 }
@@ -0,0 +1,67 @@
+package pl.inventory.system.database;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Asynchronous counterpart of the {@link Database}: every operation returns at once and its result
+ * is delivered by a {@link CompletableFuture}, so the callers can overlap the operations or release
+ * their threads while the operation waits for the storage. The futures are completed exceptionally
+ * with the exception thrown by the operation, or with a
+ * {@link java.util.concurrent.RejectedExecutionException} if the operation could not be queued.
+ */
+public interface AsyncDatabase<T1, T2> {
+
+  CompletableFuture<Long> save(T1 item);
+
+  CompletableFuture<List<Long>> saveAll(List<T1> items);
+
+  CompletableFuture<List<T1>> getAll();
+
+  CompletableFuture<Stream<T1>> streamAll();
+
+  CompletableFuture<Page<T1>> getPage(Long cursor, int limit, Predicate<? super T2> itemFilter);
+
+  <P> CompletableFuture<Optional<T1>> getByProperty(P prop);
+
+  <P> CompletableFuture<Optional<T1>> updateByProperty(P prop, T1 updateItem);
+
+  <P> CompletableFuture<Optional<T1>> deleteByProperty(P prop);
+
+  CompletableFuture<List<T2>> getAllItems();
+
+  CompletableFuture<Stream<T2>> streamAllItems();
+
+  <P> CompletableFuture<Optional<T1>> saveInObjectWithProperty(P objectProperty, T2 item);
+
+  <P> CompletableFuture<List<Optional<T2>>> saveAllInObjectsWithProperty(List<Map.Entry<P, T2>> items);
+
+  <P> CompletableFuture<List<T2>> getAllFromObjectWithProperty(P objectProperty);
+
+  CompletableFuture<Page<T2>> getItemsPage(Long cursor, int limit, Predicate<? super T2> itemFilter);
+
+  <P> CompletableFuture<Page<T2>> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit,
+                                                                     Predicate<? super T2> itemFilter);
+
+  CompletableFuture<List<T2>> searchItems(String query, int limit);
+
+  CompletableFuture<Optional<Long>> getVersion();
+
+  <P> CompletableFuture<Optional<Long>> getVersionOfObjectWithProperty(P objectProperty);
+
+  CompletableFuture<Optional<Valuation>> getValuation();
+
+  <P> CompletableFuture<Optional<Valuation>> getValuationOfObjectWithProperty(P objectProperty);
+
+  <P> CompletableFuture<Optional<T2>> getItemByProperty(P itemProperty);
+
+  <P> CompletableFuture<Optional<T2>> deleteItemByProperty(P itemProperty);
+
+  <P> CompletableFuture<Optional<T2>> updateItemByProperty(P itemProperty, T2 updateItem);
+}
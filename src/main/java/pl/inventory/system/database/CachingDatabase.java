@@ -0,0 +1,419 @@
+package pl.inventory.system.database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Caching decorator of a room {@link Database}, keeping the recently read rooms (with their items) in memory.
+ * The cache is bounded by its weight, measured in items (a room without items weighs 1), and the least recently
+ * used rooms are evicted first. Only the lookups of a single room are served from the cache, all other reads
+ * and all writes are passed to the decorated database.
+ * <p>Every write invalidates the cached rooms it may change (resolved by the room id or number, or by the id
+ * or number of the written item). A room read while a write is in progress is not cached, so the cache never
+ * keeps a room older than the last write. Cached rooms are copied on the way in and out, so the callers cannot
+ * modify them.</p>
+ */
+@Slf4j
+public final class CachingDatabase implements Database<Room, Item> {
+
+  private final Database<Room, Item> database;
+  private final long maxWeight;
+  private final Lock cacheLock = new ReentrantLock();
+  private final LinkedHashMap<Long, Room> rooms = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Long> roomIdsByNumber = new HashMap<>();
+  private final Map<Long, Long> roomIdsByItemId = new HashMap<>();
+  private final Map<String, Long> roomIdsByItemNumber = new HashMap<>();
+  private long weight;
+  private long generation;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates the decorator.
+   * @param database  decorated {@link Database};
+   * @param maxWeight maximum total number of the items of the cached rooms;
+   */
+  public CachingDatabase(Database<Room, Item> database, long maxWeight) {
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("Maximum weight of the cache must be positive");
+    }
+    this.database = database;
+    this.maxWeight = maxWeight;
+  }
+
+  @Override
+  public Long save(Room item) {
+    try {
+      return database.save(item);
+    } finally {
+      invalidateRoomsNumbered(Stream.ofNullable(item));
+    }
+  }
+
+  @Override
+  public List<Long> saveAll(List<Room> items) {
+    try {
+      return database.saveAll(items);
+    } finally {
+      invalidateRoomsNumbered(items.stream());
+    }
+  }
+
+  @Override
+  public List<Room> getAll() {
+    return database.getAll();
+  }
+
+  @Override
+  public Stream<Room> streamAll() {
+    return database.streamAll();
+  }
+
+  @Override
+  public Page<Room> getPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return database.getPage(cursor, limit, itemFilter);
+  }
+
+  @Override
+  public <P> Optional<Room> getByProperty(P prop) {
+    long readGeneration;
+    cacheLock.lock();
+    try {
+      Room cached = cachedRoom(prop);
+      if (cached != null) {
+        hits++;
+        return Optional.of(copy(cached));
+      }
+      misses++;
+      readGeneration = generation;
+    } finally {
+      cacheLock.unlock();
+    }
+    Optional<Room> room = database.getByProperty(prop);
+    room.filter(found -> found.getId() != null)
+        .ifPresent(found -> cache(found, readGeneration));
+    return room;
+  }
+
+  @Override
+  public <P> Optional<Room> updateByProperty(P prop, Room updateItem) {
+    Optional<Room> updated = Optional.empty();
+    try {
+      updated = database.updateByProperty(prop, updateItem);
+      return updated;
+    } finally {
+      invalidateRoom(prop, updated);
+    }
+  }
+
+  @Override
+  public <P> Optional<Room> deleteByProperty(P prop) {
+    Optional<Room> deleted = Optional.empty();
+    try {
+      deleted = database.deleteByProperty(prop);
+      return deleted;
+    } finally {
+      invalidateRoom(prop, deleted);
+    }
+  }
+
+  @Override
+  public List<Item> getAllItems() {
+    return database.getAllItems();
+  }
+
+  @Override
+  public Stream<Item> streamAllItems() {
+    return database.streamAllItems();
+  }
+
+  @Override
+  public <P> Optional<Room> saveInObjectWithProperty(P objectProperty, Item item) {
+    Optional<Room> room = Optional.empty();
+    try {
+      room = database.saveInObjectWithProperty(objectProperty, item);
+      return room;
+    } finally {
+      invalidateRoom(objectProperty, room);
+    }
+  }
+
+  @Override
+  public <P> List<Optional<Item>> saveAllInObjectsWithProperty(List<Map.Entry<P, Item>> items) {
+    try {
+      return database.saveAllInObjectsWithProperty(items);
+    } finally {
+      invalidate(() -> items.forEach(entry -> removeRoom(roomIdOf(entry.getKey()))));
+    }
+  }
+
+  /**
+   * Returns the items of the cached room, the lookups of not cached rooms are passed to the decorated database.
+   */
+  @Override
+  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
+    cacheLock.lock();
+    try {
+      Room cached = cachedRoom(objectProperty);
+      if (cached != null) {
+        hits++;
+        return copy(cached).getItemsList();
+      }
+      misses++;
+    } finally {
+      cacheLock.unlock();
+    }
+    return database.getAllFromObjectWithProperty(objectProperty);
+  }
+
+  @Override
+  public Page<Item> getItemsPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return database.getItemsPage(cursor, limit, itemFilter);
+  }
+
+  @Override
+  public <P> Page<Item> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return database.getItemsPageFromObjectWithProperty(objectProperty, cursor, limit, itemFilter);
+  }
+
+  @Override
+  public List<Item> searchItems(String query, int limit) {
+    return database.searchItems(query, limit);
+  }
+
+  @Override
+  public Optional<Long> getVersion() {
+    return database.getVersion();
+  }
+
+  @Override
+  public <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    return database.getVersionOfObjectWithProperty(objectProperty);
+  }
+
+  @Override
+  public Optional<Valuation> getValuation() {
+    return database.getValuation();
+  }
+
+  @Override
+  public <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    return database.getValuationOfObjectWithProperty(objectProperty);
+  }
+
+  @Override
+  public <P> Optional<Item> getItemByProperty(P itemProperty) {
+    return database.getItemByProperty(itemProperty);
+  }
+
+  @Override
+  public <P> Optional<Item> deleteItemByProperty(P itemProperty) {
+    Optional<Item> deleted = Optional.empty();
+    try {
+      deleted = database.deleteItemByProperty(itemProperty);
+      return deleted;
+    } finally {
+      invalidateRoomOfItem(itemProperty, deleted);
+    }
+  }
+
+  @Override
+  public <P> Optional<Item> updateItemByProperty(P itemProperty, Item updateItem) {
+    Optional<Item> updated = Optional.empty();
+    try {
+      updated = database.updateItemByProperty(itemProperty, updateItem);
+      return updated;
+    } finally {
+      invalidateRoomOfItem(itemProperty, updated);
+    }
+  }
+
+  /**
+   * Returns the counters of the cache.
+   * @return {@link Stats} with the current values;
+   */
+  public Stats stats() {
+    cacheLock.lock();
+    try {
+      return new Stats(hits, misses, evictions, rooms.size(), weight);
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private void cache(Room room, long readGeneration) {
+    long roomWeight = weightOf(room);
+    if (roomWeight > maxWeight) {
+      return;
+    }
+    Room cached = copy(room);
+    cacheLock.lock();
+    try {
+      if (readGeneration != generation || rooms.containsKey(cached.getId())) {
+        return;
+      }
+      rooms.put(cached.getId(), cached);
+      index(cached, cached.getId());
+      weight += roomWeight;
+      evictExceedingWeight();
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private void evictExceedingWeight() {
+    Iterator<Room> leastRecentlyUsed = rooms.values().iterator();
+    while (weight > maxWeight && leastRecentlyUsed.hasNext()) {
+      Room evicted = leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+      unindex(evicted);
+      weight -= weightOf(evicted);
+      evictions++;
+    }
+  }
+
+  /**
+   * Resolves the cached room by its id ({@link Long}) or its number ({@link String}), has to be called under the lock.
+   */
+  private <P> Room cachedRoom(P property) {
+    Long roomId = roomIdOf(property);
+    return roomId != null ? rooms.get(roomId) : null;
+  }
+
+  private <P> Long roomIdOf(P property) {
+    if (property instanceof Long id) {
+      return id;
+    } else if (property instanceof String number) {
+      return roomIdsByNumber.get(normalise(number));
+    }
+    return null;
+  }
+
+  private <P> void invalidateRoom(P property, Optional<Room> writtenRoom) {
+    invalidate(() -> {
+      removeRoom(roomIdOf(property));
+      writtenRoom.map(Room::getId).ifPresent(this::removeRoom);
+    });
+  }
+
+  private <P> void invalidateRoomOfItem(P itemProperty, Optional<Item> writtenItem) {
+    invalidate(() -> {
+      if (itemProperty instanceof Long itemId) {
+        removeRoom(roomIdsByItemId.get(itemId));
+      } else if (itemProperty instanceof String inventoryNumber) {
+        removeRoom(roomIdsByItemNumber.get(normalise(inventoryNumber)));
+      }
+      writtenItem.map(Item::getId).map(roomIdsByItemId::get).ifPresent(this::removeRoom);
+    });
+  }
+
+  private void invalidateRoomsNumbered(Stream<Room> savedRooms) {
+    List<String> numbers = savedRooms
+        .filter(room -> room != null && room.getRoomNumber() != null)
+        .map(Room::getRoomNumber)
+        .toList();
+    invalidate(() -> numbers.forEach(number -> removeRoom(roomIdsByNumber.get(normalise(number)))));
+  }
+
+  /**
+   * Applies the invalidation and starts a new generation, so the rooms read before the write are not cached.
+   */
+  private void invalidate(Runnable invalidation) {
+    cacheLock.lock();
+    try {
+      generation++;
+      invalidation.run();
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  private void removeRoom(Long roomId) {
+    Room removed = roomId != null ? rooms.remove(roomId) : null;
+    if (removed != null) {
+      unindex(removed);
+      weight -= weightOf(removed);
+    }
+  }
+
+  private void index(Room room, Long roomId) {
+    if (room.getRoomNumber() != null) {
+      roomIdsByNumber.put(normalise(room.getRoomNumber()), roomId);
+    }
+    itemsOf(room).forEach(item -> {
+      roomIdsByItemId.put(item.getId(), roomId);
+      if (item.getInventoryNumber() != null) {
+        roomIdsByItemNumber.put(normalise(item.getInventoryNumber()), roomId);
+      }
+    });
+  }
+
+  private void unindex(Room room) {
+    if (room.getRoomNumber() != null) {
+      roomIdsByNumber.remove(normalise(room.getRoomNumber()), room.getId());
+    }
+    itemsOf(room).forEach(item -> {
+      roomIdsByItemId.remove(item.getId(), room.getId());
+      if (item.getInventoryNumber() != null) {
+        roomIdsByItemNumber.remove(normalise(item.getInventoryNumber()), room.getId());
+      }
+    });
+  }
+
+  /**
+   * The room and inventory numbers are looked up case-insensitively by the databases, so they are keyed in upper case.
+   */
+  private static String normalise(String number) {
+    return number.toUpperCase(Locale.ROOT);
+  }
+
+  private static long weightOf(Room room) {
+    return Math.max(1, itemsOf(room).size());
+  }
+
+  private static List<Item> itemsOf(Room room) {
+    return room.getItemsList() != null ? room.getItemsList() : List.of();
+  }
+
+  private static Room copy(Room room) {
+    return room.toBuilder()
+        .itemsList(room.getItemsList() == null ? null : room.getItemsList().stream()
+            .map(CachingDatabase::copy)
+            .collect(Collectors.toCollection(ArrayList::new)))
+        .build();
+  }
+
+  private static Item copy(Item item) {
+    return item.toBuilder()
+        .user(item.getUser() == null ? null : item.getUser().toBuilder().build())
+        .build();
+  }
+
+  /**
+   * Counters of the cache, for sizing its maximum weight.
+   * @param hits      number of the lookups served from the cache;
+   * @param misses    number of the lookups passed to the decorated database;
+   * @param evictions number of the rooms evicted to keep the maximum weight;
+   * @param size      number of the cached rooms;
+   * @param weight    total number of the items of the cached rooms;
+   */
+  public record Stats(long hits, long misses, long evictions, int size, long weight) {
+  }
+}
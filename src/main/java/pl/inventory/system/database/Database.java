@@ -1,17 +1,36 @@
 package pl.inventory.system.database;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import pl.inventory.system.model.InternallyStorable;
+import pl.inventory.system.model.Page;
 import pl.inventory.system.model.Storable;
+import pl.inventory.system.model.Valuation;
 
 @SuppressWarnings(value = "unused")
 public interface Database<T1 extends Storable, T2 extends InternallyStorable> {
 
   Long save(T1 item);
 
+  default List<Long> saveAll(List<T1> items) {
+    return items.stream()
+        .map(this::save)
+        .toList();
+  }
+
   List<T1> getAll();
 
+  default Stream<T1> streamAll() {
+    return getAll().stream();
+  }
+
+  default Page<T1> getPage(Long cursor, int limit, Predicate<? super T2> itemFilter) {
+    return Page.empty();
+  }
+
   <P> Optional<T1> getByProperty(P prop);
 
   <P> Optional<T1> updateByProperty(P prop, T1 updateItem);
@@ -22,14 +41,53 @@ public interface Database<T1 extends Storable, T2 extends InternallyStorable> {
     return null;
   }
 
+  default Stream<T2> streamAllItems() {
+    List<T2> items = getAllItems();
+    return items != null ? items.stream() : Stream.empty();
+  }
+
   default <P> Optional<T1> saveInObjectWithProperty(P objectProperty, T2 item) {
     return Optional.empty();
   }
 
+  default <P> List<Optional<T2>> saveAllInObjectsWithProperty(List<Map.Entry<P, T2>> items) {
+    return items.stream()
+        .map(entry -> saveInObjectWithProperty(entry.getKey(), entry.getValue()).map(object -> entry.getValue()))
+        .toList();
+  }
+
   default <P> List<T2> getAllFromObjectWithProperty(P objectProperty) {
     return List.of();
   }
 
+  default Page<T2> getItemsPage(Long cursor, int limit, Predicate<? super T2> itemFilter) {
+    return Page.empty();
+  }
+
+  default <P> Page<T2> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit, Predicate<? super T2> itemFilter) {
+    return Page.empty();
+  }
+
+  default List<T2> searchItems(String query, int limit) {
+    return List.of();
+  }
+
+  default Optional<Long> getVersion() {
+    return Optional.empty();
+  }
+
+  default <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    return Optional.empty();
+  }
+
+  default Optional<Valuation> getValuation() {
+    return Optional.empty();
+  }
+
+  default <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    return Optional.empty();
+  }
+
   default <P> Optional<T2> getItemByProperty(P itemProperty) {
     return Optional.empty();
   }
@@ -0,0 +1,84 @@
+package pl.inventory.system.database;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+
+/**
+ * Builds the room database used by the services: the database of the selected implementation, behind
+ * the {@link CachingDatabase} if a positive maximum weight of the cache is configured, measured by the
+ * {@link TimedDatabase}. The counters of the cache are published as meters.
+ * <p>The asynchronous operations of the services go through the {@link ExecutorAsyncDatabase}, which runs them
+ * on the {@link StorageExecutor}: a pool of {@code storage_threads} threads with a queue of at most
+ * {@code storage_queue_capacity} waiting operations, or (with {@code spring.threads.virtual.enabled})
+ * a virtual thread per operation, at most {@code storage_threads + storage_queue_capacity} operations at a time.</p>
+ */
+@Slf4j
+@Configuration
+@SuppressWarnings("unused")
+public class DatabaseConfig {
+
+  @Bean
+  @Primary
+  public Database<Room, Item> database(
+      @Qualifier("roomDatabase") Database<Room, Item> roomDatabase,
+      @Value("${inventory_system.database.cache_max_weight:0}") long cacheMaxWeight,
+      MeterRegistry meterRegistry) {
+    Database<Room, Item> database = roomDatabase;
+    if (cacheMaxWeight > 0) {
+      CachingDatabase cache = new CachingDatabase(roomDatabase, cacheMaxWeight);
+      bindCacheMeters(cache, meterRegistry);
+      database = cache;
+      log.debug("Room cache has been enabled (maximum weight: {} items)", cacheMaxWeight);
+    }
+    return new TimedDatabase(database, meterRegistry);
+  }
+
+  @Bean
+  public StorageExecutor storageExecutor(
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+      @Value("${inventory_system.database.storage_threads:16}") int storageThreads,
+      @Value("${inventory_system.database.storage_queue_capacity:1000}") int storageQueueCapacity) {
+    if (virtualThreads) {
+      log.debug("Storage operations run on virtual threads (at most {} at a time)", storageThreads + storageQueueCapacity);
+      return StorageExecutor.virtual(storageThreads + storageQueueCapacity);
+    }
+    return StorageExecutor.bounded(storageThreads, storageQueueCapacity);
+  }
+
+  @Bean
+  public AsyncDatabase<Room, Item> asyncDatabase(Database<Room, Item> database, StorageExecutor storageExecutor) {
+    return new ExecutorAsyncDatabase<>(database, storageExecutor);
+  }
+
+  private static void bindCacheMeters(CachingDatabase cache, MeterRegistry meterRegistry) {
+    counter(meterRegistry, "inventory.database.cache.hits", "Lookups served from the room cache", cache, stats -> stats.hits());
+    counter(meterRegistry, "inventory.database.cache.misses", "Lookups passed to the database", cache, stats -> stats.misses());
+    counter(meterRegistry, "inventory.database.cache.evictions", "Rooms evicted from the cache", cache, stats -> stats.evictions());
+    Gauge.builder("inventory.database.cache.size", cache, c -> c.stats().size())
+        .description("Number of the cached rooms")
+        .register(meterRegistry);
+    Gauge.builder("inventory.database.cache.weight", cache, c -> c.stats().weight())
+        .description("Number of the items of the cached rooms")
+        .register(meterRegistry);
+  }
+
+  private static void counter(MeterRegistry meterRegistry,
+                              String name,
+                              String description,
+                              CachingDatabase cache,
+                              ToDoubleFunction<CachingDatabase.Stats> count) {
+    FunctionCounter.builder(name, cache, c -> count.applyAsDouble(c.stats()))
+        .description(description)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,153 @@
+package pl.inventory.system.database;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * {@link AsyncDatabase} running the operations of a synchronous {@link Database} on the {@link StorageExecutor}.
+ * The futures of the operations rejected by the executor fail with
+ * {@link java.util.concurrent.RejectedExecutionException}. With {@link StorageExecutor#direct()} the operations
+ * run on the calling thread and the futures are completed when returned.
+ */
+public final class ExecutorAsyncDatabase<T1, T2> implements AsyncDatabase<T1, T2> {
+
+  private final Database<T1, T2> database;
+  private final StorageExecutor executor;
+
+  /**
+   * Creates the asynchronous database.
+   * @param database {@link Database} performing the operations;
+   * @param executor {@link StorageExecutor} running the operations;
+   */
+  public ExecutorAsyncDatabase(Database<T1, T2> database, StorageExecutor executor) {
+    this.database = database;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<Long> save(T1 item) {
+    return submit(() -> database.save(item));
+  }
+
+  @Override
+  public CompletableFuture<List<Long>> saveAll(List<T1> items) {
+    return submit(() -> database.saveAll(items));
+  }
+
+  @Override
+  public CompletableFuture<List<T1>> getAll() {
+    return submit(database::getAll);
+  }
+
+  @Override
+  public CompletableFuture<Stream<T1>> streamAll() {
+    return submit(database::streamAll);
+  }
+
+  @Override
+  public CompletableFuture<Page<T1>> getPage(Long cursor, int limit, Predicate<? super T2> itemFilter) {
+    return submit(() -> database.getPage(cursor, limit, itemFilter));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T1>> getByProperty(P prop) {
+    return submit(() -> database.getByProperty(prop));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T1>> updateByProperty(P prop, T1 updateItem) {
+    return submit(() -> database.updateByProperty(prop, updateItem));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T1>> deleteByProperty(P prop) {
+    return submit(() -> database.deleteByProperty(prop));
+  }
+
+  @Override
+  public CompletableFuture<List<T2>> getAllItems() {
+    return submit(database::getAllItems);
+  }
+
+  @Override
+  public CompletableFuture<Stream<T2>> streamAllItems() {
+    return submit(database::streamAllItems);
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T1>> saveInObjectWithProperty(P objectProperty, T2 item) {
+    return submit(() -> database.saveInObjectWithProperty(objectProperty, item));
+  }
+
+  @Override
+  public <P> CompletableFuture<List<Optional<T2>>> saveAllInObjectsWithProperty(List<Map.Entry<P, T2>> items) {
+    return submit(() -> database.saveAllInObjectsWithProperty(items));
+  }
+
+  @Override
+  public <P> CompletableFuture<List<T2>> getAllFromObjectWithProperty(P objectProperty) {
+    return submit(() -> database.getAllFromObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public CompletableFuture<Page<T2>> getItemsPage(Long cursor, int limit, Predicate<? super T2> itemFilter) {
+    return submit(() -> database.getItemsPage(cursor, limit, itemFilter));
+  }
+
+  @Override
+  public <P> CompletableFuture<Page<T2>> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit,
+                                                                            Predicate<? super T2> itemFilter) {
+    return submit(() -> database.getItemsPageFromObjectWithProperty(objectProperty, cursor, limit, itemFilter));
+  }
+
+  @Override
+  public CompletableFuture<List<T2>> searchItems(String query, int limit) {
+    return submit(() -> database.searchItems(query, limit));
+  }
+
+  @Override
+  public CompletableFuture<Optional<Long>> getVersion() {
+    return submit(database::getVersion);
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<Long>> getVersionOfObjectWithProperty(P objectProperty) {
+    return submit(() -> database.getVersionOfObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public CompletableFuture<Optional<Valuation>> getValuation() {
+    return submit(database::getValuation);
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<Valuation>> getValuationOfObjectWithProperty(P objectProperty) {
+    return submit(() -> database.getValuationOfObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T2>> getItemByProperty(P itemProperty) {
+    return submit(() -> database.getItemByProperty(itemProperty));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T2>> deleteItemByProperty(P itemProperty) {
+    return submit(() -> database.deleteItemByProperty(itemProperty));
+  }
+
+  @Override
+  public <P> CompletableFuture<Optional<T2>> updateItemByProperty(P itemProperty, T2 updateItem) {
+    return submit(() -> database.updateItemByProperty(itemProperty, updateItem));
+  }
+
+  private <R> CompletableFuture<R> submit(Supplier<R> operation) {
+    return executor.submit(operation);
+  }
+}
@@ -0,0 +1,161 @@
+package pl.inventory.system.database;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import pl.inventory.system.model.Item;
+
+/**
+ * Search index of the items, over the words of their descriptions and their inventory numbers. Words and numbers
+ * are folded (lower-cased, with the Polish diacritics replaced by the base letters), so e.g. "KRZESŁO" is found
+ * by "krzeslo" and "PŚT-11/1" by "pst-11/". The words are kept in a hash map of the item ids, the numbers
+ * in a sorted map, where the numbers starting with a prefix form a single range of the keys.
+ * The class is not thread-safe, the access has to be guarded by the owning database. The databases not keeping
+ * the index search the same folded words and numbers with {@link #fold} and {@link #words}.
+ */
+public final class ItemSearchIndex {
+
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final NavigableSet<Long> EMPTY = Collections.emptyNavigableSet();
+
+  private final Map<Long, IndexedText> textsById = new HashMap<>();
+  private final Map<String, NavigableSet<Long>> itemIdsByWord = new HashMap<>();
+  private final NavigableMap<String, NavigableSet<Long>> itemIdsByNumber = new TreeMap<>();
+
+  /**
+   * Indexes the number and the description of the item, replacing the previous entries of the item.
+   * @param item stored {@link Item} (with assigned id);
+   */
+  public void index(Item item) {
+    remove(item.getId());
+    IndexedText text = new IndexedText(item.getNumber() == null ? null : fold(item.getNumber()), words(item.getDescription()));
+    textsById.put(item.getId(), text);
+    if (text.number() != null) {
+      itemIdsByNumber.computeIfAbsent(text.number(), key -> new TreeSet<>()).add(item.getId());
+    }
+    for (String word : text.words()) {
+      itemIdsByWord.computeIfAbsent(word, key -> new TreeSet<>()).add(item.getId());
+    }
+  }
+
+  public void remove(Long itemId) {
+    IndexedText removedText = textsById.remove(itemId);
+    if (removedText == null) {
+      return;
+    }
+    if (removedText.number() != null) {
+      removeFrom(itemIdsByNumber, removedText.number(), itemId);
+    }
+    for (String word : removedText.words()) {
+      removeFrom(itemIdsByWord, word, itemId);
+    }
+  }
+
+  /**
+   * Returns ids of the items matching the query: first the items whose inventory number starts with the query
+   * (in the order of the numbers), then the items whose description contains all words of the query
+   * (in the ascending order of the ids). Only the first {@code limit} ids are collected.
+   * @param query searched text;
+   * @param limit maximum number of the returned ids;
+   */
+  public List<Long> search(String query, int limit) {
+    Set<Long> itemIds = new LinkedHashSet<>();
+    String prefix = fold(query.strip());
+    if (!prefix.isEmpty()) {
+      for (NavigableSet<Long> numberItemIds : itemIdsByNumber.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+        if (!addUpTo(itemIds, numberItemIds, limit)) {
+          return List.copyOf(itemIds);
+        }
+      }
+    }
+    List<NavigableSet<Long>> wordItemIds = words(query).stream()
+        .map(word -> itemIdsByWord.getOrDefault(word, EMPTY))
+        .sorted(Comparator.comparingInt(Set::size))
+        .toList();
+    if (wordItemIds.isEmpty()) {
+      return List.copyOf(itemIds);
+    }
+    List<NavigableSet<Long>> otherWordItemIds = wordItemIds.subList(1, wordItemIds.size());
+    for (Long itemId : wordItemIds.getFirst()) {
+      if (itemIds.size() >= limit) {
+        break;
+      }
+      if (otherWordItemIds.stream().allMatch(ids -> ids.contains(itemId))) {
+        itemIds.add(itemId);
+      }
+    }
+    return List.copyOf(itemIds);
+  }
+
+  /**
+   * Folds the text for the search: lower-cases it and replaces the Polish letters with diacritics by their base letters.
+   * @param text text to be folded;
+   * @return the folded text;
+   */
+  public static String fold(String text) {
+    StringBuilder folded = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char letter = Character.toLowerCase(text.charAt(i));
+      folded.append(switch (letter) {
+        case 'ą' -> 'a';
+        case 'ć' -> 'c';
+        case 'ę' -> 'e';
+        case 'ł' -> 'l';
+        case 'ń' -> 'n';
+        case 'ó' -> 'o';
+        case 'ś' -> 's';
+        case 'ź', 'ż' -> 'z';
+        default -> letter;
+      });
+    }
+    return folded.toString();
+  }
+
+  /**
+   * Splits the text into the distinct folded words, separated by any characters other than letters and digits.
+   * @param text text to be split (may be null);
+   * @return the folded words in the order of their first occurrence;
+   */
+  public static List<String> words(String text) {
+    if (text == null) {
+      return List.of();
+    }
+    return WORD_SEPARATOR.splitAsStream(fold(text))
+        .filter(word -> !word.isEmpty())
+        .distinct()
+        .toList();
+  }
+
+  /**
+   * Adds the ids to the set until it holds {@code limit} ids.
+   * @return false if the limit has been reached;
+   */
+  private static boolean addUpTo(Set<Long> itemIds, Set<Long> addedItemIds, int limit) {
+    for (Long itemId : addedItemIds) {
+      if (itemIds.size() >= limit) {
+        return false;
+      }
+      itemIds.add(itemId);
+    }
+    return itemIds.size() < limit;
+  }
+
+  private static <K> void removeFrom(Map<K, NavigableSet<Long>> index, K key, Long itemId) {
+    index.computeIfPresent(key, (k, itemIds) -> {
+      itemIds.remove(itemId);
+      return itemIds.isEmpty() ? null : itemIds;
+    });
+  }
+
+  private record IndexedText(String number, List<String> words) {
+  }
+}
@@ -0,0 +1,129 @@
+package pl.inventory.system.database;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor of the operations on the {@link Database}: every operation returns at once and its result
+ * is delivered by a {@link CompletableFuture}, so the callers can overlap the operations or release
+ * their threads while the operation waits for the storage. The futures are completed exceptionally
+ * with the exception thrown by the operation, or with a {@link RejectedExecutionException} if the operation
+ * could not be queued.
+ * With a bounded executor the number of the operations waiting for the storage is limited, the operations
+ * exceeding the limit are rejected at once. With a virtual executor every operation runs on its own virtual thread
+ * and only the number of the running operations is limited. With a direct executor ({@code Runnable::run}) the operations run
+ * on the calling thread and the futures are completed when returned.
+ */
+public final class StorageExecutor implements AutoCloseable {
+
+  private final Executor executor;
+  private final ExecutorService ownedExecutor;
+
+  /**
+   * Creates the storage executor.
+   * @param executor {@link Executor} running the operations;
+   */
+  public StorageExecutor(Executor executor) {
+    this(executor, null);
+  }
+
+  private StorageExecutor(Executor executor, ExecutorService ownedExecutor) {
+    this.executor = executor;
+    this.ownedExecutor = ownedExecutor;
+  }
+
+  /**
+   * Creates the storage executor running the operations on the calling thread.
+   */
+  public static StorageExecutor direct() {
+    return new StorageExecutor(Runnable::run);
+  }
+
+  /**
+   * Creates the storage executor with its own fixed pool of threads with a bounded queue of the waiting operations.
+   * The pool is shut down when the storage executor is closed.
+   * @param threads       number of the threads running the operations;
+   * @param queueCapacity maximum number of the operations waiting for a thread;
+   * @return the storage executor;
+   */
+  public static StorageExecutor bounded(int threads, int queueCapacity) {
+    if (threads < 1 || queueCapacity < 1) {
+      throw new IllegalArgumentException("Number of the storage threads and capacity of their queue must be positive");
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "storage-executor-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    return new StorageExecutor(executor, executor);
+  }
+
+  /**
+   * Creates the storage executor running every operation on its own virtual thread, at most the given number
+   * of the operations at a time; the operations exceeding the limit are rejected at once.
+   * The threads are not pooled, so the limit is what protects the storage (and the connection pool) from
+   * an unbounded number of the concurrent operations.
+   * @param maxOperations maximum number of the operations running or waiting for the storage;
+   * @return the storage executor;
+   */
+  public static StorageExecutor virtual(int maxOperations) {
+    if (maxOperations < 1) {
+      throw new IllegalArgumentException("Maximum number of the storage operations must be positive");
+    }
+    Semaphore permits = new Semaphore(maxOperations);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    Executor limited = runnable -> {
+      if (!permits.tryAcquire()) {
+        throw new RejectedExecutionException("Maximum number of the storage operations has been reached");
+      }
+      try {
+        executor.execute(() -> {
+          try {
+            runnable.run();
+          } finally {
+            permits.release();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        permits.release();
+        throw e;
+      }
+    };
+    return new StorageExecutor(limited, executor);
+  }
+
+  /**
+   * Submits the operation.
+   * @param operation operation on the database;
+   * @return future of the result of the operation, failed with {@link RejectedExecutionException}
+   *     if the operation could not be queued;
+   */
+  public <R> CompletableFuture<R> submit(Supplier<R> operation) {
+    try {
+      return CompletableFuture.supplyAsync(operation, executor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Shuts down the own pool, the queued operations are still completed.
+   */
+  @Override
+  public void close() {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+}
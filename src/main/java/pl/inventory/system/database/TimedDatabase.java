@@ -0,0 +1,176 @@
+package pl.inventory.system.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.Valuation;
+import pl.inventory.system.utils.Meters;
+
+/**
+ * Timing decorator of a room {@link Database}. Every operation is measured by the {@code inventory.database.operation}
+ * timer, tagged with the decorated database, the method and the exception thrown by the operation ({@code none}
+ * if it has succeeded). The streaming methods are measured until the stream is returned, not until it is consumed.
+ */
+public final class TimedDatabase implements Database<Room, Item> {
+
+  private static final String NO_EXCEPTION = "none";
+
+  private final Database<Room, Item> database;
+  private final MeterRegistry meterRegistry;
+  private final String databaseName;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the decorator.
+   * @param database      decorated {@link Database};
+   * @param meterRegistry {@link MeterRegistry} of the timers;
+   */
+  public TimedDatabase(Database<Room, Item> database, MeterRegistry meterRegistry) {
+    this.database = database;
+    this.meterRegistry = meterRegistry;
+    this.databaseName = database.getClass().getSimpleName();
+  }
+
+  @Override
+  public Long save(Room item) {
+    return time("save", () -> database.save(item));
+  }
+
+  @Override
+  public List<Long> saveAll(List<Room> items) {
+    return time("saveAll", () -> database.saveAll(items));
+  }
+
+  @Override
+  public List<Room> getAll() {
+    return time("getAll", database::getAll);
+  }
+
+  @Override
+  public Stream<Room> streamAll() {
+    return time("streamAll", database::streamAll);
+  }
+
+  @Override
+  public Page<Room> getPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return time("getPage", () -> database.getPage(cursor, limit, itemFilter));
+  }
+
+  @Override
+  public <P> Optional<Room> getByProperty(P prop) {
+    return time("getByProperty", () -> database.getByProperty(prop));
+  }
+
+  @Override
+  public <P> Optional<Room> updateByProperty(P prop, Room updateItem) {
+    return time("updateByProperty", () -> database.updateByProperty(prop, updateItem));
+  }
+
+  @Override
+  public <P> Optional<Room> deleteByProperty(P prop) {
+    return time("deleteByProperty", () -> database.deleteByProperty(prop));
+  }
+
+  @Override
+  public List<Item> getAllItems() {
+    return time("getAllItems", database::getAllItems);
+  }
+
+  @Override
+  public Stream<Item> streamAllItems() {
+    return time("streamAllItems", database::streamAllItems);
+  }
+
+  @Override
+  public <P> Optional<Room> saveInObjectWithProperty(P objectProperty, Item item) {
+    return time("saveInObjectWithProperty", () -> database.saveInObjectWithProperty(objectProperty, item));
+  }
+
+  @Override
+  public <P> List<Optional<Item>> saveAllInObjectsWithProperty(List<Map.Entry<P, Item>> items) {
+    return time("saveAllInObjectsWithProperty", () -> database.saveAllInObjectsWithProperty(items));
+  }
+
+  @Override
+  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
+    return time("getAllFromObjectWithProperty", () -> database.getAllFromObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public Page<Item> getItemsPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return time("getItemsPage", () -> database.getItemsPage(cursor, limit, itemFilter));
+  }
+
+  @Override
+  public <P> Page<Item> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return time("getItemsPageFromObjectWithProperty",
+        () -> database.getItemsPageFromObjectWithProperty(objectProperty, cursor, limit, itemFilter));
+  }
+
+  @Override
+  public List<Item> searchItems(String query, int limit) {
+    return time("searchItems", () -> database.searchItems(query, limit));
+  }
+
+  @Override
+  public Optional<Long> getVersion() {
+    return time("getVersion", database::getVersion);
+  }
+
+  @Override
+  public <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    return time("getVersionOfObjectWithProperty", () -> database.getVersionOfObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public Optional<Valuation> getValuation() {
+    return time("getValuation", database::getValuation);
+  }
+
+  @Override
+  public <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    return time("getValuationOfObjectWithProperty", () -> database.getValuationOfObjectWithProperty(objectProperty));
+  }
+
+  @Override
+  public <P> Optional<Item> getItemByProperty(P itemProperty) {
+    return time("getItemByProperty", () -> database.getItemByProperty(itemProperty));
+  }
+
+  @Override
+  public <P> Optional<Item> deleteItemByProperty(P itemProperty) {
+    return time("deleteItemByProperty", () -> database.deleteItemByProperty(itemProperty));
+  }
+
+  @Override
+  public <P> Optional<Item> updateItemByProperty(P itemProperty, Item updateItem) {
+    return time("updateItemByProperty", () -> database.updateItemByProperty(itemProperty, updateItem));
+  }
+
+  private <R> R time(String method, Supplier<R> operation) {
+    long start = System.nanoTime();
+    try {
+      R result = operation.get();
+      timers.computeIfAbsent(method, name -> timer(name, NO_EXCEPTION)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return result;
+    } catch (RuntimeException e) {
+      timer(method, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+  }
+
+  private Timer timer(String method, String exception) {
+    return Meters.timer(meterRegistry, "inventory.database.operation", "Operations of the room database",
+        "database", databaseName, "method", method, "exception", exception);
+  }
+}
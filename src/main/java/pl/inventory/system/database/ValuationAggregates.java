@@ -0,0 +1,111 @@
+package pl.inventory.system.database;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Running totals of the item values, per room and of the whole inventory. Each indexed item replaces
+ * its previous contribution to the totals of its room and to the global totals, so a change of an item costs
+ * the same regardless of the number of items. The value of an item is its quantity multiplied by its price
+ * (0 if any of them is missing), summed exactly as {@link BigDecimal}.
+ * The class is not thread-safe, the access has to be guarded by the owning database.
+ */
+public final class ValuationAggregates {
+
+  private final Map<Long, Contribution> contributionsById = new HashMap<>();
+  private final Map<Long, Totals> totalsByRoom = new HashMap<>();
+  private final Totals totals = new Totals();
+
+  /**
+   * Adds the item stored in the given room to the totals, replacing its previous contribution.
+   * @param roomId {@link Long} id of the owning room;
+   * @param item   stored {@link Item} (with assigned id);
+   */
+  public void add(Long roomId, Item item) {
+    remove(item.getId());
+    Contribution contribution = new Contribution(roomId, valueOf(item), item.getOutgoingDate() != null);
+    contributionsById.put(item.getId(), contribution);
+    totals.add(contribution);
+    totalsByRoom.computeIfAbsent(roomId, key -> new Totals()).add(contribution);
+  }
+
+  public void remove(Long itemId) {
+    Contribution contribution = contributionsById.remove(itemId);
+    if (contribution == null) {
+      return;
+    }
+    totals.subtract(contribution);
+    totalsByRoom.computeIfPresent(contribution.roomId(), (key, roomTotals) -> {
+      roomTotals.subtract(contribution);
+      return roomTotals.isEmpty() ? null : roomTotals;
+    });
+  }
+
+  public Valuation valuation() {
+    return totals.toValuation(null);
+  }
+
+  /**
+   * Returns the valuation of the items of the room, zero for a room without items.
+   * @param roomId {@link Long} id of the room;
+   */
+  public Valuation valuationOf(Long roomId) {
+    return totalsByRoom.getOrDefault(roomId, new Totals()).toValuation(roomId);
+  }
+
+  private static BigDecimal valueOf(Item item) {
+    if (item.getItemQuantity() == null || item.getItemPrice() == null) {
+      return BigDecimal.ZERO;
+    }
+    return item.getItemPrice().multiply(BigDecimal.valueOf(item.getItemQuantity()));
+  }
+
+  private record Contribution(Long roomId, BigDecimal value, boolean disposed) {
+  }
+
+  private static final class Totals {
+
+    private BigDecimal activeValue = BigDecimal.ZERO;
+    private BigDecimal disposedValue = BigDecimal.ZERO;
+    private long activeItems;
+    private long disposedItems;
+
+    void add(Contribution contribution) {
+      if (contribution.disposed()) {
+        disposedValue = disposedValue.add(contribution.value());
+        disposedItems++;
+      } else {
+        activeValue = activeValue.add(contribution.value());
+        activeItems++;
+      }
+    }
+
+    void subtract(Contribution contribution) {
+      if (contribution.disposed()) {
+        disposedValue = disposedValue.subtract(contribution.value());
+        disposedItems--;
+      } else {
+        activeValue = activeValue.subtract(contribution.value());
+        activeItems--;
+      }
+    }
+
+    boolean isEmpty() {
+      return activeItems == 0 && disposedItems == 0;
+    }
+
+    Valuation toValuation(Long roomId) {
+      return Valuation.builder()
+          .roomId(roomId)
+          .totalValue(activeValue.add(disposedValue))
+          .activeValue(activeValue)
+          .disposedValue(disposedValue)
+          .activeItems(activeItems)
+          .disposedItems(disposedItems)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package pl.inventory.system.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the content of a database, increased with every commit. The counter starts from the time
+ * of its creation in microseconds, so the versions issued after a restart are greater than the versions issued
+ * before it and a version of the previous run is not mistaken for the current one.
+ */
+public final class VersionCounter {
+
+  private final long initial = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+  private final AtomicLong version = new AtomicLong(initial);
+
+  /**
+   * Returns the version of the content loaded at the start, the version of the objects not changed since then.
+   */
+  public long initial() {
+    return initial;
+  }
+
+  public long current() {
+    return version.get();
+  }
+
+  public long increment() {
+    return version.incrementAndGet();
+  }
+}
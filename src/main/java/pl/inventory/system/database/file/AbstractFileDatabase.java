@@ -1,162 +1,538 @@
 package pl.inventory.system.database.file;
 
-import java.io.File;
+import io.micrometer.core.instrument.Timer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import pl.inventory.system.database.Database;
+import pl.inventory.system.database.VersionCounter;
 import pl.inventory.system.model.InternallyStorable;
+import pl.inventory.system.model.Page;
 import pl.inventory.system.model.Storable;
-import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.DocumentSerializer;
 import pl.inventory.system.utils.FileService;
 import pl.inventory.system.utils.IdProvider;
-import pl.inventory.system.utils.JsonService;
+import pl.inventory.system.utils.Meters;
 
+/**
+ * Base of the databases keeping their objects in a {@link FileStorage}, with all objects resident in memory.
+ * <p>Concurrency model (locks of a single database instance):</p>
+ * <ul>
+ *   <li>the in-memory state is guarded by a read/write lock - readers run in parallel and are blocked
+ *   only while a mutation is applied to the memory;</li>
+ *   <li>read-modify-write of a stored object is guarded by the lock stripe of its id, so mutations
+ *   of different objects proceed concurrently;</li>
+ *   <li>the commit (write to the storage followed by the update of the memory) is serialised,
+ *   so the order of the objects in the storage and in the memory is the same. A storage completing its writes
+ *   asynchronously only orders the write under the commit lock and the caller waits for it after the lock
+ *   is released, so the writes of concurrent commits are flushed together.</li>
+ * </ul>
+ * The locks are always taken in the order: object stripe, commit, read/write lock. The commit lock and the read/write lock
+ * ({@link CommitLocks}) may be shared by the databases holding related objects, so that their commits can be grouped
+ * ({@link #inOneCommit}) and observed by the readers at once.
+ * <p>Every commit increases the version of the content ({@link #getVersion}), while the memory is locked
+ * for writing and before the change is applied, so the content read after the version includes all changes counted by it.</p>
+ * <p>The wait for each lock and the time it is held (except for the read lock) are measured
+ * ({@code inventory.database.lock.wait} and {@code inventory.database.lock.hold}, tagged with the stored type
+ * and the lock).</p>
+ */
 @Slf4j
 public abstract class AbstractFileDatabase<T1 extends Storable, T2 extends InternallyStorable> implements Database<T1, T2> {
 
-  protected static final Lock LOCK = new ReentrantLock();
-  private final Path filePath;
+  private static final int LOCK_STRIPES = 64;
+  private final CommitLocks commitLocks;
+  private final ReadWriteLock stateLock;
+  private final Lock commitLock;
+  private final LockStripes objectLocks = new LockStripes(LOCK_STRIPES);
+  private final FileStorage storage;
   private final IdProvider idProvider;
-  private final FileService fileService;
-  private final JsonService serializer;
+  private final DocumentSerializer serializer;
   private final Class<T1> cls;
+  private final ResidentStore store = new ResidentStore();
+  private final LockTimers objectLockTimers;
+  private final LockTimers commitLockTimers;
+  private final LockTimers writeLockTimers;
+  private final Timer readLockWaitTimer;
 
   protected AbstractFileDatabase(Path roomFilePath,
                                  IdProvider idProvider,
                                  FileService fileService,
-                                 JsonService serializer,
+                                 DocumentSerializer serializer,
                                  Class<T1> cls) {
-    log.info("File database initialised for type {}", cls.getSimpleName());
-    this.filePath = roomFilePath;
+    this(new RewriteFileStorage(roomFilePath, fileService), idProvider, serializer, cls);
+  }
+
+  protected AbstractFileDatabase(FileStorage storage,
+                                 IdProvider idProvider,
+                                 DocumentSerializer serializer,
+                                 Class<T1> cls) {
+    this(storage, idProvider, serializer, cls, new CommitLocks());
+  }
+
+  /**
+   * Creates the database sharing the commit lock, the memory lock and the version of the content
+   * with the databases holding the related objects, so their commits can be grouped.
+   */
+  AbstractFileDatabase(FileStorage storage,
+                       IdProvider idProvider,
+                       DocumentSerializer serializer,
+                       Class<T1> cls,
+                       CommitLocks commitLocks) {
+    this.commitLocks = commitLocks;
+    this.stateLock = commitLocks.stateLock();
+    this.commitLock = commitLocks.commitLock();
+    this.storage = storage;
     this.idProvider = idProvider;
-    this.fileService = fileService;
     this.serializer = serializer;
     this.cls = cls;
+    this.objectLockTimers = new LockTimers(cls, "object");
+    this.commitLockTimers = new LockTimers(cls, "commit");
+    this.writeLockTimers = new LockTimers(cls, "write");
+    this.readLockWaitTimer = LockTimers.waitTimer(cls, "read");
+    loadStore();
+    log.info("File database initialised for type {} ({} objects loaded)", cls.getSimpleName(), store.size());
   }
 
   @Override
   public Long save(T1 item) {
-    LOCK.lock();
-    try {
-      File itemFile = new File(filePath.toString());
-      FileManager.createFile(itemFile);
-      Long currentId = idProvider.getCurrentIdAndIncrement();
-      item.setId(currentId);
-      fileService.appendLineToFile(filePath, serializer.objectToJson(item));
-      log.debug("\"{} {}\" successfully stored in database", cls.getSimpleName(), currentId);
-      return currentId;
-    } finally {
-      LOCK.unlock();
-    }
+    Long currentId = idProvider.getCurrentIdAndIncrement();
+    item.setId(currentId);
+    String document = serializer.serialize(item);
+    commit(() -> storage.append(currentId, document), () -> {
+      store.put(currentId, item.getNumber(), document);
+      afterStore(item);
+    });
+    log.debug("\"{} {}\" successfully stored in database", cls.getSimpleName(), currentId);
+    return currentId;
   }
 
   @Override
-  public List<T1> getAll() {
-    LOCK.lock();
-    try {
-      File itemFile = new File(filePath.toString());
-      if (itemFile.exists()) {
-        log.debug("Downloading all {} from the database successfully completed", cls.getSimpleName());
-        return fileService.readAllFile(filePath).stream()
-            .map(line -> serializer.jsonToObject(line, cls))
-            .toList();
-      }
-      log.warn("Download from database failed. The file with the specified name \"{}\" does not exist",
-          filePath.getFileName());
+  public List<Long> saveAll(List<T1> objects) {
+    if (objects.isEmpty()) {
       return List.of();
-    } finally {
-      LOCK.unlock();
     }
+    long firstId = idProvider.getCurrentIdAndIncrementBy(objects.size());
+    Map<Long, String> documents = new LinkedHashMap<>();
+    for (int i = 0; i < objects.size(); i++) {
+      objects.get(i).setId(firstId + i);
+      documents.put(firstId + i, serializer.serialize(objects.get(i)));
+    }
+    commit(() -> storage.appendAll(documents), () -> objects.forEach(object -> {
+      store.put(object.getId(), object.getNumber(), documents.get(object.getId()));
+      afterStore(object);
+    }));
+    log.debug("{} objects \"{}\" successfully stored in database", objects.size(), cls.getSimpleName());
+    return objects.stream().map(Storable::getId).toList();
+  }
+
+  @Override
+  public List<T1> getAll() {
+    List<T1> objects = streamAll().toList();
+    log.debug("Downloading all {} from the database successfully completed", cls.getSimpleName());
+    return objects;
+  }
+
+  /**
+   * Streams all stored objects in the file order. The stored documents are captured when the method is called,
+   * but each of them is converted to an object only when the stream reaches it.
+   * @return lazy {@link Stream} of the objects;
+   */
+  @Override
+  public Stream<T1> streamAll() {
+    return streamStored()
+        .map(this::assemble);
   }
 
   @Override
   public <P> Optional<T1> getByProperty(P property) {
-    LOCK.lock();
-    try {
-      Optional<T1> searchedObject = Optional.empty();
-      if (property instanceof String roomNumber) {
-        searchedObject = getAll().stream()
-            .filter(item -> item.getNumber().equalsIgnoreCase(roomNumber))
-            .findFirst();
-      } else if (property instanceof Long roomId) {
-        searchedObject = getAll().stream()
-            .filter(item -> item.getId().compareTo(roomId) == 0)
-            .findFirst();
-      }
-      if (searchedObject.isPresent()) {
-        log.debug("Download \"{} {}\" successfully completed.", cls.getSimpleName(), property);
-        return searchedObject;
-      }
-      log.warn("Download failed. The \"{} {}\" does not exist in the database.", cls.getSimpleName(), property);
+    Optional<T1> searchedObject = read(() -> findId(property).flatMap(store::get)
+        .map(this::toObject)
+        .map(this::assemble));
+    if (searchedObject.isPresent()) {
+      log.debug("Download \"{} {}\" successfully completed.", cls.getSimpleName(), property);
       return searchedObject;
-    } finally {
-      LOCK.unlock();
     }
+    log.warn("Download failed. The \"{} {}\" does not exist in the database.", cls.getSimpleName(), property);
+    return searchedObject;
   }
 
   @Override
   public <P> Optional<T1> deleteByProperty(P property) {
-    LOCK.lock();
-    try {
-      Optional<T1> optionalToRemove = getByProperty(property);
+    return withObjectLock(() -> findId(property), optionalId -> {
+      Optional<T1> optionalToRemove = optionalId.flatMap(this::getByProperty);
       if (optionalToRemove.isPresent()) {
-        FileManager.makeBackupFile(filePath);
-        T1 toRemove = optionalToRemove.get();
-        List<String> toSave = getAll().stream()
-            .filter(item -> !(Objects.equals(item.getId(), toRemove.getId())))
-            .map(serializer::objectToJson)
-            .toList();
-        if (toSave.isEmpty()) {
-          log.debug("Last \"{} {}\" successfully deleted, the database is empty. File backup has been removed",
-              cls.getSimpleName(), property);
-          fileService.cleanFileContent(filePath);
-          FileManager.deleteBackupFile(filePath);
-        } else {
-          fileService.writeLinesToFile(filePath, toSave);
-          FileManager.deleteBackupFile(filePath);
-          log.debug("Delete of the \"{} {}\" successfully completed.", cls.getSimpleName(), property);
-        }
+        Long idToRemove = optionalToRemove.get().getId();
+        commit(() -> storage.remove(idToRemove, () -> read(() -> store.documentsWithout(idToRemove))), () -> {
+          store.remove(idToRemove);
+          afterRemove(idToRemove);
+        });
+        log.debug("Delete of the \"{} {}\" successfully completed.", cls.getSimpleName(), property);
         return optionalToRemove;
       }
       log.debug("Delete failed. The \"{} {}\" does not exist in the database.", cls.getSimpleName(), property);
       return Optional.empty();
-    } finally {
-      LOCK.unlock();
-    }
+    });
   }
 
   @Override
   public <P> Optional<T1> updateByProperty(P property, T1 updateItem) {
-    LOCK.lock();
-    try {
-      Optional<T1> optionalItem = getByProperty(property);
-      if (optionalItem.isPresent()) {
-        FileManager.makeBackupFile(filePath);
-        T1 oldItem = optionalItem.get();
-        List<T1> itemList = getAll();
-        final int oldIndex = itemList.indexOf(oldItem);
-        updateItem.setId(oldItem.getId());
-        List<T1> updatedList = itemList.stream()
-            .filter(item -> !Objects.equals(item, oldItem))
-            .collect(Collectors.toList());
-        updatedList.add(oldIndex, updateItem);
-        fileService.writeLinesToFile(filePath, updatedList.stream().map(serializer::objectToJson).toList());
-        if (getAll().contains(updateItem)) {
-          FileManager.deleteBackupFile(filePath);
-        }
+    return withObjectLock(() -> findId(property), optionalId -> {
+      if (optionalId.isPresent()) {
+        Long id = optionalId.get();
+        updateItem.setId(id);
+        String document = serializer.serialize(updateItem);
+        commit(() -> storage.replace(id, document, () -> read(() -> store.documentsWith(Map.of(id, document)))), () -> {
+          store.put(id, updateItem.getNumber(), document);
+          afterStore(updateItem);
+        });
         log.debug("Update of the \"{} {}\" successfully completed.", cls.getSimpleName(), property);
         return Optional.of(updateItem);
       }
       log.debug("Update failed. The \"{} {}\" does not exist in the database.", cls.getSimpleName(), property);
       return Optional.empty();
+    });
+  }
+
+  /**
+   * Returns the version of the content, increased with every commit. Read without any lock.
+   */
+  @Override
+  public Optional<Long> getVersion() {
+    return Optional.of(versions().current());
+  }
+
+  /**
+   * Returns the page of the stored objects meeting the filter, with ids greater than the cursor (in the id order).
+   * Only the objects up to the end of the page are read, so the cost depends on the page size and the selectivity
+   * of the filter, not on the size of the database.
+   * @param cursor {@link Long} id of the last object of the previous page, null for the first page;
+   * @param limit  maximum number of the objects on the page;
+   * @param filter criteria of the returned objects;
+   * @return {@link Page} of the objects, with the next cursor if more objects may follow;
+   */
+  protected Page<T1> pageOf(Long cursor, int limit, Predicate<? super T1> filter) {
+    return read(() -> {
+      List<T1> objects = new ArrayList<>();
+      Iterator<String> documents = store.documentsAfter(cursor).iterator();
+      while (objects.size() < limit && documents.hasNext()) {
+        T1 object = assemble(toObject(documents.next()));
+        if (filter.test(object)) {
+          objects.add(object);
+        }
+      }
+      Long nextCursor = objects.size() == limit && documents.hasNext() ? objects.getLast().getId() : null;
+      return new Page<>(objects, nextCursor);
+    });
+  }
+
+  /**
+   * Replaces the content of multiple stored objects with a single write to the storage.
+   * The caller has to hold the locks of all updated objects (see {@link #withObjectLocks}).
+   * @param updatedObjects objects to be stored, each with the id of an existing object;
+   */
+  protected void updateAll(List<T1> updatedObjects) {
+    Map<Long, String> documents = new LinkedHashMap<>();
+    updatedObjects.forEach(object -> documents.put(object.getId(), serializer.serialize(object)));
+    commit(() -> storage.replaceAll(documents, () -> read(() -> store.documentsWith(documents))),
+        () -> updatedObjects.forEach(object -> {
+          store.put(object.getId(), object.getNumber(), documents.get(object.getId()));
+          afterStore(object);
+        }));
+    log.debug("{} objects \"{}\" successfully updated", updatedObjects.size(), cls.getSimpleName());
+  }
+
+  /**
+   * Stores objects with already assigned ids: new objects are appended and existing ones are replaced,
+   * each group with a single write to the storage. The caller has to hold the locks of the existing objects.
+   * @param objects objects to be stored, each with an assigned id;
+   */
+  protected void putAll(List<T1> objects) {
+    if (objects.isEmpty()) {
+      return;
+    }
+    Map<Long, String> documents = new LinkedHashMap<>();
+    objects.forEach(object -> documents.put(object.getId(), serializer.serialize(object)));
+    Map<Long, String> replaced = new LinkedHashMap<>();
+    Map<Long, String> appended = new LinkedHashMap<>();
+    read(() -> {
+      documents.forEach((id, document) -> (store.contains(id) ? replaced : appended).put(id, document));
+      return null;
+    });
+    commit(() -> {
+      List<CompletableFuture<Void>> writes = new ArrayList<>();
+      if (!replaced.isEmpty()) {
+        writes.add(storage.replaceAll(replaced, () -> read(() -> store.documentsWith(replaced))));
+      }
+      if (!appended.isEmpty()) {
+        writes.add(storage.appendAll(appended));
+      }
+      return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }, () -> objects.forEach(object -> {
+      store.put(object.getId(), object.getNumber(), documents.get(object.getId()));
+      afterStore(object);
+    }));
+    log.debug("{} objects \"{}\" successfully stored in database", objects.size(), cls.getSimpleName());
+  }
+
+  /**
+   * Deletes multiple stored objects with a single write to the storage, ids of not existing objects are ignored.
+   * The caller has to hold the locks of the removed objects.
+   * @param ids ids of the objects to be removed;
+   */
+  protected void removeAll(Collection<Long> ids) {
+    Set<Long> removedIds = read(() -> ids.stream()
+        .filter(store::contains)
+        .collect(Collectors.toCollection(LinkedHashSet::new)));
+    if (removedIds.isEmpty()) {
+      return;
+    }
+    commit(() -> storage.removeAll(removedIds, () -> read(() -> store.documentsWithout(removedIds))), () -> removedIds.forEach(id -> {
+      store.remove(id);
+      afterRemove(id);
+    }));
+    log.debug("{} objects \"{}\" successfully removed from database", removedIds.size(), cls.getSimpleName());
+  }
+
+  /**
+   * Streams the objects as they are stored, without {@link #assemble}. The stored documents are captured
+   * when the method is called, but each of them is converted to an object only when the stream reaches it.
+   * @return lazy {@link Stream} of the stored objects in the file order;
+   */
+  protected Stream<T1> streamStored() {
+    List<String> documents = read(() -> List.copyOf(store.documents()));
+    return documents.stream()
+        .map(this::toObject);
+  }
+
+  /**
+   * Completes an object read from the storage before it is returned, e.g. with the data stored elsewhere.
+   * May be called while the memory of this database is locked for reading, so it must not modify this database.
+   * @param stored object as it is stored;
+   * @return the returned object;
+   */
+  protected T1 assemble(T1 stored) {
+    return stored;
+  }
+
+  /**
+   * Called while the memory is locked for writing, after the object has been saved or updated.
+   * @param object currently stored object (with assigned id);
+   */
+  protected void afterStore(T1 object) {
+  }
+
+  /**
+   * Called while the memory is locked for writing, after the object with the given id has been deleted.
+   * @param id {@link Long} id of the removed object;
+   */
+  protected void afterRemove(Long id) {
+  }
+
+  /**
+   * Captures the storage files into the snapshot directory while the commits are blocked, so the captured
+   * content is consistent with the state of the memory. Holds the commit lock only while the files are captured,
+   * the returned copies are finished by the caller.
+   * @param directory {@link Path} of the snapshot directory;
+   * @return {@link SnapshotCopy}s of the captured content still to be copied;
+   */
+  List<SnapshotCopy> capture(Path directory) {
+    return withCommitLock(() -> storage.capture(directory));
+  }
+
+  /**
+   * Writes the changes buffered by the storage (see {@link WriteBehindFileStorage}). The commits are blocked
+   * only while the buffered changes are handed over, the returned future is completed when they are written.
+   * @return {@link CompletableFuture} completed when the buffered changes are written;
+   */
+  CompletableFuture<Void> flush() {
+    return withCommitLock(() -> storage.flush(() -> read(() -> List.copyOf(store.documents()))));
+  }
+
+  VersionCounter versions() {
+    return commitLocks.versions();
+  }
+
+  CommitLocks commitLocks() {
+    return commitLocks;
+  }
+
+  /**
+   * Runs the action while no commit of this database can proceed.
+   * @param action operation requiring the storage to be unchanged;
+   * @return result of the action;
+   */
+  protected <R> R withCommitLock(Supplier<R> action) {
+    long acquired = commitLockTimers.lock(commitLock);
+    try {
+      return action.get();
+    } finally {
+      commitLockTimers.unlock(commitLock, acquired);
+    }
+  }
+
+  /**
+   * Runs the action as a single commit: the commits made by the action (in this database and in the databases
+   * sharing its {@link CommitLocks}) are ordered in the storages and applied to the memory while the memory
+   * stays locked for writing, so no reader observes a part of them. The writes are awaited after the locks
+   * are released. The caller has to take the object locks before, a nested call joins the enclosing group.
+   * @param action operation making multiple commits;
+   * @return result of the action;
+   */
+  protected <R> R inOneCommit(Supplier<R> action) {
+    List<CompletableFuture<Void>> writes;
+    R result;
+    long commitAcquired = commitLockTimers.lock(commitLock);
+    try {
+      if (commitLocks.groupWrites() != null) {
+        return action.get();
+      }
+      long writeAcquired = writeLockTimers.lock(stateLock.writeLock());
+      try {
+        writes = commitLocks.openGroup();
+        try {
+          result = action.get();
+        } finally {
+          commitLocks.closeGroup();
+        }
+      } finally {
+        writeLockTimers.unlock(stateLock.writeLock(), writeAcquired);
+      }
+    } finally {
+      commitLockTimers.unlock(commitLock, commitAcquired);
+    }
+    writes.forEach(FileService::await);
+    return result;
+  }
+
+  /**
+   * Runs the action while the in-memory state is locked for reading.
+   * @param action operation reading the state;
+   * @return result of the action;
+   */
+  protected <R> R read(Supplier<R> action) {
+    long start = System.nanoTime();
+    stateLock.readLock().lock();
+    readLockWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    try {
+      return action.get();
+    } finally {
+      stateLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Runs the read-modify-write action while holding the lock of the stored object. The id of the object
+   * is resolved again after the lock is taken and if it has changed in the meantime, the attempt is repeated.
+   * @param idResolver resolves the id of the modified object (called under the read lock);
+   * @param action     operation modifying the object, receives the resolved id (empty if the object does not exist);
+   * @return result of the action;
+   */
+  protected <R> R withObjectLock(Supplier<Optional<Long>> idResolver, Function<Optional<Long>, R> action) {
+    while (true) {
+      Optional<Long> id = read(idResolver);
+      if (id.isEmpty()) {
+        return action.apply(id);
+      }
+      Lock objectLock = objectLocks.get(id.get());
+      long acquired = objectLockTimers.lock(objectLock);
+      try {
+        if (read(idResolver).equals(id)) {
+          return action.apply(id);
+        }
+      } finally {
+        objectLockTimers.unlock(objectLock, acquired);
+      }
+    }
+  }
+
+  /**
+   * Runs the action while holding the locks of multiple stored objects. The locks are taken in a fixed order,
+   * so concurrent operations on overlapping sets of objects do not deadlock. The ids are resolved again
+   * after the locks are taken and if any of them has changed in the meantime, the attempt is repeated.
+   * @param idsResolver resolves the ids of the modified objects (called under the read lock);
+   * @param action      operation modifying the objects, receives the resolved ids;
+   * @return result of the action;
+   */
+  protected <R> R withObjectLocks(Supplier<List<Optional<Long>>> idsResolver, Function<List<Optional<Long>>, R> action) {
+    while (true) {
+      List<Optional<Long>> ids = read(idsResolver);
+      List<Lock> locks = objectLocks.getAll(ids.stream().flatMap(Optional::stream).toList());
+      long acquired = objectLockTimers.lockAll(locks);
+      try {
+        if (read(idsResolver).equals(ids)) {
+          return action.apply(ids);
+        }
+      } finally {
+        objectLockTimers.unlockAll(locks, acquired);
+      }
+    }
+  }
+
+  /**
+   * Resolves the id of the stored object by its id ({@link Long}) or its number ({@link String}).
+   * Has to be called under the read lock.
+   */
+  protected <P> Optional<Long> findId(P property) {
+    if (property instanceof String number) {
+      return store.findId(number);
+    } else if (property instanceof Long id) {
+      return store.contains(id) ? Optional.of(id) : Optional.empty();
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Orders the write in the storage and applies it to the memory under the commit lock, then waits
+   * for the write to be finished. Writes of concurrent commits are therefore finished together (group commit).
+   * Within {@link #inOneCommit} the write is awaited when the group ends.
+   */
+  private void commit(Supplier<CompletableFuture<Void>> persist, Runnable apply) {
+    CompletableFuture<Void> written;
+    long commitAcquired = commitLockTimers.lock(commitLock);
+    try {
+      written = persist.get();
+      long writeAcquired = writeLockTimers.lock(stateLock.writeLock());
+      try {
+        versions().increment();
+        apply.run();
+      } finally {
+        writeLockTimers.unlock(stateLock.writeLock(), writeAcquired);
+      }
+      if (commitLocks.groupWrites() != null) {
+        commitLocks.groupWrites().add(written);
+        return;
+      }
     } finally {
-      LOCK.unlock();
+      commitLockTimers.unlock(commitLock, commitAcquired);
     }
+    FileService.await(written);
+  }
+
+  private T1 toObject(String document) {
+    return serializer.deserialize(document, cls);
+  }
+
+  private void loadStore() {
+    storage.load().forEach(document -> {
+      T1 object = toObject(document);
+      store.put(object.getId(), object.getNumber(), document);
+    });
   }
 }
@@ -0,0 +1,59 @@
+package pl.inventory.system.database.file;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import pl.inventory.system.database.VersionCounter;
+
+/**
+ * Commit lock, read/write lock of the memory and version of the content, shared by the file databases whose
+ * objects are written together (the rooms and the records of their items), so the commits of these databases
+ * can be grouped ({@link AbstractFileDatabase#inOneCommit}) and a reader sees either none or all of them.
+ * <p>The writes of an open group are accessed only by the thread holding the commit lock.</p>
+ */
+final class CommitLocks {
+
+  private final Lock commitLock = new ReentrantLock();
+  private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+  private final VersionCounter versions = new VersionCounter();
+  private List<CompletableFuture<Void>> groupWrites;
+
+  Lock commitLock() {
+    return commitLock;
+  }
+
+  ReadWriteLock stateLock() {
+    return stateLock;
+  }
+
+  VersionCounter versions() {
+    return versions;
+  }
+
+  /**
+   * Returns the writes of the group of commits opened by the thread holding the commit lock, null outside a group.
+   */
+  List<CompletableFuture<Void>> groupWrites() {
+    return groupWrites;
+  }
+
+  /**
+   * Opens a group of commits, has to be called under the commit lock.
+   * @return list collecting the writes of the group, to be awaited when the group is closed;
+   */
+  List<CompletableFuture<Void>> openGroup() {
+    groupWrites = new ArrayList<>();
+    return groupWrites;
+  }
+
+  /**
+   * Closes the group of commits, has to be called under the commit lock.
+   */
+  void closeGroup() {
+    groupWrites = null;
+  }
+}
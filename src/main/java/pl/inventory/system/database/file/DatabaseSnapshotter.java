@@ -0,0 +1,191 @@
+package pl.inventory.system.database.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * Periodically takes crash-consistent snapshots of the {@link FileBasedDatabase} and keeps the configured number
+ * of the latest ones. Each snapshot is a directory ({@code snapshot-<UTC time>}) holding the storage files and the id
+ * files under their original names, so the database is restored by copying them back into the files directory.
+ * <p>The commits of the database are blocked only while the files are captured: files which are only replaced
+ * atomically are hard-linked, files appended in place are copied up to their captured length with
+ * {@link java.nio.channels.FileChannel#transferTo} afterwards. The snapshot is prepared in a temporary directory,
+ * which is renamed once all files are complete, so an interrupted snapshot is never taken for a complete one.</p>
+ */
+@Slf4j
+public class DatabaseSnapshotter implements AutoCloseable {
+
+  static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+  private final FileBasedDatabase database;
+  private final List<Path> idPaths;
+  private final Path snapshotsDirectory;
+  private final int retainedSnapshots;
+  private final Lock snapshotLock = new ReentrantLock();
+  private final ScheduledExecutorService executor;
+  private Instant lastSnapshotTime = Instant.EPOCH;
+
+  /**
+   * Creates the snapshotter, the first snapshot is taken after the given interval.
+   * @param database           {@link FileBasedDatabase} to be captured;
+   * @param idPaths            {@link Path}s of the id files, captured after the database;
+   * @param snapshotsDirectory {@link Path} of the directory keeping the snapshots (created if missing);
+   * @param retainedSnapshots  number of the latest snapshots to be kept;
+   * @param intervalMillis     interval between the snapshots;
+   */
+  DatabaseSnapshotter(FileBasedDatabase database,
+                      List<Path> idPaths,
+                      Path snapshotsDirectory,
+                      int retainedSnapshots,
+                      long intervalMillis) {
+    if (retainedSnapshots < 1) {
+      throw new IllegalArgumentException("Number of retained snapshots must be positive");
+    }
+    this.database = database;
+    this.idPaths = List.copyOf(idPaths);
+    this.snapshotsDirectory = snapshotsDirectory;
+    this.retainedSnapshots = retainedSnapshots;
+    removeIncompleteSnapshots();
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "database-snapshotter");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::snapshotSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    log.info("Database snapshots scheduled every {} ms into \"{}\" (retention: {} snapshots)",
+        intervalMillis, snapshotsDirectory, retainedSnapshots);
+  }
+
+  /**
+   * Takes a snapshot of the database and removes the snapshots exceeding the retention.
+   * @return {@link Path} of the snapshot directory;
+   */
+  Path snapshot() {
+    snapshotLock.lock();
+    try {
+      lastSnapshotTime = nextSnapshotTime();
+      String name = SNAPSHOT_PREFIX + NAME_FORMAT.format(lastSnapshotTime);
+      Path temporaryDirectory = snapshotsDirectory.resolve(name + TEMPORARY_SUFFIX);
+      Files.createDirectories(temporaryDirectory);
+      try {
+        writeSnapshot(temporaryDirectory);
+      } catch (RuntimeException e) {
+        delete(temporaryDirectory);
+        throw e;
+      }
+      Path snapshotDirectory = snapshotsDirectory.resolve(name);
+      Files.move(temporaryDirectory, snapshotDirectory, StandardCopyOption.ATOMIC_MOVE);
+      removeExpiredSnapshots();
+      log.info("Database snapshot \"{}\" has been taken", snapshotDirectory.getFileName());
+      return snapshotDirectory;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the complete snapshots, from the oldest to the latest.
+   * @return {@link Path}s of the snapshot directories;
+   */
+  List<Path> snapshots() {
+    return listSnapshots().stream()
+        .filter(path -> !path.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+        .toList();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private void snapshotSafely() {
+    try {
+      snapshot();
+    } catch (RuntimeException e) {
+      log.error("Database snapshot failed: ", e);
+    }
+  }
+
+  private void writeSnapshot(Path directory) {
+    FileService.await(database.flush());
+    List<SnapshotCopy> copies = new ArrayList<>(database.capture(directory));
+    try {
+      idPaths.forEach(idPath -> copies.addAll(SnapshotCopy.link(idPath, directory)));
+      copies.forEach(SnapshotCopy::transfer);
+    } finally {
+      copies.forEach(SnapshotCopy::close);
+    }
+  }
+
+  /**
+   * The snapshots are ordered by their names, so two snapshots taken within the same millisecond get different times.
+   */
+  private Instant nextSnapshotTime() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    return now.isAfter(lastSnapshotTime) ? now : lastSnapshotTime.plusMillis(1);
+  }
+
+  private void removeExpiredSnapshots() {
+    List<Path> snapshots = snapshots();
+    snapshots.subList(0, Math.max(0, snapshots.size() - retainedSnapshots)).forEach(snapshot -> {
+      delete(snapshot);
+      log.debug("Database snapshot \"{}\" has been removed", snapshot.getFileName());
+    });
+  }
+
+  private void removeIncompleteSnapshots() {
+    listSnapshots().stream()
+        .filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+        .forEach(snapshot -> {
+          delete(snapshot);
+          log.warn("Incomplete database snapshot \"{}\" has been removed", snapshot.getFileName());
+        });
+  }
+
+  private List<Path> listSnapshots() {
+    if (Files.notExists(snapshotsDirectory)) {
+      return List.of();
+    }
+    try (Stream<Path> paths = Files.list(snapshotsDirectory)) {
+      return paths
+          .filter(Files::isDirectory)
+          .filter(path -> path.getFileName().toString().startsWith(SNAPSHOT_PREFIX))
+          .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void delete(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.utils.DocumentSerializer;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * One-shot conversion of the documents stored in the data file (or in the journal) to the format
+ * of the configured serializer. Documents already written in the target format are kept as they are,
+ * so the conversion is performed only once and may be safely repeated at every start.
+ * The converted content replaces the file atomically.
+ */
+@Slf4j
+final class DocumentConverter {
+
+  private final DocumentSerializer target;
+  private final DocumentSerializer source;
+  private final FileService fileService;
+
+  /**
+   * Creates the converter.
+   * @param target      serializer of the format to which the documents are converted;
+   * @param source      serializer of the format of the existing documents;
+   * @param fileService {@link FileService} reading and writing the converted file;
+   */
+  DocumentConverter(DocumentSerializer target, DocumentSerializer source, FileService fileService) {
+    this.target = target;
+    this.source = source;
+    this.fileService = fileService;
+  }
+
+  /**
+   * Converts the data file with one document per line.
+   * @param path     {@link Path} of the data file;
+   * @param objClass class of the stored objects;
+   * @return number of the converted documents;
+   */
+  int convertDocuments(Path path, Class<?> objClass) {
+    if (!path.toFile().exists()) {
+      return 0;
+    }
+    List<String> lines = new ArrayList<>();
+    int converted = 0;
+    for (String line : fileService.readAllFile(path)) {
+      if (line.isBlank() || target.canRead(line)) {
+        lines.add(line);
+      } else {
+        lines.add(convert(line, objClass));
+        converted++;
+      }
+    }
+    return replace(path, lines, converted);
+  }
+
+  /**
+   * Converts the documents of the journal records, malformed records are kept and skipped on the replay.
+   * @param path     {@link Path} of the journal;
+   * @param objClass class of the stored objects;
+   * @return number of the converted documents;
+   */
+  int convertJournal(Path path, Class<?> objClass) {
+    if (!path.toFile().exists()) {
+      return 0;
+    }
+    List<String> lines = new ArrayList<>();
+    int converted = 0;
+    for (String line : fileService.readAllFile(path)) {
+      JournalRecord journalRecord = JournalRecord.parse(line).orElse(null);
+      if (journalRecord == null || journalRecord.document().isEmpty() || target.canRead(journalRecord.document())) {
+        lines.add(line);
+      } else {
+        String document = convert(journalRecord.document(), objClass);
+        lines.add(new JournalRecord(journalRecord.operation(), journalRecord.id(), document).toLine());
+        converted++;
+      }
+    }
+    return replace(path, lines, converted);
+  }
+
+  private String convert(String document, Class<?> objClass) {
+    if (!source.canRead(document)) {
+      throw new IllegalStateException("Stored document has an unknown format: " + document);
+    }
+    return target.serialize(source.deserialize(document, objClass));
+  }
+
+  private int replace(Path path, List<String> lines, int converted) {
+    if (converted > 0) {
+      fileService.writeToFileAtomically(path, String.join(System.lineSeparator(), lines));
+      log.info("{} documents of \"{}\" converted to the configured format", converted, path.getFileName());
+    }
+    return converted;
+  }
+}
@@ -1,47 +1,160 @@
 package pl.inventory.system.database.file;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.database.file.ItemIndex.ItemLocation;
 import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Page;
 import pl.inventory.system.model.Room;
+import pl.inventory.system.model.StoredItem;
+import pl.inventory.system.model.Valuation;
+import pl.inventory.system.utils.DocumentSerializer;
 import pl.inventory.system.utils.FileService;
 import pl.inventory.system.utils.IdProvider;
-import pl.inventory.system.utils.JsonService;
 
+/**
+ * File database of rooms. The rooms are stored without their items, each item is stored as a separate record
+ * ({@link StoredItem}) linked to its room by the room id, so saving, updating or deleting an item writes only
+ * that item. The items list of a room is assembled from the records (in the item id order) when the room is read.
+ * Rooms stored by the previous versions with embedded items are split into the separate records at the start,
+ * after the storage of the rooms is backed up.
+ * The rooms and the items share the version of the content, so a room has a version of its own (the version
+ * at the last change of the room or of its items) and the version of the database covers the items too.
+ */
 @Slf4j
 public class FileBasedDatabase extends AbstractFileDatabase<Room, Item> {
 
+  /**
+   * Name of the directory (next to the rooms file) keeping the backups of the rooms taken before their items
+   * are moved to the separate records.
+   */
+  public static final String BACKUP_DIRECTORY = "backups";
+  private static final String BACKUP_PREFIX = "embedded-items-";
+  private static final DateTimeFormatter BACKUP_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
   private final IdProvider itemIdProvider;
+  private final IdProvider roomIdProvider;
+  private final ItemRecords itemRecords;
+  private final Path backupDirectory;
+  private final Map<Long, Long> versionsByRoom = new HashMap<>();
 
+  /**
+   * Creates the database rewriting its files on a change, the items are kept next to the rooms file
+   * in the file returned by {@link #itemFilePath}.
+   */
   public FileBasedDatabase(Path roomFilePath,
                            IdProvider itemIdProvider,
                            IdProvider roomIdProvider,
                            FileService fileService,
-                           JsonService serializer,
+                           DocumentSerializer serializer,
                            Class<Room> cls) {
-    super(roomFilePath, roomIdProvider, fileService, serializer, cls);
+    this(new RewriteFileStorage(roomFilePath, fileService), new RewriteFileStorage(itemFilePath(roomFilePath), fileService),
+        itemIdProvider, roomIdProvider, serializer, roomFilePath.resolveSibling(BACKUP_DIRECTORY));
+  }
+
+  /**
+   * Creates the database without a backup of the rooms with embedded items.
+   */
+  public FileBasedDatabase(FileStorage roomStorage,
+                           FileStorage itemStorage,
+                           IdProvider itemIdProvider,
+                           IdProvider roomIdProvider,
+                           DocumentSerializer serializer) {
+    this(roomStorage, itemStorage, itemIdProvider, roomIdProvider, serializer, null);
+  }
+
+  /**
+   * Creates the database, the rooms stored with embedded items are backed up into a new directory
+   * ({@code embedded-items-<UTC time>-<unique suffix>}) inside the given one before their items are moved.
+   * @param backupDirectory {@link Path} of the directory keeping the backups (created if missing), null for no backup;
+   */
+  public FileBasedDatabase(FileStorage roomStorage,
+                           FileStorage itemStorage,
+                           IdProvider itemIdProvider,
+                           IdProvider roomIdProvider,
+                           DocumentSerializer serializer,
+                           Path backupDirectory) {
+    super(roomStorage, roomIdProvider, serializer, Room.class);
     this.itemIdProvider = itemIdProvider;
+    this.roomIdProvider = roomIdProvider;
+    this.backupDirectory = backupDirectory;
+    this.itemRecords = new ItemRecords(itemStorage, itemIdProvider, serializer, commitLocks());
+    moveEmbeddedItems();
+    removeOrphanedItems();
+  }
+
+  /**
+   * Returns the path of the items file kept next to the given rooms file, e.g. {@code ROOMS_ITEMS.txt} for {@code ROOMS.txt}.
+   * @param roomFilePath {@link Path} of the rooms file;
+   * @return {@link Path} of the items file;
+   */
+  public static Path itemFilePath(Path roomFilePath) {
+    String fileName = roomFilePath.getFileName().toString();
+    int extension = fileName.lastIndexOf('.');
+    return roomFilePath.resolveSibling((extension > 0 ? fileName.substring(0, extension) : fileName) + "_ITEMS.txt");
   }
 
+  /**
+   * Saves the items of the room and then the room, as a single commit. The items are written with a single write
+   * to the storage and before the room, so a save interrupted by a crash leaves only the items of a not existing
+   * room, removed at the next start.
+   */
   @Override
   public Long save(Room room) {
-    LOCK.lock();
-    try {
-      if (room != null && room.getItemsList() != null && !room.getItemsList().isEmpty()) {
-        room.getItemsList()
-            .forEach(item -> item.setId(itemIdProvider.getCurrentIdAndIncrement()));
-        return super.save(room);
+    if (isValid(room)) {
+      assignItemIds(room.getItemsList());
+      room.setId(roomIdProvider.getCurrentIdAndIncrement());
+      storeWithItems(List.of(room));
+      return room.getId();
+    }
+    log.warn("The Room object to be saved must not be null");
+    return 0L;
+  }
+
+  /**
+   * Saves the items of all valid rooms with a single write to the storage and the rooms with another one,
+   * as a single commit. Identifiers of the rooms and of their items are reserved in one block for the whole batch.
+   * @param rooms rooms to be saved;
+   * @return ids of the saved rooms in the order of the given list, 0 for each rejected room;
+   */
+  @Override
+  public List<Long> saveAll(List<Room> rooms) {
+    List<Room> validRooms = rooms.stream()
+        .filter(FileBasedDatabase::isValid)
+        .toList();
+    if (validRooms.size() < rooms.size()) {
+      log.warn("{} of the Room objects to be saved are null or empty", rooms.size() - validRooms.size());
+    }
+    if (!validRooms.isEmpty()) {
+      assignItemIds(validRooms.stream().flatMap(room -> room.getItemsList().stream()).toList());
+      long firstRoomId = roomIdProvider.getCurrentIdAndIncrementBy(validRooms.size());
+      for (int i = 0; i < validRooms.size(); i++) {
+        validRooms.get(i).setId(firstRoomId + i);
       }
-      log.warn("The Room object to be saved must not be null");
-      return 0L;
-    } finally {
-      LOCK.unlock();
+      storeWithItems(validRooms);
     }
+    return rooms.stream()
+        .map(room -> isValid(room) ? room.getId() : 0L)
+        .toList();
   }
 
   @Override
@@ -49,6 +162,17 @@ public class FileBasedDatabase extends AbstractFileDatabase<Room, Item> {
     return super.getAll();
   }
 
+  /**
+   * Returns the page of rooms (in the id order) containing at least one item meeting the filter
+   * (all rooms if the filter is null).
+   */
+  @Override
+  public Page<Room> getPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return pageOf(cursor, limit, itemFilter == null
+        ? room -> true
+        : room -> room.getItemsList().stream().anyMatch(itemFilter));
+  }
+
   @Override
   public <P> Optional<Room> getByProperty(P prop) {
     if (prop == null) {
@@ -57,42 +181,53 @@ public class FileBasedDatabase extends AbstractFileDatabase<Room, Item> {
     return super.getByProperty(prop);
   }
 
+  /**
+   * Replaces the items of the room as a single commit, the room itself keeps its number and is not written.
+   * If the number of items does not change, the items keep their ids (by position), otherwise the new items
+   * get new ids and are written before the old ones are deleted, so an update interrupted by a crash
+   * never leaves the room without items.
+   */
   @Override
   public <P> Optional<Room> updateByProperty(P property, Room updateRoom) {
-    LOCK.lock();
-    try {
-      if (property == null || updateRoom == null) {
-        log.warn("Update failed. One of the provided arguments (number/id or update Room) is null");
-        return Optional.empty();
-      } else if (updateRoom.getItemsList() == null || updateRoom.getItemsList().isEmpty()) {
-        log.warn("Update failed. Wrong content of update Room has been specified ({})", updateRoom);
-        return Optional.empty();
-      }
-      Optional<Room> optionalToUpdate = super.getByProperty(property);
+    if (property == null || updateRoom == null) {
+      log.warn("Update failed. One of the provided arguments (number/id or update Room) is null");
+      return Optional.empty();
+    } else if (updateRoom.getItemsList() == null || updateRoom.getItemsList().isEmpty()) {
+      log.warn("Update failed. Wrong content of update Room has been specified ({})", updateRoom);
+      return Optional.empty();
+    }
+    return withObjectLock(() -> findId(property), optionalId -> {
+      Optional<Room> optionalToUpdate = optionalId.flatMap(super::getByProperty);
       if (optionalToUpdate.isEmpty()) {
         log.warn("Update failed. Room: {} does not exist", property);
-      } else {
-        Room oldRoom = optionalToUpdate.get();
-        updateRoom.setRoomNumber(oldRoom.getRoomNumber());
+        return Optional.empty();
+      }
+      Room oldRoom = optionalToUpdate.get();
+      updateRoom.setId(oldRoom.getId());
+      updateRoom.setRoomNumber(oldRoom.getRoomNumber());
 
-        if (oldRoom.getItemsList().size() == updateRoom.getItemsList().size()) {
-          for (int i = 0; i < updateRoom.getItemsList().size(); i++) {
-            updateRoom.getItemsList().get(i).setId(oldRoom.getItemsList().get(i).getId());
-          }
-        } else {
-          updateRoom.getItemsList().forEach(item -> item.setId(itemIdProvider.getCurrentIdAndIncrement()));
+      List<Long> removedItemIds = new ArrayList<>();
+      if (oldRoom.getItemsList().size() == updateRoom.getItemsList().size()) {
+        for (int i = 0; i < updateRoom.getItemsList().size(); i++) {
+          updateRoom.getItemsList().get(i).setId(oldRoom.getItemsList().get(i).getId());
         }
-        log.debug("Update of \"Room: {}\" successfully completed.", property);
-        return super.updateByProperty(property, updateRoom);
+      } else {
+        removedItemIds.addAll(oldRoom.getItemsList().stream().map(Item::getId).toList());
+        assignItemIds(updateRoom.getItemsList());
       }
-      log.warn("Update of \"Room: {}\" failed. Mismatch number ({}) or empty Items list of provided Room (size: {})",
-          property, updateRoom.getRoomNumber(), updateRoom.getItemsList().size());
-      return Optional.empty();
-    } finally {
-      LOCK.unlock();
-    }
+      inOneCommit(() -> {
+        itemRecords.putAll(records(oldRoom.getId(), updateRoom.getItemsList()));
+        itemRecords.removeAll(removedItemIds);
+        return null;
+      });
+      log.debug("Update of \"Room: {}\" successfully completed.", property);
+      return Optional.of(updateRoom);
+    });
   }
 
+  /**
+   * Deletes the room and then its items, as a single commit. Items left by an interrupted deletion are removed at the next start.
+   */
   @Override
   public <P> Optional<Room> deleteByProperty(P prop) {
     if (prop != null) {
@@ -100,173 +235,430 @@ public class FileBasedDatabase extends AbstractFileDatabase<Room, Item> {
     } else {
       log.warn("Deletion failed. Room not found");
     }
-    return super.deleteByProperty(prop);
+    return withObjectLock(() -> findId(prop), optionalId -> inOneCommit(() -> {
+      Optional<Room> removedRoom = super.deleteByProperty(prop);
+      removedRoom.ifPresent(room -> itemRecords.removeAll(room.getItemsList().stream().map(Item::getId).toList()));
+      return removedRoom;
+    }));
   }
 
+  /**
+   * Returns the version at the last change of the room (specified by id or number) or of its items,
+   * empty if the room does not exist.
+   */
   @Override
-  public List<Item> getAllItems() {
-    LOCK.lock();
-    try {
-      return getAll().stream()
-          .flatMap(room -> room.getItemsList().stream())
-          .toList();
-    } finally {
-      LOCK.unlock();
+  public <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    if (!(objectProperty instanceof String || objectProperty instanceof Long)) {
+      return Optional.empty();
     }
+    Optional<Long> roomId = read(() -> findId(objectProperty));
+    return roomId.map(id -> Math.max(read(() -> versionsByRoom.getOrDefault(id, versions().initial())), itemRecords.roomVersion(id)));
+  }
+
+  @Override
+  public List<Item> getAllItems() {
+    return streamAllItems().toList();
+  }
+
+  @Override
+  public Stream<Item> streamAllItems() {
+    return streamAll()
+        .flatMap(room -> room.getItemsList().stream());
   }
 
   @Override
   public <P> Optional<Room> saveInObjectWithProperty(P objectProperty, Item item) {
-    LOCK.lock();
-    try {
-      if (objectProperty instanceof String number) {
-        log.debug("Item number: {} has been successfully stored in Room number: {}", item.getInventoryNumber(), number);
-        return saveByNumber(number, item);
-      } else if (objectProperty instanceof Long roomId) {
-        log.debug("Item number: {} has been successfully stored in Room id: {}", item.getInventoryNumber(), roomId);
-        return saveById(roomId, item);
-      }
-      log.warn("Storage of an Item number: {} in Room: {} failed", item.getInventoryNumber(), objectProperty);
-      return Optional.empty();
-    } finally {
-      LOCK.unlock();
+    if (objectProperty instanceof String number) {
+      log.debug("Item number: {} has been successfully stored in Room number: {}", item.getInventoryNumber(), number);
+      return saveInRoom(number, item);
+    } else if (objectProperty instanceof Long roomId) {
+      log.debug("Item number: {} has been successfully stored in Room id: {}", item.getInventoryNumber(), roomId);
+      return saveInRoom(roomId, item);
     }
+    log.warn("Storage of an Item number: {} in Room: {} failed", item.getInventoryNumber(), objectProperty);
+    return Optional.empty();
   }
 
+  /**
+   * Saves items in their rooms (specified by id or number) with a single write to the storage.
+   * Each affected room is locked until the whole batch is stored, the rooms themselves are not written.
+   * @param items pairs of the room property and the item to be saved in that room;
+   * @return saved items in the order of the given list, empty for each item whose room does not exist;
+   */
   @Override
-  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
-    LOCK.lock();
-    try {
-      if (objectProperty instanceof String roomNumber) {
-        Optional<Room> room = getByProperty(roomNumber).stream().findFirst();
-        return room.isPresent() ? room.get().getItemsList() : List.of();
-      } else if (objectProperty instanceof Long roomId) {
-        Optional<Room> room = getByProperty(roomId).stream().findFirst();
-        return room.isPresent() ? room.get().getItemsList() : List.of();
+  public <P> List<Optional<Item>> saveAllInObjectsWithProperty(List<Map.Entry<P, Item>> items) {
+    return withObjectLocks(() -> items.stream().map(entry -> findId(entry.getKey())).toList(), roomIds -> {
+      Map<Long, List<Item>> addedItemsByRoom = new HashMap<>();
+      Map<Item, Item> replacedAddedItems = new IdentityHashMap<>();
+      List<Item> addedItems = new ArrayList<>();
+      List<StoredItem> records = new ArrayList<>();
+      List<Optional<Item>> results = new ArrayList<>();
+      for (int i = 0; i < items.size(); i++) {
+        Item item = items.get(i).getValue();
+        if (roomIds.get(i).isEmpty() || item == null) {
+          log.warn("Storage of an Item in Room: {} failed", items.get(i).getKey());
+          results.add(Optional.empty());
+          continue;
+        }
+        Long roomId = roomIds.get(i).get();
+        item.setModificationDate(LocalDate.now());
+        Optional<Item> replacedItem = findEqualItem(roomId, item);
+        if (replacedItem.isPresent()) {
+          item.setId(replacedItem.get().getId());
+        } else {
+          List<Item> addedToRoom = addedItemsByRoom.computeIfAbsent(roomId, id -> new ArrayList<>());
+          addedToRoom.stream()
+              .filter(item::equals)
+              .findFirst()
+              .ifPresentOrElse(addedItem -> replacedAddedItems.put(item, addedItem), () -> {
+                addedToRoom.add(item);
+                addedItems.add(item);
+              });
+        }
+        records.add(new StoredItem(roomId, item));
+        results.add(Optional.of(item));
       }
+      assignItemIds(addedItems);
+      replacedAddedItems.forEach((item, addedItem) -> item.setId(addedItem.getId()));
+      Map<Long, StoredItem> recordsById = new LinkedHashMap<>();
+      records.forEach(storedItem -> recordsById.put(storedItem.getId(), storedItem));
+      itemRecords.putAll(List.copyOf(recordsById.values()));
+      log.debug("{} Items have been stored in {} Rooms", results.stream().filter(Optional::isPresent).count(),
+          records.stream().map(StoredItem::getRoomId).distinct().count());
+      return results;
+    });
+  }
+
+  @Override
+  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
+    if (objectProperty instanceof String || objectProperty instanceof Long) {
+      Optional<Room> room = getByProperty(objectProperty);
+      return room.isPresent() ? room.get().getItemsList() : List.of();
+    }
+    return List.of();
+  }
+
+  /**
+   * Returns the page of items (in the id order) meeting the filter (all items if the filter is null).
+   * Only the item records up to the end of the page are read, the rooms are not read at all.
+   */
+  @Override
+  public Page<Item> getItemsPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    Page<StoredItem> page = itemRecords.pageOf(cursor, limit,
+        storedItem -> itemFilter == null || itemFilter.test(storedItem.getItem()));
+    return new Page<>(page.getContent().stream().map(StoredItem::getItem).toList(), page.getNextCursor());
+  }
+
+  @Override
+  public <P> Page<Item> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit,
+                                                           Predicate<? super Item> itemFilter) {
+    if (!(objectProperty instanceof String || objectProperty instanceof Long)) {
+      return Page.empty();
+    }
+    Optional<Long> roomId = read(() -> findId(objectProperty));
+    if (roomId.isEmpty()) {
+      return Page.empty();
+    }
+    Iterator<Long> itemIds = itemRecords.queryIndex(index -> index.itemIdsOf(roomId.get())).stream()
+        .filter(itemId -> cursor == null || itemId > cursor)
+        .iterator();
+    List<Item> matchingItems = new ArrayList<>();
+    while (matchingItems.size() <= limit && itemIds.hasNext()) {
+      getStoredItem(itemIds.next())
+          .filter(item -> itemFilter == null || itemFilter.test(item))
+          .ifPresent(matchingItems::add);
+    }
+    List<Item> items = matchingItems.subList(0, Math.min(limit, matchingItems.size()));
+    return new Page<>(items, nextCursor(items, limit, matchingItems.size() > limit));
+  }
+
+  /**
+   * Returns the items found by the search index of the {@link ItemIndex}, maintained with every write of the item records,
+   * so only the found items are read.
+   */
+  @Override
+  public List<Item> searchItems(String query, int limit) {
+    if (query == null || query.isBlank()) {
       return List.of();
-    } finally {
-      LOCK.unlock();
     }
+    return itemRecords.queryIndex(index -> index.search(query, limit)).stream()
+        .map(this::getStoredItem)
+        .flatMap(Optional::stream)
+        .toList();
   }
 
+  /**
+   * Returns the valuation of all items from the running totals kept with the item records, no item is read.
+   */
   @Override
-  public <P> Optional<Item> getItemByProperty(P itemProperty) {
-    LOCK.lock();
-    try {
-      if (itemProperty instanceof String roomNumber) {
-        return getAll().stream()
-            .flatMap(room -> room.getItemsList().stream())
-            .filter(item -> item.getInventoryNumber().equalsIgnoreCase(roomNumber))
-            .findFirst();
-      } else if (itemProperty instanceof Long roomId) {
-        return getAll().stream()
-            .flatMap(room -> room.getItemsList().stream())
-            .filter(item -> Objects.equals(item.getId(), roomId))
-            .findFirst();
-      }
+  public Optional<Valuation> getValuation() {
+    return Optional.of(itemRecords.queryIndex(ItemIndex::valuation));
+  }
+
+  /**
+   * Returns the valuation of the items of the room (specified by id or number) from the running totals
+   * kept with the item records, empty if the room does not exist.
+   */
+  @Override
+  public <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    if (!(objectProperty instanceof String || objectProperty instanceof Long)) {
       return Optional.empty();
-    } finally {
-      LOCK.unlock();
     }
+    return read(() -> findId(objectProperty))
+        .map(roomId -> itemRecords.queryIndex(index -> index.valuationOf(roomId)));
+  }
+
+  @Override
+  public <P> Optional<Item> getItemByProperty(P itemProperty) {
+    return findItem(itemProperty)
+        .flatMap(location -> getStoredItem(location.itemId()));
   }
 
   @Override
   public <P> Optional<Item> deleteItemByProperty(P itemProperty) {
-    LOCK.lock();
-    try {
-      final Optional<Item> optionalItem = getItemByProperty(itemProperty);
-      if (optionalItem.isPresent()) {
-        Item itemToRemove = optionalItem.get();
-        Room room = getRoomContaining(itemToRemove);
-        room.setItemsList(room.getItemsList().stream()
-            .filter(item -> !Objects.equals(item.getId(), itemToRemove.getId()))
-            .toList());
-        super.updateByProperty(room.getId(), room);
-        return optionalItem;
-      } else {
-        return Optional.empty();
+    return withObjectLock(() -> findItem(itemProperty).map(ItemLocation::roomId), optionalRoomId -> {
+      Optional<ItemLocation> optionalLocation = findItem(itemProperty);
+      if (optionalLocation.isPresent()) {
+        return itemRecords.deleteByProperty(optionalLocation.get().itemId())
+            .map(StoredItem::getItem);
       }
-    } finally {
-      LOCK.unlock();
-    }
+      return Optional.empty();
+    });
   }
 
+  /**
+   * Replaces the content of the item, only the record of the item is written.
+   */
   @Override
   public <P> Optional<Item> updateItemByProperty(P itemProperty, Item updateItem) {
-    LOCK.lock();
-    try {
-      Optional<Item> optionalItem = getItemByProperty(itemProperty);
-      if (optionalItem.isPresent()) {
-        final Item oldItem = optionalItem.get();
-        updateItem.setId(oldItem.getId());
+    return withObjectLock(() -> findItem(itemProperty).map(ItemLocation::roomId), optionalRoomId -> {
+      Optional<ItemLocation> optionalLocation = findItem(itemProperty);
+      if (optionalLocation.isPresent()) {
+        ItemLocation location = optionalLocation.get();
+        updateItem.setId(location.itemId());
         updateItem.setModificationDate(LocalDate.now());
-        Room room = getRoomContaining(oldItem);
-        List<Item> itemList = room.getItemsList();
-        int itemIndex = itemList.indexOf(oldItem);
-        itemList.set(itemIndex, updateItem);
-        room.setItemsList(itemList);
-        super.updateByProperty(room.getId(), room);
-        return Optional.of(updateItem);
+        return itemRecords.updateByProperty(location.itemId(), new StoredItem(location.roomId(), updateItem))
+            .map(StoredItem::getItem);
       }
       return Optional.empty();
-    } finally {
-      LOCK.unlock();
-    }
+    });
   }
 
-  private Optional<Room> saveByNumber(String roomNumber, Item item) {
-    Optional<Room> optionalRoom = getByProperty(roomNumber);
-    if (optionalRoom.isPresent()) {
-      Room room = optionalRoom.get();
-      List<Item> itemList = room.getItemsList();
-      Optional<Item> replacedItem = itemList.stream()
-          .filter(i -> i.equals(item))
-          .findFirst();
-      if (replacedItem.isPresent()) {
-        item.setId(replacedItem.get().getId());
-        item.setModificationDate(LocalDate.now());
-        itemList.set(itemList.indexOf(replacedItem.get()), item);
-      } else {
-        item.setId(itemIdProvider.getCurrentIdAndIncrement());
+  @Override
+  protected void afterStore(Room room) {
+    versionsByRoom.put(room.getId(), versions().current());
+  }
+
+  @Override
+  protected void afterRemove(Long roomId) {
+    versionsByRoom.remove(roomId);
+  }
+
+  @Override
+  protected Room assemble(Room stored) {
+    stored.setItemsList(itemIdsOf(stored.getId()).stream()
+        .map(this::getStoredItem)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toCollection(ArrayList::new)));
+    return stored;
+  }
+
+  /**
+   * Stores the items of the new rooms (with assigned ids) and then the rooms, as a single commit.
+   */
+  private void storeWithItems(List<Room> rooms) {
+    inOneCommit(() -> {
+      itemRecords.putAll(rooms.stream()
+          .flatMap(room -> records(room.getId(), room.getItemsList()).stream())
+          .toList());
+      putAll(rooms.stream().map(FileBasedDatabase::header).toList());
+      return null;
+    });
+  }
+
+  private <P> Optional<Room> saveInRoom(P roomProperty, Item item) {
+    return withObjectLock(() -> findId(roomProperty), optionalRoomId -> {
+      if (optionalRoomId.isPresent()) {
+        Long roomId = optionalRoomId.get();
+        item.setId(findEqualItem(roomId, item)
+            .map(Item::getId)
+            .orElseGet(itemIdProvider::getCurrentIdAndIncrement));
         item.setModificationDate(LocalDate.now());
-        itemList.add(item);
+        itemRecords.putAll(List.of(new StoredItem(roomId, item)));
+        return getByProperty(roomId);
       }
-      room.setItemsList(itemList);
-      return super.updateByProperty(roomNumber, room);
+      return Optional.empty();
+    });
+  }
+
+  /**
+   * Moves the items embedded in the stored rooms to the separate records, after the rooms are backed up.
+   * The items are written before the rooms, so an interrupted move is repeated at the next start. The repeated
+   * move records no item twice: an item with id replaces its record, an item without id takes the id of an equal
+   * item recorded for its room by the interrupted move (each recorded item is taken once).
+   */
+  private void moveEmbeddedItems() {
+    List<Room> roomsWithItems = streamStored()
+        .filter(room -> room.getItemsList() != null && !room.getItemsList().isEmpty())
+        .toList();
+    if (roomsWithItems.isEmpty()) {
+      return;
     }
-    return Optional.empty();
+    backUpRooms();
+    assignItemIds(roomsWithItems.stream()
+        .flatMap(room -> itemsWithoutRecords(room).stream())
+        .toList());
+    itemRecords.putAll(roomsWithItems.stream()
+        .flatMap(room -> records(room.getId(), room.getItemsList()).stream())
+        .toList());
+    updateAll(roomsWithItems.stream().map(FileBasedDatabase::header).toList());
+    log.info("Items of {} rooms have been moved to separate records", roomsWithItems.size());
   }
 
-  private Optional<Room> saveById(Long roomId, Item item) {
-    Optional<Room> optionalRoom = getByProperty(roomId);
-    if (optionalRoom.isPresent()) {
-      Room room = optionalRoom.get();
-      List<Item> itemList = room.getItemsList();
-      Optional<Item> replacedItem = itemList.stream()
-          .filter(i -> i.equals(item))
-          .findFirst();
-      if (replacedItem.isPresent()) {
-        item.setId(replacedItem.get().getId());
-        item.setModificationDate(LocalDate.now());
-        itemList.set(itemList.indexOf(replacedItem.get()), item);
-      } else {
-        item.setId(itemIdProvider.getCurrentIdAndIncrement());
-        item.setModificationDate(LocalDate.now());
-        itemList.add(item);
+  /**
+   * Gives the items of the room without id the ids of the equal items already recorded for the room
+   * (and not embedded with their ids).
+   * @return items of the room still without id;
+   */
+  private List<Item> itemsWithoutRecords(Room room) {
+    List<Long> embeddedIds = room.getItemsList().stream()
+        .map(Item::getId)
+        .filter(id -> id != null)
+        .toList();
+    List<Item> recordedItems = itemIdsOf(room.getId()).stream()
+        .filter(id -> !embeddedIds.contains(id))
+        .map(this::getStoredItem)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toCollection(ArrayList::new));
+    List<Item> itemsWithoutIds = new ArrayList<>();
+    for (Item item : room.getItemsList()) {
+      if (item.getId() != null) {
+        continue;
+      }
+      recordedItems.stream()
+          .filter(item::equals)
+          .findFirst()
+          .ifPresentOrElse(recordedItem -> {
+            item.setId(recordedItem.getId());
+            recordedItems.remove(recordedItem);
+          }, () -> itemsWithoutIds.add(item));
+    }
+    return itemsWithoutIds;
+  }
+
+  private void backUpRooms() {
+    if (backupDirectory == null) {
+      return;
+    }
+    Path directory;
+    try {
+      Files.createDirectories(backupDirectory);
+      directory = Files.createTempDirectory(backupDirectory, BACKUP_PREFIX + BACKUP_NAME_FORMAT.format(Instant.now()) + "-");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    List<SnapshotCopy> copies = super.capture(directory);
+    try {
+      copies.forEach(SnapshotCopy::transfer);
+    } finally {
+      copies.forEach(SnapshotCopy::close);
+    }
+    log.info("Rooms with embedded items have been backed up into \"{}\"", directory);
+  }
+
+  private void removeOrphanedItems() {
+    List<Long> orphanedItemIds = itemRecords.queryIndex(ItemIndex::roomIds).stream()
+        .filter(roomId -> read(() -> findId(roomId)).isEmpty())
+        .flatMap(roomId -> itemIdsOf(roomId).stream())
+        .toList();
+    if (!orphanedItemIds.isEmpty()) {
+      itemRecords.removeAll(orphanedItemIds);
+      log.warn("{} items of not existing rooms have been removed", orphanedItemIds.size());
+    }
+  }
+
+  /**
+   * Captures the rooms and then their items while the commits of both are blocked, so the snapshot
+   * holds no item of a room it does not contain and no room is missing its items.
+   */
+  @Override
+  List<SnapshotCopy> capture(Path directory) {
+    return withCommitLock(() -> {
+      List<SnapshotCopy> copies = new ArrayList<>(super.capture(directory));
+      try {
+        copies.addAll(itemRecords.capture(directory));
+      } catch (RuntimeException e) {
+        copies.forEach(SnapshotCopy::close);
+        throw e;
+      }
+      return copies;
+    });
+  }
+
+  /**
+   * Flushes the buffered changes of the rooms and of their items while the commits of both are blocked.
+   */
+  @Override
+  CompletableFuture<Void> flush() {
+    return withCommitLock(() -> CompletableFuture.allOf(super.flush(), itemRecords.flush()));
+  }
+
+  private static boolean isValid(Room room) {
+    return room != null && room.getItemsList() != null && !room.getItemsList().isEmpty();
+  }
+
+  private static Room header(Room room) {
+    return Room.builder()
+        .id(room.getId())
+        .roomNumber(room.getRoomNumber())
+        .build();
+  }
+
+  private static List<StoredItem> records(Long roomId, List<Item> items) {
+    return items.stream()
+        .map(item -> new StoredItem(roomId, item))
+        .toList();
+  }
+
+  private void assignItemIds(List<Item> items) {
+    if (!items.isEmpty()) {
+      long firstId = itemIdProvider.getCurrentIdAndIncrementBy(items.size());
+      for (int i = 0; i < items.size(); i++) {
+        items.get(i).setId(firstId + i);
       }
-      room.setItemsList(itemList);
-      return super.updateByProperty(roomId, room);
+    }
+  }
+
+  /**
+   * Returns the stored item of the room equal to the given one (with the lowest id), found by the content hash.
+   */
+  private Optional<Item> findEqualItem(Long roomId, Item item) {
+    return itemRecords.queryIndex(index -> index.candidatesEqualTo(roomId, item)).stream()
+        .map(this::getStoredItem)
+        .flatMap(Optional::stream)
+        .filter(item::equals)
+        .findFirst();
+  }
+
+  private <P> Optional<ItemLocation> findItem(P itemProperty) {
+    if (itemProperty instanceof String inventoryNumber) {
+      return itemRecords.queryIndex(index -> index.find(inventoryNumber));
+    } else if (itemProperty instanceof Long itemId) {
+      return itemRecords.queryIndex(index -> index.find(itemId));
     }
     return Optional.empty();
   }
 
-  private Room getRoomContaining(Item oldItem) {
-    return getAll().stream().filter(room ->
-            room.getItemsList().stream().anyMatch(item ->
-                item.getInventoryNumber().equalsIgnoreCase(oldItem.getInventoryNumber())
-                && item.getId().equals(oldItem.getId())))
-        .findFirst()
-        .orElseThrow(() -> new NoSuchElementException("Room containing searched Item not found."));
+  private List<Long> itemIdsOf(Long roomId) {
+    return itemRecords.queryIndex(index -> index.itemIdsOf(roomId));
+  }
+
+  private Optional<Item> getStoredItem(Long itemId) {
+    return itemRecords.getByProperty(itemId)
+        .map(StoredItem::getItem);
+  }
+
+  private static Long nextCursor(List<Item> items, int limit, boolean hasMore) {
+    return items.size() == limit && hasMore ? items.getLast().getId() : null;
   }
 }
@@ -1,14 +1,20 @@
 package pl.inventory.system.database.file;
 
 import java.nio.file.Path;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import pl.inventory.system.database.Database;
 import pl.inventory.system.model.Item;
 import pl.inventory.system.model.Room;
+import pl.inventory.system.model.StoredItem;
+import pl.inventory.system.utils.BinaryService;
+import pl.inventory.system.utils.DocumentSerializer;
 import pl.inventory.system.utils.FileManager;
 import pl.inventory.system.utils.FileService;
 import pl.inventory.system.utils.IdProvider;
@@ -18,39 +24,107 @@ import pl.inventory.system.utils.JsonService;
 @Configuration
 @SuppressWarnings("unused")
 @ConditionalOnProperty(name = "inventory_system.database.name", havingValue = "file")
+@EnableConfigurationProperties(FileDatabaseProperties.class)
 public class FileBasedDatabaseConfig {
 
-  private final String filesDirectory;
-  private final String roomFileName;
-  private final String roomIdFileName;
-  private final String itemIdFileName;
-
-  public FileBasedDatabaseConfig(
-      @Value("${inventory_system.database.files_directory}") String filesDirectory,
-      @Value("${inventory_system.database.room_file_name}") String roomFileName,
-      @Value("${inventory_system.database.room_id_file_name}") String roomIdFileName,
-      @Value("${inventory_system.database.item_id_file_name}") String itemIdFileName) {
-    this.filesDirectory = filesDirectory;
-    this.roomFileName = roomFileName;
-    this.roomIdFileName = roomIdFileName;
-    this.itemIdFileName = itemIdFileName;
+  static final String REWRITE_MODE = "rewrite";
+  static final String JOURNAL_MODE = "journal";
+  static final String JSON_FORMAT = "json";
+  static final String BINARY_FORMAT = "binary";
+
+  private final FileDatabaseProperties properties;
+
+  /**
+   * Creates the configuration, a positive write-behind capacity enables the write-behind mode
+   * ({@link WriteBehindFileStorage}) with at most that many dirty objects per storage.
+   * @param properties {@link FileDatabaseProperties} bound from the {@code inventory_system.database} properties;
+   */
+  public FileBasedDatabaseConfig(FileDatabaseProperties properties) {
+    this.properties = properties;
   }
 
   @Bean
   public Path roomFilePath() {
-    return FileManager.createFile(roomFileName, filesDirectory);
+    return FileManager.createFile(properties.roomFileName(), properties.filesDirectory());
   }
 
   @Bean
   public IdProvider roomIdProvider(FileService fileService) {
-    Path roomIdPath = FileManager.createFile(roomIdFileName, filesDirectory);
-    return new IdProvider(roomIdPath, fileService);
+    Path roomIdPath = FileManager.createFile(properties.roomIdFileName(), properties.filesDirectory());
+    return new IdProvider(roomIdPath, fileService, properties.idBlockSize());
   }
 
   @Bean
   public IdProvider itemIdProvider(FileService fileService) {
-    Path itemIdPath = FileManager.createFile(itemIdFileName, filesDirectory);
-    return new IdProvider(itemIdPath, fileService);
+    Path itemIdPath = FileManager.createFile(properties.itemIdFileName(), properties.filesDirectory());
+    return new IdProvider(itemIdPath, fileService, properties.idBlockSize());
+  }
+
+  /**
+   * Creates the storage of the rooms. Documents stored in the other format are converted to the configured one first.
+   */
+  @Bean
+  public FileStorage roomStorage(FileService fileService, JsonService serializer) {
+    return storage(roomFilePath(), properties.roomJournalFileName(), Room.class, fileService, serializer);
+  }
+
+  /**
+   * Creates the storage of the items kept as separate records of their rooms, in the file next to the rooms file
+   * ({@link FileBasedDatabase#itemFilePath}).
+   */
+  @Bean
+  public FileStorage itemStorage(FileService fileService, JsonService serializer) {
+    Path itemFilePath = FileBasedDatabase.itemFilePath(roomFilePath());
+    FileManager.createFile(itemFilePath.toFile());
+    return storage(itemFilePath, properties.itemJournalFileName(), StoredItem.class, fileService, serializer);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "inventory_system.database.storage_mode", havingValue = JOURNAL_MODE)
+  public JournalCompactor journalCompactor(
+      FileService fileService,
+      JsonService serializer,
+      @Value("${inventory_system.database.compaction_records_threshold:1000}") long recordsThreshold,
+      @Value("${inventory_system.database.compaction_interval_ms:60000}") long intervalMillis) {
+    return new JournalCompactor(
+        List.of((JournalFileStorage) unbuffered(roomStorage(fileService, serializer)),
+            (JournalFileStorage) unbuffered(itemStorage(fileService, serializer))),
+        recordsThreshold, intervalMillis);
+  }
+
+  /**
+   * Flushes the dirty objects of the write-behind storages, created only in the write-behind mode.
+   * Flushes all dirty objects when the application context is stopped.
+   */
+  @Bean
+  @ConditionalOnExpression("${inventory_system.database.write_behind_capacity:0} > 0")
+  public WriteBehindFlusher writeBehindFlusher(
+      FileService fileService,
+      JsonService serializer,
+      @Value("${inventory_system.database.write_behind_flush_interval_ms:200}") long intervalMillis) {
+    return new WriteBehindFlusher(
+        (FileBasedDatabase) roomDatabase(fileService, serializer),
+        List.of((WriteBehindFileStorage) roomStorage(fileService, serializer), (WriteBehindFileStorage) itemStorage(fileService, serializer)),
+        intervalMillis);
+  }
+
+  /**
+   * Schedules the snapshots of the database files, enabled by a positive snapshot interval.
+   * The snapshots are kept in the given directory inside the files directory.
+   */
+  @Bean
+  @ConditionalOnExpression("${inventory_system.database.snapshot_interval_ms:0} > 0")
+  public DatabaseSnapshotter databaseSnapshotter(
+      FileService fileService,
+      JsonService serializer,
+      @Value("${inventory_system.database.snapshot_interval_ms}") long intervalMillis,
+      @Value("${inventory_system.database.snapshot_directory:snapshots}") String snapshotDirectory,
+      @Value("${inventory_system.database.snapshot_retention:5}") int retainedSnapshots) {
+    return new DatabaseSnapshotter(
+        (FileBasedDatabase) roomDatabase(fileService, serializer),
+        List.of(Path.of(properties.filesDirectory(), properties.roomIdFileName()),
+            Path.of(properties.filesDirectory(), properties.itemIdFileName())),
+        Path.of(properties.filesDirectory(), snapshotDirectory), retainedSnapshots, intervalMillis);
   }
 
   @Bean
@@ -59,12 +133,49 @@ public class FileBasedDatabaseConfig {
       JsonService serializer) {
     log.debug("File database has been initialised for objects of type Room");
     return new FileBasedDatabase(
-        roomFilePath(),
+        roomStorage(fileService, serializer),
+        itemStorage(fileService, serializer),
         itemIdProvider(fileService),
         roomIdProvider(fileService),
-        fileService,
-        serializer,
-        Room.class
+        documentSerializer(serializer),
+        roomFilePath().resolveSibling(FileBasedDatabase.BACKUP_DIRECTORY)
     );
   }
+
+  DocumentSerializer documentSerializer(JsonService serializer) {
+    if (BINARY_FORMAT.equalsIgnoreCase(properties.documentFormat())) {
+      return new BinaryService();
+    } else if (!JSON_FORMAT.equalsIgnoreCase(properties.documentFormat())) {
+      throw new IllegalStateException(String.format("Unknown document format: \"%s\"", properties.documentFormat()));
+    }
+    return serializer;
+  }
+
+  private FileStorage storage(Path dataPath, String journalFileName, Class<?> objClass, FileService fileService, JsonService serializer) {
+    DocumentSerializer documentSerializer = documentSerializer(serializer);
+    DocumentConverter converter = new DocumentConverter(documentSerializer,
+        documentSerializer instanceof BinaryService ? serializer : new BinaryService(), fileService);
+    converter.convertDocuments(dataPath, objClass);
+    if (JOURNAL_MODE.equalsIgnoreCase(properties.storageMode())) {
+      log.debug("Journal storage has been selected for objects of type {}", objClass.getSimpleName());
+      Path journalPath = FileManager.createFile(journalFileName, properties.filesDirectory());
+      converter.convertJournal(journalPath, objClass);
+      return buffered(new JournalFileStorage(dataPath, journalPath, fileService, documentSerializer));
+    } else if (!REWRITE_MODE.equalsIgnoreCase(properties.storageMode())) {
+      throw new IllegalStateException(String.format("Unknown storage mode: \"%s\"", properties.storageMode()));
+    }
+    return buffered(new RewriteFileStorage(dataPath, fileService));
+  }
+
+  private FileStorage buffered(FileStorage storage) {
+    if (properties.writeBehindCapacity() > 0) {
+      log.debug("Write-behind mode has been selected (capacity: {} dirty objects)", properties.writeBehindCapacity());
+      return new WriteBehindFileStorage(storage, properties.writeBehindCapacity());
+    }
+    return storage;
+  }
+
+  private static FileStorage unbuffered(FileStorage storage) {
+    return storage instanceof WriteBehindFileStorage writeBehindStorage ? writeBehindStorage.delegate() : storage;
+  }
 }
@@ -0,0 +1,51 @@
+package pl.inventory.system.database.file;
+
+import lombok.With;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the file database, bound from the {@code inventory_system.database} properties
+ * (e.g. {@code files_directory} to {@link #filesDirectory}). The files directory and the names of the room
+ * and id files are required, the other settings have defaults.
+ * @param filesDirectory      directory of the database files;
+ * @param roomFileName        name of the rooms file, the items are kept next to it ({@link FileBasedDatabase#itemFilePath});
+ * @param roomIdFileName      name of the file of the room ids;
+ * @param itemIdFileName      name of the file of the item ids;
+ * @param storageMode         {@code rewrite} or {@code journal};
+ * @param roomJournalFileName name of the journal of the rooms (journal mode);
+ * @param itemJournalFileName name of the journal of the items (journal mode);
+ * @param idBlockSize         number of the ids reserved with a single write of an id file;
+ * @param documentFormat      {@code json} or {@code binary};
+ * @param writeBehindCapacity maximum number of the dirty objects per storage in the write-behind mode (0 disables it);
+ */
+@With
+@ConfigurationProperties(prefix = "inventory-system.database")
+public record FileDatabaseProperties(String filesDirectory,
+                                     String roomFileName,
+                                     String roomIdFileName,
+                                     String itemIdFileName,
+                                     @DefaultValue(FileBasedDatabaseConfig.REWRITE_MODE) String storageMode,
+                                     @DefaultValue(DEFAULT_ROOM_JOURNAL_FILE_NAME) String roomJournalFileName,
+                                     @DefaultValue(DEFAULT_ITEM_JOURNAL_FILE_NAME) String itemJournalFileName,
+                                     @DefaultValue("1000") long idBlockSize,
+                                     @DefaultValue(FileBasedDatabaseConfig.JSON_FORMAT) String documentFormat,
+                                     @DefaultValue("0") int writeBehindCapacity) {
+
+  static final String DEFAULT_ROOM_JOURNAL_FILE_NAME = "ROOMS_JOURNAL.txt";
+  static final String DEFAULT_ITEM_JOURNAL_FILE_NAME = "ITEMS_JOURNAL.txt";
+
+  public FileDatabaseProperties {
+    if (filesDirectory == null || roomFileName == null || roomIdFileName == null || itemIdFileName == null) {
+      throw new IllegalStateException("Files directory and names of the room file and of the id files must be configured");
+    }
+  }
+
+  /**
+   * Creates the settings with the given files and the default values of the other settings.
+   */
+  public static FileDatabaseProperties of(String filesDirectory, String roomFileName, String roomIdFileName, String itemIdFileName) {
+    return new FileDatabaseProperties(filesDirectory, roomFileName, roomIdFileName, itemIdFileName, FileBasedDatabaseConfig.REWRITE_MODE,
+        DEFAULT_ROOM_JOURNAL_FILE_NAME, DEFAULT_ITEM_JOURNAL_FILE_NAME, 1000L, FileBasedDatabaseConfig.JSON_FORMAT, 0);
+  }
+}
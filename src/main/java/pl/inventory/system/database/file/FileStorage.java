@@ -0,0 +1,90 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Persistence strategy of a file database. Holds the serialised documents of all stored objects,
+ * while the owning database keeps them resident in memory and decides about their content.
+ * A write may be completed asynchronously: the order of the writes is fixed when the method returns,
+ * the returned future is completed when the write reaches the file.
+ */
+public interface FileStorage {
+
+  /**
+   * Reads the current content of the storage.
+   * @return serialised documents of all stored objects, in the order they were stored;
+   */
+  List<String> load();
+
+  /**
+   * Persists a newly saved object.
+   * @param id       {@link Long} id assigned to the object;
+   * @param document serialised content of the object;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> append(Long id, String document);
+
+  /**
+   * Persists newly saved objects with a single write.
+   * @param documents serialised content of the objects by their assigned ids, in the saving order;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> appendAll(Map<Long, String> documents);
+
+  /**
+   * Persists a new content of already stored object.
+   * @param id        {@link Long} id of the updated object;
+   * @param document  serialised content of the updated object;
+   * @param documents supplier of all documents (after the update) in the storage order;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> replace(Long id, String document, Supplier<List<String>> documents);
+
+  /**
+   * Persists a new content of multiple stored objects with a single write.
+   * @param documents    serialised content of the updated objects by their ids;
+   * @param allDocuments supplier of all documents (after the update) in the storage order;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> replaceAll(Map<Long, String> documents, Supplier<List<String>> allDocuments);
+
+  /**
+   * Persists the deletion of the stored object.
+   * @param id        {@link Long} id of the removed object;
+   * @param documents supplier of all remaining documents in the storage order;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> remove(Long id, Supplier<List<String>> documents);
+
+  /**
+   * Persists the deletion of multiple stored objects with a single write.
+   * @param ids       ids of the removed objects;
+   * @param documents supplier of all remaining documents in the storage order;
+   * @return {@link CompletableFuture} completed when the write is finished;
+   */
+  CompletableFuture<Void> removeAll(Collection<Long> ids, Supplier<List<String>> documents);
+
+  /**
+   * Writes the changes buffered by the storage, a storage writing each change immediately has nothing to flush.
+   * Called while no write to the storage is in progress.
+   * @param documents supplier of all current documents in the storage order;
+   * @return {@link CompletableFuture} completed when the buffered changes are written;
+   */
+  default CompletableFuture<Void> flush(Supplier<List<String>> documents) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Captures the current content of the storage files into the snapshot directory. Called while no write
+   * to the storage is in progress, must be fast: files which are only replaced atomically are hard-linked,
+   * files appended in place are captured with their current length and copied by the caller afterwards.
+   * @param directory {@link Path} of the snapshot directory;
+   * @return {@link SnapshotCopy}s of the captured content still to be copied;
+   */
+  List<SnapshotCopy> capture(Path directory);
+}
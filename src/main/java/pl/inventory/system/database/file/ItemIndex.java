@@ -0,0 +1,146 @@
+package pl.inventory.system.database.file;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import pl.inventory.system.database.ItemSearchIndex;
+import pl.inventory.system.database.ValuationAggregates;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Secondary index of the items stored as separate records. Maps an item id and an upper-cased inventory number
+ * to the {@link ItemLocation} (owning room id and item id) and keeps the ids of the items of each room.
+ * If the same inventory number is stored in several rooms, the room with the lowest id is resolved first
+ * and within a room the item with the lowest id. Items are also grouped by the hash of their content,
+ * so an item equal to the saved one is found without reading all items of the room. Numbers and descriptions
+ * of the items are searched with the {@link ItemSearchIndex} and their values are summed by the {@link ValuationAggregates}.
+ * The class is not thread-safe, the access has to be guarded by the owning database.
+ */
+final class ItemIndex {
+
+  private final Map<Long, IndexedItem> itemsById = new HashMap<>();
+  private final Map<Long, NavigableSet<Long>> itemIdsByRoom = new HashMap<>();
+  private final Map<String, NavigableSet<ItemLocation>> locationsByNumber = new HashMap<>();
+  private final Map<ContentKey, NavigableSet<Long>> itemIdsByContent = new HashMap<>();
+  private final ItemSearchIndex searchIndex = new ItemSearchIndex();
+  private final ValuationAggregates valuationAggregates = new ValuationAggregates();
+
+  /**
+   * Indexes the item stored in the given room, replacing the previous entries of the item.
+   * @param roomId {@link Long} id of the owning room;
+   * @param item   stored {@link Item} (with assigned id);
+   */
+  void index(Long roomId, Item item) {
+    remove(item.getId());
+    IndexedItem indexedItem = new IndexedItem(roomId, item.getNumber(), item.hashCode());
+    itemsById.put(item.getId(), indexedItem);
+    itemIdsByRoom.computeIfAbsent(roomId, key -> new TreeSet<>()).add(item.getId());
+    if (indexedItem.number() != null) {
+      locationsByNumber.computeIfAbsent(normalise(indexedItem.number()), key -> new TreeSet<>())
+          .add(new ItemLocation(roomId, item.getId()));
+    }
+    itemIdsByContent.computeIfAbsent(new ContentKey(roomId, indexedItem.contentHash()), key -> new TreeSet<>()).add(item.getId());
+    searchIndex.index(item);
+    valuationAggregates.add(roomId, item);
+  }
+
+  void remove(Long itemId) {
+    IndexedItem removedItem = itemsById.remove(itemId);
+    if (removedItem == null) {
+      return;
+    }
+    removeFrom(itemIdsByRoom, removedItem.roomId(), itemId);
+    if (removedItem.number() != null) {
+      removeFrom(locationsByNumber, normalise(removedItem.number()), new ItemLocation(removedItem.roomId(), itemId));
+    }
+    removeFrom(itemIdsByContent, new ContentKey(removedItem.roomId(), removedItem.contentHash()), itemId);
+    searchIndex.remove(itemId);
+    valuationAggregates.remove(itemId);
+  }
+
+  Optional<ItemLocation> find(Long itemId) {
+    return Optional.ofNullable(itemsById.get(itemId))
+        .map(item -> new ItemLocation(item.roomId(), itemId));
+  }
+
+  Optional<ItemLocation> find(String inventoryNumber) {
+    NavigableSet<ItemLocation> locations = locationsByNumber.get(normalise(inventoryNumber));
+    return locations == null ? Optional.empty() : Optional.of(locations.first());
+  }
+
+  /**
+   * Returns ids of the items of the room, in the ascending order.
+   * @param roomId {@link Long} id of the room;
+   */
+  List<Long> itemIdsOf(Long roomId) {
+    NavigableSet<Long> itemIds = itemIdsByRoom.get(roomId);
+    return itemIds == null ? List.of() : List.copyOf(itemIds);
+  }
+
+  /**
+   * Returns ids of the items of the room with the same content hash as the given item, in the ascending order.
+   * The items have to be compared with the given one, as different items may have the same hash.
+   */
+  List<Long> candidatesEqualTo(Long roomId, Item item) {
+    NavigableSet<Long> itemIds = itemIdsByContent.get(new ContentKey(roomId, item.hashCode()));
+    return itemIds == null ? List.of() : List.copyOf(itemIds);
+  }
+
+  /**
+   * Returns ids of the items found by their inventory number prefix or by the words of their description.
+   * @see ItemSearchIndex#search(String, int)
+   */
+  List<Long> search(String query, int limit) {
+    return searchIndex.search(query, limit);
+  }
+
+  Valuation valuation() {
+    return valuationAggregates.valuation();
+  }
+
+  Valuation valuationOf(Long roomId) {
+    return valuationAggregates.valuationOf(roomId);
+  }
+
+  /**
+   * Returns ids of the rooms containing at least one item.
+   */
+  List<Long> roomIds() {
+    return List.copyOf(itemIdsByRoom.keySet());
+  }
+
+  private static <K, V> void removeFrom(Map<K, NavigableSet<V>> index, K key, V value) {
+    index.computeIfPresent(key, (k, values) -> {
+      values.remove(value);
+      return values.isEmpty() ? null : values;
+    });
+  }
+
+  private static String normalise(String number) {
+    return number.toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Location of an item: id of the owning room and id of the item. Locations are ordered by the room id
+   * and then by the item id.
+   */
+  record ItemLocation(Long roomId, Long itemId) implements Comparable<ItemLocation> {
+
+    @Override
+    public int compareTo(ItemLocation other) {
+      int byRoom = roomId.compareTo(other.roomId);
+      return byRoom != 0 ? byRoom : itemId.compareTo(other.itemId);
+    }
+  }
+
+  private record IndexedItem(Long roomId, String number, int contentHash) {
+  }
+
+  private record ContentKey(Long roomId, int contentHash) {
+  }
+}
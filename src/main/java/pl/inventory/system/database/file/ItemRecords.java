@@ -0,0 +1,58 @@
+package pl.inventory.system.database.file;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.StoredItem;
+import pl.inventory.system.utils.DocumentSerializer;
+import pl.inventory.system.utils.IdProvider;
+
+/**
+ * Store of the items kept as separate records (one {@link StoredItem} per item), used by the {@link FileBasedDatabase}.
+ * A write of an item touches only its own record, independently of the number of items in its room.
+ * The {@link ItemIndex} of the records and the versions of the items of each room are maintained under the locks of this store,
+ * which are shared with the rooms ({@link CommitLocks}).
+ */
+final class ItemRecords extends AbstractFileDatabase<StoredItem, Item> {
+
+  private final ItemIndex itemIndex = new ItemIndex();
+  private final Map<Long, Long> versionsByRoom = new HashMap<>();
+
+  ItemRecords(FileStorage storage, IdProvider itemIdProvider, DocumentSerializer serializer, CommitLocks commitLocks) {
+    super(storage, itemIdProvider, serializer, StoredItem.class, commitLocks);
+    streamStored().forEach(storedItem -> itemIndex.index(storedItem.getRoomId(), storedItem.getItem()));
+  }
+
+  /**
+   * Runs the query of the item index while the records are locked for reading.
+   * @param query operation reading the index;
+   * @return result of the query;
+   */
+  <R> R queryIndex(Function<ItemIndex, R> query) {
+    return read(() -> query.apply(itemIndex));
+  }
+
+  /**
+   * Returns the version of the content at the last change of the items of the room.
+   * @param roomId {@link Long} id of the room;
+   */
+  long roomVersion(Long roomId) {
+    return read(() -> versionsByRoom.getOrDefault(roomId, versions().initial()));
+  }
+
+  @Override
+  protected void afterStore(StoredItem storedItem) {
+    itemIndex.find(storedItem.getId())
+        .ifPresent(location -> versionsByRoom.put(location.roomId(), versions().current()));
+    itemIndex.index(storedItem.getRoomId(), storedItem.getItem());
+    versionsByRoom.put(storedItem.getRoomId(), versions().current());
+  }
+
+  @Override
+  protected void afterRemove(Long itemId) {
+    itemIndex.find(itemId)
+        .ifPresent(location -> versionsByRoom.put(location.roomId(), versions().current()));
+    itemIndex.remove(itemId);
+  }
+}
@@ -0,0 +1,66 @@
+package pl.inventory.system.database.file;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically compacts the journals of the {@link JournalFileStorage}s, each once it reaches the configured
+ * number of records. Bounds both the disk usage and the replay time at the application start.
+ * The first check is performed immediately after the creation.
+ */
+@Slf4j
+public class JournalCompactor implements AutoCloseable {
+
+  private final List<JournalFileStorage> storages;
+  private final long recordsThreshold;
+  private final ScheduledExecutorService executor;
+
+  JournalCompactor(JournalFileStorage storage, long recordsThreshold, long intervalMillis) {
+    this(List.of(storage), recordsThreshold, intervalMillis);
+  }
+
+  JournalCompactor(List<JournalFileStorage> storages, long recordsThreshold, long intervalMillis) {
+    this.storages = List.copyOf(storages);
+    this.recordsThreshold = recordsThreshold;
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "journal-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::compactIfNeeded, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    log.info("Journal compaction scheduled every {} ms (threshold: {} records)", intervalMillis, recordsThreshold);
+  }
+
+  /**
+   * Compacts each journal whose number of records reached the threshold.
+   * @return true if any compaction has been performed, false otherwise;
+   */
+  boolean compactIfNeeded() {
+    boolean compacted = false;
+    for (JournalFileStorage storage : storages) {
+      compacted |= compactIfNeeded(storage);
+    }
+    return compacted;
+  }
+
+  private boolean compactIfNeeded(JournalFileStorage storage) {
+    if (storage.recordsSinceCompaction() < recordsThreshold) {
+      return false;
+    }
+    try {
+      storage.compact();
+      return true;
+    } catch (RuntimeException e) {
+      log.error("Journal compaction failed: ", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,284 @@
+package pl.inventory.system.database.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.utils.DocumentSerializer;
+import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * Log-structured storage. The data file is a snapshot (one document per line) which is never
+ * rewritten on a mutation. Every save, update and delete is appended as a {@link JournalRecord}
+ * to the journal file, so the cost of a write depends only on the size of the changed object.
+ * The current state is rebuilt by replaying the journal over the snapshot.
+ * The journal is folded into the snapshot by {@link #compact()}.
+ * <p>Records are appended with group commit ({@link FileService#appendLinesAsync}), so the records of concurrent
+ * writers are written and forced together. If a write fails, the journal rejects all following writes,
+ * as the state kept in memory is no longer reflected by the file - the application has to be restarted.</p>
+ */
+@Slf4j
+class JournalFileStorage implements FileStorage {
+
+  private final Path snapshotPath;
+  private final Path journalPath;
+  private final FileService fileService;
+  private final DocumentSerializer serializer;
+  private final Lock journalLock = new ReentrantLock();
+  private final Lock compactionLock = new ReentrantLock();
+  private final AtomicLong recordsSinceCompaction = new AtomicLong();
+  private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+  private volatile Throwable writeFailure;
+
+  JournalFileStorage(Path snapshotPath, Path journalPath, FileService fileService, DocumentSerializer serializer) {
+    this.snapshotPath = snapshotPath;
+    this.journalPath = journalPath;
+    this.fileService = fileService;
+    this.serializer = serializer;
+    FileManager.createFile(journalPath.toFile());
+  }
+
+  @Override
+  public List<String> load() {
+    List<String> journal = readCompleteRecords();
+    recordsSinceCompaction.set(journal.size());
+    log.debug("Journal \"{}\" replayed ({} records)", journalPath.getFileName(), journal.size());
+    return replay(journal);
+  }
+
+  @Override
+  public CompletableFuture<Void> append(Long id, String document) {
+    return write(JournalRecord.save(id, document));
+  }
+
+  @Override
+  public CompletableFuture<Void> appendAll(Map<Long, String> documents) {
+    return write(documents.entrySet().stream()
+        .map(document -> JournalRecord.save(document.getKey(), document.getValue()))
+        .toList());
+  }
+
+  @Override
+  public CompletableFuture<Void> replace(Long id, String document, Supplier<List<String>> documents) {
+    return write(JournalRecord.update(id, document));
+  }
+
+  @Override
+  public CompletableFuture<Void> replaceAll(Map<Long, String> documents, Supplier<List<String>> allDocuments) {
+    return write(documents.entrySet().stream()
+        .map(document -> JournalRecord.update(document.getKey(), document.getValue()))
+        .toList());
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(Long id, Supplier<List<String>> documents) {
+    return write(JournalRecord.delete(id));
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<Long> ids, Supplier<List<String>> documents) {
+    return write(ids.stream()
+        .map(JournalRecord::delete)
+        .toList());
+  }
+
+  /**
+   * Waits for the enqueued records, then hard-links the snapshot file (it is only ever replaced by the compaction)
+   * and captures the journal for a copy. The journal lock keeps the compaction from swapping the files meanwhile.
+   */
+  @Override
+  public List<SnapshotCopy> capture(Path directory) {
+    journalLock.lock();
+    try {
+      awaitPendingWrites();
+      if (writeFailure != null) {
+        throw new IllegalStateException(
+            String.format("Journal \"%s\" cannot be captured after a failed write", journalPath.getFileName()), writeFailure);
+      }
+      List<SnapshotCopy> copies = new ArrayList<>();
+      if (snapshotPath.toFile().exists()) {
+        copies.addAll(SnapshotCopy.link(snapshotPath, directory));
+      }
+      try {
+        copies.add(SnapshotCopy.of(journalPath, directory));
+      } catch (RuntimeException e) {
+        copies.forEach(SnapshotCopy::close);
+        throw e;
+      }
+      return copies;
+    } finally {
+      journalLock.unlock();
+    }
+  }
+
+  /**
+   * Number of records appended to the journal since the last compaction (or since the start).
+   * @return {@code long} value of the current journal length in records;
+   */
+  long recordsSinceCompaction() {
+    return recordsSinceCompaction.get();
+  }
+
+  /**
+   * Folds the journal into the snapshot. The live state is rebuilt from the snapshot and the journal
+   * content existing at the start of the compaction, written to a temporary file, forced and atomically moved
+   * over the snapshot ({@link FileService#writeLinesToFile}). Then the replayed part is cut off from the journal
+   * the same way. Appends are blocked only while the journal is swapped, so records written during the compaction
+   * are preserved. A crash between the two swaps leaves the replayed records in the journal, which is harmless,
+   * as replaying a record over the snapshot already holding it gives the same state.
+   * If another compaction is in progress, the method returns immediately.
+   */
+  void compact() {
+    if (!compactionLock.tryLock()) {
+      return;
+    }
+    try {
+      long replayedBytes;
+      journalLock.lock();
+      try {
+        awaitPendingWrites();
+        replayedBytes = Files.size(journalPath);
+      } finally {
+        journalLock.unlock();
+      }
+      List<String> documents = replay(readLines(journalPath, 0, replayedBytes));
+      fileService.writeLinesToFile(snapshotPath, documents);
+      journalLock.lock();
+      try {
+        awaitPendingWrites();
+        List<String> remainingRecords = readLines(journalPath, replayedBytes, Files.size(journalPath));
+        fileService.writeLinesToFile(journalPath, remainingRecords);
+        recordsSinceCompaction.set(remainingRecords.size());
+      } finally {
+        journalLock.unlock();
+      }
+      log.info("Journal \"{}\" compacted into snapshot \"{}\" ({} objects)",
+          journalPath.getFileName(), snapshotPath.getFileName(), documents.size());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      compactionLock.unlock();
+    }
+  }
+
+  private CompletableFuture<Void> write(JournalRecord journalRecord) {
+    return write(List.of(journalRecord));
+  }
+
+  private CompletableFuture<Void> write(List<JournalRecord> journalRecords) {
+    journalLock.lock();
+    try {
+      if (writeFailure != null) {
+        throw new IllegalStateException(
+            String.format("Journal \"%s\" is not writable after a failed write", journalPath.getFileName()), writeFailure);
+      }
+      CompletableFuture<Void> written = fileService.appendLinesAsync(journalPath, journalRecords.stream().map(JournalRecord::toLine).toList())
+          .whenComplete((result, failure) -> {
+            if (failure != null) {
+              writeFailure = failure;
+              log.error("Write to the journal \"{}\" failed, following writes are rejected: ", journalPath.getFileName(), failure);
+            }
+          });
+      lastWrite = written;
+      recordsSinceCompaction.addAndGet(journalRecords.size());
+      return written;
+    } finally {
+      journalLock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the enqueued records are written, has to be called under the journal lock.
+   */
+  private void awaitPendingWrites() {
+    lastWrite.exceptionally(failure -> null).join();
+  }
+
+  private List<String> replay(List<String> journal) {
+    Map<Long, String> documents = new LinkedHashMap<>();
+    if (snapshotPath.toFile().exists()) {
+      fileService.readAllFile(snapshotPath).stream()
+          .filter(line -> !line.isBlank())
+          .forEach(line -> documents.put(serializer.readId(line), line));
+    }
+    journal.stream()
+        .filter(line -> !line.isBlank())
+        .forEach(line -> JournalRecord.parse(line).ifPresentOrElse(
+            journalRecord -> apply(journalRecord, documents),
+            () -> log.warn("Skipped malformed record of the journal \"{}\"", journalPath.getFileName())));
+    return new ArrayList<>(documents.values());
+  }
+
+  /**
+   * Reads the lines of the journal up to the last complete (ended by a line separator) record with a valid checksum
+   * and cuts off the rest of the file. The cut tail was torn by an interrupted write, left in place it would become
+   * the beginning of the next appended line, so that record would be lost at the following start.
+   * Malformed records before the last valid one are kept, they are skipped by the replay.
+   */
+  private List<String> readCompleteRecords() {
+    try {
+      byte[] content = Files.readAllBytes(journalPath);
+      List<String> lines = new ArrayList<>();
+      int validLines = 0;
+      int validLength = 0;
+      int lineStart = 0;
+      for (int i = 0; i < content.length; i++) {
+        if (content[i] == '\n') {
+          int lineEnd = i > lineStart && content[i - 1] == '\r' ? i - 1 : i;
+          String line = new String(content, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+          lines.add(line);
+          lineStart = i + 1;
+          if (JournalRecord.parse(line).isPresent()) {
+            validLines = lines.size();
+            validLength = lineStart;
+          }
+        }
+      }
+      if (validLength < content.length) {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+          channel.truncate(validLength);
+          channel.force(true);
+        }
+        log.warn("Cut off {} bytes of an incomplete tail of the journal \"{}\"", content.length - validLength, journalPath.getFileName());
+      }
+      return lines.subList(0, validLines);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<String> readLines(Path path, long from, long to) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+      int read = 0;
+      while (buffer.hasRemaining() && read >= 0) {
+        read = channel.read(buffer, from + buffer.position());
+      }
+      return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).lines().toList();
+    }
+  }
+
+  private static void apply(JournalRecord journalRecord, Map<Long, String> documents) {
+    if (journalRecord.operation() == JournalRecord.Operation.DELETE) {
+      documents.remove(journalRecord.id());
+    } else {
+      documents.put(journalRecord.id(), journalRecord.document());
+    }
+  }
+}
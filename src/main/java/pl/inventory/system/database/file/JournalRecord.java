@@ -0,0 +1,62 @@
+package pl.inventory.system.database.file;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * A single entry of the database journal. Stored as one line in the format:
+ * {@code OPERATION<TAB>id<TAB>checksum<TAB>document}, where the checksum (CRC32 of the document)
+ * allows to detect a record torn by an interrupted write.
+ * @param operation type of the recorded mutation;
+ * @param id        {@link Long} id of the mutated object;
+ * @param document  serialised content of the object (empty for {@link Operation#DELETE});
+ */
+record JournalRecord(Operation operation, Long id, String document) {
+
+  private static final String SEPARATOR = "\t";
+  private static final int FIELDS = 4;
+
+  enum Operation {
+    SAVE, UPDATE, DELETE
+  }
+
+  static JournalRecord save(Long id, String document) {
+    return new JournalRecord(Operation.SAVE, id, document);
+  }
+
+  static JournalRecord update(Long id, String document) {
+    return new JournalRecord(Operation.UPDATE, id, document);
+  }
+
+  static JournalRecord delete(Long id) {
+    return new JournalRecord(Operation.DELETE, id, "");
+  }
+
+  String toLine() {
+    return String.join(SEPARATOR, operation.name(), String.valueOf(id), checksum(document), document);
+  }
+
+  /**
+   * Reads the record from the journal line.
+   * @param line single line of the journal;
+   * @return parsed record or an empty {@link Optional} if the line is malformed or its checksum does not match;
+   */
+  static Optional<JournalRecord> parse(String line) {
+    String[] fields = line.split(SEPARATOR, FIELDS);
+    if (fields.length != FIELDS || !fields[2].equals(checksum(fields[3]))) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new JournalRecord(Operation.valueOf(fields[0]), Long.valueOf(fields[1]), fields[3]));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static String checksum(String document) {
+    CRC32 crc = new CRC32();
+    crc.update(document.getBytes(StandardCharsets.UTF_8));
+    return Long.toHexString(crc.getValue());
+  }
+}
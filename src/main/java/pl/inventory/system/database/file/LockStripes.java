@@ -0,0 +1,47 @@
+package pl.inventory.system.database.file;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of reentrant locks shared by the stored objects. An object id is always mapped to the
+ * same lock, so operations on different objects proceed concurrently unless their ids share a stripe.
+ */
+final class LockStripes {
+
+  private final Lock[] locks;
+
+  LockStripes(int stripes) {
+    if (Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("Number of lock stripes must be a power of two");
+    }
+    locks = new Lock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  Lock get(Long id) {
+    return locks[index(id)];
+  }
+
+  /**
+   * Returns the distinct locks of all given ids, sorted by their position in the stripes.
+   * Taking the locks in the returned order prevents a deadlock between operations on multiple objects.
+   */
+  List<Lock> getAll(Collection<Long> ids) {
+    return ids.stream()
+        .map(this::index)
+        .distinct()
+        .sorted()
+        .map(index -> locks[index])
+        .toList();
+  }
+
+  int index(Long id) {
+    int hash = Long.hashCode(id);
+    return (hash ^ (hash >>> 16)) & (locks.length - 1);
+  }
+}
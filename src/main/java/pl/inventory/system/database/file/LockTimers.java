@@ -0,0 +1,65 @@
+package pl.inventory.system.database.file;
+
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import pl.inventory.system.utils.Meters;
+
+/**
+ * Timers of a lock of the database: the wait for the lock and the time it is held. Locking returns the time
+ * of the acquisition, which the caller passes back when unlocking, so the timers keep no per-thread state.
+ */
+final class LockTimers {
+
+  private final Timer waitTimer;
+  private final Timer holdTimer;
+
+  LockTimers(Class<?> storedType, String lock) {
+    this.waitTimer = waitTimer(storedType, lock);
+    this.holdTimer = Meters.timer("inventory.database.lock.hold", "Time the database lock is held",
+        "type", storedType.getSimpleName(), "lock", lock);
+  }
+
+  static Timer waitTimer(Class<?> storedType, String lock) {
+    return Meters.timer("inventory.database.lock.wait", "Wait for the database lock",
+        "type", storedType.getSimpleName(), "lock", lock);
+  }
+
+  /**
+   * Takes the lock and records the wait.
+   * @return time of the acquisition, in nanoseconds;
+   */
+  long lock(Lock lock) {
+    long start = System.nanoTime();
+    lock.lock();
+    long acquired = System.nanoTime();
+    waitTimer.record(acquired - start, TimeUnit.NANOSECONDS);
+    return acquired;
+  }
+
+  /**
+   * Takes the locks in the given order and records the wait for all of them.
+   * @return time of the acquisition of the last lock, in nanoseconds;
+   */
+  long lockAll(List<Lock> locks) {
+    long start = System.nanoTime();
+    locks.forEach(Lock::lock);
+    long acquired = System.nanoTime();
+    waitTimer.record(acquired - start, TimeUnit.NANOSECONDS);
+    return acquired;
+  }
+
+  void unlock(Lock lock, long acquired) {
+    holdTimer.record(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+    lock.unlock();
+  }
+
+  /**
+   * Releases the locks in the reversed order and records the time they were held.
+   */
+  void unlockAll(List<Lock> locks, long acquired) {
+    holdTimer.record(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+    locks.reversed().forEach(Lock::unlock);
+  }
+}
@@ -0,0 +1,138 @@
+package pl.inventory.system.database.file;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory copy of the records kept in a database file. Every record is held as its serialised
+ * document (one line of the file), keyed by its id and additionally indexed by its case-insensitive number
+ * (a number shared by multiple records points to the record with the lowest id).
+ * The records are iterated in the ascending order of their ids. This is not necessarily the order of the lines
+ * in the file (concurrent saves may append them out of order, a journal lists the changes in the order
+ * they were made), so a file rewritten from the store has its lines sorted by id.
+ * The class is not thread-safe, the access has to be guarded by the owning database.
+ */
+final class ResidentStore {
+
+  private final NavigableMap<Long, String> documentsById = new TreeMap<>();
+  private final Map<Long, String> numbersById = new HashMap<>();
+  private final Map<String, NavigableSet<Long>> idsByNumber = new HashMap<>();
+
+  /**
+   * Stores the document of the record with the given id and number. If the record already exists,
+   * its document is replaced, so the position of the record in the id order does not change.
+   * @param id     {@link Long} id of the stored record;
+   * @param number {@link String} number of the stored record (may be null);
+   * @param document serialised content of the record;
+   */
+  void put(Long id, String number, String document) {
+    Objects.requireNonNull(id, "Record id must not be null");
+    if (documentsById.containsKey(id)) {
+      unindexNumber(id);
+    }
+    documentsById.put(id, document);
+    if (number != null) {
+      numbersById.put(id, number);
+      idsByNumber.computeIfAbsent(normalise(number), key -> new TreeSet<>()).add(id);
+    }
+  }
+
+  Optional<String> remove(Long id) {
+    if (!documentsById.containsKey(id)) {
+      return Optional.empty();
+    }
+    unindexNumber(id);
+    return Optional.of(documentsById.remove(id));
+  }
+
+  Optional<String> get(Long id) {
+    return Optional.ofNullable(documentsById.get(id));
+  }
+
+  Optional<Long> findId(String number) {
+    if (number == null) {
+      return Optional.empty();
+    }
+    NavigableSet<Long> ids = idsByNumber.get(normalise(number));
+    return ids == null ? Optional.empty() : Optional.of(ids.first());
+  }
+
+  boolean contains(Long id) {
+    return documentsById.containsKey(id);
+  }
+
+  Collection<String> documents() {
+    return documentsById.values();
+  }
+
+  /**
+   * Returns a view of the documents of the records with ids greater than the cursor, in the id order.
+   * @param cursor {@link Long} id after which the documents start, null for all documents;
+   */
+  Collection<String> documentsAfter(Long cursor) {
+    return cursor == null ? documentsById.values() : documentsById.tailMap(cursor, false).values();
+  }
+
+  /**
+   * Returns documents of all records in the id order, with the documents of the records
+   * with given ids replaced by the specified ones.
+   */
+  List<String> documentsWith(Map<Long, String> replacedDocuments) {
+    List<String> documents = new ArrayList<>(documentsById.size());
+    documentsById.forEach((key, value) -> documents.add(replacedDocuments.getOrDefault(key, value)));
+    return documents;
+  }
+
+  /**
+   * Returns documents of all records in the id order, except the record with given id.
+   */
+  List<String> documentsWithout(Long id) {
+    return documentsWithout(Set.of(id));
+  }
+
+  /**
+   * Returns documents of all records in the id order, except the records with given ids.
+   */
+  List<String> documentsWithout(Set<Long> ids) {
+    List<String> documents = new ArrayList<>(documentsById.size());
+    documentsById.forEach((key, value) -> {
+      if (!ids.contains(key)) {
+        documents.add(value);
+      }
+    });
+    return documents;
+  }
+
+  int size() {
+    return documentsById.size();
+  }
+
+  /**
+   * Removes the id from the ids of its number, the number then points to the record with the next lowest id.
+   */
+  private void unindexNumber(Long id) {
+    String number = numbersById.remove(id);
+    if (number == null) {
+      return;
+    }
+    idsByNumber.computeIfPresent(normalise(number), (key, ids) -> {
+      ids.remove(id);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+
+  private static String normalise(String number) {
+    return number.toUpperCase(Locale.ROOT);
+  }
+}
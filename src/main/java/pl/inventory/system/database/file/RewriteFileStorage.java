@@ -0,0 +1,83 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * Keeps one document per line in the data file. A new object is appended to the file,
+ * while each update or delete rewrites the whole file content. As the rewritten content is taken
+ * from the memory of the database, every write is finished before the method returns.
+ */
+class RewriteFileStorage implements FileStorage {
+
+  private final Path filePath;
+  private final FileService fileService;
+
+  RewriteFileStorage(Path filePath, FileService fileService) {
+    this.filePath = filePath;
+    this.fileService = fileService;
+  }
+
+  @Override
+  public List<String> load() {
+    if (!filePath.toFile().exists()) {
+      return List.of();
+    }
+    return fileService.readAllFile(filePath).stream()
+        .filter(line -> !line.isBlank())
+        .toList();
+  }
+
+  @Override
+  public CompletableFuture<Void> append(Long id, String document) {
+    FileManager.createFile(filePath.toFile());
+    fileService.appendLineToFile(filePath, document);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> appendAll(Map<Long, String> documents) {
+    FileManager.createFile(filePath.toFile());
+    fileService.appendLinesToFile(filePath, List.copyOf(documents.values()));
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> replace(Long id, String document, Supplier<List<String>> documents) {
+    return rewrite(documents.get());
+  }
+
+  @Override
+  public CompletableFuture<Void> replaceAll(Map<Long, String> documents, Supplier<List<String>> allDocuments) {
+    return rewrite(allDocuments.get());
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(Long id, Supplier<List<String>> documents) {
+    return rewrite(documents.get());
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<Long> ids, Supplier<List<String>> documents) {
+    return rewrite(documents.get());
+  }
+
+  /**
+   * Captures the data file for a copy, as new objects are appended to it in place.
+   */
+  @Override
+  public List<SnapshotCopy> capture(Path directory) {
+    return filePath.toFile().exists() ? List.of(SnapshotCopy.of(filePath, directory)) : List.of();
+  }
+
+  private CompletableFuture<Void> rewrite(List<String> documents) {
+    fileService.writeLinesToFile(filePath, documents);
+    return CompletableFuture.completedFuture(null);
+  }
+}
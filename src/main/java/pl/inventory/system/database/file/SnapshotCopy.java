@@ -0,0 +1,88 @@
+package pl.inventory.system.database.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Captured content of a storage file, to be copied into a snapshot. The source channel is opened (and its length
+ * taken) while no write is in progress, so the copy is consistent even if the file is appended or replaced
+ * before the copy is finished: appended bytes lie beyond the captured length and a replaced file remains
+ * readable through the open channel. The content is copied with {@link FileChannel#transferTo}.
+ * @param source channel of the captured file;
+ * @param length number of bytes to be copied;
+ * @param target {@link Path} of the copy;
+ */
+@Slf4j
+record SnapshotCopy(FileChannel source, long length, Path target) implements AutoCloseable {
+
+  /**
+   * Captures the current content of the file, which may be appended in place later.
+   * @param path      {@link Path} of the captured file;
+   * @param directory {@link Path} of the snapshot directory;
+   * @return {@link SnapshotCopy} of the file content, to be transferred and closed by the caller;
+   */
+  static SnapshotCopy of(Path path, Path directory) {
+    try {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      return new SnapshotCopy(channel, channel.size(), directory.resolve(path.getFileName()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Captures the file which is never modified in place (only atomically replaced). The file is hard-linked
+   * into the snapshot directory without copying any data. If the file system does not support hard links,
+   * its content is captured for a copy.
+   * @param path      {@link Path} of the captured file;
+   * @param directory {@link Path} of the snapshot directory;
+   * @return empty list if the file has been linked, otherwise the {@link SnapshotCopy} of the file content;
+   */
+  static List<SnapshotCopy> link(Path path, Path directory) {
+    Path target = directory.resolve(path.getFileName());
+    try {
+      Files.createLink(target, path);
+      return List.of();
+    } catch (UnsupportedOperationException | FileSystemException e) {
+      log.debug("File \"{}\" cannot be linked into the snapshot, it will be copied: {}", path.getFileName(), e.getMessage());
+      return List.of(of(path, directory));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Copies the captured content into the target file and forces it to the storage device.
+   */
+  void transfer() {
+    try (FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      long position = 0;
+      while (position < length) {
+        long transferred = source.transferTo(position, length - position, targetChannel);
+        if (transferred == 0 && position >= source.size()) {
+          throw new IOException(String.format("File \"%s\" has been truncated during the snapshot", target.getFileName()));
+        }
+        position += transferred;
+      }
+      targetChannel.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      source.close();
+    } catch (IOException e) {
+      log.warn("Captured file \"{}\" could not be closed: {}", target.getFileName(), e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package pl.inventory.system.database.file;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.database.file.JournalRecord.Operation;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * Write-behind decorator of a {@link FileStorage}. A mutation only marks its object as dirty and returns
+ * immediately, the dirty objects are written to the underlying storage by {@link #flush}, called by
+ * the {@link WriteBehindFlusher}. Multiple changes of the same object between two flushes are coalesced
+ * into one write (e.g. any number of updates of a room becomes a single update, an object saved and deleted
+ * before the flush is never written).
+ * <p>The number of dirty objects is bounded: a mutation reaching the capacity requests a flush and its caller
+ * waits (outside the commit of the database) until the dirty objects are written. Until a flusher is attached
+ * (e.g. while the database is loaded) the mutations never wait. The writes are performed by a single writer thread
+ * in the order of the flushes. If a write fails, the storage rejects all following mutations, as the state kept
+ * in memory is no longer reflected by the file.</p>
+ * Changes not flushed yet are lost on a crash, the content of the files always corresponds to the state
+ * of the database at the time of one of the flushes.
+ */
+@Slf4j
+class WriteBehindFileStorage implements FileStorage, AutoCloseable {
+
+  private final FileStorage delegate;
+  private final int capacity;
+  private final Lock dirtyLock = new ReentrantLock();
+  private final ExecutorService writer;
+  private Map<Long, JournalRecord> dirty = new LinkedHashMap<>();
+  private CompletableFuture<Void> nextFlush = new CompletableFuture<>();
+  private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+  private volatile Runnable flushRequest;
+  private volatile Throwable writeFailure;
+  private boolean closed;
+
+  /**
+   * Creates the decorator.
+   * @param delegate {@link FileStorage} the dirty objects are written to;
+   * @param capacity maximum number of dirty objects before the writers have to wait for a flush;
+   */
+  WriteBehindFileStorage(FileStorage delegate, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity of the write-behind queue must be positive");
+    }
+    this.delegate = delegate;
+    this.capacity = capacity;
+    this.writer = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "write-behind-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public List<String> load() {
+    return delegate.load();
+  }
+
+  @Override
+  public CompletableFuture<Void> append(Long id, String document) {
+    return markDirty(List.of(JournalRecord.save(id, document)));
+  }
+
+  @Override
+  public CompletableFuture<Void> appendAll(Map<Long, String> documents) {
+    return markDirty(documents.entrySet().stream()
+        .map(document -> JournalRecord.save(document.getKey(), document.getValue()))
+        .toList());
+  }
+
+  @Override
+  public CompletableFuture<Void> replace(Long id, String document, Supplier<List<String>> documents) {
+    return markDirty(List.of(JournalRecord.update(id, document)));
+  }
+
+  @Override
+  public CompletableFuture<Void> replaceAll(Map<Long, String> documents, Supplier<List<String>> allDocuments) {
+    return markDirty(documents.entrySet().stream()
+        .map(document -> JournalRecord.update(document.getKey(), document.getValue()))
+        .toList());
+  }
+
+  @Override
+  public CompletableFuture<Void> remove(Long id, Supplier<List<String>> documents) {
+    return markDirty(List.of(JournalRecord.delete(id)));
+  }
+
+  @Override
+  public CompletableFuture<Void> removeAll(Collection<Long> ids, Supplier<List<String>> documents) {
+    return markDirty(ids.stream()
+        .map(JournalRecord::delete)
+        .toList());
+  }
+
+  /**
+   * Hands the dirty objects to the writer thread. Has to be called while no commit of the database is in progress,
+   * so the given documents reflect all dirty objects.
+   */
+  @Override
+  public CompletableFuture<Void> flush(Supplier<List<String>> documents) {
+    dirtyLock.lock();
+    try {
+      if (dirty.isEmpty()) {
+        return lastWrite;
+      }
+      Map<Long, JournalRecord> batch = dirty;
+      CompletableFuture<Void> flushed = nextFlush;
+      boolean rewriteRequired = batch.values().stream().anyMatch(change -> change.operation() != Operation.SAVE);
+      List<String> allDocuments = rewriteRequired ? documents.get() : List.of();
+      dirty = new LinkedHashMap<>();
+      nextFlush = new CompletableFuture<>();
+      try {
+        writer.execute(() -> write(batch, allDocuments, flushed));
+      } catch (RejectedExecutionException e) {
+        flushed.completeExceptionally(new IllegalStateException("Write-behind storage has been closed", e));
+      }
+      lastWrite = flushed;
+      return flushed;
+    } finally {
+      dirtyLock.unlock();
+    }
+  }
+
+  /**
+   * Waits for the writes in progress and captures the underlying storage, so the snapshot holds the state
+   * of the last flush. The objects which are still dirty are not part of the snapshot.
+   */
+  @Override
+  public List<SnapshotCopy> capture(Path directory) {
+    CompletableFuture<Void> inProgress;
+    dirtyLock.lock();
+    try {
+      inProgress = lastWrite;
+    } finally {
+      dirtyLock.unlock();
+    }
+    FileService.await(inProgress);
+    return delegate.capture(directory);
+  }
+
+  /**
+   * Returns the decorated storage.
+   * @return the underlying {@link FileStorage};
+   */
+  FileStorage delegate() {
+    return delegate;
+  }
+
+  /**
+   * Sets the action requesting a flush when the number of dirty objects reaches the capacity.
+   * @param flushRequest action called (by a writer, so it must not block) to request the flush;
+   */
+  void onCapacityReached(Runnable flushRequest) {
+    this.flushRequest = flushRequest;
+  }
+
+  /**
+   * Number of the objects changed since the last flush.
+   * @return {@code int} number of the dirty objects;
+   */
+  int dirtyObjects() {
+    dirtyLock.lock();
+    try {
+      return dirty.size();
+    } finally {
+      dirtyLock.unlock();
+    }
+  }
+
+  /**
+   * Stops the writer thread after the writes in progress and rejects the following mutations.
+   * The dirty objects have to be flushed before, the ones changed in the meantime are lost.
+   */
+  @Override
+  public void close() {
+    dirtyLock.lock();
+    try {
+      closed = true;
+      if (!dirty.isEmpty()) {
+        log.error("Write-behind storage closed with {} dirty objects, their changes are lost", dirty.size());
+        nextFlush.completeExceptionally(new IllegalStateException("Write-behind storage has been closed"));
+      }
+    } finally {
+      dirtyLock.unlock();
+    }
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.error("Write-behind writer has not finished its writes in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Coalesces the changes with the changes of the same objects not flushed yet. Returns a completed future,
+   * or the future of the next flush if the capacity has been reached.
+   */
+  private CompletableFuture<Void> markDirty(List<JournalRecord> changes) {
+    dirtyLock.lock();
+    try {
+      if (writeFailure != null) {
+        throw new IllegalStateException("Write-behind storage is not writable after a failed write", writeFailure);
+      } else if (closed) {
+        throw new IllegalStateException("Write-behind storage has been closed");
+      }
+      changes.forEach(this::coalesce);
+      Runnable currentFlushRequest = flushRequest;
+      if (dirty.size() < capacity || currentFlushRequest == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+      currentFlushRequest.run();
+      return nextFlush;
+    } finally {
+      dirtyLock.unlock();
+    }
+  }
+
+  private void coalesce(JournalRecord change) {
+    JournalRecord previous = dirty.get(change.id());
+    if (previous == null || previous.operation() != Operation.SAVE) {
+      dirty.put(change.id(), change);
+    } else if (change.operation() == Operation.DELETE) {
+      dirty.remove(change.id());
+    } else {
+      dirty.put(change.id(), JournalRecord.save(change.id(), change.document()));
+    }
+  }
+
+  private void write(Map<Long, JournalRecord> batch, List<String> allDocuments, CompletableFuture<Void> flushed) {
+    Map<Long, String> saved = new LinkedHashMap<>();
+    Map<Long, String> updated = new LinkedHashMap<>();
+    Set<Long> deleted = new LinkedHashSet<>();
+    batch.values().forEach(change -> {
+      switch (change.operation()) {
+        case SAVE -> saved.put(change.id(), change.document());
+        case UPDATE -> updated.put(change.id(), change.document());
+        case DELETE -> deleted.add(change.id());
+        default -> throw new IllegalStateException("Unknown operation: " + change.operation());
+      }
+    });
+    try {
+      List<CompletableFuture<Void>> writes = new ArrayList<>();
+      if (!saved.isEmpty()) {
+        writes.add(delegate.appendAll(saved));
+      }
+      if (!updated.isEmpty()) {
+        writes.add(delegate.replaceAll(updated, () -> allDocuments));
+      }
+      if (!deleted.isEmpty()) {
+        writes.add(delegate.removeAll(deleted, () -> allDocuments));
+      }
+      writes.forEach(FileService::await);
+      flushed.complete(null);
+      log.debug("{} dirty objects flushed ({} saved, {} updated, {} deleted)", batch.size(), saved.size(), updated.size(), deleted.size());
+    } catch (RuntimeException e) {
+      writeFailure = e;
+      flushed.completeExceptionally(e);
+      log.error("Write-behind flush failed, following writes are rejected: ", e);
+    }
+  }
+}
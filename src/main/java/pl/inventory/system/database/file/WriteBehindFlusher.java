@@ -0,0 +1,138 @@
+package pl.inventory.system.database.file;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import pl.inventory.system.utils.FileService;
+
+/**
+ * Flushes the dirty objects of the {@link WriteBehindFileStorage}s of the database: periodically, and immediately
+ * when a storage reaches its capacity. Started and stopped with the application context; stopping flushes
+ * all dirty objects and waits until they are written. It is stopped after the web server, so the changes
+ * of the last requests are flushed too.
+ */
+@Slf4j
+public class WriteBehindFlusher implements SmartLifecycle, AutoCloseable {
+
+  private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+  private final AbstractFileDatabase<?, ?> database;
+  private final List<WriteBehindFileStorage> storages;
+  private final long intervalMillis;
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final Lock lifecycleLock = new ReentrantLock();
+  private volatile ScheduledExecutorService executor;
+
+  /**
+   * Creates the flusher and attaches it to the storages of the database.
+   * @param database       database whose storages are flushed;
+   * @param storages       {@link WriteBehindFileStorage}s used by the database;
+   * @param intervalMillis interval between the periodic flushes;
+   */
+  WriteBehindFlusher(AbstractFileDatabase<?, ?> database, List<WriteBehindFileStorage> storages, long intervalMillis) {
+    this.database = database;
+    this.storages = List.copyOf(storages);
+    this.intervalMillis = intervalMillis;
+    this.storages.forEach(storage -> storage.onCapacityReached(this::requestFlush));
+  }
+
+  @Override
+  public void start() {
+    lifecycleLock.lock();
+    try {
+      if (executor != null) {
+        return;
+      }
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+      log.info("Write-behind flushes scheduled every {} ms", intervalMillis);
+    } finally {
+      lifecycleLock.unlock();
+    }
+  }
+
+  /**
+   * Stops the periodic flushes, flushes all dirty objects and stops the writers.
+   */
+  @Override
+  public void stop() {
+    lifecycleLock.lock();
+    try {
+      if (executor == null) {
+        return;
+      }
+      executor.shutdown();
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executor = null;
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        log.error("Final write-behind flush failed: ", e);
+      }
+      storages.forEach(WriteBehindFileStorage::close);
+      log.info("Write-behind flusher stopped, all dirty objects written");
+    } finally {
+      lifecycleLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return executor != null;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  @Override
+  public void close() {
+    stop();
+  }
+
+  /**
+   * Flushes the dirty objects and waits until they are written.
+   */
+  void flush() {
+    FileService.await(database.flush());
+  }
+
+  /**
+   * Schedules an immediate flush, unless one is already pending. Called by the writers, so it does not block.
+   */
+  private void requestFlush() {
+    ScheduledExecutorService currentExecutor = executor;
+    if (currentExecutor != null && flushRequested.compareAndSet(false, true)) {
+      try {
+        currentExecutor.execute(this::flushSafely);
+      } catch (RejectedExecutionException e) {
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  private void flushSafely() {
+    flushRequested.set(false);
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("Write-behind flush failed: ", e);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package pl.inventory.system.database.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of the JDBC connections. At most {@code maxSize} connections are open at the same time,
+ * connections are opened lazily and returned to the pool after use. A connection which failed is validated
+ * before it is returned and closed if it is no longer usable.
+ */
+@Slf4j
+class ConnectionPool implements AutoCloseable {
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+  private final DataSource dataSource;
+  private final BlockingQueue<Connection> idleConnections;
+  private final Semaphore permits;
+  private final long timeoutMs;
+
+  ConnectionPool(DataSource dataSource, int maxSize, long timeoutMs) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Size of the connection pool must be positive");
+    }
+    this.dataSource = dataSource;
+    this.idleConnections = new ArrayBlockingQueue<>(maxSize);
+    this.permits = new Semaphore(maxSize, true);
+    this.timeoutMs = timeoutMs;
+  }
+
+  /**
+   * Runs the action with a pooled connection in the auto-commit mode.
+   * @param action operation using the connection;
+   * @return result of the action;
+   */
+  <R> R withConnection(SqlFunction<Connection, R> action) {
+    Connection connection = acquire();
+    boolean reusable = true;
+    try {
+      return action.apply(connection);
+    } catch (SQLException e) {
+      reusable = isValid(connection);
+      throw new RuntimeException(e);
+    } finally {
+      release(connection, reusable);
+    }
+  }
+
+  /**
+   * Runs the action in a single transaction, which is rolled back if the action fails.
+   * @param action operation using the connection;
+   * @return result of the action;
+   */
+  <R> R inTransaction(SqlFunction<Connection, R> action) {
+    return withConnection(connection -> {
+      connection.setAutoCommit(false);
+      try {
+        R result = action.apply(connection);
+        connection.commit();
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    });
+  }
+
+  /**
+   * Opens the stream reading with a pooled connection in a transaction, which lets the driver fetch the rows
+   * with a cursor. The connection is held until the stream is closed, then the transaction is rolled back
+   * and the connection is returned to the pool.
+   * @param action opens the stream using the connection, the stream releases its statement when closed;
+   * @return stream holding the connection;
+   */
+  <T> Stream<T> streamInTransaction(SqlFunction<Connection, Stream<T>> action) {
+    Connection connection = acquire();
+    try {
+      connection.setAutoCommit(false);
+      return action.apply(connection).onClose(() -> endTransaction(connection));
+    } catch (SQLException e) {
+      endTransaction(connection);
+      throw new RuntimeException(e);
+    } catch (RuntimeException e) {
+      endTransaction(connection);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    Connection connection;
+    while ((connection = idleConnections.poll()) != null) {
+      closeQuietly(connection);
+    }
+  }
+
+  private Connection acquire() {
+    try {
+      if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException("No database connection available within " + timeoutMs + " ms");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+    }
+    try {
+      Connection connection = idleConnections.poll();
+      return connection != null ? connection : dataSource.getConnection();
+    } catch (SQLException e) {
+      permits.release();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void release(Connection connection, boolean reusable) {
+    try {
+      if (!reusable || !idleConnections.offer(connection)) {
+        closeQuietly(connection);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void endTransaction(Connection connection) {
+    boolean reusable = true;
+    try {
+      connection.rollback();
+      connection.setAutoCommit(true);
+    } catch (SQLException e) {
+      reusable = false;
+      log.warn("Ending of the streaming transaction failed: {}", e.getMessage());
+    } finally {
+      release(connection, reusable);
+    }
+  }
+
+  private static boolean isValid(Connection connection) {
+    try {
+      return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static void closeQuietly(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      log.warn("Closing of the database connection failed: {}", e.getMessage());
+    }
+  }
+}
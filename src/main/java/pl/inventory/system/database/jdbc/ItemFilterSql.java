@@ -0,0 +1,56 @@
+package pl.inventory.system.database.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.ItemFilter;
+
+/**
+ * Item filter translated to the condition of an SQL query on the items table. An {@link ItemFilter} is evaluated
+ * by the database, any other predicate cannot be translated, so it is left to be checked on the read items.
+ * @param condition SQL condition (without the WHERE keyword) on the columns of the items table;
+ * @param params    values of the parameters of the condition;
+ * @param residual  part of the filter which has to be checked on the read items;
+ * @param pushedDown true if the whole filter is evaluated by the database;
+ */
+record ItemFilterSql(String condition, List<Object> params, Predicate<? super Item> residual, boolean pushedDown) {
+
+  private static final String NO_CONDITION = "TRUE";
+
+  static ItemFilterSql of(Predicate<? super Item> filter) {
+    if (filter == null) {
+      return new ItemFilterSql(NO_CONDITION, List.of(), item -> true, true);
+    }
+    if (!(filter instanceof ItemFilter itemFilter)) {
+      return new ItemFilterSql(NO_CONDITION, List.of(), filter, false);
+    }
+    List<String> conditions = new ArrayList<>();
+    List<Object> params = new ArrayList<>();
+    addCondition(conditions, params, "incoming_date >= ?", itemFilter.getIncomingFrom());
+    addCondition(conditions, params, "incoming_date <= ?", itemFilter.getIncomingTo());
+    addCondition(conditions, params, "outgoing_date >= ?", itemFilter.getOutgoingFrom());
+    addCondition(conditions, params, "outgoing_date <= ?", itemFilter.getOutgoingTo());
+    addCondition(conditions, params, "UPPER(document_number) = UPPER(?)", itemFilter.getDocumentNumber());
+    addCondition(conditions, params, "item_price >= ?", itemFilter.getMinPrice());
+    addCondition(conditions, params, "item_price <= ?", itemFilter.getMaxPrice());
+    String condition = conditions.isEmpty() ? NO_CONDITION : String.join(" AND ", conditions);
+    return new ItemFilterSql(condition, List.copyOf(params), item -> true, true);
+  }
+
+  /**
+   * Returns the value of the LIMIT parameter of a query reading the page of the given size. One more row
+   * than the page size is read to find out whether the next page exists. If the filter is not evaluated
+   * by the database, the number of read rows cannot be limited (null means no limit).
+   */
+  Long limitOf(int pageSize) {
+    return pushedDown ? pageSize + 1L : null;
+  }
+
+  private static void addCondition(List<String> conditions, List<Object> params, String condition, Object value) {
+    if (value != null) {
+      conditions.add(condition);
+      params.add(value);
+    }
+  }
+}
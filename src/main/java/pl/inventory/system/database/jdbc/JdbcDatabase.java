@@ -0,0 +1,751 @@
+package pl.inventory.system.database.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.database.Database;
+import pl.inventory.system.database.ItemSearchIndex;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.User;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Database of the rooms and their items stored in the normalised tables of a PostgreSQL database.
+ * <p>The behaviour is the same as of the file database:</p>
+ * <ul>
+ *   <li>rooms and items are found by their id or by their number (case-insensitive), a number used more
+ *   than once resolves to the room with the lowest id;</li>
+ *   <li>an update of the room keeps its number and the ids of its items, unless the number of items changes;</li>
+ *   <li>an item equal to an item already stored in the room replaces that item.</li>
+ * </ul>
+ * Each operation on a single item is a single indexed statement, multiple rows are inserted in batches
+ * and ids of a whole batch are reserved with one query.
+ */
+@Slf4j
+public class JdbcDatabase implements Database<Room, Item> {
+
+  static final List<String> SCHEMA = List.of(
+      "CREATE SEQUENCE IF NOT EXISTS room_id_seq",
+      "CREATE SEQUENCE IF NOT EXISTS item_id_seq",
+      "CREATE TABLE IF NOT EXISTS rooms (id BIGINT PRIMARY KEY, room_number VARCHAR(255))",
+      "CREATE INDEX IF NOT EXISTS rooms_room_number_idx ON rooms (UPPER(room_number))",
+      "CREATE TABLE IF NOT EXISTS items (id BIGINT PRIMARY KEY,"
+          + " room_id BIGINT NOT NULL REFERENCES rooms (id) ON DELETE CASCADE, position INTEGER NOT NULL,"
+          + " inventory_number VARCHAR(255), description VARCHAR(1024), incoming_date DATE, outgoing_date DATE,"
+          + " modification_date DATE, item_quantity INTEGER, item_price NUMERIC, document_number VARCHAR(255),"
+          + " user_id BIGINT, user_name VARCHAR(255), user_surname VARCHAR(255), user_is_inventory_user BOOLEAN)",
+      "CREATE INDEX IF NOT EXISTS items_inventory_number_idx ON items (UPPER(inventory_number))",
+      "CREATE INDEX IF NOT EXISTS items_room_id_position_idx ON items (room_id, position)",
+      "CREATE INDEX IF NOT EXISTS items_folded_inventory_number_idx ON items (" + folded("inventory_number") + " text_pattern_ops)",
+      "ALTER TABLE rooms ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1",
+      "CREATE TABLE IF NOT EXISTS content_version (id INTEGER PRIMARY KEY, version BIGINT NOT NULL)",
+      "INSERT INTO content_version (id, version) VALUES (1, 0) ON CONFLICT DO NOTHING"
+  );
+
+  private static final List<String> ITEM_COLUMNS = List.of("inventory_number", "description", "incoming_date",
+      "outgoing_date", "modification_date", "item_quantity", "item_price", "document_number",
+      "user_id", "user_name", "user_surname", "user_is_inventory_user");
+  private static final String ITEM_PLACEHOLDERS = String.join(", ", Collections.nCopies(ITEM_COLUMNS.size(), "?"));
+  private static final String ROOM_BY_ID = "WHERE id = ?";
+  private static final String ROOM_BY_NUMBER = "WHERE UPPER(room_number) = UPPER(?) ORDER BY id LIMIT 1";
+  private static final String ITEM_BY_ID = "WHERE id = ?";
+  private static final String ITEM_BY_NUMBER = "WHERE UPPER(inventory_number) = UPPER(?) ORDER BY room_id, position LIMIT 1";
+  private static final String NEXT_IDS = "SELECT nextval('%s') AS id FROM generate_series(1, ?)";
+  private static final String INSERT_ROOM = "INSERT INTO rooms (id, room_number) VALUES (?, ?)";
+  private static final String INSERT_ITEM = "INSERT INTO items (id, room_id, position, " + String.join(", ", ITEM_COLUMNS)
+      + ") VALUES (?, ?, ?, " + ITEM_PLACEHOLDERS + ")";
+  private static final String APPEND_ITEM = "INSERT INTO items (id, room_id, position, " + String.join(", ", ITEM_COLUMNS)
+      + ") SELECT ?, ?, COALESCE(MAX(position) + 1, 0), " + ITEM_PLACEHOLDERS + " FROM items WHERE room_id = ?";
+  private static final String TOUCH_EQUAL_ITEM = "UPDATE items SET modification_date = ? WHERE id = (SELECT id FROM items"
+      + " WHERE room_id = ? AND " + ITEM_COLUMNS.stream()
+      .filter(column -> !column.equals("modification_date"))
+      .map(column -> column + " IS NOT DISTINCT FROM ?")
+      .collect(Collectors.joining(" AND "))
+      + " ORDER BY position LIMIT 1) RETURNING id";
+  private static final String UPDATE_ITEM = "UPDATE items SET " + ITEM_COLUMNS.stream()
+      .map(column -> column + " = ?")
+      .collect(Collectors.joining(", "))
+      + " WHERE id = (SELECT id FROM items %s) RETURNING id, room_id";
+  private static final String ROOMS_WITH_ITEMS = "SELECT r.id AS room_key, r.room_number, i.* FROM %s r"
+      + " LEFT JOIN items i ON i.room_id = r.id ORDER BY r.id, i.position";
+  private static final String ROOMS_PAGE = "(SELECT * FROM rooms WHERE id > ? AND %s ORDER BY id LIMIT ?)";
+  private static final String ROOM_HAS_ITEM = "EXISTS (SELECT 1 FROM items WHERE items.room_id = rooms.id AND %s)";
+  private static final String ITEMS_PAGE = "SELECT * FROM items WHERE id > ? AND %s ORDER BY id LIMIT ?";
+  private static final String ROOM_ITEMS_PAGE = "SELECT * FROM items WHERE room_id = (SELECT id FROM rooms %s)"
+      + " AND id > ? AND %s ORDER BY id LIMIT ?";
+  private static final String ROOM_ITEM_IDS = "SELECT id FROM items WHERE room_id = ? ORDER BY position";
+  private static final String LOCK_ROOM = "SELECT id, room_number FROM rooms %s FOR UPDATE";
+  private static final String DELETE_ROOM = "DELETE FROM rooms WHERE id = ?";
+  private static final String DELETE_ROOM_ITEMS = "DELETE FROM items WHERE room_id = ?";
+  private static final String ALL_ITEMS = "SELECT * FROM items ORDER BY room_id, position";
+  private static final String SEARCH_BY_NUMBER = "SELECT * FROM items WHERE " + folded("inventory_number") + " LIKE ? ESCAPE '!'"
+      + " ORDER BY " + folded("inventory_number") + " COLLATE \"C\", id LIMIT ?";
+  private static final String SEARCH_BY_WORDS = "SELECT * FROM items WHERE %s ORDER BY id LIMIT ?";
+  private static final String DESCRIPTION_HAS_WORD = folded("description") + " ~ ?";
+  private static final String VALUATION_COLUMNS =
+      "COALESCE(SUM(i.item_quantity * i.item_price) FILTER (WHERE i.outgoing_date IS NULL), 0) AS active_value,"
+      + " COALESCE(SUM(i.item_quantity * i.item_price) FILTER (WHERE i.outgoing_date IS NOT NULL), 0) AS disposed_value,"
+      + " COUNT(i.id) FILTER (WHERE i.outgoing_date IS NULL) AS active_items,"
+      + " COUNT(i.id) FILTER (WHERE i.outgoing_date IS NOT NULL) AS disposed_items";
+  private static final String VALUATION = "SELECT " + VALUATION_COLUMNS + " FROM items i";
+  private static final String ROOM_VALUATION = "SELECT r.id AS room_key, " + VALUATION_COLUMNS
+      + " FROM (SELECT id FROM rooms %s) r LEFT JOIN items i ON i.room_id = r.id GROUP BY r.id";
+  private static final String TOUCH_ROOM = "UPDATE rooms SET version = version + 1 WHERE id = ?";
+  private static final String COUNT_VERSION = "UPDATE content_version SET version = version + 1 WHERE id = 1";
+  private static final String TOUCHING_ROOM = "WITH changed AS (%s), touched AS (UPDATE rooms SET version = version + 1"
+      + " WHERE id IN (SELECT room_id FROM changed)), counted AS (" + COUNT_VERSION
+      + " AND EXISTS (SELECT 1 FROM changed)) SELECT * FROM changed";
+  private static final String VERSION = "SELECT version FROM content_version WHERE id = 1";
+  private static final String ROOM_VERSION = "SELECT version FROM rooms %s";
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final String ROOM_SEQUENCE = "room_id_seq";
+  private static final String ITEM_SEQUENCE = "item_id_seq";
+
+  private final ConnectionPool connectionPool;
+
+  JdbcDatabase(ConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+    connectionPool.withConnection(connection -> {
+      try (Statement statement = connection.createStatement()) {
+        for (String definition : SCHEMA) {
+          statement.execute(definition);
+        }
+      }
+      return null;
+    });
+    log.info("JDBC database initialised for type Room");
+  }
+
+  @Override
+  public Long save(Room room) {
+    if (isValid(room)) {
+      return saveAll(List.of(room)).getFirst();
+    }
+    log.warn("The Room object to be saved must not be null");
+    return 0L;
+  }
+
+  /**
+   * Saves all valid rooms in a single transaction, the rooms and their items are inserted in batches.
+   * @param rooms rooms to be saved;
+   * @return ids of the saved rooms in the order of the given list, 0 for each rejected room;
+   */
+  @Override
+  public List<Long> saveAll(List<Room> rooms) {
+    List<Room> validRooms = rooms.stream()
+        .filter(JdbcDatabase::isValid)
+        .toList();
+    if (validRooms.size() < rooms.size()) {
+      log.warn("{} of the Room objects to be saved are null or empty", rooms.size() - validRooms.size());
+    }
+    if (!validRooms.isEmpty()) {
+      connectionPool.inTransaction(connection -> {
+        List<Long> roomIds = nextIds(connection, ROOM_SEQUENCE, validRooms.size());
+        for (int i = 0; i < validRooms.size(); i++) {
+          validRooms.get(i).setId(roomIds.get(i));
+        }
+        executeBatch(connection, INSERT_ROOM, validRooms.stream()
+            .map(room -> Arrays.<Object>asList(room.getId(), room.getRoomNumber()))
+            .toList());
+        assignItemIds(connection, validRooms.stream().flatMap(room -> room.getItemsList().stream()).toList());
+        insertItems(connection, validRooms);
+        execute(connection, COUNT_VERSION, List.of());
+        return null;
+      });
+      log.debug("{} Rooms successfully stored in database", validRooms.size());
+    }
+    return rooms.stream()
+        .map(room -> isValid(room) ? room.getId() : 0L)
+        .toList();
+  }
+
+  @Override
+  public List<Room> getAll() {
+    return connectionPool.withConnection(connection ->
+        query(connection, ROOMS_WITH_ITEMS.formatted("rooms"), List.of(), JdbcDatabase::readRooms));
+  }
+
+  /**
+   * Returns the page of rooms (in the id order) containing at least one item meeting the filter
+   * (all rooms if the filter is null). An {@link pl.inventory.system.model.ItemFilter}
+   * is evaluated by the database.
+   */
+  @Override
+  public Page<Room> getPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    ItemFilterSql filter = ItemFilterSql.of(itemFilter);
+    List<Object> params = new ArrayList<>();
+    params.add(cursorOf(cursor));
+    params.addAll(filter.params());
+    params.add(filter.limitOf(limit));
+    String roomCondition = itemFilter == null ? "TRUE" : ROOM_HAS_ITEM.formatted(filter.condition());
+    List<Room> rooms = connectionPool.withConnection(connection -> query(connection,
+        ROOMS_WITH_ITEMS.formatted(ROOMS_PAGE.formatted(roomCondition)), params, JdbcDatabase::readRooms));
+    return pageOf(rooms.stream()
+        .filter(room -> itemFilter == null || room.getItemsList().stream().anyMatch(filter.residual()))
+        .toList(), limit, Room::getId);
+  }
+
+  @Override
+  public <P> Optional<Room> getByProperty(P property) {
+    Optional<String> condition = roomCondition(property);
+    if (condition.isEmpty()) {
+      log.warn("Download from database failed. Specified argument is not a Room id or number.");
+      return Optional.empty();
+    }
+    return connectionPool.withConnection(connection -> selectRoom(connection, condition.get(), property));
+  }
+
+  @Override
+  public <P> Optional<Room> updateByProperty(P property, Room updateRoom) {
+    if (property == null || updateRoom == null) {
+      log.warn("Update failed. One of the provided arguments (number/id or update Room) is null");
+      return Optional.empty();
+    } else if (!isValid(updateRoom)) {
+      log.warn("Update failed. Wrong content of update Room has been specified ({})", updateRoom);
+      return Optional.empty();
+    }
+    return connectionPool.inTransaction(connection -> {
+      Optional<Room> optionalRoom = lockRoom(connection, property);
+      if (optionalRoom.isEmpty()) {
+        log.warn("Update failed. Room: {} does not exist", property);
+        return Optional.empty();
+      }
+      Room oldRoom = optionalRoom.get();
+      updateRoom.setId(oldRoom.getId());
+      updateRoom.setRoomNumber(oldRoom.getRoomNumber());
+      List<Item> items = updateRoom.getItemsList();
+      List<Long> oldIds = query(connection, ROOM_ITEM_IDS, List.of(oldRoom.getId()), JdbcDatabase::readIds);
+      if (oldIds.size() == items.size()) {
+        for (int i = 0; i < items.size(); i++) {
+          items.get(i).setId(oldIds.get(i));
+        }
+      } else {
+        assignItemIds(connection, items);
+      }
+      execute(connection, DELETE_ROOM_ITEMS, List.of(oldRoom.getId()));
+      insertItems(connection, List.of(updateRoom));
+      execute(connection, TOUCH_ROOM, List.of(oldRoom.getId()));
+      execute(connection, COUNT_VERSION, List.of());
+      log.debug("Update of \"Room: {}\" successfully completed.", property);
+      return Optional.of(updateRoom);
+    });
+  }
+
+  @Override
+  public <P> Optional<Room> deleteByProperty(P property) {
+    Optional<String> condition = roomCondition(property);
+    if (condition.isEmpty()) {
+      log.warn("Deletion failed. Room not found");
+      return Optional.empty();
+    }
+    return connectionPool.inTransaction(connection -> {
+      Optional<Room> room = selectRoom(connection, condition.get() + " FOR UPDATE", property);
+      if (room.isPresent()) {
+        execute(connection, DELETE_ROOM, List.of(room.get().getId()));
+        execute(connection, COUNT_VERSION, List.of());
+        log.debug("Deletion of Room with specified {} successfully completed", property);
+      }
+      return room;
+    });
+  }
+
+  @Override
+  public List<Item> getAllItems() {
+    return connectionPool.withConnection(connection -> query(connection, ALL_ITEMS, List.of(), JdbcDatabase::readItems));
+  }
+
+  /**
+   * Streams all items in the room order from a forward-only cursor fetching {@value #STREAM_FETCH_SIZE} rows
+   * at a time, so the items are not collected in the memory. The stream holds its connection (in a transaction,
+   * which the driver requires for the cursor) until it is closed.
+   */
+  @Override
+  public Stream<Item> streamAllItems() {
+    return connectionPool.streamInTransaction(connection -> {
+      PreparedStatement statement = connection.prepareStatement(ALL_ITEMS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      try {
+        statement.setFetchSize(STREAM_FETCH_SIZE);
+        return StreamSupport.stream(itemsOf(statement.executeQuery()), false)
+            .onClose(() -> close(statement));
+      } catch (SQLException | RuntimeException e) {
+        statement.close();
+        throw e;
+      }
+    });
+  }
+
+  @Override
+  public <P> Optional<Room> saveInObjectWithProperty(P objectProperty, Item item) {
+    return connectionPool.inTransaction(connection -> {
+      Optional<Long> roomId = saveInRoom(connection, objectProperty, item);
+      if (roomId.isEmpty()) {
+        return Optional.empty();
+      }
+      execute(connection, COUNT_VERSION, List.of());
+      log.debug("Item number: {} has been successfully stored in Room: {}", item.getInventoryNumber(), objectProperty);
+      return selectRoom(connection, ROOM_BY_ID, roomId.get());
+    });
+  }
+
+  /**
+   * Saves items in their rooms (specified by id or number) in a single transaction.
+   * @param items pairs of the room property and the item to be saved in that room;
+   * @return saved items in the order of the given list, empty for each item whose room does not exist;
+   */
+  @Override
+  public <P> List<Optional<Item>> saveAllInObjectsWithProperty(List<Map.Entry<P, Item>> items) {
+    return connectionPool.inTransaction(connection -> {
+      List<Optional<Item>> results = new ArrayList<>();
+      for (Map.Entry<P, Item> entry : items) {
+        results.add(saveInRoom(connection, entry.getKey(), entry.getValue()).map(roomId -> entry.getValue()));
+      }
+      if (results.stream().anyMatch(Optional::isPresent)) {
+        execute(connection, COUNT_VERSION, List.of());
+      }
+      log.debug("{} Items have been stored", results.stream().filter(Optional::isPresent).count());
+      return results;
+    });
+  }
+
+  @Override
+  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
+    return getByProperty(objectProperty).map(Room::getItemsList).orElse(List.of());
+  }
+
+  /**
+   * Returns the page of items (in the id order) meeting the filter (all items if the filter is null).
+   * An {@link pl.inventory.system.model.ItemFilter} is evaluated by the database.
+   */
+  @Override
+  public Page<Item> getItemsPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    ItemFilterSql filter = ItemFilterSql.of(itemFilter);
+    List<Object> params = new ArrayList<>();
+    params.add(cursorOf(cursor));
+    params.addAll(filter.params());
+    params.add(filter.limitOf(limit));
+    return itemsPage(ITEMS_PAGE.formatted(filter.condition()), params, limit, filter);
+  }
+
+  @Override
+  public <P> Page<Item> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit,
+                                                           Predicate<? super Item> itemFilter) {
+    Optional<String> condition = roomCondition(objectProperty);
+    if (condition.isEmpty()) {
+      return Page.empty();
+    }
+    ItemFilterSql filter = ItemFilterSql.of(itemFilter);
+    List<Object> params = new ArrayList<>();
+    params.add(objectProperty);
+    params.add(cursorOf(cursor));
+    params.addAll(filter.params());
+    params.add(filter.limitOf(limit));
+    return itemsPage(ROOM_ITEMS_PAGE.formatted(condition.get(), filter.condition()), params, limit, filter);
+  }
+
+  /**
+   * Returns the items matching the query as the {@link ItemSearchIndex} of the file database: first the items
+   * whose folded inventory number starts with the query (a prefix scan of an index), then the items whose folded
+   * description contains all words of the query, both read with a single connection.
+   */
+  @Override
+  public List<Item> searchItems(String query, int limit) {
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+    String prefix = ItemSearchIndex.fold(query.strip()).replaceAll("[!%_]", "!$0") + "%";
+    List<String> words = ItemSearchIndex.words(query);
+    return connectionPool.withConnection(connection -> {
+      Map<Long, Item> items = new LinkedHashMap<>();
+      query(connection, SEARCH_BY_NUMBER, List.of(prefix, limit), JdbcDatabase::readItems)
+          .forEach(item -> items.put(item.getId(), item));
+      if (items.size() < limit && !words.isEmpty()) {
+        List<Object> params = new ArrayList<>();
+        words.forEach(word -> params.add("(^|[^[:alnum:]])" + word + "([^[:alnum:]]|$)"));
+        params.add(limit + items.size());
+        String condition = String.join(" AND ", Collections.nCopies(words.size(), DESCRIPTION_HAS_WORD));
+        for (Item item : query(connection, SEARCH_BY_WORDS.formatted(condition), params, JdbcDatabase::readItems)) {
+          if (items.size() >= limit) {
+            break;
+          }
+          items.putIfAbsent(item.getId(), item);
+        }
+      }
+      return List.copyOf(items.values());
+    });
+  }
+
+  /**
+   * Returns the version of the content, a single-row counter increased by the last statement of every write
+   * (so its row is locked only until the commit), read with a single primary key lookup.
+   */
+  @Override
+  public Optional<Long> getVersion() {
+    return connectionPool.withConnection(connection -> query(connection, VERSION, List.of(),
+        rs -> rs.next() ? Optional.of(rs.getObject("version", Long.class)) : Optional.empty()));
+  }
+
+  /**
+   * Returns the version of the room (specified by id or number), increased in the transaction of every write
+   * of the room or of its items, empty if the room does not exist.
+   */
+  @Override
+  public <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    Optional<String> condition = roomCondition(objectProperty);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    return connectionPool.withConnection(connection -> query(connection, ROOM_VERSION.formatted(condition.get()),
+        List.of(objectProperty), rs -> rs.next() ? Optional.of(rs.getObject("version", Long.class)) : Optional.empty()));
+  }
+
+  /**
+   * Returns the valuation of all items aggregated by the database with a single query.
+   */
+  @Override
+  public Optional<Valuation> getValuation() {
+    return connectionPool.withConnection(connection -> query(connection, VALUATION, List.of(),
+        rs -> rs.next() ? Optional.of(readValuation(rs, null)) : Optional.empty()));
+  }
+
+  /**
+   * Returns the valuation of the items of the room aggregated by the database with a single query,
+   * zero for a room without items and empty if the room does not exist.
+   */
+  @Override
+  public <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    Optional<String> condition = roomCondition(objectProperty);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    return connectionPool.withConnection(connection -> query(connection, ROOM_VALUATION.formatted(condition.get()),
+        List.of(objectProperty), rs -> rs.next()
+            ? Optional.of(readValuation(rs, rs.getObject("room_key", Long.class)))
+            : Optional.empty()));
+  }
+
+  @Override
+  public <P> Optional<Item> getItemByProperty(P itemProperty) {
+    Optional<String> condition = itemCondition(itemProperty);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    return connectionPool.withConnection(connection -> query(connection, "SELECT * FROM items " + condition.get(),
+        List.of(itemProperty), rs -> readItems(rs).stream().findFirst()));
+  }
+
+  @Override
+  public <P> Optional<Item> deleteItemByProperty(P itemProperty) {
+    Optional<String> condition = itemCondition(itemProperty);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    String delete = "DELETE FROM items WHERE id = (SELECT id FROM items " + condition.get() + ") RETURNING *";
+    return connectionPool.withConnection(connection -> query(connection, TOUCHING_ROOM.formatted(delete),
+        List.of(itemProperty), rs -> readItems(rs).stream().findFirst()));
+  }
+
+  @Override
+  public <P> Optional<Item> updateItemByProperty(P itemProperty, Item updateItem) {
+    Optional<String> condition = itemCondition(itemProperty);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    updateItem.setModificationDate(LocalDate.now());
+    List<Object> params = new ArrayList<>(itemValues(updateItem));
+    params.add(itemProperty);
+    Optional<Long> id = connectionPool.withConnection(connection ->
+        query(connection, TOUCHING_ROOM.formatted(UPDATE_ITEM.formatted(condition.get())), params,
+            rs -> readIds(rs).stream().findFirst()));
+    id.ifPresent(updateItem::setId);
+    return id.map(itemId -> updateItem);
+  }
+
+  private <P> Optional<Long> saveInRoom(Connection connection, P roomProperty, Item item) throws SQLException {
+    Optional<Room> room = item == null ? Optional.empty() : lockRoom(connection, roomProperty);
+    if (room.isEmpty()) {
+      log.warn("Storage of an Item in Room: {} failed", roomProperty);
+      return Optional.empty();
+    }
+    Long roomId = room.get().getId();
+    item.setModificationDate(LocalDate.now());
+    List<Object> values = itemValues(item);
+    List<Object> touchParams = new ArrayList<>();
+    touchParams.add(item.getModificationDate());
+    touchParams.add(roomId);
+    touchParams.addAll(values.subList(0, ITEM_COLUMNS.indexOf("modification_date")));
+    touchParams.addAll(values.subList(ITEM_COLUMNS.indexOf("modification_date") + 1, values.size()));
+    Optional<Long> replacedId = query(connection, TOUCH_EQUAL_ITEM, touchParams, rs -> readIds(rs).stream().findFirst());
+    if (replacedId.isPresent()) {
+      item.setId(replacedId.get());
+    } else {
+      item.setId(nextIds(connection, ITEM_SEQUENCE, 1).getFirst());
+      List<Object> params = new ArrayList<>(List.of(item.getId(), roomId));
+      params.addAll(values);
+      params.add(roomId);
+      execute(connection, APPEND_ITEM, params);
+    }
+    execute(connection, TOUCH_ROOM, List.of(roomId));
+    return Optional.of(roomId);
+  }
+
+  private Page<Item> itemsPage(String sql, List<Object> params, int limit, ItemFilterSql filter) {
+    List<Item> items = connectionPool.withConnection(connection -> query(connection, sql, params, JdbcDatabase::readItems));
+    return pageOf(items.stream()
+        .filter(filter.residual())
+        .toList(), limit, Item::getId);
+  }
+
+  private static <P> Optional<Room> lockRoom(Connection connection, P property) throws SQLException {
+    Optional<String> condition = roomCondition(property);
+    if (condition.isEmpty()) {
+      return Optional.empty();
+    }
+    return query(connection, LOCK_ROOM.formatted(condition.get()), List.of(property), rs -> rs.next()
+        ? Optional.of(Room.builder()
+        .id(rs.getObject("id", Long.class))
+        .roomNumber(rs.getObject("room_number", String.class))
+        .build())
+        : Optional.empty());
+  }
+
+  private static <P> Optional<Room> selectRoom(Connection connection, String condition, P property) throws SQLException {
+    String rooms = "(SELECT * FROM rooms " + condition + ")";
+    return query(connection, ROOMS_WITH_ITEMS.formatted(rooms), List.of(property), rs -> readRooms(rs).stream().findFirst());
+  }
+
+  private static void assignItemIds(Connection connection, List<Item> items) throws SQLException {
+    List<Long> ids = nextIds(connection, ITEM_SEQUENCE, items.size());
+    for (int i = 0; i < items.size(); i++) {
+      items.get(i).setId(ids.get(i));
+    }
+  }
+
+  private static void insertItems(Connection connection, List<Room> rooms) throws SQLException {
+    List<List<Object>> rows = new ArrayList<>();
+    for (Room room : rooms) {
+      for (int position = 0; position < room.getItemsList().size(); position++) {
+        Item item = room.getItemsList().get(position);
+        List<Object> row = new ArrayList<>(List.of(item.getId(), room.getId(), position));
+        row.addAll(itemValues(item));
+        rows.add(row);
+      }
+    }
+    executeBatch(connection, INSERT_ITEM, rows);
+  }
+
+  private static List<Long> nextIds(Connection connection, String sequence, int count) throws SQLException {
+    if (count == 0) {
+      return List.of();
+    }
+    return query(connection, NEXT_IDS.formatted(sequence), List.of(count), JdbcDatabase::readIds);
+  }
+
+  private static <R> R query(Connection connection, String sql, List<Object> params,
+                             SqlFunction<ResultSet, R> reader) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      bind(statement, params);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return reader.apply(resultSet);
+      }
+    }
+  }
+
+  private static void execute(Connection connection, String sql, List<Object> params) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      bind(statement, params);
+      statement.executeUpdate();
+    }
+  }
+
+  private static void executeBatch(Connection connection, String sql, List<List<Object>> rows) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (List<Object> row : rows) {
+        bind(statement, row);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private static void bind(PreparedStatement statement, List<Object> params) throws SQLException {
+    for (int i = 0; i < params.size(); i++) {
+      statement.setObject(i + 1, params.get(i));
+    }
+  }
+
+  private static List<Long> readIds(ResultSet resultSet) throws SQLException {
+    List<Long> ids = new ArrayList<>();
+    while (resultSet.next()) {
+      ids.add(resultSet.getObject("id", Long.class));
+    }
+    return ids;
+  }
+
+  private static Spliterator<Item> itemsOf(ResultSet resultSet) {
+    return new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super Item> action) {
+        try {
+          if (!resultSet.next()) {
+            return false;
+          }
+          action.accept(readItem(resultSet));
+          return true;
+        } catch (SQLException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+  }
+
+  private static void close(Statement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static List<Item> readItems(ResultSet resultSet) throws SQLException {
+    List<Item> items = new ArrayList<>();
+    while (resultSet.next()) {
+      items.add(readItem(resultSet));
+    }
+    return items;
+  }
+
+  /**
+   * Reads the rooms from the rows of the rooms joined with their items, ordered by the room id.
+   * A room without items is read from a single row with empty item columns.
+   */
+  private static List<Room> readRooms(ResultSet resultSet) throws SQLException {
+    List<Room> rooms = new ArrayList<>();
+    Room room = null;
+    while (resultSet.next()) {
+      Long roomId = resultSet.getObject("room_key", Long.class);
+      if (room == null || !room.getId().equals(roomId)) {
+        room = Room.builder()
+            .id(roomId)
+            .roomNumber(resultSet.getObject("room_number", String.class))
+            .itemsList(new ArrayList<>())
+            .build();
+        rooms.add(room);
+      }
+      if (resultSet.getObject("id", Long.class) != null) {
+        room.getItemsList().add(readItem(resultSet));
+      }
+    }
+    return rooms;
+  }
+
+  private static Item readItem(ResultSet resultSet) throws SQLException {
+    Boolean isInventoryUser = resultSet.getObject("user_is_inventory_user", Boolean.class);
+    return Item.builder()
+        .id(resultSet.getObject("id", Long.class))
+        .inventoryNumber(resultSet.getObject("inventory_number", String.class))
+        .description(resultSet.getObject("description", String.class))
+        .incomingDate(resultSet.getObject("incoming_date", LocalDate.class))
+        .outgoingDate(resultSet.getObject("outgoing_date", LocalDate.class))
+        .modificationDate(resultSet.getObject("modification_date", LocalDate.class))
+        .itemQuantity(resultSet.getObject("item_quantity", Integer.class))
+        .itemPrice(resultSet.getBigDecimal("item_price"))
+        .documentNumber(resultSet.getObject("document_number", String.class))
+        .user(isInventoryUser == null ? null : new User(
+            resultSet.getObject("user_id", Long.class),
+            resultSet.getObject("user_name", String.class),
+            resultSet.getObject("user_surname", String.class),
+            isInventoryUser))
+        .build();
+  }
+
+  private static Valuation readValuation(ResultSet resultSet, Long roomId) throws SQLException {
+    BigDecimal activeValue = resultSet.getBigDecimal("active_value");
+    BigDecimal disposedValue = resultSet.getBigDecimal("disposed_value");
+    return Valuation.builder()
+        .roomId(roomId)
+        .totalValue(activeValue.add(disposedValue))
+        .activeValue(activeValue)
+        .disposedValue(disposedValue)
+        .activeItems(resultSet.getObject("active_items", Long.class))
+        .disposedItems(resultSet.getObject("disposed_items", Long.class))
+        .build();
+  }
+
+  /**
+   * Returns the values of the {@link #ITEM_COLUMNS} of the item.
+   */
+  private static List<Object> itemValues(Item item) {
+    User user = item.getUser();
+    return Arrays.asList(item.getInventoryNumber(), item.getDescription(), item.getIncomingDate(),
+        item.getOutgoingDate(), item.getModificationDate(), item.getItemQuantity(), item.getItemPrice(),
+        item.getDocumentNumber(),
+        user == null ? null : user.getId(),
+        user == null ? null : user.getName(),
+        user == null ? null : user.getSurname(),
+        user == null ? null : user.isInventoryUser());
+  }
+
+  /**
+   * Returns the SQL expression folding the column as {@link ItemSearchIndex#fold}.
+   */
+  private static String folded(String column) {
+    return "TRANSLATE(LOWER(" + column + "), 'ąćęłńóśźż', 'acelnoszz')";
+  }
+
+  private static <P> Optional<String> roomCondition(P property) {
+    if (property instanceof String) {
+      return Optional.of(ROOM_BY_NUMBER);
+    } else if (property instanceof Long) {
+      return Optional.of(ROOM_BY_ID);
+    }
+    return Optional.empty();
+  }
+
+  private static <P> Optional<String> itemCondition(P property) {
+    if (property instanceof String) {
+      return Optional.of(ITEM_BY_NUMBER);
+    } else if (property instanceof Long) {
+      return Optional.of(ITEM_BY_ID);
+    }
+    return Optional.empty();
+  }
+
+  private static Long cursorOf(Long cursor) {
+    return cursor == null ? Long.MIN_VALUE : cursor;
+  }
+
+  /**
+   * Cuts the page from the objects read with one more row than the page size (or with all rows).
+   */
+  private static <T> Page<T> pageOf(List<T> objects, int limit, Function<T, Long> idOf) {
+    List<T> content = objects.subList(0, Math.min(limit, objects.size()));
+    Long nextCursor = objects.size() > limit ? idOf.apply(content.getLast()) : null;
+    return new Page<>(List.copyOf(content), nextCursor);
+  }
+
+  private static boolean isValid(Room room) {
+    return room != null && room.getItemsList() != null && !room.getItemsList().isEmpty();
+  }
+}
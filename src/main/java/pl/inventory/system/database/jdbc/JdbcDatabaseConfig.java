@@ -0,0 +1,52 @@
+package pl.inventory.system.database.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.inventory.system.database.Database;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+
+@Slf4j
+@Configuration
+@SuppressWarnings("unused")
+@ConditionalOnProperty(name = "inventory_system.database.name", havingValue = "postgres")
+public class JdbcDatabaseConfig {
+
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int poolSize;
+  private final long connectionTimeoutMs;
+
+  public JdbcDatabaseConfig(
+      @Value("${inventory_system.database.url}") String url,
+      @Value("${inventory_system.database.username}") String username,
+      @Value("${inventory_system.database.password}") String password,
+      @Value("${inventory_system.database.pool_size:10}") int poolSize,
+      @Value("${inventory_system.database.connection_timeout_ms:30000}") long connectionTimeoutMs) {
+    this.url = url;
+    this.username = username;
+    this.password = password;
+    this.poolSize = poolSize;
+    this.connectionTimeoutMs = connectionTimeoutMs;
+  }
+
+  @Bean(destroyMethod = "close")
+  ConnectionPool connectionPool() {
+    PGSimpleDataSource dataSource = new PGSimpleDataSource();
+    dataSource.setURL(url);
+    dataSource.setUser(username);
+    dataSource.setPassword(password);
+    return new ConnectionPool(dataSource, poolSize, connectionTimeoutMs);
+  }
+
+  @Bean
+  public Database<Room, Item> roomDatabase() {
+    log.debug("PostgreSQL database has been initialised for objects of type Room");
+    return new JdbcDatabase(connectionPool());
+  }
+}
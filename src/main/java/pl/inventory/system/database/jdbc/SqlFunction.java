@@ -0,0 +1,12 @@
+package pl.inventory.system.database.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Operation on a JDBC resource which may fail with an {@link SQLException}.
+ */
+@FunctionalInterface
+interface SqlFunction<T, R> {
+
+  R apply(T value) throws SQLException;
+}
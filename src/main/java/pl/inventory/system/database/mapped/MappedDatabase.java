@@ -0,0 +1,649 @@
+package pl.inventory.system.database.mapped;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import pl.inventory.system.database.Database;
+import pl.inventory.system.database.ItemSearchIndex;
+import pl.inventory.system.database.ValuationAggregates;
+import pl.inventory.system.database.VersionCounter;
+import pl.inventory.system.database.mapped.SlotFile.SlotRecord;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Page;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.Valuation;
+import pl.inventory.system.utils.DocumentSerializer;
+import pl.inventory.system.utils.IdProvider;
+
+/**
+ * Database of the rooms and their items stored in two memory-mapped {@link SlotFile}s. Every item is a separate
+ * record linked to its room by the room id, so reading, updating or deleting an item touches only the slots
+ * of that item. The offsets (head slots) of all records are indexed in memory by the record id and number,
+ * the content of the records is read from the mapped files.
+ * <p>The behaviour is the same as of the file database:</p>
+ * <ul>
+ *   <li>rooms and items are found by their id or by their number (case-insensitive), a number used more
+ *   than once resolves to the room with the lowest id;</li>
+ *   <li>the items of a room are kept in the ascending order of their ids, which is also the order
+ *   in which they have been added;</li>
+ *   <li>an update of the room keeps its number and the ids of its items, unless the number of items changes;</li>
+ *   <li>an item equal to an item already stored in the room replaces that item.</li>
+ * </ul>
+ * Items are written before their room and deleted after it, items left without a room by an interrupted
+ * write are released when the database is opened.
+ */
+@Slf4j
+public class MappedDatabase implements Database<Room, Item>, AutoCloseable {
+
+  private final SlotFile roomFile;
+  private final SlotFile itemFile;
+  private final IdProvider roomIdProvider;
+  private final IdProvider itemIdProvider;
+  private final DocumentSerializer serializer;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<Long, RoomEntry> rooms = new TreeMap<>();
+  private final Map<String, NavigableSet<Long>> roomIdsByNumber = new HashMap<>();
+  private final NavigableMap<Long, ItemEntry> items = new TreeMap<>();
+  private final Map<Long, NavigableSet<Long>> itemIdsByRoom = new HashMap<>();
+  private final Map<String, NavigableSet<ItemEntry>> itemsByNumber = new HashMap<>();
+  private final VersionCounter versions = new VersionCounter();
+  private final Map<Long, Long> versionsByRoom = new HashMap<>();
+  private ItemSearchIndex searchIndex;
+  private ValuationAggregates valuations;
+
+  public MappedDatabase(SlotFile roomFile,
+                        SlotFile itemFile,
+                        IdProvider roomIdProvider,
+                        IdProvider itemIdProvider,
+                        DocumentSerializer serializer) {
+    this.roomFile = roomFile;
+    this.itemFile = itemFile;
+    this.roomIdProvider = roomIdProvider;
+    this.itemIdProvider = itemIdProvider;
+    this.serializer = serializer;
+    load();
+    log.info("Mapped database initialised for type Room ({} rooms, {} items loaded)", rooms.size(), items.size());
+  }
+
+  @Override
+  public Long save(Room room) {
+    if (isValid(room)) {
+      return saveAll(List.of(room)).getFirst();
+    }
+    log.warn("The Room object to be saved must not be null");
+    return 0L;
+  }
+
+  /**
+   * Saves all valid rooms. Identifiers of the rooms and of their items are reserved in one block for the whole batch.
+   * @param rooms rooms to be saved;
+   * @return ids of the saved rooms in the order of the given list, 0 for each rejected room;
+   */
+  @Override
+  public List<Long> saveAll(List<Room> rooms) {
+    List<Room> validRooms = rooms.stream()
+        .filter(MappedDatabase::isValid)
+        .toList();
+    if (validRooms.size() < rooms.size()) {
+      log.warn("{} of the Room objects to be saved are null or empty", rooms.size() - validRooms.size());
+    }
+    if (!validRooms.isEmpty()) {
+      long firstRoomId = roomIdProvider.getCurrentIdAndIncrementBy(validRooms.size());
+      assignItemIds(validRooms.stream().flatMap(room -> room.getItemsList().stream()).toList());
+      write(() -> {
+        for (int i = 0; i < validRooms.size(); i++) {
+          Room room = validRooms.get(i);
+          room.setId(firstRoomId + i);
+          room.getItemsList().forEach(item -> storeItem(room.getId(), item));
+          storeRoom(room.getId(), room.getRoomNumber());
+        }
+        return null;
+      });
+      log.debug("{} Rooms successfully stored in database", validRooms.size());
+    }
+    return rooms.stream()
+        .map(room -> isValid(room) ? room.getId() : 0L)
+        .toList();
+  }
+
+  @Override
+  public List<Room> getAll() {
+    return read(() -> rooms.keySet().stream().map(this::readRoom).toList());
+  }
+
+  /**
+   * Returns the page of rooms (in the id order) containing at least one item meeting the filter
+   * (all rooms if the filter is null).
+   */
+  @Override
+  public Page<Room> getPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return read(() -> {
+      List<Room> page = new ArrayList<>();
+      Iterator<Long> roomIds = (cursor == null ? rooms : rooms.tailMap(cursor, false)).keySet().iterator();
+      while (page.size() < limit && roomIds.hasNext()) {
+        Room room = readRoom(roomIds.next());
+        if (itemFilter == null || room.getItemsList().stream().anyMatch(itemFilter)) {
+          page.add(room);
+        }
+      }
+      return new Page<>(page, page.size() == limit && roomIds.hasNext() ? page.getLast().getId() : null);
+    });
+  }
+
+  @Override
+  public <P> Optional<Room> getByProperty(P property) {
+    Optional<Room> room = read(() -> findRoomId(property).map(this::readRoom));
+    if (room.isEmpty()) {
+      log.warn("Download failed. The \"Room {}\" does not exist in the database.", property);
+    }
+    return room;
+  }
+
+  @Override
+  public <P> Optional<Room> updateByProperty(P property, Room updateRoom) {
+    if (property == null || updateRoom == null) {
+      log.warn("Update failed. One of the provided arguments (number/id or update Room) is null");
+      return Optional.empty();
+    } else if (!isValid(updateRoom)) {
+      log.warn("Update failed. Wrong content of update Room has been specified ({})", updateRoom);
+      return Optional.empty();
+    }
+    return write(() -> {
+      Optional<Long> optionalRoomId = findRoomId(property);
+      if (optionalRoomId.isEmpty()) {
+        log.warn("Update failed. Room: {} does not exist", property);
+        return Optional.empty();
+      }
+      Long roomId = optionalRoomId.get();
+      List<Long> oldIds = List.copyOf(itemIdsByRoom.getOrDefault(roomId, new TreeSet<>()));
+      List<Item> itemList = updateRoom.getItemsList();
+      updateRoom.setId(roomId);
+      updateRoom.setRoomNumber(rooms.get(roomId).number());
+      if (oldIds.size() == itemList.size()) {
+        for (int i = 0; i < itemList.size(); i++) {
+          itemList.get(i).setId(oldIds.get(i));
+          storeItem(roomId, itemList.get(i));
+        }
+      } else {
+        oldIds.forEach(this::removeItem);
+        assignItemIds(itemList);
+        itemList.forEach(item -> storeItem(roomId, item));
+      }
+      log.debug("Update of \"Room: {}\" successfully completed.", property);
+      return Optional.of(updateRoom);
+    });
+  }
+
+  @Override
+  public <P> Optional<Room> deleteByProperty(P property) {
+    return write(() -> {
+      Optional<Room> room = findRoomId(property).map(this::readRoom);
+      room.ifPresentOrElse(removedRoom -> {
+        RoomEntry entry = rooms.remove(removedRoom.getId());
+        unindex(roomIdsByNumber, entry.number(), removedRoom.getId());
+        roomFile.free(entry.slot());
+        List.copyOf(itemIdsByRoom.getOrDefault(removedRoom.getId(), new TreeSet<>())).forEach(this::removeItem);
+        itemIdsByRoom.remove(removedRoom.getId());
+        versionsByRoom.remove(removedRoom.getId());
+        versions.increment();
+        log.debug("Deletion of Room with specified {} successfully completed", property);
+      }, () -> log.warn("Deletion failed. Room not found"));
+      return room;
+    });
+  }
+
+  @Override
+  public List<Item> getAllItems() {
+    return streamAllItems().toList();
+  }
+
+  @Override
+  public Stream<Item> streamAllItems() {
+    return read(() -> rooms.keySet().stream()
+        .flatMap(roomId -> itemIdsByRoom.getOrDefault(roomId, new TreeSet<>()).stream())
+        .map(this::readItem)
+        .toList())
+        .stream();
+  }
+
+  @Override
+  public <P> Optional<Room> saveInObjectWithProperty(P objectProperty, Item item) {
+    Optional<Room> room = write(() -> saveInRoom(objectProperty, item).map(this::readRoom));
+    if (room.isPresent()) {
+      log.debug("Item number: {} has been successfully stored in Room: {}", item.getInventoryNumber(), objectProperty);
+    }
+    return room;
+  }
+
+  /**
+   * Saves items in their rooms (specified by id or number) while the database is locked once for the whole batch.
+   * @param items pairs of the room property and the item to be saved in that room;
+   * @return saved items in the order of the given list, empty for each item whose room does not exist;
+   */
+  @Override
+  public <P> List<Optional<Item>> saveAllInObjectsWithProperty(List<Map.Entry<P, Item>> items) {
+    List<Optional<Item>> results = write(() -> items.stream()
+        .map(entry -> saveInRoom(entry.getKey(), entry.getValue()).map(roomId -> entry.getValue()))
+        .toList());
+    log.debug("{} Items have been stored", results.stream().filter(Optional::isPresent).count());
+    return results;
+  }
+
+  @Override
+  public <P> List<Item> getAllFromObjectWithProperty(P objectProperty) {
+    return getByProperty(objectProperty).map(Room::getItemsList).orElse(List.of());
+  }
+
+  /**
+   * Returns the page of items (in the id order) meeting the filter (all items if the filter is null).
+   * Only the records of the items up to the end of the page are read.
+   */
+  @Override
+  public Page<Item> getItemsPage(Long cursor, int limit, Predicate<? super Item> itemFilter) {
+    return read(() -> itemsPage((cursor == null ? items : items.tailMap(cursor, false)).keySet().iterator(), limit, itemFilter));
+  }
+
+  @Override
+  public <P> Page<Item> getItemsPageFromObjectWithProperty(P objectProperty, Long cursor, int limit,
+                                                           Predicate<? super Item> itemFilter) {
+    return read(() -> findRoomId(objectProperty)
+        .map(roomId -> itemIdsByRoom.getOrDefault(roomId, new TreeSet<>()))
+        .map(itemIds -> itemsPage((cursor == null ? itemIds : itemIds.tailSet(cursor, false)).iterator(), limit, itemFilter))
+        .orElse(Page.empty()));
+  }
+
+  /**
+   * Returns the items found by the {@link ItemSearchIndex}, only the found items are read.
+   */
+  @Override
+  public List<Item> searchItems(String query, int limit) {
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+    return queryContent(() -> searchIndex.search(query, limit).stream()
+        .map(this::readItem)
+        .toList());
+  }
+
+  /**
+   * Returns the valuation of all items from the running totals ({@link ValuationAggregates}), no item is read.
+   */
+  @Override
+  public Optional<Valuation> getValuation() {
+    return Optional.of(queryContent(() -> valuations.valuation()));
+  }
+
+  /**
+   * Returns the valuation of the items of the room (specified by id or number) from the running totals,
+   * empty if the room does not exist.
+   */
+  @Override
+  public <P> Optional<Valuation> getValuationOfObjectWithProperty(P objectProperty) {
+    return queryContent(() -> findRoomId(objectProperty).map(valuations::valuationOf));
+  }
+
+  /**
+   * Returns the version of the content, increased with every write of a room or an item. Read without any lock.
+   */
+  @Override
+  public Optional<Long> getVersion() {
+    return Optional.of(versions.current());
+  }
+
+  /**
+   * Returns the version at the last write of the room (specified by id or number) or of its items,
+   * empty if the room does not exist.
+   */
+  @Override
+  public <P> Optional<Long> getVersionOfObjectWithProperty(P objectProperty) {
+    return read(() -> findRoomId(objectProperty).map(roomId -> versionsByRoom.getOrDefault(roomId, versions.initial())));
+  }
+
+  @Override
+  public <P> Optional<Item> getItemByProperty(P itemProperty) {
+    return read(() -> findItemId(itemProperty).map(this::readItem));
+  }
+
+  @Override
+  public <P> Optional<Item> deleteItemByProperty(P itemProperty) {
+    return write(() -> findItemId(itemProperty).map(itemId -> {
+      Item removedItem = readItem(itemId);
+      removeItem(itemId);
+      return removedItem;
+    }));
+  }
+
+  /**
+   * Replaces the content of the item in place, only the slots of that item are written.
+   */
+  @Override
+  public <P> Optional<Item> updateItemByProperty(P itemProperty, Item updateItem) {
+    return write(() -> findItemId(itemProperty).map(itemId -> {
+      updateItem.setId(itemId);
+      updateItem.setModificationDate(LocalDate.now());
+      storeItem(items.get(itemId).roomId(), updateItem);
+      return updateItem;
+    }));
+  }
+
+  @Override
+  public void close() {
+    write(() -> {
+      roomFile.close();
+      itemFile.close();
+      return null;
+    });
+  }
+
+  private <P> Optional<Long> saveInRoom(P roomProperty, Item item) {
+    Optional<Long> optionalRoomId = item == null ? Optional.empty() : findRoomId(roomProperty);
+    if (optionalRoomId.isEmpty()) {
+      log.warn("Storage of an Item in Room: {} failed", roomProperty);
+      return Optional.empty();
+    }
+    Long roomId = optionalRoomId.get();
+    Optional<Item> replacedItem = itemIdsByRoom.getOrDefault(roomId, new TreeSet<>()).stream()
+        .map(this::readItem)
+        .filter(storedItem -> storedItem.equals(item))
+        .findFirst();
+    item.setId(replacedItem.isPresent() ? replacedItem.get().getId() : itemIdProvider.getCurrentIdAndIncrement());
+    item.setModificationDate(LocalDate.now());
+    storeItem(roomId, item);
+    return optionalRoomId;
+  }
+
+  private Page<Item> itemsPage(Iterator<Long> itemIds, int limit, Predicate<? super Item> itemFilter) {
+    List<Item> page = new ArrayList<>();
+    while (page.size() < limit && itemIds.hasNext()) {
+      Item item = readItem(itemIds.next());
+      if (itemFilter == null || itemFilter.test(item)) {
+        page.add(item);
+      }
+    }
+    return new Page<>(page, page.size() == limit && itemIds.hasNext() ? page.getLast().getId() : null);
+  }
+
+  private void storeRoom(Long roomId, String number) {
+    rooms.put(roomId, new RoomEntry(roomFile.write(encodeRoom(roomId, number)), number));
+    index(roomIdsByNumber, number, roomId);
+    touch(roomId);
+  }
+
+  /**
+   * Increases the version of the content and sets it as the version of the room, has to be called under the write lock.
+   */
+  private void touch(Long roomId) {
+    versionsByRoom.put(roomId, versions.increment());
+  }
+
+  /**
+   * Writes the record of the item, in place if the item with the same id is already stored.
+   */
+  private void storeItem(Long roomId, Item item) {
+    byte[] content = encodeItem(roomId, item);
+    ItemEntry oldEntry = items.get(item.getId());
+    int slot;
+    if (oldEntry != null) {
+      itemFile.rewrite(oldEntry.slot(), content);
+      unindex(itemsByNumber, oldEntry.number(), oldEntry);
+      slot = oldEntry.slot();
+    } else {
+      slot = itemFile.write(content);
+    }
+    ItemEntry entry = new ItemEntry(item.getId(), roomId, slot, item.getInventoryNumber());
+    items.put(item.getId(), entry);
+    itemIdsByRoom.computeIfAbsent(roomId, id -> new TreeSet<>()).add(item.getId());
+    index(itemsByNumber, entry.number(), entry);
+    touch(roomId);
+    if (searchIndex != null) {
+      searchIndex.index(item);
+      valuations.add(roomId, item);
+    }
+  }
+
+  private void removeItem(Long itemId) {
+    ItemEntry entry = items.remove(itemId);
+    itemFile.free(entry.slot());
+    unindex(itemsByNumber, entry.number(), entry);
+    NavigableSet<Long> roomItems = itemIdsByRoom.get(entry.roomId());
+    if (roomItems != null) {
+      roomItems.remove(itemId);
+    }
+    touch(entry.roomId());
+    if (searchIndex != null) {
+      searchIndex.remove(itemId);
+      valuations.remove(itemId);
+    }
+  }
+
+  private Room readRoom(Long roomId) {
+    return Room.builder()
+        .id(roomId)
+        .roomNumber(rooms.get(roomId).number())
+        .itemsList(itemIdsByRoom.getOrDefault(roomId, new TreeSet<>()).stream()
+            .map(this::readItem)
+            .collect(Collectors.toCollection(ArrayList::new)))
+        .build();
+  }
+
+  private Item readItem(Long itemId) {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(itemFile.read(items.get(itemId).slot())))) {
+      input.skipNBytes(Long.BYTES * 2);
+      readNumber(input);
+      return serializer.deserializeFromBytes(input.readAllBytes(), Item.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private <P> Optional<Long> findRoomId(P property) {
+    if (property instanceof String number) {
+      return first(roomIdsByNumber.get(normalise(number)));
+    } else if (property instanceof Long id) {
+      return rooms.containsKey(id) ? Optional.of(id) : Optional.empty();
+    }
+    return Optional.empty();
+  }
+
+  private <P> Optional<Long> findItemId(P property) {
+    if (property instanceof String number) {
+      return first(itemsByNumber.get(normalise(number))).map(ItemEntry::id);
+    } else if (property instanceof Long id) {
+      return items.containsKey(id) ? Optional.of(id) : Optional.empty();
+    }
+    return Optional.empty();
+  }
+
+  private void assignItemIds(List<Item> itemList) {
+    if (!itemList.isEmpty()) {
+      long firstId = itemIdProvider.getCurrentIdAndIncrementBy(itemList.size());
+      for (int i = 0; i < itemList.size(); i++) {
+        itemList.get(i).setId(firstId + i);
+      }
+    }
+  }
+
+  /**
+   * Rebuilds the in-memory indexes from the records of both files. Items of a room which does not exist are released.
+   */
+  private void load() {
+    for (SlotRecord slotRecord : roomFile.readAll()) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(slotRecord.content()))) {
+        Long roomId = input.readLong();
+        String number = readNumber(input);
+        rooms.put(roomId, new RoomEntry(slotRecord.slot(), number));
+        index(roomIdsByNumber, number, roomId);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    for (SlotRecord slotRecord : itemFile.readAll()) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(slotRecord.content()))) {
+        ItemEntry entry = new ItemEntry(input.readLong(), input.readLong(), slotRecord.slot(), readNumber(input));
+        if (rooms.containsKey(entry.roomId())) {
+          items.put(entry.id(), entry);
+          itemIdsByRoom.computeIfAbsent(entry.roomId(), id -> new TreeSet<>()).add(entry.id());
+          index(itemsByNumber, entry.number(), entry);
+        } else {
+          log.warn("Released Item {} of not existing Room {}", entry.id(), entry.roomId());
+          itemFile.free(entry.slot());
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private byte[] encodeRoom(Long roomId, String number) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeLong(roomId);
+      writeNumber(output, number);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes the item record: the ids of the item and of its room and the inventory number (read without parsing
+   * the document when the database is opened), followed by the serialised item.
+   */
+  private byte[] encodeItem(Long roomId, Item item) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeLong(item.getId());
+      output.writeLong(roomId);
+      writeNumber(output, item.getInventoryNumber());
+      output.write(serializer.serializeToBytes(item));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Runs the query of the indexes of the item content ({@link ItemSearchIndex} and {@link ValuationAggregates})
+   * under the read lock. The indexes need the content of the items, so they are built with the first query
+   * (reading all item records once) rather than when the database is opened, then they are maintained
+   * with every write of an item.
+   */
+  private <R> R queryContent(Supplier<R> query) {
+    if (read(() -> searchIndex == null)) {
+      write(() -> {
+        if (searchIndex == null) {
+          ItemSearchIndex index = new ItemSearchIndex();
+          ValuationAggregates aggregates = new ValuationAggregates();
+          items.values().forEach(entry -> {
+            Item item = readItem(entry.id());
+            index.index(item);
+            aggregates.add(entry.roomId(), item);
+          });
+          valuations = aggregates;
+          searchIndex = index;
+        }
+        return null;
+      });
+    }
+    return read(query);
+  }
+
+  private <R> R read(Supplier<R> action) {
+    lock.readLock().lock();
+    try {
+      return action.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private <R> R write(Supplier<R> action) {
+    lock.writeLock().lock();
+    try {
+      return action.get();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static void writeNumber(DataOutputStream output, String number) throws IOException {
+    output.writeBoolean(number != null);
+    if (number != null) {
+      output.writeUTF(number);
+    }
+  }
+
+  private static String readNumber(DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static <V> void index(Map<String, NavigableSet<V>> index, String number, V value) {
+    if (number != null) {
+      index.computeIfAbsent(normalise(number), key -> new TreeSet<>()).add(value);
+    }
+  }
+
+  private static <V> void unindex(Map<String, NavigableSet<V>> index, String number, V value) {
+    if (number != null) {
+      index.computeIfPresent(normalise(number), (key, values) -> {
+        values.remove(value);
+        return values.isEmpty() ? null : values;
+      });
+    }
+  }
+
+  private static <V> Optional<V> first(NavigableSet<V> values) {
+    return values == null || values.isEmpty() ? Optional.empty() : Optional.of(values.first());
+  }
+
+  private static String normalise(String number) {
+    return number.toUpperCase(Locale.ROOT);
+  }
+
+  private static boolean isValid(Room room) {
+    return room != null && room.getItemsList() != null && !room.getItemsList().isEmpty();
+  }
+
+  /**
+   * Offset of the room record and the room number.
+   */
+  private record RoomEntry(int slot, String number) {
+  }
+
+  /**
+   * Offset of the item record with the keys of the item. Ordered by the room id and then by the item id,
+   * which is the order in which an inventory number used more than once is resolved.
+   */
+  private record ItemEntry(Long id, Long roomId, int slot, String number) implements Comparable<ItemEntry> {
+
+    private static final Comparator<ItemEntry> ORDER = Comparator.comparing(ItemEntry::roomId).thenComparing(ItemEntry::id);
+
+    @Override
+    public int compareTo(ItemEntry other) {
+      return ORDER.compare(this, other);
+    }
+  }
+}
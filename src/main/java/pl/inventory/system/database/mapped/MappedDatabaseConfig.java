@@ -0,0 +1,89 @@
+package pl.inventory.system.database.mapped;
+
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.inventory.system.database.Database;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.utils.BinaryService;
+import pl.inventory.system.utils.DocumentSerializer;
+import pl.inventory.system.utils.FileManager;
+import pl.inventory.system.utils.FileService;
+import pl.inventory.system.utils.IdProvider;
+import pl.inventory.system.utils.JsonService;
+
+@Slf4j
+@Configuration
+@SuppressWarnings("unused")
+@ConditionalOnProperty(name = "inventory_system.database.name", havingValue = "mapped")
+public class MappedDatabaseConfig {
+
+  private final String filesDirectory;
+  private final String roomSlotsFileName;
+  private final String itemSlotsFileName;
+  private final String roomIdFileName;
+  private final String itemIdFileName;
+  private final int slotSize;
+  private final long idBlockSize;
+  private final String documentFormat;
+
+  public MappedDatabaseConfig(
+      @Value("${inventory_system.database.files_directory}") String filesDirectory,
+      @Value("${inventory_system.database.room_slots_file_name:ROOMS.slots}") String roomSlotsFileName,
+      @Value("${inventory_system.database.item_slots_file_name:ITEMS.slots}") String itemSlotsFileName,
+      @Value("${inventory_system.database.room_id_file_name}") String roomIdFileName,
+      @Value("${inventory_system.database.item_id_file_name}") String itemIdFileName,
+      @Value("${inventory_system.database.slot_size:256}") int slotSize,
+      @Value("${inventory_system.database.id_block_size:1000}") long idBlockSize,
+      @Value("${inventory_system.database.document_format:json}") String documentFormat) {
+    this.filesDirectory = filesDirectory;
+    this.roomSlotsFileName = roomSlotsFileName;
+    this.itemSlotsFileName = itemSlotsFileName;
+    this.roomIdFileName = roomIdFileName;
+    this.itemIdFileName = itemIdFileName;
+    this.slotSize = slotSize;
+    this.idBlockSize = idBlockSize;
+    this.documentFormat = documentFormat;
+  }
+
+  @Bean
+  public IdProvider roomIdProvider(FileService fileService) {
+    Path roomIdPath = FileManager.createFile(roomIdFileName, filesDirectory);
+    return new IdProvider(roomIdPath, fileService, idBlockSize);
+  }
+
+  @Bean
+  public IdProvider itemIdProvider(FileService fileService) {
+    Path itemIdPath = FileManager.createFile(itemIdFileName, filesDirectory);
+    return new IdProvider(itemIdPath, fileService, idBlockSize);
+  }
+
+  @Bean(destroyMethod = "close")
+  public MappedDatabase roomDatabase(FileService fileService, JsonService serializer) {
+    log.debug("Mapped database has been initialised for objects of type Room");
+    return new MappedDatabase(
+        new SlotFile(Path.of(filesDirectory, roomSlotsFileName), slotSize),
+        new SlotFile(Path.of(filesDirectory, itemSlotsFileName), slotSize),
+        roomIdProvider(fileService),
+        itemIdProvider(fileService),
+        documentSerializer(serializer)
+    );
+  }
+
+  /**
+   * Returns the serializer of the item records. The format of the records is not converted,
+   * so it cannot be changed once the slot files have been created.
+   */
+  DocumentSerializer documentSerializer(JsonService serializer) {
+    if ("binary".equalsIgnoreCase(documentFormat)) {
+      return new BinaryService();
+    } else if (!"json".equalsIgnoreCase(documentFormat)) {
+      throw new IllegalStateException(String.format("Unknown document format: \"%s\"", documentFormat));
+    }
+    return serializer;
+  }
+}
@@ -0,0 +1,316 @@
+package pl.inventory.system.database.mapped;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Binary file of fixed-size slots accessed through a {@link MappedByteBuffer}. A record is stored in a chain
+ * of slots starting at its head slot, which stays the same when the record is rewritten, so the slot number
+ * is a stable address of the record. Slots of the deleted records are linked in a free-list and reused
+ * before the file grows.
+ * <p>Layout: a header ({@code magic, version, slot size, used slots, free-list head}) followed by the slots.
+ * Each slot starts with its state, the number of the next slot of the chain (or of the free-list)
+ * and the length of the content stored in the slot.</p>
+ * A read or a write touches only the slots of the record and the written slots are forced to the storage device.
+ * <p>A record becomes visible, or switches to its new content, by the write of its head slot, which is written
+ * after all other parts of the record. The free-list is rebuilt from the states of the slots when the file is opened
+ * (every slot outside the chain of a head slot is free), so the slots taken or released by a write interrupted
+ * by a crash are never lost nor handed out while they hold a record.</p>
+ * The class is not thread-safe, the access has to be guarded by the owning database.
+ */
+@Slf4j
+final class SlotFile implements AutoCloseable {
+
+  static final int MIN_SLOT_SIZE = 32;
+  private static final int MAGIC = 0x534C4F54;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int SLOT_HEADER_SIZE = 9;
+  private static final int INITIAL_SLOTS = 1024;
+  private static final int NONE = -1;
+  private static final byte FREE = 0;
+  private static final byte HEAD = 1;
+  private static final byte CONTINUATION = 2;
+  private static final int SLOT_SIZE_OFFSET = 8;
+  private static final int USED_SLOTS_OFFSET = 12;
+  private static final int FREE_HEAD_OFFSET = 16;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int slotSize;
+  private MappedByteBuffer buffer;
+  private int mappedSlots;
+  private int usedSlots;
+  private int freeHead;
+
+  /**
+   * Opens the slot file, creating it (with its directories) if it does not exist. The slot size of an existing
+   * file is read from its header and takes precedence over the given one.
+   * @param path     {@link Path} of the file;
+   * @param slotSize size of a single slot in bytes (for a new file);
+   */
+  SlotFile(Path path, int slotSize) {
+    if (slotSize < MIN_SLOT_SIZE) {
+      throw new IllegalArgumentException("Size of the slot must be at least " + MIN_SLOT_SIZE + " bytes");
+    }
+    this.path = path;
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      if (channel.size() < HEADER_SIZE) {
+        this.slotSize = slotSize;
+        map(INITIAL_SLOTS);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(SLOT_SIZE_OFFSET, slotSize);
+        this.freeHead = NONE;
+        saveHeader();
+      } else {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+          throw new IllegalStateException(String.format("File \"%s\" is not a slot file", path.getFileName()));
+        }
+        this.slotSize = header.getInt(SLOT_SIZE_OFFSET);
+        if (this.slotSize != slotSize) {
+          log.warn("Slot file \"{}\" uses slots of {} bytes, the configured size {} is ignored",
+              path.getFileName(), this.slotSize, slotSize);
+        }
+        map(Math.toIntExact((channel.size() - HEADER_SIZE) / this.slotSize));
+        this.usedSlots = buffer.getInt(USED_SLOTS_OFFSET);
+        rebuildFreeList();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Stores a new record.
+   * @param content bytes of the record;
+   * @return number of the head slot of the record;
+   */
+  int write(byte[] content) {
+    List<Integer> chain = allocate(slotsFor(content.length));
+    writeChain(chain, content);
+    saveHeader();
+    return chain.getFirst();
+  }
+
+  /**
+   * Replaces the content of the stored record. The record keeps its head slot, the rest of the new content
+   * is written to fresh slots, then the head slot is switched over to them and only then the old slots
+   * (except the head) are released. A crash before the switch leaves the old record.
+   * @param slot    number of the head slot of the record;
+   * @param content new bytes of the record;
+   */
+  void rewrite(int slot, byte[] content) {
+    List<Integer> oldChain = chainOf(slot);
+    List<Integer> chain = new ArrayList<>();
+    chain.add(slot);
+    chain.addAll(allocate(slotsFor(content.length) - 1));
+    writeChain(chain, content);
+    oldChain.subList(1, oldChain.size()).forEach(this::release);
+    saveHeader();
+  }
+
+  byte[] read(int slot) {
+    List<Integer> chain = chainOf(slot);
+    int length = 0;
+    for (Integer part : chain) {
+      length += buffer.getInt(offsetOf(part) + 5);
+    }
+    byte[] content = new byte[length];
+    int position = 0;
+    for (Integer part : chain) {
+      int partLength = buffer.getInt(offsetOf(part) + 5);
+      buffer.get(offsetOf(part) + SLOT_HEADER_SIZE, content, position, partLength);
+      position += partLength;
+    }
+    return content;
+  }
+
+  /**
+   * Deletes the record, all slots of its chain are added to the free-list.
+   * @param slot number of the head slot of the record;
+   */
+  void free(int slot) {
+    chainOf(slot).forEach(this::release);
+    saveHeader();
+  }
+
+  /**
+   * Reads all stored records in the order of their head slots.
+   * @return head slots with the content of the records;
+   */
+  List<SlotRecord> readAll() {
+    List<SlotRecord> records = new ArrayList<>();
+    for (int slot = 0; slot < usedSlots; slot++) {
+      if (buffer.get(offsetOf(slot)) == HEAD) {
+        records.add(new SlotRecord(slot, read(slot)));
+      }
+    }
+    return records;
+  }
+
+  int slotSize() {
+    return slotSize;
+  }
+
+  @Override
+  public void close() {
+    try {
+      buffer.force();
+      channel.close();
+    } catch (IOException e) {
+      log.warn("Closing of the slot file \"{}\" failed: {}", path.getFileName(), e.getMessage());
+    }
+  }
+
+  private List<Integer> allocate(int count) {
+    List<Integer> slots = new ArrayList<>(count);
+    while (slots.size() < count && freeHead != NONE) {
+      slots.add(freeHead);
+      freeHead = buffer.getInt(offsetOf(freeHead) + 1);
+    }
+    int appended = count - slots.size();
+    if (usedSlots + appended > mappedSlots) {
+      map(Math.max(usedSlots + appended, mappedSlots * 2));
+    }
+    for (int i = 0; i < appended; i++) {
+      slots.add(usedSlots++);
+    }
+    if (count > 0) {
+      saveHeader();
+    }
+    return slots;
+  }
+
+  private void release(int slot) {
+    int offset = offsetOf(slot);
+    buffer.put(offset, FREE);
+    buffer.putInt(offset + 1, freeHead);
+    buffer.putInt(offset + 5, 0);
+    buffer.force(offset, SLOT_HEADER_SIZE);
+    freeHead = slot;
+  }
+
+  /**
+   * Writes the content to the slots of the chain. The head slot is written last, so a new record becomes visible
+   * (and a rewritten record switches to the new parts) only when all its other parts are stored.
+   */
+  private void writeChain(List<Integer> chain, byte[] content) {
+    int capacity = slotSize - SLOT_HEADER_SIZE;
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      int offset = offsetOf(chain.get(i));
+      int partLength = Math.min(capacity, content.length - i * capacity);
+      buffer.putInt(offset + 1, i + 1 < chain.size() ? chain.get(i + 1) : NONE);
+      buffer.putInt(offset + 5, partLength);
+      buffer.put(offset + SLOT_HEADER_SIZE, content, i * capacity, partLength);
+      buffer.put(offset, i == 0 ? HEAD : CONTINUATION);
+      buffer.force(offset, slotSize);
+    }
+  }
+
+  /**
+   * Rebuilds the free-list from the states of the slots, every used slot outside the chain of a head slot is free.
+   * A head slot whose chain is broken (a record torn by an interrupted write) is released with its parts.
+   */
+  private void rebuildFreeList() {
+    boolean[] live = new boolean[usedSlots];
+    for (int slot = 0; slot < usedSlots; slot++) {
+      if (buffer.get(offsetOf(slot)) == HEAD) {
+        List<Integer> chain = traceChain(slot);
+        if (chain.isEmpty()) {
+          log.warn("Released the torn record at slot {} of \"{}\"", slot, path.getFileName());
+        }
+        chain.forEach(part -> live[part] = true);
+      }
+    }
+    freeHead = NONE;
+    for (int slot = usedSlots - 1; slot >= 0; slot--) {
+      if (!live[slot]) {
+        int offset = offsetOf(slot);
+        if (buffer.get(offset) != FREE || buffer.getInt(offset + 1) != freeHead) {
+          buffer.put(offset, FREE);
+          buffer.putInt(offset + 1, freeHead);
+          buffer.putInt(offset + 5, 0);
+        }
+        freeHead = slot;
+      }
+    }
+    buffer.force();
+    saveHeader();
+  }
+
+  /**
+   * Returns the chain of the head slot, empty if the chain leaves the used slots, loops or runs into a slot
+   * which is not a continuation.
+   */
+  private List<Integer> traceChain(int head) {
+    List<Integer> chain = new ArrayList<>(List.of(head));
+    for (int part = buffer.getInt(offsetOf(head) + 1); part != NONE; part = buffer.getInt(offsetOf(part) + 1)) {
+      if (part < 0 || part >= usedSlots || buffer.get(offsetOf(part)) != CONTINUATION || chain.contains(part)) {
+        return List.of();
+      }
+      chain.add(part);
+    }
+    return chain;
+  }
+
+  private List<Integer> chainOf(int slot) {
+    if (slot < 0 || slot >= usedSlots || buffer.get(offsetOf(slot)) != HEAD) {
+      throw new IllegalArgumentException(String.format("Slot %d of \"%s\" does not hold a record", slot, path.getFileName()));
+    }
+    List<Integer> chain = new ArrayList<>();
+    for (int part = slot; part != NONE; part = buffer.getInt(offsetOf(part) + 1)) {
+      chain.add(part);
+    }
+    return chain;
+  }
+
+  private int slotsFor(int length) {
+    int capacity = slotSize - SLOT_HEADER_SIZE;
+    return Math.max(1, (length + capacity - 1) / capacity);
+  }
+
+  private void saveHeader() {
+    writeHeader(usedSlots, freeHead);
+  }
+
+  private void writeHeader(int used, int free) {
+    buffer.putInt(USED_SLOTS_OFFSET, used);
+    buffer.putInt(FREE_HEAD_OFFSET, free);
+    buffer.force(0, HEADER_SIZE);
+  }
+
+  private void map(int slots) {
+    try {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * slotSize);
+      mappedSlots = slots;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int offsetOf(int slot) {
+    return HEADER_SIZE + slot * slotSize;
+  }
+
+  /**
+   * Record read from the file.
+   * @param slot    number of the head slot of the record;
+   * @param content bytes of the record;
+   */
+  record SlotRecord(int slot, byte[] content) {
+  }
+}
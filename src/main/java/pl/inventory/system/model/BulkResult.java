@@ -0,0 +1,32 @@
+package pl.inventory.system.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResult {
+
+  @Schema(title = "Position of the record in the imported payload, counted from 0", example = "0")
+  private int index;
+
+  @Schema(title = "An ID of the stored object (the room for rooms, the item for items)", example = "1", nullable = true)
+  private Long id;
+
+  @Schema(title = "Outcome of the record import", example = "CREATED")
+  private Status status;
+
+  @Schema(title = "Reason of the failed import", example = "Room does not exist", nullable = true)
+  private String message;
+
+  public enum Status {
+    CREATED,
+    REJECTED,
+    NOT_FOUND
+  }
+}
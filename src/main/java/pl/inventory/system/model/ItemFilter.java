@@ -0,0 +1,71 @@
+package pl.inventory.system.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Criteria of the listed items, bound from the request parameters. All specified criteria have to be met,
+ * the ranges include their limits and criteria which are not specified are not checked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFilter implements Predicate<Item> {
+
+  @Schema(title = "Earliest date of receipt of the item", example = "2024-01-01", nullable = true)
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate incomingFrom;
+
+  @Schema(title = "Latest date of receipt of the item", example = "2024-12-31", nullable = true)
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate incomingTo;
+
+  @Schema(title = "Earliest date of disposal of the item", example = "2024-01-01", nullable = true)
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate outgoingFrom;
+
+  @Schema(title = "Latest date of disposal of the item", example = "2024-12-31", nullable = true)
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate outgoingTo;
+
+  @Schema(title = "Number of the document describing the item (case-insensitive)", example = "STD/02/2023", nullable = true)
+  private String documentNumber;
+
+  @Schema(title = "Lowest price of the item", example = "100.00", nullable = true)
+  private BigDecimal minPrice;
+
+  @Schema(title = "Highest price of the item", example = "500.00", nullable = true)
+  private BigDecimal maxPrice;
+
+  public boolean isEmpty() {
+    return incomingFrom == null && incomingTo == null
+        && outgoingFrom == null && outgoingTo == null
+        && documentNumber == null
+        && minPrice == null && maxPrice == null;
+  }
+
+  @Override
+  public boolean test(Item item) {
+    return isInRange(item.getIncomingDate(), incomingFrom, incomingTo)
+        && isInRange(item.getOutgoingDate(), outgoingFrom, outgoingTo)
+        && (documentNumber == null || documentNumber.equalsIgnoreCase(item.getDocumentNumber()))
+        && isInRange(item.getItemPrice(), minPrice, maxPrice);
+  }
+
+  private static <T extends Comparable<? super T>> boolean isInRange(T value, T from, T to) {
+    if (from == null && to == null) {
+      return true;
+    }
+    return value != null
+        && (from == null || value.compareTo(from) >= 0)
+        && (to == null || value.compareTo(to) <= 0);
+  }
+}
@@ -0,0 +1,29 @@
+package pl.inventory.system.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single page of listed objects, ordered by their ids.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Page<T> {
+
+  @Schema(title = "Objects of the page")
+  private List<T> content;
+
+  @Schema(title = "Cursor of the next page (id of the last object on this page), null if the listing is complete",
+      example = "25", nullable = true)
+  private Long nextCursor;
+
+  public static <T> Page<T> empty() {
+    return new Page<>(List.of(), null);
+  }
+}
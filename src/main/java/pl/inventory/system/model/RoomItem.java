@@ -0,0 +1,23 @@
+package pl.inventory.system.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomItem {
+
+  @Schema(title = "An ID of the room in which the item is saved, takes precedence over the room number", example = "1", nullable = true)
+  private Long roomId;
+
+  @Schema(title = "A number of the room in which the item is saved", example = "112", nullable = true)
+  private String roomNumber;
+
+  @Schema(title = "The item to be saved")
+  private Item item;
+}
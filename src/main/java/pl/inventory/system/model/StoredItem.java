@@ -0,0 +1,43 @@
+package pl.inventory.system.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Item stored as a separate record of a file database, linked to its room by the room id.
+ * The record is addressed by the id of the item, so an item can be written without its room.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "roomId", "item"})
+public class StoredItem implements Storable {
+
+  private Long roomId;
+
+  private Item item;
+
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Override
+  public Long getId() {
+    return item == null ? null : item.getId();
+  }
+
+  @Override
+  public void setId(Long id) {
+    item.setId(id);
+  }
+
+  /**
+   * Records are not looked up by number, the inventory numbers are indexed by the owning database.
+   */
+  @JsonIgnore
+  @Override
+  public String getNumber() {
+    return null;
+  }
+}
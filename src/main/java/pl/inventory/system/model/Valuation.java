@@ -0,0 +1,37 @@
+package pl.inventory.system.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Valuation of the items of a room or of the whole inventory. The value of an item is its quantity multiplied
+ * by its price, the disposed items are the items with the outgoing date.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Valuation {
+
+  @Schema(title = "An ID of the valued room, null for the whole inventory", example = "1", nullable = true)
+  private Long roomId;
+
+  @Schema(title = "Total value of all items", example = "1581.78")
+  private BigDecimal totalValue;
+
+  @Schema(title = "Value of the items in use", example = "1290.89")
+  private BigDecimal activeValue;
+
+  @Schema(title = "Value of the disposed items", example = "290.89")
+  private BigDecimal disposedValue;
+
+  @Schema(title = "Number of the items in use", example = "5")
+  private long activeItems;
+
+  @Schema(title = "Number of the disposed items", example = "1")
+  private long disposedItems;
+}
@@ -1,65 +1,210 @@
 package pl.inventory.system.service;
 
+import java.util.AbstractMap.SimpleEntry;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import pl.inventory.system.database.AsyncDatabase;
 import pl.inventory.system.database.Database;
+import pl.inventory.system.database.ExecutorAsyncDatabase;
+import pl.inventory.system.database.StorageExecutor;
 import pl.inventory.system.model.Item;
+import pl.inventory.system.model.ItemFilter;
+import pl.inventory.system.model.Page;
 import pl.inventory.system.model.Room;
+import pl.inventory.system.model.RoomItem;
 
 @Service
 @SuppressWarnings("unused")
 public class ItemService {
 
   private final Database<Room, Item> database;
+  private final AsyncDatabase<Room, Item> asyncDatabase;
 
-  @Autowired
+  /**
+   * Creates the service whose asynchronous operations run on the calling thread.
+   */
   public ItemService(Database<Room, Item> database) {
+    this(database, new ExecutorAsyncDatabase<>(database, StorageExecutor.direct()));
+  }
+
+  @Autowired
+  public ItemService(Database<Room, Item> database, AsyncDatabase<Room, Item> asyncDatabase) {
     this.database = database;
+    this.asyncDatabase = asyncDatabase;
   }
 
   public Optional<Room> saveToRoomId(Long roomId, Item item) {
     return database.saveInObjectWithProperty(roomId, item);
   }
 
+  public CompletableFuture<Optional<Room>> saveToRoomIdAsync(Long roomId, Item item) {
+    return asyncDatabase.saveInObjectWithProperty(roomId, item);
+  }
+
   public Optional<Room> saveToRoomNumber(String number, Item item) {
     return database.saveInObjectWithProperty(number, item);
   }
 
+  public CompletableFuture<Optional<Room>> saveToRoomNumberAsync(String number, Item item) {
+    return asyncDatabase.saveInObjectWithProperty(number, item);
+  }
+
+  /**
+   * Saves all items in their rooms, each room is specified by its id or (if the id is missing) by its number.
+   * @return saved items in the order of the given list, empty for each item whose room does not exist;
+   */
+  public List<Optional<Item>> saveAll(List<RoomItem> roomItems) {
+    return database.saveAllInObjectsWithProperty(entriesOf(roomItems));
+  }
+
+  public CompletableFuture<List<Optional<Item>>> saveAllAsync(List<RoomItem> roomItems) {
+    return asyncDatabase.saveAllInObjectsWithProperty(entriesOf(roomItems));
+  }
+
+  /**
+   * Returns the version of the items, increased with every change of a room or an item.
+   */
+  public Optional<Long> getVersion() {
+    return database.getVersion();
+  }
+
+  public CompletableFuture<Optional<Long>> getVersionAsync() {
+    return asyncDatabase.getVersion();
+  }
+
+  public Optional<Long> getVersionByRoomId(Long roomId) {
+    return database.getVersionOfObjectWithProperty(roomId);
+  }
+
+  public CompletableFuture<Optional<Long>> getVersionByRoomIdAsync(Long roomId) {
+    return asyncDatabase.getVersionOfObjectWithProperty(roomId);
+  }
+
   public List<Item> getAll() {
     return database.getAllItems();
   }
 
+  public CompletableFuture<List<Item>> getAllAsync() {
+    return asyncDatabase.getAllItems();
+  }
+
+  public Page<Item> getPage(Long cursor, int limit, ItemFilter filter) {
+    return database.getItemsPage(cursor, limit, filterOf(filter));
+  }
+
+  public CompletableFuture<Page<Item>> getPageAsync(Long cursor, int limit, ItemFilter filter) {
+    return asyncDatabase.getItemsPage(cursor, limit, filterOf(filter));
+  }
+
+  public Page<Item> getPageByRoomNumber(String roomNumber, Long cursor, int limit, ItemFilter filter) {
+    return database.getItemsPageFromObjectWithProperty(roomNumber, cursor, limit, filterOf(filter));
+  }
+
+  public CompletableFuture<Page<Item>> getPageByRoomNumberAsync(String roomNumber, Long cursor, int limit, ItemFilter filter) {
+    return asyncDatabase.getItemsPageFromObjectWithProperty(roomNumber, cursor, limit, filterOf(filter));
+  }
+
+  public Page<Item> getPageByRoomId(Long roomId, Long cursor, int limit, ItemFilter filter) {
+    return database.getItemsPageFromObjectWithProperty(roomId, cursor, limit, filterOf(filter));
+  }
+
+  public CompletableFuture<Page<Item>> getPageByRoomIdAsync(Long roomId, Long cursor, int limit, ItemFilter filter) {
+    return asyncDatabase.getItemsPageFromObjectWithProperty(roomId, cursor, limit, filterOf(filter));
+  }
+
+  public Stream<Item> streamAll() {
+    return database.streamAllItems();
+  }
+
   public List<Item> getAllByRoomNumber(String roomNumber) {
     return database.getAllFromObjectWithProperty(roomNumber);
   }
 
+  public CompletableFuture<List<Item>> getAllByRoomNumberAsync(String roomNumber) {
+    return asyncDatabase.getAllFromObjectWithProperty(roomNumber);
+  }
+
   public List<Item> getAllByRoomId(Long roomId) {
     return database.getAllFromObjectWithProperty(roomId);
   }
 
+  public CompletableFuture<List<Item>> getAllByRoomIdAsync(Long roomId) {
+    return asyncDatabase.getAllFromObjectWithProperty(roomId);
+  }
+
+  /**
+   * Returns the items whose inventory number starts with the query or whose description contains all words
+   * of the query, ignoring the case and the Polish diacritics.
+   */
+  public List<Item> search(String query, int limit) {
+    return database.searchItems(query, limit);
+  }
+
+  public CompletableFuture<List<Item>> searchAsync(String query, int limit) {
+    return asyncDatabase.searchItems(query, limit);
+  }
+
   public Optional<Item> getById(Long id) {
     return database.getItemByProperty(id);
   }
 
+  public CompletableFuture<Optional<Item>> getByIdAsync(Long id) {
+    return asyncDatabase.getItemByProperty(id);
+  }
+
   public Optional<Item> getByNumber(String number) {
     return database.getItemByProperty(number);
   }
 
+  public CompletableFuture<Optional<Item>> getByNumberAsync(String number) {
+    return asyncDatabase.getItemByProperty(number);
+  }
+
   public Optional<Item> deleteById(Long id) {
     return database.deleteItemByProperty(id);
   }
 
+  public CompletableFuture<Optional<Item>> deleteByIdAsync(Long id) {
+    return asyncDatabase.deleteItemByProperty(id);
+  }
+
   public Optional<Item> deleteByNumber(String number) {
     return database.deleteItemByProperty(number);
   }
 
+  public CompletableFuture<Optional<Item>> deleteByNumberAsync(String number) {
+    return asyncDatabase.deleteItemByProperty(number);
+  }
+
   public Optional<Item> updateById(Long id, Item updateItem) {
     return database.updateItemByProperty(id, updateItem);
   }
 
+  public CompletableFuture<Optional<Item>> updateByIdAsync(Long id, Item updateItem) {
+    return asyncDatabase.updateItemByProperty(id, updateItem);
+  }
+
   public Optional<Item> updateByNumber(String number, Item updateItem) {
     return database.updateItemByProperty(number, updateItem);
   }
+
+  public CompletableFuture<Optional<Item>> updateByNumberAsync(String number, Item updateItem) {
+    return asyncDatabase.updateItemByProperty(number, updateItem);
+  }
+
+  private static ItemFilter filterOf(ItemFilter filter) {
+    return filter.isEmpty() ? null : filter;
+  }
+
+  private static List<Map.Entry<Object, Item>> entriesOf(List<RoomItem> roomItems) {
+    return roomItems.stream()
+        .<Map.Entry<Object, Item>>map(roomItem -> new SimpleEntry<>(
+            roomItem.getRoomId() != null ? roomItem.getRoomId() : roomItem.getRoomNumber(), roomItem.getItem()))
+        .toList();
+  }
 }
@@ -0,0 +1,53 @@
+package pl.inventory.system.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import pl.inventory.system.database.AsyncDatabase;
+import pl.inventory.system.database.Database;
+import pl.inventory.system.database.ExecutorAsyncDatabase;
+import pl.inventory.system.database.StorageExecutor;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.Valuation;
+
+/**
+ * Reports of the inventory, computed by the database from its running totals.
+ */
+@Service
+@SuppressWarnings("unused")
+public class ReportService {
+
+  private final Database<Room, Item> database;
+  private final AsyncDatabase<Room, Item> asyncDatabase;
+
+  /**
+   * Creates the service whose asynchronous operations run on the calling thread.
+   */
+  public ReportService(Database<Room, Item> database) {
+    this(database, new ExecutorAsyncDatabase<>(database, StorageExecutor.direct()));
+  }
+
+  @Autowired
+  public ReportService(Database<Room, Item> database, AsyncDatabase<Room, Item> asyncDatabase) {
+    this.database = database;
+    this.asyncDatabase = asyncDatabase;
+  }
+
+  public Optional<Valuation> getValuation() {
+    return database.getValuation();
+  }
+
+  public CompletableFuture<Optional<Valuation>> getValuationAsync() {
+    return asyncDatabase.getValuation();
+  }
+
+  public Optional<Valuation> getRoomValuation(Long roomId) {
+    return database.getValuationOfObjectWithProperty(roomId);
+  }
+
+  public CompletableFuture<Optional<Valuation>> getRoomValuationAsync(Long roomId) {
+    return asyncDatabase.getValuationOfObjectWithProperty(roomId);
+  }
+}
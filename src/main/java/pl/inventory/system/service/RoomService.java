@@ -2,11 +2,18 @@ package pl.inventory.system.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import pl.inventory.system.database.AsyncDatabase;
 import pl.inventory.system.database.Database;
+import pl.inventory.system.database.ExecutorAsyncDatabase;
+import pl.inventory.system.database.StorageExecutor;
 import pl.inventory.system.model.Item;
+import pl.inventory.system.model.ItemFilter;
+import pl.inventory.system.model.Page;
 import pl.inventory.system.model.Room;
 
 @Slf4j
@@ -15,41 +22,128 @@ import pl.inventory.system.model.Room;
 public class RoomService {
 
   private final Database<Room, Item> database;
+  private final AsyncDatabase<Room, Item> asyncDatabase;
 
-  @Autowired
+  /**
+   * Creates the service whose asynchronous operations run on the calling thread.
+   */
   public RoomService(Database<Room, Item> database) {
+    this(database, new ExecutorAsyncDatabase<>(database, StorageExecutor.direct()));
+  }
+
+  @Autowired
+  public RoomService(Database<Room, Item> database, AsyncDatabase<Room, Item> asyncDatabase) {
     this.database = database;
+    this.asyncDatabase = asyncDatabase;
+  }
+
+  /**
+   * Returns the version of the rooms, increased with every change of a room or an item.
+   */
+  public Optional<Long> getVersion() {
+    return database.getVersion();
+  }
+
+  public CompletableFuture<Optional<Long>> getVersionAsync() {
+    return asyncDatabase.getVersion();
+  }
+
+  public Optional<Long> getVersionById(Long id) {
+    return database.getVersionOfObjectWithProperty(id);
+  }
+
+  public CompletableFuture<Optional<Long>> getVersionByIdAsync(Long id) {
+    return asyncDatabase.getVersionOfObjectWithProperty(id);
   }
 
   public List<Room> getAll() {
     return database.getAll();
   }
 
+  public CompletableFuture<List<Room>> getAllAsync() {
+    return asyncDatabase.getAll();
+  }
+
+  /**
+   * Returns the page of rooms containing at least one item meeting the filter.
+   */
+  public Page<Room> getPage(Long cursor, int limit, ItemFilter filter) {
+    return database.getPage(cursor, limit, filterOf(filter));
+  }
+
+  public CompletableFuture<Page<Room>> getPageAsync(Long cursor, int limit, ItemFilter filter) {
+    return asyncDatabase.getPage(cursor, limit, filterOf(filter));
+  }
+
+  public Stream<Room> streamAll() {
+    return database.streamAll();
+  }
+
   public Long save(Room room) {
     return database.save(room);
   }
 
+  public CompletableFuture<Long> saveAsync(Room room) {
+    return asyncDatabase.save(room);
+  }
+
+  public List<Long> saveAll(List<Room> rooms) {
+    return database.saveAll(rooms);
+  }
+
+  public CompletableFuture<List<Long>> saveAllAsync(List<Room> rooms) {
+    return asyncDatabase.saveAll(rooms);
+  }
+
   public Optional<Room> getById(Long id) {
     return database.getByProperty(id);
   }
 
+  public CompletableFuture<Optional<Room>> getByIdAsync(Long id) {
+    return asyncDatabase.getByProperty(id);
+  }
+
   public Optional<Room> getByNumber(String number) {
     return database.getByProperty(number);
   }
 
+  public CompletableFuture<Optional<Room>> getByNumberAsync(String number) {
+    return asyncDatabase.getByProperty(number);
+  }
+
   public Optional<Room> deleteById(Long id) {
     return database.deleteByProperty(id);
   }
 
+  public CompletableFuture<Optional<Room>> deleteByIdAsync(Long id) {
+    return asyncDatabase.deleteByProperty(id);
+  }
+
   public Optional<Room> deleteByNumber(String number) {
     return database.deleteByProperty(number);
   }
 
+  public CompletableFuture<Optional<Room>> deleteByNumberAsync(String number) {
+    return asyncDatabase.deleteByProperty(number);
+  }
+
   public Optional<Room> updateById(Long id, Room updateRoom) {
     return database.updateByProperty(id, updateRoom);
   }
 
+  public CompletableFuture<Optional<Room>> updateByIdAsync(Long id, Room updateRoom) {
+    return asyncDatabase.updateByProperty(id, updateRoom);
+  }
+
   public Optional<Room> updateByNumber(String number, Room updateRoom) {
     return database.updateByProperty(number, updateRoom);
   }
+
+  public CompletableFuture<Optional<Room>> updateByNumberAsync(String number, Room updateRoom) {
+    return asyncDatabase.updateByProperty(number, updateRoom);
+  }
+
+  private static ItemFilter filterOf(ItemFilter filter) {
+    return filter.isEmpty() ? null : filter;
+  }
 }
@@ -0,0 +1,296 @@
+package pl.inventory.system.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import pl.inventory.system.model.Item;
+import pl.inventory.system.model.Room;
+import pl.inventory.system.model.StoredItem;
+import pl.inventory.system.model.User;
+
+/**
+ * Compact binary format of the stored rooms and items. Field names are not written: each object starts
+ * with a bit mask of its non-null fields, followed by the values of these fields in a fixed order.
+ * Numbers are written as variable-length integers, dates as the number of days since the epoch
+ * and prices as their scale and unscaled value. As a line-based document the bytes are encoded with Base64.
+ */
+public class BinaryService implements DocumentSerializer {
+
+  private static final byte ROOM = 'R';
+  private static final byte ITEM = 'I';
+  private static final byte STORED_ITEM = 'S';
+  private static final int ID_PREFIX_LENGTH = 40;
+  private final Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+  private final Base64.Decoder decoder = Base64.getDecoder();
+
+  @Override
+  public String serialize(Object object) {
+    return encoder.encodeToString(serializeToBytes(object));
+  }
+
+  @Override
+  public <T> T deserialize(String document, Class<T> objClass) {
+    return deserializeFromBytes(decode(document), objClass);
+  }
+
+  /**
+   * Reads the id from the beginning of the document, only the first bytes of the document are decoded.
+   * The id of a stored item record is the id of its item.
+   */
+  @Override
+  public Long readId(String document) {
+    String prefix = document.length() > ID_PREFIX_LENGTH ? document.substring(0, ID_PREFIX_LENGTH) : document;
+    Reader reader = new Reader(decode(prefix));
+    if (reader.readByte() == STORED_ITEM) {
+      long mask = reader.readVarLong();
+      if ((mask & 1) != 0) {
+        reader.readSignedLong();
+      }
+      if ((mask & 2) == 0) {
+        return null;
+      }
+    }
+    return (reader.readVarLong() & 1) != 0 ? reader.readSignedLong() : null;
+  }
+
+  @Override
+  public boolean canRead(String document) {
+    try {
+      byte[] content = decoder.decode(document.strip());
+      return content.length > 0 && (content[0] == ROOM || content[0] == ITEM || content[0] == STORED_ITEM);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public byte[] serializeToBytes(Object object) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    if (object instanceof Room room) {
+      output.write(ROOM);
+      writeRoom(output, room);
+    } else if (object instanceof Item item) {
+      output.write(ITEM);
+      writeItem(output, item);
+    } else if (object instanceof StoredItem storedItem) {
+      output.write(STORED_ITEM);
+      writeVarLong(output, mask(storedItem.getRoomId(), storedItem.getItem()));
+      writeSignedLong(output, storedItem.getRoomId());
+      if (storedItem.getItem() != null) {
+        writeItem(output, storedItem.getItem());
+      }
+    } else {
+      throw new IllegalArgumentException("Binary format is not supported for " + object);
+    }
+    return output.toByteArray();
+  }
+
+  @Override
+  public <T> T deserializeFromBytes(byte[] content, Class<T> objClass) {
+    Reader reader = new Reader(content);
+    byte type = reader.readByte();
+    if (objClass == Room.class && type == ROOM) {
+      return objClass.cast(readRoom(reader));
+    } else if (objClass == Item.class && type == ITEM) {
+      return objClass.cast(readItem(reader));
+    } else if (objClass == StoredItem.class && type == STORED_ITEM) {
+      long mask = reader.readVarLong();
+      Long roomId = (mask & 1) != 0 ? reader.readSignedLong() : null;
+      return objClass.cast(new StoredItem(roomId, (mask & 2) != 0 ? readItem(reader) : null));
+    }
+    throw new IllegalArgumentException(String.format("Document does not hold an object of type %s", objClass.getSimpleName()));
+  }
+
+  private byte[] decode(String document) {
+    try {
+      return decoder.decode(document.strip());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed binary document", e);
+    }
+  }
+
+  private static void writeRoom(ByteArrayOutputStream output, Room room) {
+    writeVarLong(output, mask(room.getId(), room.getRoomNumber(), room.getItemsList()));
+    writeSignedLong(output, room.getId());
+    writeString(output, room.getRoomNumber());
+    if (room.getItemsList() != null) {
+      writeVarLong(output, room.getItemsList().size());
+      room.getItemsList().forEach(item -> writeItem(output, item));
+    }
+  }
+
+  private static void writeItem(ByteArrayOutputStream output, Item item) {
+    writeVarLong(output, mask(item.getId(), item.getInventoryNumber(), item.getDescription(), item.getIncomingDate(),
+        item.getOutgoingDate(), item.getModificationDate(), item.getItemQuantity(), item.getItemPrice(),
+        item.getDocumentNumber(), item.getUser()));
+    writeSignedLong(output, item.getId());
+    writeString(output, item.getInventoryNumber());
+    writeString(output, item.getDescription());
+    writeDate(output, item.getIncomingDate());
+    writeDate(output, item.getOutgoingDate());
+    writeDate(output, item.getModificationDate());
+    writeSignedLong(output, item.getItemQuantity() == null ? null : item.getItemQuantity().longValue());
+    if (item.getItemPrice() != null) {
+      writeSignedLong(output, (long) item.getItemPrice().scale());
+      writeBytes(output, item.getItemPrice().unscaledValue().toByteArray());
+    }
+    writeString(output, item.getDocumentNumber());
+    if (item.getUser() != null) {
+      User user = item.getUser();
+      writeVarLong(output, mask(user.getId(), user.getName(), user.getSurname()) | (user.isInventoryUser() ? 8 : 0));
+      writeSignedLong(output, user.getId());
+      writeString(output, user.getName());
+      writeString(output, user.getSurname());
+    }
+  }
+
+  private static Room readRoom(Reader reader) {
+    long mask = reader.readVarLong();
+    Room room = new Room();
+    room.setId((mask & 1) != 0 ? reader.readSignedLong() : null);
+    room.setRoomNumber((mask & 2) != 0 ? reader.readString() : null);
+    if ((mask & 4) != 0) {
+      int size = Math.toIntExact(reader.readVarLong());
+      List<Item> items = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        items.add(readItem(reader));
+      }
+      room.setItemsList(items);
+    }
+    return room;
+  }
+
+  private static Item readItem(Reader reader) {
+    long mask = reader.readVarLong();
+    Item item = new Item();
+    item.setId((mask & 1) != 0 ? reader.readSignedLong() : null);
+    item.setInventoryNumber((mask & 1 << 1) != 0 ? reader.readString() : null);
+    item.setDescription((mask & 1 << 2) != 0 ? reader.readString() : null);
+    item.setIncomingDate((mask & 1 << 3) != 0 ? reader.readDate() : null);
+    item.setOutgoingDate((mask & 1 << 4) != 0 ? reader.readDate() : null);
+    item.setModificationDate((mask & 1 << 5) != 0 ? reader.readDate() : null);
+    item.setItemQuantity((mask & 1 << 6) != 0 ? Math.toIntExact(reader.readSignedLong()) : null);
+    if ((mask & 1 << 7) != 0) {
+      int scale = Math.toIntExact(reader.readSignedLong());
+      item.setItemPrice(new BigDecimal(new BigInteger(reader.readBytes()), scale));
+    }
+    item.setDocumentNumber((mask & 1 << 8) != 0 ? reader.readString() : null);
+    if ((mask & 1 << 9) != 0) {
+      long userMask = reader.readVarLong();
+      User user = new User();
+      user.setId((userMask & 1) != 0 ? reader.readSignedLong() : null);
+      user.setName((userMask & 2) != 0 ? reader.readString() : null);
+      user.setSurname((userMask & 4) != 0 ? reader.readString() : null);
+      user.setInventoryUser((userMask & 8) != 0);
+      item.setUser(user);
+    }
+    return item;
+  }
+
+  /**
+   * Returns the bit mask of the non-null values, the bit of the first value is the lowest one.
+   */
+  private static long mask(Object... values) {
+    long mask = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        mask |= 1L << i;
+      }
+    }
+    return mask;
+  }
+
+  private static void writeDate(ByteArrayOutputStream output, LocalDate date) {
+    writeSignedLong(output, date == null ? null : date.toEpochDay());
+  }
+
+  private static void writeString(ByteArrayOutputStream output, String value) {
+    if (value != null) {
+      writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static void writeBytes(ByteArrayOutputStream output, byte[] value) {
+    writeVarLong(output, value.length);
+    output.writeBytes(value);
+  }
+
+  /**
+   * Writes the value (if it is not null) in the zig-zag encoding, so small negative numbers are short as well.
+   */
+  private static void writeSignedLong(ByteArrayOutputStream output, Long value) {
+    if (value != null) {
+      writeVarLong(output, (value << 1) ^ (value >> 63));
+    }
+  }
+
+  private static void writeVarLong(ByteArrayOutputStream output, long value) {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      output.write((int) (remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    output.write((int) remaining);
+  }
+
+  /**
+   * Sequential reader of a binary document.
+   */
+  private static final class Reader {
+
+    private final byte[] content;
+    private int position;
+
+    private Reader(byte[] content) {
+      this.content = content;
+    }
+
+    private byte readByte() {
+      if (position >= content.length) {
+        throw new IllegalArgumentException("Malformed binary document");
+      }
+      return content[position++];
+    }
+
+    private long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += 7) {
+        byte next = readByte();
+        value |= (long) (next & 0x7F) << shift;
+        if ((next & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed binary document");
+    }
+
+    private long readSignedLong() {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private LocalDate readDate() {
+      return LocalDate.ofEpochDay(readSignedLong());
+    }
+
+    private byte[] readBytes() {
+      int length = Math.toIntExact(readVarLong());
+      if (length < 0 || position + length > content.length) {
+        throw new IllegalArgumentException("Malformed binary document");
+      }
+      byte[] value = new byte[length];
+      System.arraycopy(content, position, value, 0, length);
+      position += length;
+      return value;
+    }
+
+    private String readString() {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package pl.inventory.system.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Format of the documents in which the databases store their objects. A document is a single line of text,
+ * so it can be kept in the line-based files and in the journal.
+ */
+public interface DocumentSerializer {
+
+  /**
+   * Converts the object to a single-line document.
+   * @param object object to be stored;
+   * @return serialised content of the object;
+   */
+  String serialize(Object object);
+
+  /**
+   * Converts the document back to the object.
+   * @param document serialised content of the object;
+   * @param objClass class of the object;
+   * @return stored object;
+   */
+  <T> T deserialize(String document, Class<T> objClass);
+
+  /**
+   * Reads the id of the stored object without converting the whole document.
+   * @param document serialised content of the object;
+   * @return {@link Long} value of the id or null if the document has no id;
+   */
+  Long readId(String document);
+
+  /**
+   * Checks whether the document has been written in the format of this serializer.
+   * @param document serialised content of the object;
+   * @return true if the document can be converted by this serializer;
+   */
+  boolean canRead(String document);
+
+  /**
+   * Converts the object to bytes, used by the storages which are not line-based.
+   */
+  default byte[] serializeToBytes(Object object) {
+    return serialize(object).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Converts the bytes written by {@link #serializeToBytes(Object)} back to the object.
+   */
+  default <T> T deserializeFromBytes(byte[] content, Class<T> objClass) {
+    return deserialize(new String(content, StandardCharsets.UTF_8), objClass);
+  }
+}
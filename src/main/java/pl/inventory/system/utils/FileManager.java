@@ -5,7 +5,6 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import pl.inventory.system.utils.exceptions.InvalidArgumentException;
 import pl.inventory.system.utils.exceptions.InvalidFileException;
 
@@ -55,50 +54,6 @@ public final class FileManager {
     }
   }
 
-  private static void copyFile(Path fromFilePath, Path toFilePath) {
-    try {
-      ArgumentValidator.validateArgument(fromFilePath, "source file path");
-      ArgumentValidator.validateArgument(toFilePath, "destination file path");
-      Files.copy(fromFilePath, toFilePath, StandardCopyOption.REPLACE_EXISTING);
-    } catch (InvalidArgumentException | IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  public static void makeBackupFile(Path path) {
-    try {
-      ArgumentValidator.validateArgument(path, "file path to be backed up");
-    } catch (InvalidArgumentException e) {
-      throw new RuntimeException(e);
-    }
-    String backupName = path.toFile().getName().split("\\.")[0];
-    File tempFile = new File(path.toFile().getParent(), String.format("%s_COPY.txt", backupName));
-    try {
-      createFile(tempFile);
-      validateFile(path.toFile());
-      validateFile(tempFile);
-      copyFile(path, Path.of(tempFile.getPath()));
-    } catch (IOException | InvalidFileException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  public static void deleteBackupFile(Path sourcePath) {
-    try {
-      ArgumentValidator.validateArgument(sourcePath, "file path whose backup is to be deleted");
-    } catch (InvalidArgumentException e) {
-      throw new RuntimeException(e);
-    }
-    String backupName = sourcePath.toFile().getName().split("\\.")[0];
-    File tempFile = new File(sourcePath.toFile().getParent(), String.format("%s_COPY.txt", backupName));
-    try {
-      validateFile(tempFile);
-    } catch (InvalidFileException | FileNotFoundException e) {
-      throw new RuntimeException(e);
-    }
-    deleteFile(tempFile);
-  }
-
   public static void validateFile(File file) throws InvalidFileException, FileNotFoundException {
     final String[] fileName = (file.getName()).split("\\.");
     if (!file.exists()) {
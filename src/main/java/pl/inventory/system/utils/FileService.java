@@ -1,69 +1,137 @@
 package pl.inventory.system.utils;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import pl.inventory.system.utils.GroupCommitWriter.SyncPolicy;
 
+/**
+ * Reads and writes the text files of the database. Lines appended to the files are written by a
+ * {@link GroupCommitWriter}, so appends of concurrent writers are batched and forced according to the sync policy.
+ * <p>The latencies and the sizes of the reads and writes are measured ({@code inventory.file.read},
+ * {@code inventory.file.write} and {@code inventory.file.bytes}, tagged with the operation); the latency
+ * of an append includes the wait for the group commit.</p>
+ */
+@Slf4j
 @Service
-public class FileService {
+public class FileService implements AutoCloseable {
+
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private final GroupCommitWriter writer;
+  private final Timer readTimer;
+  private final Timer appendTimer;
+  private final Timer replaceTimer;
+  private final Timer overwriteTimer;
+  private final DistributionSummary readBytes;
+  private final DistributionSummary appendedBytes;
+  private final DistributionSummary replacedBytes;
+  private final DistributionSummary overwrittenBytes;
 
   /**
-   * A no-argument constructor.
+   * A no-argument constructor, the appended lines are never forced explicitly ({@link SyncPolicy#OS}).
    */
   public FileService() {
+    this(SyncPolicy.OS.name(), 0L);
+  }
+
+  /**
+   * Creates the service with the given sync policy of the appended lines.
+   * @param syncPolicy         name of the {@link SyncPolicy} ({@code commit}, {@code interval} or {@code os});
+   * @param syncIntervalMillis interval of forcing the files in the {@code interval} policy;
+   */
+  public FileService(String syncPolicy, long syncIntervalMillis) {
+    this(syncPolicy, syncIntervalMillis, Metrics.globalRegistry);
+  }
+
+  /**
+   * Creates the service with the given sync policy of the appended lines, measured in the given registry.
+   * @param syncPolicy         name of the {@link SyncPolicy} ({@code commit}, {@code interval} or {@code os});
+   * @param syncIntervalMillis interval of forcing the files in the {@code interval} policy;
+   * @param meterRegistry      {@link MeterRegistry} of the file meters;
+   */
+  @Autowired
+  public FileService(@Value("${inventory_system.file.sync_policy:commit}") String syncPolicy,
+                     @Value("${inventory_system.file.sync_interval_ms:100}") long syncIntervalMillis,
+                     MeterRegistry meterRegistry) {
+    this.writer = new GroupCommitWriter(SyncPolicy.of(syncPolicy), syncIntervalMillis);
+    this.readTimer = Meters.timer(meterRegistry, "inventory.file.read", "Reads of whole files", "operation", "read");
+    this.appendTimer = writeTimer(meterRegistry, "append");
+    this.replaceTimer = writeTimer(meterRegistry, "replace");
+    this.overwriteTimer = writeTimer(meterRegistry, "overwrite");
+    this.readBytes = transferredBytes(meterRegistry, "read");
+    this.appendedBytes = transferredBytes(meterRegistry, "append");
+    this.replacedBytes = transferredBytes(meterRegistry, "replace");
+    this.overwrittenBytes = transferredBytes(meterRegistry, "overwrite");
   }
 
   /**
    * Adds a line of text to existing content in the specified source file.
    * The content in the file is not overwritten, but is modified by adding
-   * the currently processed text content.
+   * the currently processed text content. Returns when the line is written.
    * @param line {@link java.lang.String} text to be added to the file;
    * @param path {@link java.nio.file.Path} value of the file in which the text is to be saved;
    */
   public void appendLineToFile(Path path, String line) {
-    try {
-      Files.write(
-          path,
-          (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
-          StandardOpenOption.APPEND
-      );
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+    await(appendLinesAsync(path, List.of(line)));
   }
 
   /**
-   * Writes multiple lines of text to the source file and overwrites the existing file content.
+   * Adds multiple lines of text to existing content in the specified source file with a single write.
+   * Returns when the lines are written.
    * @param path  {@link java.nio.file.Path} value of the file in which the text is to be saved;
    * @param lines content (as a {@link  List}) to be added to existing content in the specified source file;
    */
+  public void appendLinesToFile(Path path, List<String> lines) {
+    await(appendLinesAsync(path, lines));
+  }
+
+  /**
+   * Enqueues multiple lines of text to be added to existing content in the specified source file. The lines
+   * are written together with the lines enqueued concurrently by other writers, in the order of enqueuing.
+   * @param path  {@link java.nio.file.Path} value of the file in which the text is to be saved;
+   * @param lines content (as a {@link  List}) to be added to existing content in the specified source file;
+   * @return {@link CompletableFuture} completed when the lines are written (and forced, if required by the sync policy);
+   */
+  public CompletableFuture<Void> appendLinesAsync(Path path, List<String> lines) {
+    StringBuilder content = new StringBuilder();
+    lines.forEach(line -> content.append(line).append(System.lineSeparator()));
+    byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+    appendedBytes.record(bytes.length);
+    long start = System.nanoTime();
+    return writer.append(path, bytes)
+        .whenComplete((ignored, failure) -> appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Writes multiple lines of text to the source file and overwrites the existing file content.
+   * The lines are written with a single buffered channel into a temporary file, which is then
+   * forced to the storage device and atomically moved over the source file (the directory is forced
+   * after the move), so after a crash the file holds either the old or the new content.
+   * @param path  {@link java.nio.file.Path} value of the file in which the text is to be saved;
+   * @param lines content (as a {@link  List}) to replace the existing content of the specified source file;
+   */
   public void writeLinesToFile(Path path, List<String> lines) {
-    try {
-      Files.write(
-          path,
-          (lines.get(0) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
-          StandardOpenOption.TRUNCATE_EXISTING
-      );
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-    lines.stream()
-        .filter(line -> !line.equals(lines.get(0)))
-        .forEach(line -> {
-          try {
-            Files.write(
-                path,
-                (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
-                StandardOpenOption.APPEND
-            );
-          } catch (IOException e) {
-            throw new RuntimeException(e);
-          }
-        });
+    replaceContent(path, lines);
   }
 
   /**
@@ -73,16 +141,28 @@ public class FileService {
    * @param content ({@link  java.lang.String}) to be added to the specified source file;
    */
   public void writeToFile(Path path, String content) {
+    byte[] bytes = (content + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    long start = System.nanoTime();
     try {
-      Files.write(
-          path,
-          (content + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
-          StandardOpenOption.TRUNCATE_EXISTING);
+      Files.write(path, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+      overwrittenBytes.record(bytes.length);
+      overwriteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Replaces the content of the file, so that after a crash the file holds either the old
+   * or the new content. The text is written to a temporary file, forced to the storage device
+   * and then atomically moved over the source file.
+   * @param path    {@link java.nio.file.Path} value of the file in which the text is to be saved;
+   * @param content ({@link  java.lang.String}) to be saved in the specified source file;
+   */
+  public void writeToFileAtomically(Path path, String content) {
+    replaceContent(path, List.of(content));
+  }
+
   public void cleanFileContent(Path path) {
     String empty = "";
     try {
@@ -92,16 +172,85 @@ public class FileService {
     }
   }
 
+  /**
+   * Writes all enqueued lines and stops the writer.
+   */
+  @Override
+  public void close() {
+    writer.close();
+  }
+
   /**
    * Reads and returns the contents of the specified file as {@link java.util.List}<{@link java.lang.String}>.
    * @param path the {@link java.nio.file.Path} value of the file whose contents are to be read;
    * @return content as a {@link java.util.List} to be returned from specified source file;
    */
   public List<String> readAllFile(Path path) {
+    long start = System.nanoTime();
+    try {
+      List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+      readTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      readBytes.record(Files.size(path));
+      return lines;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void replaceContent(Path path, List<String> lines) {
+    long start = System.nanoTime();
+    Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporaryPath,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+      for (String line : lines) {
+        writer.write(line);
+        writer.write(System.lineSeparator());
+      }
+      writer.flush();
+      channel.force(true);
+      replacedBytes.record(channel.size());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
     try {
-      return Files.readAllLines(path, StandardCharsets.UTF_8);
+      Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    forceDirectory(path.toAbsolutePath().getParent());
+    replaceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Forces the directory entries, so the file moved into the directory survives a crash.
+   * Some platforms (e.g. Windows) cannot open a directory as a channel, there the move is left to the file system.
+   */
+  private static void forceDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      log.debug("Directory \"{}\" could not be forced: {}", directory, e.getMessage());
+    }
+  }
+
+  private static Timer writeTimer(MeterRegistry meterRegistry, String operation) {
+    return Meters.timer(meterRegistry, "inventory.file.write", "Writes of the files, including the wait for the commit",
+        "operation", operation);
+  }
+
+  private static DistributionSummary transferredBytes(MeterRegistry meterRegistry, String operation) {
+    return Meters.bytes(meterRegistry, "inventory.file.bytes", "Bytes read from and written to the files", "operation", operation);
+  }
+
+  /**
+   * Waits for the enqueued write, the failure of the write is rethrown as an unchecked exception.
+   */
+  public static void await(CompletableFuture<Void> write) {
+    try {
+      write.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+    }
   }
 }
@@ -0,0 +1,230 @@
+package pl.inventory.system.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends content to files with group commit. Concurrent writers only enqueue their records, a single flusher
+ * thread takes all records waiting in the queue and writes the records of each file with one write of a
+ * {@link FileChannel} (and forces them to the storage device once per batch, depending on the {@link SyncPolicy}).
+ * The records of a file are written in the order they were enqueued. Each writer receives a future completed
+ * when its record is written (and forced, if required by the policy).
+ * The flusher thread is started with the first record and stopped by {@link #close()}, after the queue is drained.
+ * <p>The writers may run on virtual threads: the writer takes no monitors, so a writer waiting for the queue
+ * never pins its carrier thread. The flusher is a dedicated platform thread, so the writes and the forcing
+ * of the files are not delayed when all carrier threads are busy with the requests.</p>
+ */
+@Slf4j
+public final class GroupCommitWriter implements AutoCloseable {
+
+  private static final WriteRequest STOP = new WriteRequest(null, new byte[0], new CompletableFuture<>());
+
+  private final SyncPolicy syncPolicy;
+  private final long syncIntervalMillis;
+  private final BlockingQueue<WriteRequest> queue = new LinkedBlockingQueue<>();
+  private final Set<Path> unsyncedPaths = new LinkedHashSet<>();
+  private final Lock lifecycleLock = new ReentrantLock();
+  private long lastSyncNanos = System.nanoTime();
+  private Thread flusher;
+  private boolean closed;
+
+  /**
+   * Creates the writer.
+   * @param syncPolicy         {@link SyncPolicy} of forcing the written records to the storage device;
+   * @param syncIntervalMillis interval of forcing the files in the {@link SyncPolicy#INTERVAL} policy;
+   */
+  public GroupCommitWriter(SyncPolicy syncPolicy, long syncIntervalMillis) {
+    if (syncPolicy == SyncPolicy.INTERVAL && syncIntervalMillis <= 0) {
+      throw new IllegalArgumentException("Sync interval must be positive");
+    }
+    this.syncPolicy = syncPolicy;
+    this.syncIntervalMillis = syncIntervalMillis;
+  }
+
+  /**
+   * Enqueues the content to be appended to the existing file.
+   * @param path    {@link Path} of the file;
+   * @param content bytes to be appended;
+   * @return future completed when the content is written, completed exceptionally if the write failed
+   *     or the writer is closed;
+   */
+  public CompletableFuture<Void> append(Path path, byte[] content) {
+    lifecycleLock.lock();
+    try {
+      if (closed) {
+        return CompletableFuture.failedFuture(new IllegalStateException("Writer has been closed"));
+      }
+      if (flusher == null) {
+        flusher = Thread.ofPlatform().name("group-commit-writer").daemon().start(this::flushLoop);
+      }
+      WriteRequest request = new WriteRequest(path, content, new CompletableFuture<>());
+      queue.add(request);
+      return request.completion();
+    } finally {
+      lifecycleLock.unlock();
+    }
+  }
+
+  /**
+   * Writes all enqueued records, forces the written files and stops the flusher thread.
+   */
+  @Override
+  public void close() {
+    Thread stoppedFlusher;
+    lifecycleLock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      stoppedFlusher = flusher;
+      queue.add(STOP);
+    } finally {
+      lifecycleLock.unlock();
+    }
+    if (stoppedFlusher != null) {
+      try {
+        stoppedFlusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void flushLoop() {
+    List<WriteRequest> batch = new ArrayList<>();
+    while (true) {
+      WriteRequest first = takeNext();
+      if (first == null) {
+        syncIfDue();
+        continue;
+      }
+      batch.add(first);
+      queue.drainTo(batch);
+      boolean stopped = batch.removeIf(request -> request == STOP);
+      write(batch);
+      batch.clear();
+      syncIfDue();
+      if (stopped) {
+        syncAll();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Waits for the next record, in the interval policy at most until the next sync is due.
+   */
+  private WriteRequest takeNext() {
+    try {
+      if (syncPolicy == SyncPolicy.INTERVAL && !unsyncedPaths.isEmpty()) {
+        long remainingNanos = lastSyncNanos + TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis) - System.nanoTime();
+        return queue.poll(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+      }
+      return queue.take();
+    } catch (InterruptedException e) {
+      log.debug("Flusher thread interrupted while waiting for records");
+      return null;
+    }
+  }
+
+  private void write(List<WriteRequest> batch) {
+    Map<Path, List<WriteRequest>> requestsByPath = new LinkedHashMap<>();
+    batch.forEach(request -> requestsByPath.computeIfAbsent(request.path(), path -> new ArrayList<>()).add(request));
+    requestsByPath.forEach((path, requests) -> {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+        ByteBuffer[] buffers = requests.stream()
+            .map(request -> ByteBuffer.wrap(request.content()))
+            .toArray(ByteBuffer[]::new);
+        while (Arrays.stream(buffers).anyMatch(ByteBuffer::hasRemaining)) {
+          channel.write(buffers);
+        }
+        if (syncPolicy == SyncPolicy.COMMIT) {
+          channel.force(true);
+        } else if (syncPolicy == SyncPolicy.INTERVAL) {
+          unsyncedPaths.add(path);
+        }
+        requests.forEach(request -> request.completion().complete(null));
+      } catch (IOException e) {
+        requests.forEach(request -> request.completion().completeExceptionally(new UncheckedIOException(e)));
+      } catch (RuntimeException e) {
+        requests.forEach(request -> request.completion().completeExceptionally(e));
+      }
+    });
+    log.trace("{} records written to {} files", batch.size(), requestsByPath.size());
+  }
+
+  private void syncIfDue() {
+    if (syncPolicy == SyncPolicy.INTERVAL
+        && System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis)) {
+      syncAll();
+    }
+  }
+
+  private void syncAll() {
+    unsyncedPaths.forEach(path -> {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.force(true);
+      } catch (NoSuchFileException e) {
+        log.debug("File \"{}\" has been replaced before its sync", path.getFileName());
+      } catch (IOException e) {
+        log.error("Sync of the file \"{}\" failed: {}", path.getFileName(), e.getMessage());
+      }
+    });
+    unsyncedPaths.clear();
+    lastSyncNanos = System.nanoTime();
+  }
+
+  /**
+   * Policy of forcing the appended records to the storage device.
+   */
+  public enum SyncPolicy {
+    /**
+     * Each batch is forced before its writers are notified, a completed write survives a crash of the system.
+     */
+    COMMIT,
+    /**
+     * Written files are forced at the configured interval, writers are notified after the write.
+     */
+    INTERVAL,
+    /**
+     * Files are never forced explicitly, the operating system decides when the content reaches the device.
+     */
+    OS;
+
+    /**
+     * Returns the policy of the given case-insensitive name.
+     * @param name {@link String} name of the policy;
+     * @return the {@link SyncPolicy};
+     * @throws IllegalStateException if there is no policy with the given name;
+     */
+    public static SyncPolicy of(String name) {
+      return Arrays.stream(values())
+          .filter(policy -> policy.name().equalsIgnoreCase(name))
+          .findFirst()
+          .orElseThrow(() -> new IllegalStateException(String.format("Unknown sync policy: \"%s\"", name)));
+    }
+  }
+
+  private record WriteRequest(Path path, byte[] content, CompletableFuture<Void> completion) {
+  }
+}
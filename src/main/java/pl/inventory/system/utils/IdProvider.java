@@ -1,38 +1,107 @@
 package pl.inventory.system.utils;
 
+import io.micrometer.core.instrument.Timer;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class IdProvider {
 
   private final Path idPath;
   private final FileService fileService;
+  private final long blockSize;
+  private final AtomicLong nextId;
+  private final Lock reservationLock = new ReentrantLock();
+  private final Timer allocationTimer;
+  private volatile long reservedUntil;
 
   /**
-   * Constructing a class object. Takes parameters:
+   * Constructing a class object, which reserves identifiers one by one. Takes parameters:
    *
    * @param idPath      {@link Path} to the file storing the identifier currently saved object;
    * @param fileService {@link FileService} object, responsible for writing/reading
    *                    the 'id' in the specified file;
    */
   public IdProvider(Path idPath, FileService fileService) {
+    this(idPath, fileService, 1L);
+  }
+
+  /**
+   * Constructing a class object, which reserves identifiers in blocks. Takes parameters:
+   *
+   * @param idPath      {@link Path} to the file storing the first identifier which has not been reserved yet;
+   * @param fileService {@link FileService} object, responsible for writing/reading
+   *                    the 'id' in the specified file;
+   * @param blockSize   number of identifiers reserved with a single write to the file;
+   */
+  public IdProvider(Path idPath, FileService fileService, long blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Size of the identifiers block must be positive");
+    }
     this.idPath = idPath;
     this.fileService = fileService;
+    this.blockSize = blockSize;
+    this.allocationTimer = Meters.timer("inventory.id.allocation", "Allocations of identifiers, including the reservations of blocks",
+        "file", idPath.getFileName().toString());
+    FileManager.createFile(idPath.toFile());
+    List<String> content = fileService.readAllFile(idPath);
+    this.reservedUntil = content.isEmpty() || content.get(0).isBlank() ? 1L : Long.parseLong(content.get(0).trim());
+    this.nextId = new AtomicLong(reservedUntil);
   }
 
   /**
    * When called, it returns the current {@link java.lang.Long} id value for the object being stored in the database,
-   * then increments it by 1 and stores it in the indicated file. For correct operation,
-   * it requires the creation of an instance of the IdProvider class with the given value
-   * for the Path field idPath and an object of the {@link FileService} class
+   * then increments it by 1. Identifiers are handed out from memory; the file is written only when the reserved
+   * block is exhausted, and it always stores the first identifier which has not been reserved yet.
+   * The new value is stored atomically before any identifier of the block is returned, so after a crash
+   * the unused part of the block is skipped, but no identifier is ever returned twice.
+   * The latency of the allocation is measured ({@code inventory.id.allocation}, tagged with the file name).
    *
    * @return {@link java.lang.Long} value of currently stored id retrieved from specified {@link java.nio.file.Path}
    */
-  public synchronized Long getCurrentIdAndIncrement() {
-    long currentId;
-    FileManager.createFile(idPath.toFile());
-    currentId = fileService.readAllFile(idPath).isEmpty()
-        ? 1L : Long.parseLong((fileService.readAllFile(idPath)).get(0));
-    fileService.writeToFile(idPath, String.valueOf(currentId + 1L));
+  public Long getCurrentIdAndIncrement() {
+    long start = System.nanoTime();
+    long currentId = nextId.getAndIncrement();
+    if (currentId >= reservedUntil) {
+      reserveBlock(currentId);
+    }
+    allocationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     return currentId;
   }
+
+  /**
+   * Hands out a contiguous range of identifiers with a single reservation.
+   *
+   * @param count number of required identifiers (must be positive);
+   * @return {@link java.lang.Long} value of the first identifier of the range
+   */
+  public Long getCurrentIdAndIncrementBy(long count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Number of requested identifiers must be positive");
+    }
+    long start = System.nanoTime();
+    long firstId = nextId.getAndAdd(count);
+    long lastId = firstId + count - 1;
+    if (lastId >= reservedUntil) {
+      reserveBlock(lastId);
+    }
+    allocationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return firstId;
+  }
+
+  private void reserveBlock(long currentId) {
+    reservationLock.lock();
+    try {
+      if (currentId >= reservedUntil) {
+        long newLimit = currentId + blockSize;
+        fileService.writeToFileAtomically(idPath, String.valueOf(newLimit));
+        reservedUntil = newLimit;
+      }
+    } finally {
+      reservationLock.unlock();
+    }
+  }
 }
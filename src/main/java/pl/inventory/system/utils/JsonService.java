@@ -1,16 +1,39 @@
 package pl.inventory.system.utils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * JSON format of the documents and of the exported records. The conversions of single objects are timed
+ * ({@code inventory.json}, tagged with the operation).
+ */
 @Service
-public class JsonService {
+public class JsonService implements DocumentSerializer {
 
   private final JsonMapper mapper;
+  private final Timer serializationTimer;
+  private final Timer deserializationTimer;
+  private final Timer idReadTimer;
 
   {
     mapper = new JsonMapper();
@@ -21,23 +44,161 @@ public class JsonService {
     );
   }
 
+  /**
+   * A no-argument constructor, the conversions are measured in the global registry.
+   */
+  public JsonService() {
+    this(Metrics.globalRegistry);
+  }
+
+  /**
+   * Creates the service measured in the given registry.
+   * @param meterRegistry {@link MeterRegistry} of the conversion timers;
+   */
+  @Autowired
+  public JsonService(MeterRegistry meterRegistry) {
+    this.serializationTimer = conversionTimer(meterRegistry, "serialize");
+    this.deserializationTimer = conversionTimer(meterRegistry, "deserialize");
+    this.idReadTimer = conversionTimer(meterRegistry, "read_id");
+  }
+
   public String objectToJson(Object object) {
+    long start = System.nanoTime();
     try {
       return mapper.writeValueAsString(object);
     } catch (JsonProcessingException e) {
       System.err.println(e.getLocation());
       System.err.println(e.getMessage());
       throw new RuntimeException(e);
+    } finally {
+      serializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
   }
 
   public <T> T jsonToObject(String jsonContent, Class<T> objClass) {
+    long start = System.nanoTime();
     try {
       return mapper.readValue(jsonContent, objClass);
     } catch (JsonProcessingException e) {
       System.err.println(e.getLocation());
       System.err.println(e.getMessage());
       throw new RuntimeException(e);
+    } finally {
+      deserializationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public String serialize(Object object) {
+    return objectToJson(object);
+  }
+
+  @Override
+  public <T> T deserialize(String document, Class<T> objClass) {
+    return jsonToObject(document, objClass);
+  }
+
+  @Override
+  public Long readId(String document) {
+    long start = System.nanoTime();
+    try {
+      return readLongField(document, "id");
+    } finally {
+      idReadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public boolean canRead(String document) {
+    return document.stripLeading().startsWith("{");
+  }
+
+  /**
+   * Writes the objects as newline-delimited JSON (one object per line). Each object is serialized and flushed
+   * to the output as soon as the stream provides it, so only a single object is held in memory at a time.
+   * The output is not closed.
+   * @param output  target of the records;
+   * @param objects objects to be written;
+   */
+  public void writeJsonLines(OutputStream output, Stream<?> objects) throws IOException {
+    try (JsonGenerator generator = mapper.createGenerator(output)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      Iterator<?> iterator = objects.iterator();
+      while (iterator.hasNext()) {
+        mapper.writeValue(generator, iterator.next());
+        generator.writeRaw('\n');
+      }
+    }
+  }
+
+  /**
+   * Converts multiple records given as a JSON array or as newline-delimited JSON (one object per line).
+   * Each record is converted separately, so a malformed record does not reject the remaining ones.
+   * @param content  JSON array or NDJSON content;
+   * @param objClass class of the records;
+   * @return converted records in the order of the content, empty for each record which could not be converted;
+   */
+  public <T> List<Optional<T>> jsonRecordsToObjects(String content, Class<T> objClass) {
+    List<Optional<T>> records = new ArrayList<>();
+    if (content.stripLeading().startsWith("[")) {
+      try {
+        mapper.readTree(content).forEach(node -> records.add(convertRecord(node, objClass)));
+      } catch (JsonProcessingException e) {
+        System.err.println(e.getMessage());
+        throw new RuntimeException(e);
+      }
+    } else {
+      content.lines()
+          .filter(line -> !line.isBlank())
+          .forEach(line -> records.add(readRecord(line, objClass)));
+    }
+    return records;
+  }
+
+  /**
+   * Reads a single numeric field of the top-level JSON object without binding the whole content.
+   * Parsing stops as soon as the field is found.
+   * @param jsonContent JSON object to be read;
+   * @param fieldName   name of the searched field;
+   * @return {@link Long} value of the field or null if the field does not exist or is not an integer;
+   */
+  public Long readLongField(String jsonContent, String fieldName) {
+    try (JsonParser parser = mapper.createParser(jsonContent)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (name.equals(fieldName)) {
+          return value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+        }
+        parser.skipChildren();
+      }
+      return null;
+    } catch (IOException e) {
+      System.err.println(e.getMessage());
+      throw new RuntimeException(e);
+    }
+  }
+
+  private <T> Optional<T> convertRecord(JsonNode node, Class<T> objClass) {
+    try {
+      return Optional.ofNullable(mapper.treeToValue(node, objClass));
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      return Optional.empty();
     }
   }
+
+  private <T> Optional<T> readRecord(String line, Class<T> objClass) {
+    try {
+      return Optional.ofNullable(mapper.readValue(line, objClass));
+    } catch (JsonProcessingException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static Timer conversionTimer(MeterRegistry meterRegistry, String operation) {
+    return Meters.timer(meterRegistry, "inventory.json", "Conversions of single objects from and to JSON", "operation", operation);
+  }
 }
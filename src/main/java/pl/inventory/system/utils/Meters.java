@@ -0,0 +1,62 @@
+package pl.inventory.system.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Factory of the meters of the application. Latencies are timed with percentile histograms, so the percentiles
+ * can be aggregated across the instances and compared with the objectives.
+ * <p>The objects created outside of the application context (the databases, the id providers) register their
+ * meters in the global registry of Micrometer ({@link Metrics#globalRegistry}), to which Spring Boot binds
+ * its own registry, so all meters are published by the actuator.</p>
+ */
+public final class Meters {
+
+  private Meters() {
+  }
+
+  /**
+   * Registers a latency timer in the global registry.
+   * @param name        name of the timer;
+   * @param description description of the timer;
+   * @param tags        tags of the timer, given as key-value pairs;
+   * @return registered {@link Timer};
+   */
+  public static Timer timer(String name, String description, String... tags) {
+    return timer(Metrics.globalRegistry, name, description, tags);
+  }
+
+  /**
+   * Registers a latency timer in the given registry.
+   * @param registry    {@link MeterRegistry} of the timer;
+   * @param name        name of the timer;
+   * @param description description of the timer;
+   * @param tags        tags of the timer, given as key-value pairs;
+   * @return registered {@link Timer};
+   */
+  public static Timer timer(MeterRegistry registry, String name, String description, String... tags) {
+    return Timer.builder(name)
+        .description(description)
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  /**
+   * Registers a summary of the sizes (in bytes) in the given registry.
+   * @param registry    {@link MeterRegistry} of the summary;
+   * @param name        name of the summary;
+   * @param description description of the summary;
+   * @param tags        tags of the summary, given as key-value pairs;
+   * @return registered {@link DistributionSummary};
+   */
+  public static DistributionSummary bytes(MeterRegistry registry, String name, String description, String... tags) {
+    return DistributionSummary.builder(name)
+        .description(description)
+        .baseUnit("bytes")
+        .tags(tags)
+        .register(registry);
+  }
+}
@@ -1,14 +1,15 @@
 package pl.inventory.system
 
-import org.springframework.test.web.servlet.MockMvc
 import org.springframework.test.web.servlet.setup.MockMvcBuilders
 import pl.inventory.system.controller.ItemController
+import pl.inventory.system.controller.ReportController
 import pl.inventory.system.controller.RoomController
 import pl.inventory.system.database.Database
 import pl.inventory.system.database.file.FileBasedDatabase
 import pl.inventory.system.model.Item
 import pl.inventory.system.model.Room
 import pl.inventory.system.service.ItemService
+import pl.inventory.system.service.ReportService
 import pl.inventory.system.service.RoomService
 import pl.inventory.system.utils.FileManager
 import pl.inventory.system.utils.FileService
@@ -31,11 +32,14 @@ abstract class AbstractDatabaseTest extends Specification {
     Database<Room, Item> fileDatabase
     ItemService itemService
     RoomService roomService
+    ReportService reportService
     ObjectsProvider source
     ItemController itemController
     RoomController roomController
-    MockMvc itemMVC
-    MockMvc roomMVC
+    ReportController reportController
+    DispatchingMockMvc itemMVC
+    DispatchingMockMvc roomMVC
+    DispatchingMockMvc reportMVC
 
     def setup() {
         def directory = "TestFiles"
@@ -55,17 +59,21 @@ abstract class AbstractDatabaseTest extends Specification {
         fileDatabase = new FileBasedDatabase(filePath, itemIdProvider, roomIdProvider, fileService, serializer, Room.class)
         itemService = new ItemService(fileDatabase)
         roomService = new RoomService(fileDatabase)
+        reportService = new ReportService(fileDatabase)
         source = new ObjectsProvider()
 
-        itemController = new ItemController(itemService)
-        roomController = new RoomController(roomService)
+        itemController = new ItemController(itemService, serializer)
+        roomController = new RoomController(roomService, serializer)
+        reportController = new ReportController(reportService)
 
-        itemMVC = MockMvcBuilders.standaloneSetup(itemController).build()
-        roomMVC = MockMvcBuilders.standaloneSetup(roomController).build()
+        itemMVC = new DispatchingMockMvc(MockMvcBuilders.standaloneSetup(itemController).build())
+        roomMVC = new DispatchingMockMvc(MockMvcBuilders.standaloneSetup(roomController).build())
+        reportMVC = new DispatchingMockMvc(MockMvcBuilders.standaloneSetup(reportController).build())
     }
 
     def cleanDatabase() {
         Files.deleteIfExists(filePath)
+        Files.deleteIfExists(FileBasedDatabase.itemFilePath(filePath))
         Files.deleteIfExists(idRoomPath)
         Files.deleteIfExists(idItemPath)
         //Files.deleteIfExists(Path.of(directory))
@@ -0,0 +1,29 @@
+package pl.inventory.system
+
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.RequestBuilder
+import org.springframework.test.web.servlet.ResultActions
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
+
+/**
+ * {@link MockMvc} completing the asynchronous requests: the endpoints returning a future are dispatched
+ * again when the future is completed, so the tests check the final response.
+ */
+class DispatchingMockMvc {
+    private final MockMvc mvc
+
+    DispatchingMockMvc(MockMvc mvc) {
+        this.mvc = mvc
+    }
+
+    ResultActions perform(RequestBuilder request) {
+        def actions = mvc.perform(request)
+        def result = actions.andReturn()
+        return result.request.asyncStarted ? mvc.perform(asyncDispatch(result)) : actions
+    }
+
+    ResultActions performWithoutDispatch(RequestBuilder request) {
+        return mvc.perform(request)
+    }
+}
@@ -2,6 +2,8 @@ package pl.inventory.system.controller
 
 import org.springframework.http.MediaType
 import pl.inventory.system.AbstractDatabaseTest
+import pl.inventory.system.model.BulkResult
+import pl.inventory.system.model.Item
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
 
@@ -33,6 +35,53 @@ class ItemControllerTest extends AbstractDatabaseTest {
         !result.response.contentAsString.empty
     }
 
+    def "should stream all stored elements as ndjson"() {
+        when:
+        def asyncResult = itemMVC.performWithoutDispatch(get("/v1/item/get-all")
+                .accept("application/x-ndjson"))
+                .andReturn()
+        def result = itemMVC.perform(asyncDispatch(asyncResult)).andReturn()
+
+        then:
+        result.response.status == 200
+        def items = result.response.contentAsString.readLines().collect { serializer.jsonToObject(it, Item.class) }
+        items == itemService.getAll()
+        items*.id.every { it != null }
+    }
+
+    def "should return pages of stored elements meeting the filter"() {
+        when:
+        def firstPage = itemMVC.perform(get("/v1/item/get-all?limit=5")).andReturn()
+        def secondPage = itemMVC.perform(get("/v1/item/get-all?limit=5&cursor="
+                + firstPage.response.getHeader("X-Next-Cursor"))).andReturn()
+        def filtered = itemMVC.perform(get("/v1/item/get-all?documentNumber=BKM/2022/05&minPrice=400")).andReturn()
+        def roomPage = itemMVC.perform(get("/v1/item/get-all-by/number/?n=102&limit=3&cursor=7")).andReturn()
+        def lastRoomPage = itemMVC.perform(get("/v1/item/get-all-by/id/1?cursor=4")).andReturn()
+        def noSuchRoom = itemMVC.perform(get("/v1/item/get-all-by/id/99?limit=1")).andReturn()
+        def wrongLimits = ["/v1/item/get-all?limit=-1", "/v1/item/get-all-by/number/?n=102&limit=0", "/v1/item/get-all-by/id/1?limit=0"]
+                .collect { itemMVC.perform(get(it)).andReturn().response.status }
+
+        then:
+        firstPage.response.status == 200
+        firstPage.response.getHeader("X-Next-Cursor") == "5"
+        serializer.jsonToObject(firstPage.response.contentAsString, Item[].class)*.id == [1L, 2L, 3L, 4L, 5L]
+        serializer.jsonToObject(secondPage.response.contentAsString, Item[].class)*.id == [6L, 7L, 8L, 9L, 10L]
+
+        filtered.response.status == 200
+        serializer.jsonToObject(filtered.response.contentAsString, Item[].class)*.inventoryNumber == ["PŚT-11/111", "PŚT-11/111"]
+
+        roomPage.response.status == 200
+        roomPage.response.getHeader("X-Next-Cursor") == "10"
+        serializer.jsonToObject(roomPage.response.contentAsString, Item[].class)*.id == [8L, 9L, 10L]
+
+        lastRoomPage.response.status == 200
+        lastRoomPage.response.getHeader("X-Next-Cursor") == null
+        serializer.jsonToObject(lastRoomPage.response.contentAsString, Item[].class)*.id == [5L, 6L]
+
+        noSuchRoom.response.status == 404
+        wrongLimits == [400, 400, 400]
+    }
+
     def "should return Item by specified id or number if exists"() {
         given:
         def existedId = "1"
@@ -238,6 +287,75 @@ class ItemControllerTest extends AbstractDatabaseTest {
         fourthResult.response.contentAsString.empty
     }
 
+    def "should import items in bulk into rooms specified by id or number"() {
+        given:
+        def itemToSave = serializer.objectToJson(source.table[0])
+        def newItem = serializer.objectToJson(Item.builder().inventoryNumber("PŚT-99/901").description("Bulk chair").build())
+        def content = "[{\"roomId\":1,\"item\":" + newItem + "}," +
+                "{\"roomNumber\":\"102\",\"item\":" + itemToSave + "}," +
+                "{\"roomNumber\":\"412\",\"item\":" + itemToSave + "}," +
+                "{\"roomId\":1}]"
+
+        when:
+        def result = itemMVC.perform(put("/v1/item/bulk")
+                .content(content)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+        def invalidResult = itemMVC.perform(put("/v1/item/bulk")
+                .content("[")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+
+        then:
+        result.response.status == 200
+        def outcome = serializer.jsonToObject(result.response.contentAsString, BulkResult[].class)
+        outcome*.status*.name() == ["CREATED", "CREATED", "NOT_FOUND", "REJECTED"]
+        itemService.getById(outcome[0].id).get().description == "Bulk chair"
+        itemService.getAllByRoomNumber("102").count { it.inventoryNumber == "PŚT-11/111" } == 1
+
+        invalidResult.response.status == 400
+    }
+
+    def "should search Items by the inventory number prefix or the words of the description"() {
+        given:
+        itemService.saveToRoomId(1L, Item.builder().inventoryNumber("PŚT-98/001").description("Krzesło obrotowe").build())
+
+        when:
+        def byWords = itemMVC.perform(get("/v1/item/search?q=krzeslo OBROTOWE")).andReturn()
+        def byPrefix = itemMVC.perform(get("/v1/item/search?q=pśt-98/")).andReturn()
+        def notFound = itemMVC.perform(get("/v1/item/search?q=wardrobe")).andReturn()
+        def blankQuery = itemMVC.perform(get("/v1/item/search?q= ")).andReturn()
+
+        then:
+        byWords.response.status == 200
+        serializer.jsonToObject(byWords.response.contentAsString, Item[].class)*.inventoryNumber == ["PŚT-98/001"]
+        byPrefix.response.status == 200
+        byPrefix.response.contentAsString.contains("\"inventoryNumber\":\"PŚT-98/001\"")
+        notFound.response.status == 404
+        blankQuery.response.status == 400
+    }
+
+    def "should tag the items of a room with the version of the room"() {
+        given:
+        def roomId = roomService.save(source.room3)
+
+        when:
+        def items = itemMVC.perform(get("/v1/item/get-all-by/id/" + roomId)).andReturn()
+        def notModified = itemMVC.perform(get("/v1/item/get-all-by/id/" + roomId)
+                .header("If-None-Match", "W/\"0\", " + items.response.getHeader("ETag")))
+                .andReturn()
+        itemService.updateById(source.room3.itemsList[0].id, source.room3.itemsList[0].toBuilder().itemQuantity(2).build())
+        def modified = itemMVC.perform(get("/v1/item/get-all-by/id/" + roomId)
+                .header("If-None-Match", items.response.getHeader("ETag")))
+                .andReturn()
+
+        then:
+        items.response.status == 200
+        notModified.response.status == 304
+        modified.response.status == 200
+        modified.response.getHeader("ETag") != items.response.getHeader("ETag")
+    }
+
     def "deletion of files after tests"() {
         cleanup:
         cleanDatabase()
@@ -0,0 +1,68 @@
+package pl.inventory.system.controller
+
+import pl.inventory.system.AbstractDatabaseTest
+import pl.inventory.system.database.file.FileBasedDatabase
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.Room
+import pl.inventory.system.model.Valuation
+
+import java.time.LocalDate
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
+
+class ReportControllerTest extends AbstractDatabaseTest {
+
+    static BigDecimal valueOf(List<Item> items) {
+        return items.sum(BigDecimal.ZERO) { it.itemPrice * it.itemQuantity } as BigDecimal
+    }
+
+    def "should report the valuation of the inventory and of a room, updated with every change of the items"() {
+        given:
+        def roomId = roomService.save(source.room1)
+        roomService.save(source.room2)
+        def items = itemService.getAll()
+        def roomItems = itemService.getAllByRoomId(roomId)
+
+        when:
+        def global = reportMVC.perform(get("/v1/report/valuation")).andReturn()
+        def room = reportMVC.perform(get("/v1/report/valuation/room/" + roomId)).andReturn()
+        def noSuchRoom = reportMVC.perform(get("/v1/report/valuation/room/99")).andReturn()
+
+        then:
+        global.response.status == 200
+        def globalValuation = serializer.jsonToObject(global.response.contentAsString, Valuation.class)
+        globalValuation.totalValue == valueOf(items)
+        globalValuation.disposedValue == valueOf(items.findAll { it.outgoingDate != null })
+        globalValuation.activeItems == items.count { it.outgoingDate == null }
+        globalValuation.disposedItems == items.count { it.outgoingDate != null }
+
+        room.response.status == 200
+        def roomValuation = serializer.jsonToObject(room.response.contentAsString, Valuation.class)
+        roomValuation.roomId == roomId
+        roomValuation.totalValue == valueOf(roomItems)
+        roomValuation.activeItems + roomValuation.disposedItems == roomItems.size()
+
+        noSuchRoom.response.status == 404
+
+        when:
+        def disposedItem = roomItems.find { it.outgoingDate == null }
+        itemService.updateById(disposedItem.id, disposedItem.toBuilder().outgoingDate(LocalDate.of(2024, 9, 1)).build())
+        itemService.deleteById(roomItems.find { it.id != disposedItem.id }.id)
+        def remainingItems = itemService.getAll()
+        def updated = reportService.getValuation().get()
+        def reopened = new FileBasedDatabase(filePath, itemIdProvider, roomIdProvider, fileService, serializer, Room.class)
+
+        then:
+        updated.totalValue == valueOf(remainingItems)
+        updated.disposedValue == valueOf(remainingItems.findAll { it.outgoingDate != null })
+        updated.disposedItems == globalValuation.disposedItems + 1
+        updated.activeItems + updated.disposedItems == items.size() - 1
+        reopened.getValuation().get() == updated
+        reopened.getValuationOfObjectWithProperty(roomId).get() == reportService.getRoomValuation(roomId).get()
+    }
+
+    def "deletion of files after tests"() {
+        cleanup:
+        cleanDatabase()
+    }
+}
@@ -2,6 +2,8 @@ package pl.inventory.system.controller
 
 import org.springframework.http.MediaType
 import pl.inventory.system.AbstractDatabaseTest
+import pl.inventory.system.model.BulkResult
+import pl.inventory.system.model.Item
 import pl.inventory.system.model.Room
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*
@@ -83,6 +85,47 @@ class RoomControllerTest extends AbstractDatabaseTest {
         (result.response.contentAsString).contains("\"id\":2,\"roomNumber\":\"102\"")
     }
 
+    def "should stream all saved objects as ndjson"() {
+        when:
+        def asyncResult = roomMVC.performWithoutDispatch(get("/v1/room/get/all")
+                .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+        def result = roomMVC.perform(asyncDispatch(asyncResult)).andReturn()
+
+        then:
+        result.response.status == 200
+        result.response.contentType.startsWith("application/x-ndjson")
+        def lines = result.response.contentAsString.readLines()
+        lines.size() == 3
+        lines.collect { serializer.jsonToObject(it, Room.class).roomNumber } == ["101", "102", "201"]
+    }
+
+    def "should retrieve pages of saved objects meeting the filter"() {
+        when:
+        def firstPage = roomMVC.perform(get("/v1/room/get/all?limit=2")).andReturn()
+        def secondPage = roomMVC.perform(get("/v1/room/get/all?limit=2&cursor="
+                + firstPage.response.getHeader("X-Next-Cursor"))).andReturn()
+        def filtered = roomMVC.perform(get("/v1/room/get/all?documentNumber=BKM/2022/05")).andReturn()
+        def notFound = roomMVC.perform(get("/v1/room/get/all?incomingFrom=2030-01-01")).andReturn()
+        def wrongLimit = roomMVC.perform(get("/v1/room/get/all?limit=0")).andReturn()
+
+        then:
+        firstPage.response.status == 200
+        firstPage.response.getHeader("X-Next-Cursor") == "2"
+        serializer.jsonToObject(firstPage.response.contentAsString, Room[].class)*.roomNumber == ["101", "102"]
+
+        secondPage.response.status == 200
+        secondPage.response.getHeader("X-Next-Cursor") == null
+        serializer.jsonToObject(secondPage.response.contentAsString, Room[].class)*.roomNumber == ["201"]
+
+        filtered.response.status == 200
+        serializer.jsonToObject(filtered.response.contentAsString, Room[].class)*.roomNumber == ["101", "201"]
+
+        notFound.response.status == 404
+        wrongLimit.response.status == 400
+    }
+
     def "should retrieve Room by id if exists"() {
         given:
         def existedId = "1"
@@ -221,6 +264,96 @@ class RoomControllerTest extends AbstractDatabaseTest {
         secondResult.response.contentAsString.empty
     }
 
+    def "should import rooms in bulk and report the outcome of each record"() {
+        given:
+        def emptyRoom = Room.builder().roomNumber("501").itemsList([]).build()
+        def content = "[" + serializer.objectToJson(source.room1) + ",\"wrong\"," + serializer.objectToJson(emptyRoom) + "]"
+        def ndjson = serializer.objectToJson(source.room2) + "\n{\"roomNumber\":\n"
+
+        when:
+        def arrayResult = roomMVC.perform(post("/v1/room/bulk")
+                .content(content)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+        def ndjsonResult = roomMVC.perform(post("/v1/room/bulk")
+                .content(ndjson)
+                .contentType("application/x-ndjson"))
+                .andReturn()
+        def invalidResult = roomMVC.perform(post("/v1/room/bulk")
+                .content("[{\"roomNumber\":")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+        def emptyResult = roomMVC.perform(post("/v1/room/bulk")
+                .content(" ")
+                .contentType("application/x-ndjson"))
+                .andReturn()
+
+        then:
+        arrayResult.response.status == 200
+        def arrayOutcome = serializer.jsonToObject(arrayResult.response.contentAsString, BulkResult[].class)
+        arrayOutcome*.status*.name() == ["CREATED", "REJECTED", "REJECTED"]
+        arrayOutcome*.index == [0, 1, 2]
+        roomService.getById(arrayOutcome[0].id).get() == source.room1
+
+        ndjsonResult.response.status == 200
+        def ndjsonOutcome = serializer.jsonToObject(ndjsonResult.response.contentAsString, BulkResult[].class)
+        ndjsonOutcome*.status*.name() == ["CREATED", "REJECTED"]
+        ndjsonOutcome[0].id == arrayOutcome[0].id + 1
+
+        invalidResult.response.status == 400
+        emptyResult.response.status == 400
+    }
+
+    def "should answer a repeated request with 304 (NOT MODIFIED) until the rooms change"() {
+        given:
+        def roomId = roomService.save(source.room1)
+        def otherRoomId = roomService.save(source.room2)
+
+        when:
+        def all = roomMVC.perform(get("/v1/room/get/all")).andReturn()
+        def room = roomMVC.perform(get("/v1/room/get-by/id/" + roomId)).andReturn()
+        def allNotModified = roomMVC.perform(get("/v1/room/get/all").header("If-None-Match", all.response.getHeader("ETag"))).andReturn()
+        def roomNotModified = roomMVC.perform(get("/v1/room/get-by/id/" + roomId).header("If-None-Match", room.response.getHeader("ETag")))
+                .andReturn()
+
+        then:
+        all.response.status == 200
+        all.response.getHeader("ETag") ==~ /"\d+"/
+        allNotModified.response.status == 304
+        allNotModified.response.contentAsString.empty
+        roomNotModified.response.status == 304
+
+        when:
+        itemService.saveToRoomId(otherRoomId, Item.builder().inventoryNumber("PŚT-97/001").description("Lamp").build())
+        def allChanged = roomMVC.perform(get("/v1/room/get/all").header("If-None-Match", all.response.getHeader("ETag"))).andReturn()
+        def roomUnchanged = roomMVC.perform(get("/v1/room/get-by/id/" + roomId).header("If-None-Match", room.response.getHeader("ETag")))
+                .andReturn()
+        itemService.deleteById(source.room1.itemsList[0].id)
+        def roomChanged = roomMVC.perform(get("/v1/room/get-by/id/" + roomId).header("If-None-Match", room.response.getHeader("ETag")))
+                .andReturn()
+
+        then:
+        allChanged.response.status == 200
+        allChanged.response.getHeader("ETag") != all.response.getHeader("ETag")
+        roomUnchanged.response.status == 304
+        roomChanged.response.status == 200
+        roomChanged.response.getHeader("ETag") != room.response.getHeader("ETag")
+    }
+
+    def "should answer the wildcard If-None-Match with 304 only for an existing room"() {
+        given:
+        def roomId = roomService.save(source.room1)
+
+        when:
+        def room = roomMVC.perform(get("/v1/room/get-by/id/" + roomId).header("If-None-Match", "*")).andReturn()
+        def noSuchRoom = roomMVC.perform(get("/v1/room/get-by/id/99").header("If-None-Match", "*")).andReturn()
+
+        then:
+        room.response.status == 304
+        room.response.getHeader("ETag") ==~ /"\d+"/
+        noSuchRoom.response.status == 404
+    }
+
     def "deletion of files after tests"() {
         cleanup:
         cleanDatabase()
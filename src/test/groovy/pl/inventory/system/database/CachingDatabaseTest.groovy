@@ -0,0 +1,138 @@
+package pl.inventory.system.database
+
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.Room
+import spock.lang.Specification
+
+class CachingDatabaseTest extends Specification {
+
+    def database = Mock(Database)
+    def cache = new CachingDatabase(database, 5)
+
+    static Room room(Long id, String number, int items) {
+        return Room.builder()
+                .id(id)
+                .roomNumber(number)
+                .itemsList((1..items).collect {
+                    Item.builder().id((id ?: 0L) * 100 + it).inventoryNumber(number + "/" + it).itemQuantity(1).build()
+                })
+                .build()
+    }
+
+    def "should serve the repeated lookups of a room by its id or number from the cache"() {
+        when:
+        def first = cache.getByProperty(1L)
+        def byId = cache.getByProperty(1L)
+        def byNumber = cache.getByProperty("101")
+        def items = cache.getAllFromObjectWithProperty("101")
+
+        then:
+        1 * database.getByProperty(1L) >> Optional.of(room(1L, "101", 2))
+        0 * database._
+        byId == first
+        byNumber == first
+        items == first.get().getItemsList()
+        cache.stats() == new CachingDatabase.Stats(3, 1, 0, 1, 2)
+    }
+
+    def "should return copies which do not change the cached room"() {
+        given:
+        database.getByProperty(1L) >> Optional.of(room(1L, "101", 2))
+        cache.getByProperty(1L).get().getItemsList().clear()
+
+        when:
+        def cached = cache.getByProperty(1L).get()
+        cached.getItemsList()[0].setDescription("changed")
+
+        then:
+        cached.getItemsList().size() == 2
+        cache.getByProperty(1L).get().getItemsList()[0].getDescription() == null
+    }
+
+    def "should evict the least recently used rooms above the maximum weight of items"() {
+        given:
+        database.getByProperty(1L) >> Optional.of(room(1L, "101", 2))
+        database.getByProperty(2L) >> Optional.of(room(2L, "102", 2))
+        database.getByProperty(3L) >> Optional.of(room(3L, "103", 2))
+        database.getByProperty(4L) >> Optional.of(room(4L, "104", 6))
+
+        when:
+        cache.getByProperty(1L)
+        cache.getByProperty(2L)
+        cache.getByProperty(1L)
+        cache.getByProperty(3L)
+        cache.getByProperty(4L)
+
+        then:
+        cache.stats() == new CachingDatabase.Stats(1, 4, 1, 2, 4)
+
+        when:
+        cache.getByProperty(1L)
+        cache.getByProperty(2L)
+
+        then:
+        cache.stats().hits() == 2
+    }
+
+    def "should invalidate the cached room on the writes of the room and of its items"() {
+        given:
+        database.getByProperty(1L) >> Optional.of(room(1L, "101", 2))
+        cache.getByProperty(1L)
+
+        when:
+        write(cache)
+        cache.getByProperty(1L)
+
+        then:
+        cache.stats().misses() == 2
+
+        where:
+        write << [
+                { CachingDatabase c -> c.updateByProperty("101", room(null, "101", 1)) },
+                { CachingDatabase c -> c.deleteByProperty(1L) },
+                { CachingDatabase c -> c.saveInObjectWithProperty("101", Item.builder().build()) },
+                { CachingDatabase c -> c.saveAllInObjectsWithProperty([Map.entry(1L, Item.builder().build())]) },
+                { CachingDatabase c -> c.updateItemByProperty(102L, Item.builder().build()) },
+                { CachingDatabase c -> c.deleteItemByProperty("101/1") },
+                { CachingDatabase c -> c.save(room(null, "101", 1)) }
+        ]
+    }
+
+    def "should invalidate the cached room on the writes by its room or inventory numbers in another case"() {
+        given:
+        database.getByProperty(1L) >>> [Optional.of(room(1L, "B12", 1)), Optional.of(room(1L, "B12", 3))]
+        cache.getByProperty(1L)
+
+        when:
+        write(cache)
+        def room = cache.getByProperty(1L).get()
+
+        then:
+        room.getItemsList().size() == 3
+        cache.stats().misses() == 2
+
+        where:
+        write << [
+                { CachingDatabase c -> c.saveAllInObjectsWithProperty([Map.entry("b12", Item.builder().build())]) },
+                { CachingDatabase c -> c.saveInObjectWithProperty("b12", Item.builder().build()) },
+                { CachingDatabase c -> c.deleteItemByProperty("b12/1") }
+        ]
+    }
+
+    def "should not cache a room read while a write is in progress"() {
+        given:
+        def stale = room(1L, "101", 2)
+        database.getByProperty(1L) >> {
+            cache.updateByProperty(1L, room(null, "101", 1))
+            return Optional.of(stale)
+        }
+
+        when:
+        cache.getByProperty(1L)
+        cache.getByProperty(1L)
+
+        then:
+        cache.stats().hits() == 0
+        cache.stats().size() == 0
+    }
+}
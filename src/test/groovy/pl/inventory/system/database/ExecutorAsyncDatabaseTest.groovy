@@ -0,0 +1,45 @@
+package pl.inventory.system.database
+
+import pl.inventory.system.model.Room
+import spock.lang.Specification
+
+import java.util.concurrent.CompletionException
+
+class ExecutorAsyncDatabaseTest extends Specification {
+
+    def database = Mock(Database)
+
+    def "should run the operations of the database on the storage executor"() {
+        given:
+        def storageThread = null
+        database.getByProperty(1L) >> {
+            storageThread = Thread.currentThread()
+            Optional.of(Room.builder().id(1L).build())
+        }
+        database.deleteByProperty(1L) >> { throw new IllegalStateException("failure") }
+        def executor = StorageExecutor.bounded(1, 10)
+        def asyncDatabase = new ExecutorAsyncDatabase(database, executor)
+
+        when:
+        def room = asyncDatabase.getByProperty(1L).join()
+        asyncDatabase.deleteByProperty(1L).join()
+
+        then:
+        room.get().getId() == 1L
+        storageThread.name.startsWith("storage-executor-")
+        def e = thrown(CompletionException)
+        e.cause instanceof IllegalStateException
+
+        cleanup:
+        executor.close()
+    }
+
+    def "should run the operations on the calling thread with a direct executor"() {
+        given:
+        database.save(_ as Room) >> 7L
+        def asyncDatabase = new ExecutorAsyncDatabase(database, StorageExecutor.direct())
+
+        expect:
+        asyncDatabase.save(Room.builder().build()).getNow(null) == 7L
+    }
+}
@@ -0,0 +1,96 @@
+package pl.inventory.system.database
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class StorageExecutorTest extends Specification {
+
+    def "should deliver the results and the failures of the operations"() {
+        given:
+        def executor = StorageExecutor.bounded(2, 10)
+
+        when:
+        def result = executor.submit { 1L }.join()
+        executor.submit { throw new IllegalStateException("failure") }.join()
+
+        then:
+        result == 1L
+        def e = thrown(CompletionException)
+        e.cause instanceof IllegalStateException
+
+        cleanup:
+        executor.close()
+    }
+
+    def "should reject the operations over the capacity of the queue"() {
+        given:
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def operation = {
+            started.countDown()
+            release.await(5, TimeUnit.SECONDS)
+            return []
+        }
+        def executor = StorageExecutor.bounded(1, 1)
+
+        when:
+        def running = executor.submit(operation)
+        started.await(5, TimeUnit.SECONDS)
+        def queued = executor.submit(operation)
+        def rejected = executor.submit(operation)
+
+        then:
+        rejected.isCompletedExceptionally()
+        rejected.handle { result, failure -> failure }.join() instanceof RejectedExecutionException
+
+        when:
+        release.countDown()
+
+        then:
+        running.join() == []
+        queued.join() == []
+
+        cleanup:
+        executor.close()
+    }
+
+    def "should run the operations on virtual threads, rejecting the operations over the limit"() {
+        given:
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def executor = StorageExecutor.virtual(1)
+
+        when:
+        def running = executor.submit {
+            started.countDown()
+            release.await(5, TimeUnit.SECONDS)
+            return Thread.currentThread().isVirtual()
+        }
+        started.await(5, TimeUnit.SECONDS)
+        def rejected = executor.submit { true }
+
+        then:
+        rejected.handle { result, failure -> failure }.join() instanceof RejectedExecutionException
+
+        when:
+        release.countDown()
+
+        then:
+        running.join()
+
+        cleanup:
+        executor.close()
+    }
+
+    def "should run the operations on the calling thread with a direct executor"() {
+        given:
+        def caller = Thread.currentThread()
+
+        expect:
+        StorageExecutor.direct().submit { Thread.currentThread() }.getNow(null) == caller
+    }
+}
@@ -0,0 +1,43 @@
+package pl.inventory.system.database
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import pl.inventory.system.model.Room
+import spock.lang.Specification
+
+class TimedDatabaseTest extends Specification {
+
+    def registry = new SimpleMeterRegistry()
+    def database = Mock(Database)
+    def timedDatabase = new TimedDatabase(database, registry)
+
+    def "should time every operation by its method"() {
+        given:
+        database.getByProperty(1L) >> Optional.of(Room.builder().id(1L).build())
+
+        when:
+        def room = timedDatabase.getByProperty(1L)
+        timedDatabase.getByProperty(2L)
+        timedDatabase.save(Room.builder().build())
+
+        then:
+        room.get().getId() == 1L
+        registry.get("inventory.database.operation").tag("method", "getByProperty").tag("exception", "none").timer().count() == 2
+        registry.get("inventory.database.operation").tag("method", "save").timer().count() == 1
+        registry.get("inventory.database.operation").tag("method", "save").timer().getId().getTag("database") != null
+    }
+
+    def "should time the failed operations by their exception"() {
+        given:
+        database.deleteByProperty(1L) >> { throw new IllegalStateException("failure") }
+
+        when:
+        timedDatabase.deleteByProperty(1L)
+
+        then:
+        thrown(IllegalStateException)
+        registry.get("inventory.database.operation")
+                .tag("method", "deleteByProperty")
+                .tag("exception", "IllegalStateException")
+                .timer().count() == 1
+    }
+}
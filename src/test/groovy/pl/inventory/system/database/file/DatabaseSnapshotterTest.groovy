@@ -0,0 +1,111 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Room
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class DatabaseSnapshotterTest extends Specification {
+    static final String DIRECTORY = "SnapshotTestFiles"
+
+    FileService fileService = new FileService()
+    JsonService serializer = new JsonService()
+    Path snapshotsDirectory = Path.of(DIRECTORY, "snapshots")
+    Path roomIdPath = FileManager.createFile("idRoom.txt", DIRECTORY)
+    Path itemIdPath = FileManager.createFile("idItem.txt", DIRECTORY)
+
+    FileBasedDatabase openDatabase(String mode, Path directory) {
+        def roomIdProvider = new IdProvider(directory.resolve("idRoom.txt"), fileService)
+        def itemIdProvider = new IdProvider(directory.resolve("idItem.txt"), fileService)
+        if (mode == "journal") {
+            return new FileBasedDatabase(
+                    new JournalFileStorage(directory.resolve("rooms.txt"), directory.resolve("journal.txt"), fileService, serializer),
+                    new JournalFileStorage(directory.resolve("items.txt"), directory.resolve("itemJournal.txt"), fileService, serializer),
+                    itemIdProvider, roomIdProvider, serializer)
+        }
+        return new FileBasedDatabase(directory.resolve("rooms.txt"), itemIdProvider, roomIdProvider, fileService, serializer, Room)
+    }
+
+    DatabaseSnapshotter snapshotter(FileBasedDatabase database, int retainedSnapshots) {
+        return new DatabaseSnapshotter(database, [roomIdPath, itemIdPath], snapshotsDirectory, retainedSnapshots, 3_600_000L)
+    }
+
+    def cleanup() {
+        Path.of(DIRECTORY).toFile().deleteDir()
+    }
+
+    def "should restore the state of the database at the time of the snapshot"() {
+        given:
+        def database = openDatabase(mode, Path.of(DIRECTORY))
+        def firstId = database.save(new ObjectsProvider().room1)
+        def secondId = database.save(new ObjectsProvider().room2)
+        def expected = database.getAll()
+        def snapshotter = snapshotter(database, 2)
+
+        when:
+        def snapshot = snapshotter.snapshot()
+        database.deleteByProperty(secondId)
+        database.updateItemByProperty("PŚT-11/111", new ObjectsProvider().table[2])
+        database.save(new ObjectsProvider().room3)
+        def restored = openDatabase(mode, snapshot)
+
+        then:
+        restored.getAll() == expected
+        restored.getByProperty(firstId).isPresent()
+        restored.getItemByProperty("PŚT-11/111").isPresent()
+        restored.save(new ObjectsProvider().room3) > secondId
+
+        cleanup:
+        snapshotter.close()
+
+        where:
+        mode << ["rewrite", "journal"]
+    }
+
+    def "should keep only the configured number of the latest snapshots"() {
+        given:
+        def database = openDatabase("rewrite", Path.of(DIRECTORY))
+        database.save(new ObjectsProvider().room1)
+        def snapshotter = snapshotter(database, 2)
+
+        when:
+        def taken = (1..4).collect { snapshotter.snapshot() }
+
+        then:
+        snapshotter.snapshots() == taken.subList(2, 4)
+        taken.toSet().size() == 4
+
+        cleanup:
+        snapshotter.close()
+    }
+
+    def "should remove an incomplete snapshot at the start"() {
+        given:
+        def database = openDatabase("rewrite", Path.of(DIRECTORY))
+        def incomplete = Files.createDirectories(snapshotsDirectory.resolve(DatabaseSnapshotter.SNAPSHOT_PREFIX + "20240101-000000-000.tmp"))
+
+        when:
+        def snapshotter = snapshotter(database, 1)
+
+        then:
+        Files.notExists(incomplete)
+        snapshotter.snapshots() == []
+
+        cleanup:
+        snapshotter.close()
+    }
+
+    def "should reject a retention of no snapshots"() {
+        when:
+        new DatabaseSnapshotter(openDatabase("rewrite", Path.of(DIRECTORY)), [], snapshotsDirectory, 0, 1000L)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,95 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Room
+import pl.inventory.system.model.StoredItem
+import pl.inventory.system.utils.BinaryService
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class DocumentConverterTest extends Specification {
+    static final String DIRECTORY = "ConverterTestFiles"
+
+    FileService fileService = new FileService()
+    JsonService json = new JsonService()
+    BinaryService binary = new BinaryService()
+    ObjectsProvider source = new ObjectsProvider()
+    Path roomsPath = FileManager.createFile("rooms.txt", DIRECTORY)
+    Path journalPath = FileManager.createFile("journal.txt", DIRECTORY)
+
+    def cleanup() {
+        Files.list(Path.of(DIRECTORY)).forEach { Files.delete(it) }
+        Files.delete(Path.of(DIRECTORY))
+    }
+
+    def "should convert json documents to the binary format once"() {
+        given:
+        source.room1.id = 1L
+        source.room2.id = 2L
+        fileService.appendLinesToFile(roomsPath, [json.serialize(source.room1), json.serialize(source.room2)])
+        def converter = new DocumentConverter(binary, json, fileService)
+
+        when:
+        def converted = converter.convertDocuments(roomsPath, Room.class)
+
+        then:
+        converted == 2
+        fileService.readAllFile(roomsPath).collect { binary.deserialize(it, Room.class) } == [source.room1, source.room2]
+        converter.convertDocuments(roomsPath, Room.class) == 0
+    }
+
+    def "should convert documents of the journal records"() {
+        given:
+        source.room1.id = 1L
+        fileService.appendLinesToFile(journalPath, [
+                JournalRecord.save(1L, binary.serialize(source.room1)).toLine(),
+                JournalRecord.delete(1L).toLine(),
+                "torn record"])
+
+        when:
+        def converted = new DocumentConverter(json, binary, fileService).convertJournal(journalPath, Room.class)
+        def lines = fileService.readAllFile(journalPath)
+
+        then:
+        converted == 1
+        json.deserialize(JournalRecord.parse(lines[0]).get().document(), Room.class) == source.room1
+        JournalRecord.parse(lines[1]).get().operation() == JournalRecord.Operation.DELETE
+        lines[2] == "torn record"
+    }
+
+    def "should open the binary database from the converted json file"() {
+        given:
+        def roomIdProvider = new IdProvider(FileManager.createFile("idRoom.txt", DIRECTORY), fileService)
+        def itemIdProvider = new IdProvider(FileManager.createFile("idItem.txt", DIRECTORY), fileService)
+        def itemsPath = FileBasedDatabase.itemFilePath(roomsPath)
+        new FileBasedDatabase(roomsPath, itemIdProvider, roomIdProvider, fileService, json, Room.class)
+                .save(source.room1)
+
+        when:
+        def converter = new DocumentConverter(binary, json, fileService)
+        converter.convertDocuments(roomsPath, Room.class)
+        converter.convertDocuments(itemsPath, StoredItem.class)
+        def database = new FileBasedDatabase(roomsPath, itemIdProvider, roomIdProvider, fileService, binary, Room.class)
+
+        then:
+        database.getByProperty("101").get() == source.room1
+        database.getItemByProperty("PŚT-11/111").isPresent()
+    }
+
+    def "should fail on a document of an unknown format"() {
+        given:
+        fileService.appendLineToFile(roomsPath, "<room/>")
+
+        when:
+        new DocumentConverter(binary, json, fileService).convertDocuments(roomsPath, Room.class)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
@@ -0,0 +1,153 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.Room
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class FileBasedDatabaseConcurrencyTest extends Specification {
+    static final String DIRECTORY = "ConcurrencyTestFiles"
+
+    FileService fileService = new FileService()
+    JsonService serializer = new JsonService()
+    Path roomPath = FileManager.createFile("rooms.txt", DIRECTORY)
+    Path journalPath = FileManager.createFile("journal.txt", DIRECTORY)
+    Path itemPath = FileManager.createFile("items.txt", DIRECTORY)
+    Path itemJournalPath = FileManager.createFile("itemJournal.txt", DIRECTORY)
+    IdProvider roomIdProvider = new IdProvider(FileManager.createFile("idRoom.txt", DIRECTORY), fileService, 100)
+    IdProvider itemIdProvider = new IdProvider(FileManager.createFile("idItem.txt", DIRECTORY), fileService, 100)
+
+    def cleanup() {
+        Files.list(Path.of(DIRECTORY)).forEach { Files.delete(it) }
+        Files.delete(Path.of(DIRECTORY))
+    }
+
+    FileBasedDatabase openJournalDatabase() {
+        return new FileBasedDatabase(
+                new JournalFileStorage(roomPath, journalPath, fileService, serializer),
+                new JournalFileStorage(itemPath, itemJournalPath, fileService, serializer),
+                itemIdProvider, roomIdProvider, serializer)
+    }
+
+    static Room room(String number) {
+        return Room.builder()
+                .roomNumber(number)
+                .itemsList([Item.builder().inventoryNumber("INV-" + number).itemQuantity(0).build()])
+                .build()
+    }
+
+    def "should not lose concurrent item additions to the same and to different rooms"() {
+        given:
+        def database = openJournalDatabase()
+        def roomIds = (1..4).collect { database.save(room(String.valueOf(it))) }
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def tasks = (0..<200).collect { i ->
+            { ->
+                def item = Item.builder().inventoryNumber("ADD-" + i).itemQuantity(i).build()
+                database.saveInObjectWithProperty(roomIds[i % 4], item)
+                database.getItemByProperty("INV-" + (i % 4 + 1)).isPresent()
+            } as Callable<Boolean>
+        }
+        def results = executor.invokeAll(tasks)*.get()
+
+        then:
+        results.every()
+        roomIds.every { database.getAllFromObjectWithProperty(it).size() == 51 }
+        (0..<200).every { database.getItemByProperty("ADD-" + it).get().itemQuantity == it }
+
+        when:
+        def reopened = openJournalDatabase()
+
+        then:
+        reopened.getAll() == database.getAll()
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should update and delete items of different rooms concurrently"() {
+        given:
+        def database = new FileBasedDatabase(roomPath, itemIdProvider, roomIdProvider, fileService, serializer, Room.class)
+        (1..4).each { database.save(room(String.valueOf(it))) }
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def tasks = (1..4).collect { i ->
+            { ->
+                def update = Item.builder().inventoryNumber("UPD-" + i).itemQuantity(i).build()
+                database.updateItemByProperty("INV-" + i, update)
+                database.deleteItemByProperty(i % 2 == 0 ? "UPD-" + i : "NONE-" + i)
+            } as Callable
+        }
+        executor.invokeAll(tasks)*.get()
+
+        then:
+        database.getAllItems()*.inventoryNumber.toSorted() == ["UPD-1", "UPD-3"]
+        new FileBasedDatabase(roomPath, itemIdProvider, roomIdProvider, fileService, serializer, Room.class)
+                .getAllItems()*.inventoryNumber.toSorted() == ["UPD-1", "UPD-3"]
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should never show a room without its items while the room is saved, updated and deleted"() {
+        given:
+        def database = openJournalDatabase()
+        def executor = Executors.newFixedThreadPool(4)
+        def updatedItems = [Item.builder().inventoryNumber("A").itemQuantity(1).build(),
+                            Item.builder().inventoryNumber("B").itemQuantity(2).build()]
+
+        when:
+        def writer = executor.submit({ ->
+            (0..<100).each { i ->
+                database.save(room("N" + i))
+                database.updateByProperty("N" + i, Room.builder().itemsList(updatedItems.collect { it.toBuilder().build() }).build())
+                database.deleteByProperty("N" + i)
+            }
+        } as Runnable)
+        def readers = (1..3).collect {
+            executor.submit({ ->
+                def emptyRooms = 0
+                while (!writer.isDone()) {
+                    (0..<100).each { i ->
+                        database.getByProperty("N" + i).ifPresent { room -> emptyRooms += room.itemsList.isEmpty() ? 1 : 0 }
+                    }
+                }
+                return emptyRooms
+            } as Callable<Integer>)
+        }
+        writer.get()
+
+        then:
+        readers*.get().every { it == 0 }
+        database.getAll().isEmpty()
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should map an id always to the same lock stripe"() {
+        given:
+        def stripes = new LockStripes(8)
+
+        expect:
+        stripes.get(5L).is(stripes.get(5L))
+        (0L..100L).every { stripes.index(it) in (0..<8) }
+
+        when:
+        new LockStripes(6)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
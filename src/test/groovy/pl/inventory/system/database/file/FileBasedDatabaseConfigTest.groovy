@@ -1,5 +1,6 @@
 package pl.inventory.system.database.file
 
+import pl.inventory.system.utils.BinaryService
 import pl.inventory.system.utils.FileService
 import pl.inventory.system.utils.JsonService
 import spock.lang.Specification
@@ -13,12 +14,8 @@ class FileBasedDatabaseConfigTest extends Specification {
     String roomIdFile = "Room Id File.txt"
     String itemIdFile = "Item Id File.txt"
 
-    def databaseConfig = new FileBasedDatabaseConfig(
-            filesDirectory,
-            roomFile,
-            roomIdFile,
-            itemIdFile
-    )
+    def properties = FileDatabaseProperties.of(filesDirectory, roomFile, roomIdFile, itemIdFile)
+    def databaseConfig = new FileBasedDatabaseConfig(properties)
 
     def "should create a file storing Room objects"() {
         when:
@@ -69,6 +66,59 @@ class FileBasedDatabaseConfigTest extends Specification {
         dbInstance != null
     }
 
+    def "should create a journal storage if the journal mode is selected"() {
+        given:
+        def journalConfig = new FileBasedDatabaseConfig(
+                properties.withStorageMode("JOURNAL").withRoomJournalFileName("Room Journal File.txt"))
+
+        when:
+        def storage = journalConfig.roomStorage(new FileService(), new JsonService())
+
+        then:
+        storage instanceof JournalFileStorage
+        journalConfig.itemStorage(new FileService(), new JsonService()) instanceof JournalFileStorage
+        new File(new File(filesDirectory), "Room Journal File.txt").exists()
+        new File(new File(filesDirectory), "ITEMS_JOURNAL.txt").exists()
+        new File(new File(filesDirectory), "Room Test File_ITEMS.txt").exists()
+        databaseConfig.roomStorage(new FileService(), new JsonService()) instanceof RewriteFileStorage
+
+        when:
+        def compactor = journalConfig.journalCompactor(new FileService(), new JsonService(), 1000, 60_000)
+
+        then:
+        compactor != null
+
+        cleanup:
+        compactor?.close()
+    }
+
+    def "should fail on unknown storage mode"() {
+        given:
+        def wrongConfig = new FileBasedDatabaseConfig(properties.withStorageMode("paper"))
+
+        when:
+        wrongConfig.roomStorage(new FileService(), new JsonService())
+
+        then:
+        thrown(IllegalStateException.class)
+    }
+
+    def "should select the format of the stored documents"() {
+        given:
+        def binaryConfig = new FileBasedDatabaseConfig(properties.withDocumentFormat("BINARY"))
+        def wrongConfig = new FileBasedDatabaseConfig(properties.withDocumentFormat("xml"))
+
+        expect:
+        binaryConfig.documentSerializer(new JsonService()) instanceof BinaryService
+        databaseConfig.documentSerializer(new JsonService()) instanceof JsonService
+
+        when:
+        wrongConfig.documentSerializer(new JsonService())
+
+        then:
+        thrown(IllegalStateException.class)
+    }
+
     def "deletion of files after tests"() {
         cleanup:
         deleteDirectoryRecursively(Path.of(filesDirectory))
@@ -1,7 +1,12 @@
 package pl.inventory.system.database.file
 
 import pl.inventory.system.AbstractDatabaseTest
+import pl.inventory.system.model.Room
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.IdProvider
 
+import java.nio.file.Files
+import java.nio.file.Path
 import java.time.LocalDate
 
 class FileBasedDatabaseTest extends AbstractDatabaseTest {
@@ -63,6 +68,45 @@ class FileBasedDatabaseTest extends AbstractDatabaseTest {
         deletingResult == Optional.empty()
     }
 
+    def "should move the embedded items of the baseline rooms file once, also when the move is repeated after a crash"() {
+        given: "rooms stored by the baseline version, with embedded items with and without ids"
+        def directory = Files.createTempDirectory("migration")
+        def roomsPath = directory.resolve("ROOMS.txt")
+        def withIds = Room.builder().id(2L).roomNumber("102").itemsList([
+                source.table[0].toBuilder().id(7L).build(), source.table[1].toBuilder().id(8L).build()]).build()
+        def withoutIds = Room.builder().id(3L).roomNumber("201").itemsList([
+                source.chair[1].toBuilder().build(), source.chair[1].toBuilder().build(), source.wardrobe[0].toBuilder().build()]).build()
+        def baseline = [serializer.objectToJson(withIds), serializer.objectToJson(withoutIds)]
+        Files.write(roomsPath, baseline)
+        Files.writeString(directory.resolve("ID_ITEM.txt"), "9")
+        def open = {
+            new FileBasedDatabase(roomsPath, new IdProvider(FileManager.createFile("ID_ITEM.txt", directory.toString()), fileService),
+                    new IdProvider(FileManager.createFile("ID_ROOM.txt", directory.toString()), fileService), fileService, serializer, Room.class)
+        }
+
+        when:
+        def migrated = open().getAllItems()
+
+        then:
+        migrated*.id == [7L, 8L, 9L, 10L, 11L]
+        Files.readAllLines(roomsPath).every { !it.contains("inventoryNumber") }
+
+        when: "the rooms file is left as before the move, as after a crash between the items and the rooms"
+        Files.write(roomsPath, baseline)
+        def database = open()
+
+        then:
+        database.getAllItems()*.id == [7L, 8L, 9L, 10L, 11L]
+        database.getAllItems() == migrated
+        database.getByProperty(3L).get().itemsList == withoutIds.itemsList
+        def backups = Files.list(directory.resolve(FileBasedDatabase.BACKUP_DIRECTORY)).toList()
+        backups.size() == 2
+        backups.every { Files.readAllLines(it.resolve("ROOMS.txt")) == baseline }
+
+        cleanup:
+        directory.toFile().deleteDir()
+    }
+
     def "deletion of files after tests"() {
         cleanup:
         cleanDatabase()
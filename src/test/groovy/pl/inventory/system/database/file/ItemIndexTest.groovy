@@ -0,0 +1,108 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.model.Item
+import spock.lang.Specification
+
+class ItemIndexTest extends Specification {
+
+    def index = new ItemIndex()
+
+    static Item item(Long id, String number) {
+        return Item.builder().id(id).inventoryNumber(number).build()
+    }
+
+    def "should locate items by id and by case-insensitive inventory number"() {
+        given:
+        index.index(1L, item(10L, "PŚT-11/111"))
+        index.index(1L, item(11L, "pśt-11/222"))
+
+        expect:
+        index.find(11L) == Optional.of(new ItemIndex.ItemLocation(1L, 11L))
+        index.find("PŚT-11/222") == Optional.of(new ItemIndex.ItemLocation(1L, 11L))
+        index.find("pśt-11/111") == Optional.of(new ItemIndex.ItemLocation(1L, 10L))
+        index.find(12L) == Optional.empty()
+        index.find("PŚT-99/999") == Optional.empty()
+    }
+
+    def "should resolve a number stored several times to the room with the lowest id and then to the lowest item id"() {
+        given:
+        index.index(2L, item(20L, "PŚT-11/111"))
+        index.index(1L, item(12L, "PŚT-11/111"))
+        index.index(1L, item(11L, "PŚT-11/111"))
+        index.index(1L, item(10L, "PŚT-22/222"))
+
+        expect:
+        index.find("PŚT-11/111") == Optional.of(new ItemIndex.ItemLocation(1L, 11L))
+
+        when:
+        [10L, 11L, 12L].each { index.remove(it) }
+
+        then:
+        index.find("PŚT-11/111") == Optional.of(new ItemIndex.ItemLocation(2L, 20L))
+        index.find("PŚT-22/222") == Optional.empty()
+        index.find(10L) == Optional.empty()
+        index.itemIdsOf(1L) == []
+        index.roomIds() == [2L]
+    }
+
+    def "should return ids of the items of a room in the id order"() {
+        given:
+        index.index(2L, item(12L, "PŚT-11/111"))
+        index.index(2L, item(10L, "PŚT-11/222"))
+        index.index(1L, item(11L, "PŚT-11/333"))
+
+        expect:
+        index.itemIdsOf(2L) == [10L, 12L]
+        index.itemIdsOf(3L) == []
+    }
+
+    def "should replace old entries when the item is indexed again"() {
+        given:
+        index.index(1L, item(10L, "PŚT-11/111"))
+
+        when:
+        index.index(2L, item(10L, "PŚT-11/222"))
+
+        then:
+        index.find("PŚT-11/111") == Optional.empty()
+        index.find(10L) == Optional.of(new ItemIndex.ItemLocation(2L, 10L))
+        index.itemIdsOf(1L) == []
+    }
+
+    def "should find candidates of an equal item by the content hash"() {
+        given:
+        index.index(1L, item(10L, "PŚT-11/111"))
+        index.index(1L, item(11L, "PŚT-11/222"))
+        index.index(2L, item(12L, "PŚT-11/111"))
+
+        expect:
+        index.candidatesEqualTo(1L, item(null, "PŚT-11/111")) == [10L]
+        index.candidatesEqualTo(2L, item(null, "PŚT-11/111")) == [12L]
+        index.candidatesEqualTo(1L, item(null, "PŚT-11/333")) == []
+    }
+
+    def "should search items by the number prefix and by all words of the description, folding the Polish diacritics"() {
+        given:
+        index.index(1L, Item.builder().id(10L).inventoryNumber("PŚT-11/111").description("Krzesło obrotowe").build())
+        index.index(1L, Item.builder().id(11L).inventoryNumber("PŚT-11/222").description("Stół szklany").build())
+        index.index(2L, Item.builder().id(12L).inventoryNumber("PST-12/111").description("krzeslo ogrodowe").build())
+
+        expect:
+        index.search("pst-11/", 10) == [10L, 11L]
+        index.search("PŚT", 2) == [10L, 11L]
+        index.search("KRZESŁO", 10) == [10L, 12L]
+        index.search("krzeslo ogrodowe", 10) == [12L]
+        index.search("stol", 10) == [11L]
+        index.search("szafa", 10) == []
+
+        when:
+        index.index(1L, Item.builder().id(11L).inventoryNumber("PŚT-11/222").description("Regał").build())
+        index.remove(10L)
+
+        then:
+        index.search("pst-11/", 10) == [11L]
+        index.search("stół", 10) == []
+        index.search("regal", 10) == [11L]
+        index.search("krzesło", 10) == [12L]
+    }
+}
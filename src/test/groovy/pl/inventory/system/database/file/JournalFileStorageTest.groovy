@@ -0,0 +1,235 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Room
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class JournalFileStorageTest extends Specification {
+    static final String DIRECTORY = "JournalTestFiles"
+
+    FileService fileService = new FileService()
+    JsonService serializer = new JsonService()
+    ObjectsProvider source = new ObjectsProvider()
+    Path snapshotPath = FileManager.createFile("rooms.txt", DIRECTORY)
+    Path journalPath = FileManager.createFile("journal.txt", DIRECTORY)
+    Path itemSnapshotPath = FileManager.createFile("items.txt", DIRECTORY)
+    Path itemJournalPath = FileManager.createFile("itemJournal.txt", DIRECTORY)
+    IdProvider roomIdProvider = new IdProvider(FileManager.createFile("idRoom.txt", DIRECTORY), fileService)
+    IdProvider itemIdProvider = new IdProvider(FileManager.createFile("idItem.txt", DIRECTORY), fileService)
+
+    FileBasedDatabase openDatabase() {
+        def storage = new JournalFileStorage(snapshotPath, journalPath, fileService, serializer)
+        def itemStorage = new JournalFileStorage(itemSnapshotPath, itemJournalPath, fileService, serializer)
+        return new FileBasedDatabase(storage, itemStorage, itemIdProvider, roomIdProvider, serializer)
+    }
+
+    List<String> operations(Path journal) {
+        return fileService.readAllFile(journal)*.split("\t")*.getAt(0)
+    }
+
+    def cleanup() {
+        Files.list(Path.of(DIRECTORY)).forEach { Files.delete(it) }
+        Files.delete(Path.of(DIRECTORY))
+    }
+
+    def "should append mutations to the journal without rewriting the snapshot"() {
+        given:
+        def database = openDatabase()
+
+        when:
+        def firstId = database.save(source.room1)
+        def secondId = database.save(source.room2)
+        database.updateItemByProperty("PŚT-11/111", source.table[2])
+        database.deleteByProperty(secondId)
+
+        then:
+        fileService.readAllFile(snapshotPath).isEmpty()
+        operations(journalPath) == ["SAVE", "SAVE", "DELETE"]
+        operations(itemJournalPath) == ["SAVE"] * 6 + ["SAVE"] * 8 + ["UPDATE"] + ["DELETE"] * 8
+
+        when:
+        def reopened = openDatabase()
+
+        then:
+        reopened.getAll().size() == 1
+        reopened.getByProperty(firstId).get() == database.getByProperty(firstId).get()
+        reopened.getItemByProperty("PŚT-11/333").isPresent()
+        reopened.getItemByProperty("PŚT-11/111").isEmpty()
+    }
+
+    def "should journal a bulk import as consecutive records"() {
+        given:
+        def database = openDatabase()
+
+        when:
+        def roomIds = database.saveAll([source.room1, null, source.room2])
+        def savedItems = database.saveAllInObjectsWithProperty([
+                Map.entry(roomIds[0], source.table[2]),
+                Map.entry(source.room2.roomNumber, source.table[3]),
+                Map.entry(99L, source.table[1])])
+
+        then:
+        roomIds[1] == 0L
+        roomIds[2] == roomIds[0] + 1
+        savedItems*.isPresent() == [true, true, false]
+        database.getAllFromObjectWithProperty(roomIds[0]).size() == source.room1.itemsList.size() + 1
+        database.getAllFromObjectWithProperty(roomIds[2]).size() == source.room2.itemsList.size()
+        operations(journalPath) == ["SAVE", "SAVE"]
+        operations(itemJournalPath) == ["SAVE"] * 14 + ["UPDATE", "SAVE"]
+
+        when:
+        def reopened = openDatabase()
+
+        then:
+        reopened.getAll() == database.getAll()
+        reopened.getItemByProperty(savedItems[0].get().id).get() == source.table[2]
+    }
+
+    def "should replay the journal over the snapshot and skip a torn record"() {
+        given:
+        def room = source.room3
+        room.setId(5L)
+        room.itemsList.eachWithIndex { item, i -> item.setId(100L + i) }
+        fileService.appendLineToFile(snapshotPath, serializer.objectToJson(room))
+        def updated = Room.builder().id(5L).roomNumber("301").itemsList(List.of(source.chair[0])).build()
+        fileService.appendLineToFile(journalPath, JournalRecord.update(5L, serializer.objectToJson(updated)).toLine())
+        fileService.appendLineToFile(journalPath, JournalRecord.save(6L, serializer.objectToJson(source.room4)).toLine()[0..-10])
+
+        when:
+        def database = openDatabase()
+
+        then:
+        database.getAll().size() == 1
+        database.getByProperty("301").get().itemsList == [source.chair[0]]
+        operations(journalPath).last() == "UPDATE"
+        openDatabase().getByProperty("301").get().itemsList == [source.chair[0]]
+    }
+
+    def "should cut off a torn tail of the journal, so the next record is kept after a restart"() {
+        given:
+        def firstId = openDatabase().save(source.room1)
+        def tornRecord = JournalRecord.save(firstId + 1, serializer.objectToJson(source.room2)).toLine()
+        Files.write(journalPath, tornRecord[0..-10].getBytes("UTF-8"), StandardOpenOption.APPEND)
+
+        when:
+        def database = openDatabase()
+        def secondId = database.save(source.room3)
+
+        then:
+        operations(journalPath) == ["SAVE", "SAVE"]
+
+        when:
+        def reopened = openDatabase()
+
+        then:
+        reopened.getAll()*.id == [firstId, secondId]
+        reopened.getByProperty(secondId).get() == database.getByProperty(secondId).get()
+    }
+
+    def "should remove the items left by an interrupted deletion of their room"() {
+        given:
+        def roomId = openDatabase().save(source.room1)
+        fileService.appendLineToFile(journalPath, JournalRecord.delete(roomId).toLine())
+
+        when:
+        def database = openDatabase()
+
+        then:
+        database.getAll().isEmpty()
+        database.getAllItems().isEmpty()
+        operations(itemJournalPath) == ["SAVE"] * 6 + ["DELETE"] * 6
+    }
+
+    def "should reject following writes after a failed write to the journal"() {
+        given:
+        def storage = new JournalFileStorage(snapshotPath, journalPath, fileService, serializer)
+        Files.delete(journalPath)
+
+        when:
+        FileService.await(storage.append(1L, "{\"id\":1}"))
+
+        then:
+        thrown(UncheckedIOException)
+
+        when:
+        storage.append(2L, "{\"id\":2}")
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "should not parse records with wrong format or checksum"() {
+        expect:
+        JournalRecord.parse(line).isEmpty()
+
+        where:
+        line << ["SAVE\t1", "SAVE\t1\t0\t{}", "MOVE\t1\t${JournalRecord.delete(1L).toLine().split('\t')[2]}\t", "DELETE\tx\t0\t"]
+    }
+
+    def "should read a record written to the journal line"() {
+        given:
+        def journalRecord = JournalRecord.save(3L, "{\"id\":3}")
+
+        expect:
+        JournalRecord.parse(journalRecord.toLine()) == Optional.of(journalRecord)
+        JournalRecord.parse(JournalRecord.delete(3L).toLine()) == Optional.of(JournalRecord.delete(3L))
+    }
+
+    def "should fold the journal into the snapshot during compaction"() {
+        given:
+        def database = openDatabase()
+        def firstId = database.save(source.room1)
+        def secondId = database.save(source.room2)
+        database.updateItemByProperty("PŚT-22/333", source.wardrobe[0])
+        database.deleteByProperty(firstId)
+        def storage = new JournalFileStorage(snapshotPath, journalPath, fileService, serializer)
+        storage.load()
+
+        expect:
+        storage.recordsSinceCompaction() == 3
+
+        when:
+        storage.compact()
+
+        then:
+        storage.recordsSinceCompaction() == 0
+        fileService.readAllFile(journalPath).isEmpty()
+        fileService.readAllFile(snapshotPath).size() == 1
+        serializer.readLongField(fileService.readAllFile(snapshotPath)[0], "id") == secondId
+        openDatabase().getAll() == database.getAll()
+    }
+
+    def "should compact the journal only after reaching the threshold"() {
+        given:
+        def database = openDatabase()
+        def storage = new JournalFileStorage(snapshotPath, journalPath, fileService, serializer)
+        def compactor = new JournalCompactor(storage, 2, 60_000)
+
+        when:
+        database.save(source.room1)
+        storage.load()
+
+        then:
+        !compactor.compactIfNeeded()
+
+        when:
+        database.save(source.room2)
+        storage.load()
+
+        then:
+        compactor.compactIfNeeded()
+        fileService.readAllFile(snapshotPath).size() == 2
+        fileService.readAllFile(journalPath).isEmpty()
+
+        cleanup:
+        compactor.close()
+    }
+}
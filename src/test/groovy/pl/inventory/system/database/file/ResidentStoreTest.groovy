@@ -0,0 +1,77 @@
+package pl.inventory.system.database.file
+
+import spock.lang.Specification
+
+class ResidentStoreTest extends Specification {
+
+    def store = new ResidentStore()
+
+    def "should find stored documents by id and by case-insensitive number"() {
+        given:
+        store.put(1L, "101a", "first")
+        store.put(2L, "102", "second")
+
+        expect:
+        store.get(1L) == Optional.of("first")
+        store.findId("101A") == Optional.of(1L)
+        store.findId("102") == Optional.of(2L)
+        store.findId("103") == Optional.empty()
+        store.findId(null) == Optional.empty()
+        store.size() == 2
+    }
+
+    def "should replace document in place and keep the file order"() {
+        given:
+        store.put(1L, "101", "first")
+        store.put(2L, "102", "second")
+        store.put(3L, "103", "third")
+
+        when:
+        store.put(2L, "202", "changed")
+
+        then:
+        store.documents().toList() == ["first", "changed", "third"]
+        store.findId("102") == Optional.empty()
+        store.findId("202") == Optional.of(2L)
+    }
+
+    def "should return documents with replaced or skipped record"() {
+        given:
+        store.put(1L, "101", "first")
+        store.put(2L, "102", "second")
+
+        expect:
+        store.documentsWith([(2L): "changed"]) == ["first", "changed"]
+        store.documentsWithout(1L) == ["second"]
+    }
+
+    def "should return documents after the cursor in the id order"() {
+        given:
+        store.put(3L, "103", "third")
+        store.put(1L, "101", "first")
+        store.put(2L, "102", "second")
+
+        expect:
+        store.documentsAfter(null).toList() == ["first", "second", "third"]
+        store.documentsAfter(1L).toList() == ["second", "third"]
+        store.documentsAfter(3L).isEmpty()
+    }
+
+    def "should point the number to the next record with the same number after removal"() {
+        given:
+        store.put(1L, "101", "first")
+        store.put(2L, "101", "duplicate")
+
+        expect:
+        store.findId("101") == Optional.of(1L)
+
+        when:
+        def removed = store.remove(1L)
+
+        then:
+        removed == Optional.of("first")
+        store.findId("101") == Optional.of(2L)
+        !store.contains(1L)
+        store.remove(1L) == Optional.empty()
+    }
+}
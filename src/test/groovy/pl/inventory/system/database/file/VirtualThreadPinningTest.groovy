@@ -0,0 +1,72 @@
+package pl.inventory.system.database.file
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Executors
+
+class VirtualThreadPinningTest extends Specification {
+    static final String DIRECTORY = "VirtualThreadTestFiles"
+
+    FileService fileService = new FileService("commit", 0L)
+    JsonService serializer = new JsonService()
+
+    FileBasedDatabase database = new FileBasedDatabase(
+            new JournalFileStorage(FileManager.createFile("rooms.txt", DIRECTORY),
+                    FileManager.createFile("journal.txt", DIRECTORY), fileService, serializer),
+            new JournalFileStorage(FileManager.createFile("items.txt", DIRECTORY),
+                    FileManager.createFile("itemJournal.txt", DIRECTORY), fileService, serializer),
+            new IdProvider(FileManager.createFile("idItem.txt", DIRECTORY), fileService, 10L),
+            new IdProvider(FileManager.createFile("idRoom.txt", DIRECTORY), fileService, 10L),
+            serializer)
+
+    def cleanup() {
+        fileService.close()
+        Path.of(DIRECTORY).toFile().deleteDir()
+    }
+
+    def "should not pin the virtual threads waiting in the database"() {
+        given:
+        def roomId = database.save(new ObjectsProvider().room1)
+        def recording = new Recording()
+        recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace()
+        def recordingPath = Files.createTempFile("pinning", ".jfr")
+
+        when:
+        recording.start()
+        def executor = Executors.newVirtualThreadPerTaskExecutor()
+        def requests = (1..500).collect { number ->
+            executor.submit {
+                database.saveInObjectWithProperty(roomId, new ObjectsProvider().table[0].toBuilder()
+                        .id(null)
+                        .inventoryNumber("VT/" + number)
+                        .build())
+                database.getByProperty(roomId)
+            }
+        }
+        requests*.get()
+        executor.close()
+        recording.stop()
+        recording.dump(recordingPath)
+        def pinnedInDatabase = RecordingFile.readAllEvents(recordingPath).findAll { event ->
+            event.stackTrace?.frames?.any { it.method.type.name.startsWith("pl.inventory.system") }
+        }
+
+        then:
+        pinnedInDatabase.isEmpty()
+        database.getAllFromObjectWithProperty(roomId).size() == new ObjectsProvider().room1.getItemsList().size() + 500
+
+        cleanup:
+        recording.close()
+        Files.deleteIfExists(recordingPath)
+    }
+}
@@ -0,0 +1,136 @@
+package pl.inventory.system.database.file
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.utils.FileManager
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+class WriteBehindFileStorageTest extends Specification {
+    static final String DIRECTORY = "WriteBehindTestFiles"
+
+    FileService fileService = new FileService()
+    JsonService serializer = new JsonService()
+    Path roomPath = FileManager.createFile("rooms.txt", DIRECTORY)
+    Path journalPath = FileManager.createFile("journal.txt", DIRECTORY)
+    Path itemPath = FileManager.createFile("items.txt", DIRECTORY)
+    Path itemJournalPath = FileManager.createFile("itemJournal.txt", DIRECTORY)
+    IdProvider roomIdProvider = new IdProvider(FileManager.createFile("idRoom.txt", DIRECTORY), fileService)
+    IdProvider itemIdProvider = new IdProvider(FileManager.createFile("idItem.txt", DIRECTORY), fileService)
+    List<WriteBehindFileStorage> storages = []
+
+    FileStorage storage(String mode, Path dataPath, Path journal) {
+        return mode == "journal"
+                ? new JournalFileStorage(dataPath, journal, fileService, serializer)
+                : new RewriteFileStorage(dataPath, fileService)
+    }
+
+    FileBasedDatabase openDatabase(String mode, int capacity) {
+        storages = [new WriteBehindFileStorage(storage(mode, roomPath, journalPath), capacity),
+                    new WriteBehindFileStorage(storage(mode, itemPath, itemJournalPath), capacity)]
+        return new FileBasedDatabase(storages[0], storages[1], itemIdProvider, roomIdProvider, serializer)
+    }
+
+    FileBasedDatabase reopenDatabase(String mode) {
+        return new FileBasedDatabase(storage(mode, roomPath, journalPath), storage(mode, itemPath, itemJournalPath),
+                itemIdProvider, roomIdProvider, serializer)
+    }
+
+    def cleanup() {
+        Path.of(DIRECTORY).toFile().deleteDir()
+    }
+
+    def "should coalesce the changes of an object into a single write"() {
+        given:
+        def database = openDatabase("journal", 1000)
+        def flusher = new WriteBehindFlusher(database, storages, 3_600_000L)
+        def roomId = database.save(new ObjectsProvider().room1)
+        def removedId = database.save(new ObjectsProvider().room2)
+        def itemId = database.getByProperty(roomId).get().getItemsList()[0].getId()
+
+        when:
+        (1..20).each { database.updateItemByProperty(itemId, new ObjectsProvider().table[2]) }
+        database.deleteByProperty(removedId)
+
+        then:
+        fileService.readAllFile(journalPath).isEmpty()
+        storages*.dirtyObjects() == [1, 6]
+
+        when:
+        flusher.flush()
+
+        then:
+        fileService.readAllFile(journalPath).size() == 1
+        fileService.readAllFile(itemJournalPath).size() == 6
+        storages*.dirtyObjects() == [0, 0]
+        reopenDatabase("journal").getAll() == database.getAll()
+        reopenDatabase("journal").getByProperty(roomId).isPresent()
+    }
+
+    def "should persist the state of the database at the time of the flush"() {
+        given:
+        def database = openDatabase(mode, 1000)
+        def flusher = new WriteBehindFlusher(database, storages, 3_600_000L)
+        def firstId = database.save(new ObjectsProvider().room1)
+        def secondId = database.save(new ObjectsProvider().room2)
+        flusher.flush()
+
+        when:
+        database.updateItemByProperty("PŚT-11/111", new ObjectsProvider().table[2])
+        database.deleteByProperty(secondId)
+        database.save(new ObjectsProvider().room3)
+        flusher.flush()
+
+        then:
+        reopenDatabase(mode).getAll() == database.getAll()
+        reopenDatabase(mode).getByProperty(firstId).isPresent()
+
+        where:
+        mode << ["rewrite", "journal"]
+    }
+
+    def "should make the writers wait for a flush when the capacity is reached"() {
+        given:
+        def database = openDatabase("journal", 3)
+        def flusher = new WriteBehindFlusher(database, storages, 3_600_000L)
+        flusher.start()
+
+        when:
+        database.save(new ObjectsProvider().room1)
+
+        then:
+        storages*.dirtyObjects() == [0, 0]
+        fileService.readAllFile(journalPath).size() == 1
+        fileService.readAllFile(itemJournalPath).size() == 6
+
+        cleanup:
+        flusher.stop()
+    }
+
+    def "should flush all dirty objects when stopped and reject the following changes"() {
+        given:
+        def database = openDatabase(mode, 1000)
+        def flusher = new WriteBehindFlusher(database, storages, 3_600_000L)
+        flusher.start()
+        database.saveAll([new ObjectsProvider().room1, new ObjectsProvider().room2])
+
+        when:
+        flusher.stop()
+
+        then:
+        !flusher.isRunning()
+        reopenDatabase(mode).getAll() == database.getAll()
+
+        when:
+        database.save(new ObjectsProvider().room3)
+
+        then:
+        thrown(IllegalStateException)
+
+        where:
+        mode << ["rewrite", "journal"]
+    }
+}
@@ -0,0 +1,166 @@
+package pl.inventory.system.database.jdbc
+
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.SQLException
+
+class ConnectionPoolTest extends Specification {
+
+    def connection = Mock(Connection)
+    def dataSource = Mock(DataSource)
+    def pool = new ConnectionPool(dataSource, 1, 50)
+
+    def "should reuse an idle connection"() {
+        when:
+        def results = [pool.withConnection { it.is(connection) }, pool.withConnection { it.is(connection) }]
+
+        then:
+        results == [true, true]
+        1 * dataSource.getConnection() >> connection
+        0 * connection.close()
+    }
+
+    def "should wrap the SQL exception and close the connection which is no longer valid"() {
+        when:
+        pool.withConnection { throw new SQLException("broken") }
+
+        then:
+        def exception = thrown(RuntimeException)
+        exception.cause instanceof SQLException
+        1 * dataSource.getConnection() >> connection
+        1 * connection.isValid(_) >> false
+        1 * connection.close()
+
+        when:
+        pool.withConnection { it }
+
+        then:
+        1 * dataSource.getConnection() >> Mock(Connection)
+    }
+
+    def "should keep the connection which failed but is still valid"() {
+        given:
+        dataSource.getConnection() >> connection
+
+        when:
+        pool.withConnection { throw new SQLException("constraint violated") }
+
+        then:
+        thrown(RuntimeException)
+        1 * connection.isValid(_) >> true
+        0 * connection.close()
+    }
+
+    def "should close the connection whose validation failed"() {
+        given:
+        dataSource.getConnection() >> connection
+        connection.isValid(_) >> { throw new SQLException("closed") }
+
+        when:
+        pool.withConnection { throw new SQLException("broken") }
+
+        then:
+        thrown(RuntimeException)
+        1 * connection.close() >> { throw new SQLException("already closed") }
+    }
+
+    def "should commit the transaction and restore the auto-commit mode"() {
+        given:
+        dataSource.getConnection() >> connection
+
+        when:
+        def result = pool.inTransaction { "done" }
+
+        then:
+        result == "done"
+        1 * connection.setAutoCommit(false)
+
+        then:
+        1 * connection.commit()
+
+        then:
+        1 * connection.setAutoCommit(true)
+        0 * connection.rollback()
+    }
+
+    def "should roll back the failed transaction"() {
+        given:
+        dataSource.getConnection() >> connection
+
+        when:
+        pool.inTransaction { throw exception }
+
+        then:
+        thrown(RuntimeException)
+        1 * connection.rollback()
+        0 * connection.commit()
+        1 * connection.setAutoCommit(true)
+
+        where:
+        exception << [new SQLException("failed"), new IllegalStateException("failed")]
+    }
+
+    def "should fail when no connection becomes available in time"() {
+        given:
+        dataSource.getConnection() >> connection
+
+        when:
+        pool.withConnection { pool.withConnection { it } }
+
+        then:
+        def exception = thrown(IllegalStateException)
+        exception.message == "No database connection available within 50 ms"
+    }
+
+    def "should fail when interrupted while waiting for a connection"() {
+        given:
+        dataSource.getConnection() >> connection
+
+        when:
+        pool.withConnection {
+            Thread.currentThread().interrupt()
+            pool.withConnection { it }
+        }
+
+        then:
+        thrown(IllegalStateException)
+        Thread.interrupted()
+    }
+
+    def "should release the permit when opening of the connection failed"() {
+        when:
+        pool.withConnection { it }
+
+        then:
+        thrown(RuntimeException)
+        1 * dataSource.getConnection() >> { throw new SQLException("refused") }
+
+        when:
+        pool.withConnection { it }
+
+        then:
+        1 * dataSource.getConnection() >> connection
+    }
+
+    def "should close idle connections when the pool is closed"() {
+        given:
+        dataSource.getConnection() >> connection
+        pool.withConnection { it }
+
+        when:
+        pool.close()
+
+        then:
+        1 * connection.close()
+    }
+
+    def "should reject a pool without connections"() {
+        when:
+        new ConnectionPool(dataSource, 0, 50)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,64 @@
+package pl.inventory.system.database.jdbc
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import java.sql.Statement
+
+/**
+ * Scripted stand-in of a JDBC database. Executed statements are recorded with their parameters
+ * and each query returns the rows registered for the first matching fragment of its SQL.
+ */
+class FakeJdbc {
+    List<Map> executed = []
+    List<String> events = []
+    Map<String, List<List<Map>>> results = [:]
+
+    void returns(String sqlFragment, List<Map> rows) {
+        results.computeIfAbsent(sqlFragment) { [] } << rows
+    }
+
+    List<Map> executedLike(String sqlFragment) {
+        executed.findAll { it.sql.contains(sqlFragment) }
+    }
+
+    DataSource dataSource() {
+        [getConnection: { -> connection() }] as DataSource
+    }
+
+    Connection connection() {
+        [prepareStatement: { String sql, Object[] options -> preparedStatement(sql) },
+         createStatement : { -> [execute: { String sql -> executed << [sql: sql, params: []]; false }, close: {}] as Statement },
+         setAutoCommit   : { boolean autoCommit -> events << "autoCommit " + autoCommit },
+         commit          : { -> events << "commit" },
+         rollback        : { -> events << "rollback" },
+         isValid         : { true }, close: {}] as Connection
+    }
+
+    private PreparedStatement preparedStatement(String sql) {
+        Map<Integer, Object> params = [:]
+        int fetchSize = 0
+        def values = { -> (1..<params.size() + 1).collect { params[it] } }
+        [setObject    : { int index, Object value -> params[index] = value },
+         setFetchSize : { int rows -> fetchSize = rows },
+         addBatch     : { -> executed << [sql: sql, params: values(), batch: true]; params.clear() },
+         executeBatch : { -> new int[0] },
+         executeUpdate: { -> executed << [sql: sql, params: values()]; 1 },
+         executeQuery : { -> executed << [sql: sql, params: values(), fetchSize: fetchSize]; resultSet(rowsOf(sql)) },
+         close        : { -> events << "close " + sql }] as PreparedStatement
+    }
+
+    private List<Map> rowsOf(String sql) {
+        def queue = results.find { fragment, queue -> sql.contains(fragment) && !queue.isEmpty() }?.value
+        return queue ? queue.remove(0) : []
+    }
+
+    private static ResultSet resultSet(List<Map> rows) {
+        int position = -1
+        [next         : { -> ++position < rows.size() },
+         getObject    : { String column, Class type -> rows[position][column] },
+         getBigDecimal: { String column -> rows[position][column] },
+         close        : {}] as ResultSet
+    }
+}
@@ -0,0 +1,54 @@
+package pl.inventory.system.database.jdbc
+
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.ItemFilter
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.util.function.Predicate
+
+class ItemFilterSqlTest extends Specification {
+
+    def "should translate specified criteria of the item filter to the SQL condition"() {
+        given:
+        def filter = ItemFilter.builder()
+                .incomingFrom(LocalDate.of(2023, 1, 1))
+                .outgoingTo(LocalDate.of(2024, 1, 1))
+                .documentNumber("stk/2023/04")
+                .minPrice(new BigDecimal("100"))
+                .build()
+
+        when:
+        def sql = ItemFilterSql.of(filter)
+
+        then:
+        sql.condition() == "incoming_date >= ? AND outgoing_date <= ? AND UPPER(document_number) = UPPER(?) AND item_price >= ?"
+        sql.params() == [LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1), "stk/2023/04", new BigDecimal("100")]
+        sql.pushedDown()
+        sql.limitOf(10) == 11L
+    }
+
+    def "should not restrict the query without a filter or with an empty one"() {
+        expect:
+        ItemFilterSql.of(filter).condition() == "TRUE"
+        ItemFilterSql.of(filter).params().isEmpty()
+        ItemFilterSql.of(filter).residual().test(new Item())
+
+        where:
+        filter << [null, new ItemFilter()]
+    }
+
+    def "should leave a predicate which is not an item filter to be checked on the read items"() {
+        given:
+        Predicate<Item> predicate = { Item item -> item.itemQuantity > 1 }
+
+        when:
+        def sql = ItemFilterSql.of(predicate)
+
+        then:
+        sql.condition() == "TRUE"
+        !sql.pushedDown()
+        sql.limitOf(10) == null
+        sql.residual().is(predicate)
+    }
+}
@@ -0,0 +1,29 @@
+package pl.inventory.system.database.jdbc
+
+import spock.lang.Specification
+
+class JdbcDatabaseConfigTest extends Specification {
+
+    def "should create the connection pool without connecting to the database"() {
+        given:
+        def config = new JdbcDatabaseConfig("jdbc:postgresql://localhost:1/inventory", "inventory", "secret", 2, 10)
+
+        when:
+        def pool = config.connectionPool()
+        pool.close()
+
+        then:
+        pool != null
+    }
+
+    def "should fail to initialise the database which is not reachable"() {
+        given:
+        def config = new JdbcDatabaseConfig("jdbc:postgresql://localhost:1/inventory", "inventory", "secret", 1, 10)
+
+        when:
+        config.roomDatabase()
+
+        then:
+        thrown(RuntimeException)
+    }
+}
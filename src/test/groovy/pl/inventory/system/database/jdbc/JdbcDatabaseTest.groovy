@@ -0,0 +1,481 @@
+package pl.inventory.system.database.jdbc
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.ItemFilter
+import pl.inventory.system.model.Room
+import spock.lang.Specification
+
+import java.time.LocalDate
+import java.util.function.Predicate
+
+class JdbcDatabaseTest extends Specification {
+
+    def objects = new ObjectsProvider()
+    def jdbc = new FakeJdbc()
+    def database = new JdbcDatabase(new ConnectionPool(jdbc.dataSource(), 2, 50))
+
+    static Map itemRow(Long id, Item item) {
+        return [id                    : id,
+                inventory_number      : item.inventoryNumber,
+                description           : item.description,
+                incoming_date         : item.incomingDate,
+                outgoing_date         : item.outgoingDate,
+                modification_date     : item.modificationDate,
+                item_quantity         : item.itemQuantity,
+                item_price            : item.itemPrice,
+                document_number       : item.documentNumber,
+                user_id               : item.user?.id,
+                user_name             : item.user?.name,
+                user_surname          : item.user?.surname,
+                user_is_inventory_user: item.user?.isInventoryUser()]
+    }
+
+    static Map roomRow(Long roomId, String roomNumber, Long itemId = null, Item item = new Item()) {
+        return [room_key: roomId, room_number: roomNumber] + itemRow(itemId, item)
+    }
+
+    def "should create the schema when initialised"() {
+        expect:
+        jdbc.executed*.sql == JdbcDatabase.SCHEMA
+    }
+
+    def "should insert the room and its items with ids reserved for the whole batch"() {
+        given:
+        def room = Room.builder().roomNumber("101").itemsList([objects.table[0], objects.table[1]]).build()
+        jdbc.returns("nextval('room_id_seq')", [[id: 5L]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 10L], [id: 11L]])
+
+        when:
+        def id = database.save(room)
+
+        then:
+        id == 5L
+        room.itemsList*.id == [10L, 11L]
+        jdbc.executedLike("nextval('item_id_seq')")*.params == [[2]]
+        jdbc.executedLike("INSERT INTO rooms")*.params == [[5L, "101"]]
+        def itemRows = jdbc.executedLike("INSERT INTO items")
+        itemRows.every { it.batch }
+        itemRows*.params*.take(4) == [[10L, 5L, 0, "PŚT-11/111"], [11L, 5L, 1, "PŚT-11/222"]]
+        itemRows[1].params.takeRight(4) == [2L, "Inventory", "User 1", true]
+    }
+
+    def "should reject the room without items"() {
+        expect:
+        database.save(room) == 0L
+        database.saveAll([room]) == [0L]
+        jdbc.executedLike("INSERT").isEmpty()
+
+        where:
+        room << [null, new Room(), Room.builder().roomNumber("101").itemsList([]).build()]
+    }
+
+    def "should save valid rooms of the batch in a single transaction"() {
+        given:
+        def rooms = [Room.builder().roomNumber("101").itemsList([objects.table[0]]).build(),
+                     new Room(),
+                     Room.builder().roomNumber("102").itemsList([objects.table[1], objects.table[2]]).build()]
+        jdbc.returns("nextval('room_id_seq')", [[id: 1L], [id: 2L]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 1L], [id: 2L], [id: 3L]])
+
+        when:
+        def ids = database.saveAll(rooms)
+
+        then:
+        ids == [1L, 0L, 2L]
+        jdbc.executedLike("INSERT INTO rooms")*.params == [[1L, "101"], [2L, "102"]]
+        jdbc.executedLike("INSERT INTO items")*.params*.take(3) == [[1L, 1L, 0], [2L, 2L, 0], [3L, 2L, 1]]
+    }
+
+    def "should read rooms with their items in a single query"() {
+        given:
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 1L, objects.table[0]),
+                                         roomRow(1L, "101", 2L, objects.table[3]),
+                                         roomRow(2L, "102")])
+
+        when:
+        def rooms = database.getAll()
+
+        then:
+        rooms*.id == [1L, 2L]
+        rooms[0].itemsList == [objects.table[0], objects.table[3]]
+        rooms[0].itemsList*.id == [1L, 2L]
+        rooms[1].roomNumber == "102"
+        rooms[1].itemsList.isEmpty()
+        jdbc.executedLike("LEFT JOIN items")[0].sql.contains("FROM rooms r")
+    }
+
+    def "should find the room by its id or number"() {
+        given:
+        jdbc.returns("LEFT JOIN items", [roomRow(3L, "103", 7L, objects.table[1])])
+
+        when:
+        def room = database.getByProperty(property)
+
+        then:
+        room.get().itemsList == [objects.table[1]]
+        def query = jdbc.executedLike("LEFT JOIN items")[0]
+        query.sql.contains(condition)
+        query.params == [property]
+
+        where:
+        property || condition
+        3L       || "WHERE id = ?"
+        "103"    || "WHERE UPPER(room_number) = UPPER(?) ORDER BY id LIMIT 1"
+    }
+
+    def "should not find the room by a wrong property"() {
+        expect:
+        database.getByProperty(property).isEmpty()
+        database.deleteByProperty(property).isEmpty()
+        database.getAllFromObjectWithProperty(property).isEmpty()
+        database.getItemsPageFromObjectWithProperty(property, null, 10, null) == new pl.inventory.system.model.Page([], null)
+
+        where:
+        property << [null, 1, "101"]
+    }
+
+    def "should update the room keeping its number and the ids of its items"() {
+        given:
+        def update = Room.builder().roomNumber("999").itemsList([objects.table[2], objects.table[3]]).build()
+        jdbc.returns("FOR UPDATE", [[id: 4L, room_number: "104"]])
+        jdbc.returns("SELECT id FROM items WHERE room_id = ?", [[id: 8L], [id: 9L]])
+
+        when:
+        def updated = database.updateByProperty("104", update)
+
+        then:
+        updated.get().id == 4L
+        updated.get().roomNumber == "104"
+        updated.get().itemsList*.id == [8L, 9L]
+        jdbc.executedLike("DELETE FROM items WHERE room_id = ?")*.params == [[4L]]
+        jdbc.executedLike("INSERT INTO items")*.params*.take(3) == [[8L, 4L, 0], [9L, 4L, 1]]
+        jdbc.executedLike("nextval").isEmpty()
+    }
+
+    def "should assign new ids when the number of items of the updated room changes"() {
+        given:
+        def update = Room.builder().itemsList([objects.table[2]]).build()
+        jdbc.returns("FOR UPDATE", [[id: 4L, room_number: "104"]])
+        jdbc.returns("SELECT id FROM items WHERE room_id = ?", [[id: 8L], [id: 9L]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 12L]])
+
+        when:
+        def updated = database.updateByProperty(4L, update)
+
+        then:
+        updated.get().itemsList*.id == [12L]
+    }
+
+    def "should not update the room with wrong arguments or which does not exist"() {
+        expect:
+        database.updateByProperty(property, room).isEmpty()
+        jdbc.executedLike("DELETE").isEmpty()
+
+        where:
+        property | room
+        null     | Room.builder().itemsList([new Item()]).build()
+        1L       | null
+        1L       | new Room()
+        1L       | Room.builder().itemsList([]).build()
+        1L       | Room.builder().itemsList([new Item()]).build()
+    }
+
+    def "should delete the room with its items"() {
+        given:
+        jdbc.returns("LEFT JOIN items", [roomRow(2L, "102", 3L, objects.table[2])])
+
+        when:
+        def deleted = database.deleteByProperty("102")
+
+        then:
+        deleted.get().id == 2L
+        jdbc.executedLike("LEFT JOIN items")[0].sql.contains("FOR UPDATE")
+        jdbc.executedLike("DELETE FROM rooms")*.params == [[2L]]
+    }
+
+    def "should read all items in the room order"() {
+        given:
+        jdbc.returns("SELECT * FROM items ORDER BY room_id, position", [itemRow(1L, objects.table[0]), itemRow(2L, objects.table[1])])
+
+        expect:
+        database.getAllItems() == [objects.table[0], objects.table[1]]
+    }
+
+    def "should stream all items from a cursor, holding the connection until the stream is closed"() {
+        given:
+        def allItems = "SELECT * FROM items ORDER BY room_id, position"
+        jdbc.returns(allItems, [itemRow(1L, objects.table[0]), itemRow(2L, objects.table[1])])
+
+        when:
+        def items = database.streamAllItems()
+
+        then:
+        jdbc.events == ["autoCommit false"]
+        jdbc.executedLike(allItems)[0].fetchSize > 0
+
+        when:
+        def streamed = items.toList()
+        items.close()
+
+        then:
+        streamed == [objects.table[0], objects.table[1]]
+        jdbc.events == ["autoCommit false", "close " + allItems, "rollback", "autoCommit true"]
+    }
+
+    def "should replace an equal item stored in the room"() {
+        given:
+        def item = Item.builder().inventoryNumber("PŚT-11/111").itemQuantity(1).build()
+        jdbc.returns("FOR UPDATE", [[id: 1L, room_number: "101"]])
+        jdbc.returns("SET modification_date = ?", [[id: 6L]])
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 6L, item)])
+
+        when:
+        def room = database.saveInObjectWithProperty("101", item)
+
+        then:
+        item.id == 6L
+        item.modificationDate == LocalDate.now()
+        room.get().itemsList*.id == [6L]
+        def touch = jdbc.executedLike("SET modification_date = ?")[0]
+        touch.params.take(4) == [LocalDate.now(), 1L, "PŚT-11/111", null]
+        touch.params.size() == 13
+        jdbc.executedLike("INSERT").isEmpty()
+    }
+
+    def "should append a new item at the end of the room"() {
+        given:
+        def item = Item.builder().inventoryNumber("PŚT-11/999").build()
+        jdbc.returns("FOR UPDATE", [[id: 1L, room_number: "101"]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 15L]])
+
+        when:
+        database.saveInObjectWithProperty(1L, item)
+
+        then:
+        item.id == 15L
+        def insert = jdbc.executedLike("COALESCE(MAX(position) + 1, 0)")[0]
+        insert.params.take(3) == [15L, 1L, "PŚT-11/999"]
+        insert.params.last() == 1L
+    }
+
+    def "should not save an item in the room which does not exist"() {
+        expect:
+        database.saveInObjectWithProperty(property, item).isEmpty()
+
+        where:
+        property | item
+        1L       | new Item()
+        1        | new Item()
+        1L       | null
+    }
+
+    def "should save items of the batch in their rooms"() {
+        given:
+        def items = [new AbstractMap.SimpleEntry("101", objects.table[0]), new AbstractMap.SimpleEntry("999", objects.table[1])]
+        jdbc.returns("FOR UPDATE", [[id: 1L, room_number: "101"]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 21L]])
+
+        when:
+        def saved = database.saveAllInObjectsWithProperty(items)
+
+        then:
+        saved == [Optional.of(objects.table[0]), Optional.empty()]
+        objects.table[0].id == 21L
+    }
+
+    def "should return items of the room"() {
+        given:
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 1L, objects.table[0])])
+
+        expect:
+        database.getAllFromObjectWithProperty(1L) == [objects.table[0]]
+    }
+
+    def "should return the page of rooms with the next cursor"() {
+        given:
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 1L, objects.table[0]),
+                                         roomRow(2L, "102", 2L, objects.table[1]),
+                                         roomRow(3L, "103", 3L, objects.table[2])])
+
+        when:
+        def page = database.getPage(null, 2, null)
+
+        then:
+        page.content*.id == [1L, 2L]
+        page.nextCursor == 2L
+        def query = jdbc.executedLike("LEFT JOIN items")[0]
+        !query.sql.contains("EXISTS")
+        query.params == [Long.MIN_VALUE, 3L]
+    }
+
+    def "should evaluate the item filter of the rooms page in the database"() {
+        given:
+        def filter = ItemFilter.builder().documentNumber("-").build()
+        jdbc.returns("LEFT JOIN items", [roomRow(2L, "102", 2L, objects.table[1])])
+
+        when:
+        def page = database.getPage(1L, 2, filter)
+
+        then:
+        page.content*.id == [2L]
+        page.nextCursor == null
+        def query = jdbc.executedLike("LEFT JOIN items")[0]
+        query.sql.contains("EXISTS (SELECT 1 FROM items WHERE items.room_id = rooms.id AND UPPER(document_number) = UPPER(?))")
+        query.params == [1L, "-", 3L]
+    }
+
+    def "should check other predicates on the read rooms"() {
+        given:
+        Predicate<Item> filter = { Item item -> item.inventoryNumber.endsWith("222") }
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 1L, objects.table[0]), roomRow(2L, "102", 2L, objects.table[1])])
+
+        when:
+        def page = database.getPage(null, 1, filter)
+
+        then:
+        page.content*.id == [2L]
+        jdbc.executedLike("LEFT JOIN items")[0].params == [Long.MIN_VALUE, null]
+    }
+
+    def "should return the page of items"() {
+        given:
+        jdbc.returns("SELECT * FROM items WHERE id > ?", [itemRow(4L, objects.table[0]), itemRow(5L, objects.table[1])])
+
+        when:
+        def page = database.getItemsPage(3L, 1, ItemFilter.builder().minPrice(new BigDecimal("100")).build())
+
+        then:
+        page.content*.id == [4L]
+        page.nextCursor == 4L
+        def query = jdbc.executedLike("SELECT * FROM items WHERE id > ?")[0]
+        query.sql.contains("item_price >= ?")
+        query.params == [3L, new BigDecimal("100"), 2L]
+    }
+
+    def "should return the page of items of the room"() {
+        given:
+        jdbc.returns("WHERE room_id = (SELECT id FROM rooms", [itemRow(4L, objects.table[0])])
+
+        when:
+        def page = database.getItemsPageFromObjectWithProperty("101", null, 5, null)
+
+        then:
+        page.content*.id == [4L]
+        page.nextCursor == null
+        jdbc.executedLike("WHERE room_id = (SELECT id FROM rooms")[0].params == ["101", Long.MIN_VALUE, 6L]
+    }
+
+    def "should get, update and delete the item with a single statement"() {
+        given:
+        def update = Item.builder().inventoryNumber("PŚT-11/444").build()
+        jdbc.returns("SELECT * FROM items WHERE UPPER(inventory_number)", [itemRow(3L, objects.table[2])])
+        jdbc.returns("UPDATE items SET inventory_number = ?", [[id: 3L]])
+        jdbc.returns("DELETE FROM items", [itemRow(3L, update)])
+
+        expect:
+        database.getItemByProperty("pśt-11/333").get() == objects.table[2]
+        database.updateItemByProperty("PŚT-11/333", update).get().id == 3L
+        update.modificationDate == LocalDate.now()
+        database.deleteItemByProperty(3L).get() == update
+        jdbc.executedLike("DELETE FROM items")[0].sql.contains("WHERE id = (SELECT id FROM items WHERE id = ?)")
+    }
+
+    def "should search items by the folded number prefix and then by all words of the description"() {
+        given:
+        jdbc.returns("LIKE ?", [itemRow(1L, objects.table[0])])
+        jdbc.returns("ORDER BY id LIMIT ?", [itemRow(1L, objects.table[0]), itemRow(2L, objects.table[1]), itemRow(3L, objects.table[2])])
+
+        when:
+        def items = database.searchItems("Pśt-11", 2)
+
+        then:
+        items*.id == [1L, 2L]
+        jdbc.executedLike("LIKE ?")*.params == [["pst-11%", 2]]
+        jdbc.executedLike("ORDER BY id LIMIT ?")*.params == [['(^|[^[:alnum:]])pst([^[:alnum:]]|$)', '(^|[^[:alnum:]])11([^[:alnum:]]|$)', 3]]
+    }
+
+    def "should escape the wildcards of the searched number prefix"() {
+        when:
+        database.searchItems("50%_!", 5)
+
+        then:
+        jdbc.executedLike("LIKE ?")[0].params[0] == "50!%!_!!%"
+        database.searchItems(" ", 5).isEmpty()
+    }
+
+    def "should read the versions of the content and of the room"() {
+        given:
+        jdbc.returns("FROM content_version", [[version: 12L]])
+        jdbc.returns("SELECT version FROM rooms", [[version: 3L]])
+
+        expect:
+        database.getVersion().get() == 12L
+        database.getVersionOfObjectWithProperty(2L).get() == 3L
+        jdbc.executedLike("SELECT version FROM rooms")*.params == [[2L]]
+        database.getVersionOfObjectWithProperty(7L).isEmpty()
+        database.getVersionOfObjectWithProperty(1).isEmpty()
+    }
+
+    def "should increase the versions of the content and of the room with every write of the room or its items"() {
+        given:
+        jdbc.returns("FOR UPDATE", [[id: 4L, room_number: "104"]])
+        jdbc.returns("FOR UPDATE", [[id: 1L, room_number: "101"]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 15L]])
+        jdbc.returns("nextval('item_id_seq')", [[id: 16L]])
+        jdbc.returns("LEFT JOIN items", [roomRow(1L, "101", 16L, objects.table[0])])
+        jdbc.returns("LEFT JOIN items", [roomRow(2L, "102", 3L, objects.table[2])])
+
+        when:
+        database.updateByProperty(4L, Room.builder().itemsList([objects.table[0]]).build())
+        database.saveInObjectWithProperty(1L, objects.table[0])
+        database.updateItemByProperty(3L, new Item())
+        database.deleteItemByProperty(3L)
+        database.deleteByProperty(2L)
+
+        then:
+        jdbc.executedLike("UPDATE rooms SET version = version + 1 WHERE id = ?")*.params == [[4L], [1L]]
+        jdbc.executedLike("WHERE id IN (SELECT room_id FROM changed)").size() == 2
+        jdbc.executedLike("UPDATE content_version SET version = version + 1 WHERE id = 1").size() == 5
+        jdbc.executedLike("AND EXISTS (SELECT 1 FROM changed)").size() == 2
+    }
+
+    def "should aggregate the valuation in the database"() {
+        given:
+        jdbc.returns("FROM items i", [[active_value: 150.50G, disposed_value: 20G, active_items: 3L, disposed_items: 1L]])
+        jdbc.returns("GROUP BY r.id", [[room_key: 2L, active_value: 0G, disposed_value: 0G, active_items: 0L, disposed_items: 0L]])
+
+        when:
+        def valuation = database.getValuation().get()
+        def roomValuation = database.getValuationOfObjectWithProperty("102").get()
+
+        then:
+        valuation.roomId == null
+        valuation.totalValue == 170.50G
+        valuation.activeValue == 150.50G
+        valuation.activeItems == 3L
+        valuation.disposedItems == 1L
+        roomValuation.roomId == 2L
+        roomValuation.totalValue == 0G
+        jdbc.executedLike("GROUP BY r.id")[0].sql.contains("UPPER(room_number) = UPPER(?)")
+        jdbc.executedLike("GROUP BY r.id")*.params == [["102"]]
+    }
+
+    def "should not value the room which does not exist or by a wrong property"() {
+        expect:
+        database.getValuationOfObjectWithProperty(property).isEmpty()
+
+        where:
+        property << [null, 1, 7L, "999"]
+    }
+
+    def "should not find the item which does not exist or by a wrong property"() {
+        expect:
+        database.getItemByProperty(property).isEmpty()
+        database.updateItemByProperty(property, new Item()).isEmpty()
+        database.deleteItemByProperty(property).isEmpty()
+
+        where:
+        property << [null, 1, 1L, "PŚT-99/999"]
+    }
+}
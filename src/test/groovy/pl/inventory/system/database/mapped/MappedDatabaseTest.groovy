@@ -0,0 +1,232 @@
+package pl.inventory.system.database.mapped
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.ItemFilter
+import pl.inventory.system.model.Page
+import pl.inventory.system.model.Room
+import pl.inventory.system.utils.FileService
+import pl.inventory.system.utils.IdProvider
+import pl.inventory.system.utils.JsonService
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.LocalDate
+
+class MappedDatabaseTest extends Specification {
+
+    Path directory = Files.createTempDirectory("mapped")
+    FileService fileService = new FileService()
+    JsonService serializer = new JsonService()
+    ObjectsProvider source = new ObjectsProvider()
+    MappedDatabase database = openDatabase()
+
+    MappedDatabase openDatabase() {
+        return new MappedDatabase(
+                new SlotFile(directory.resolve("rooms.slots"), 64),
+                new SlotFile(directory.resolve("items.slots"), 128),
+                new IdProvider(directory.resolve("idRoom.txt"), fileService),
+                new IdProvider(directory.resolve("idItem.txt"), fileService),
+                serializer)
+    }
+
+    def cleanup() {
+        database.close()
+        Files.list(directory).forEach { Files.delete(it) }
+        Files.delete(directory)
+    }
+
+    def "should save rooms and restore them after the database is reopened"() {
+        when:
+        def ids = database.saveAll([source.room1, null, new ObjectsProvider().room2])
+
+        then:
+        ids == [1L, 0L, 2L]
+        database.getAll()*.roomNumber == ["101", "102"]
+        database.getByProperty("101").get().itemsList == source.room1.itemsList
+        database.getByProperty(2L).get().itemsList*.id == (7L..14L).toList()
+
+        when:
+        database.close()
+        database = openDatabase()
+
+        then:
+        database.getAll().size() == 2
+        database.getByProperty(1L).get() == source.room1
+        database.getItemByProperty("pśt-11/111").get().id == 1L
+        database.save(new Room()) == 0L
+    }
+
+    def "should update, save and delete a single item of the room"() {
+        given:
+        def roomId = database.save(source.room1)
+        def updateItem = Item.builder().inventoryNumber("PŚT-99/999").description("Desk").itemQuantity(2).build()
+
+        when:
+        def updated = database.updateItemByProperty("PŚT-11/111", updateItem)
+
+        then:
+        updated.get().id == 1L
+        updated.get().modificationDate == LocalDate.now()
+        database.getItemByProperty("PŚT-11/111").isEmpty()
+        database.getItemByProperty(1L).get().description == "Desk"
+        database.getAllFromObjectWithProperty(roomId).first() == updateItem
+
+        when:
+        def replacing = Item.builder().inventoryNumber("PŚT-99/999").description("Desk").itemQuantity(2).build()
+        def room = database.saveInObjectWithProperty("101", replacing)
+        database.saveInObjectWithProperty(roomId, source.table[3])
+
+        then:
+        replacing.id == 1L
+        room.get().itemsList.size() == 6
+        database.getByProperty(roomId).get().itemsList.last() == source.table[3]
+        database.saveInObjectWithProperty("999", source.table[2]).isEmpty()
+        database.saveInObjectWithProperty(LocalDate.now(), source.table[2]).isEmpty()
+
+        when:
+        def deleted = database.deleteItemByProperty(source.table[3].id)
+
+        then:
+        deleted.get() == source.table[3]
+        database.getByProperty(roomId).get().itemsList.size() == 6
+        database.deleteItemByProperty(LocalDate.now()).isEmpty()
+    }
+
+    def "should keep the item ids when the room is updated with the same number of items"() {
+        given:
+        database.save(source.room4)
+        def updateRoom = Room.builder().roomNumber("999").itemsList(source.room3.itemsList.take(6).collect {
+            Item.builder().inventoryNumber(it.inventoryNumber).description("changed").build()
+        }).build()
+
+        when:
+        def updated = database.updateByProperty("208", updateRoom)
+
+        then:
+        updated.get().roomNumber == "208"
+        updated.get().itemsList*.id == (1L..6L).toList()
+        database.getByProperty(1L).get().itemsList*.description.unique() == ["changed"]
+
+        when:
+        database.updateByProperty(1L, Room.builder().itemsList([source.table[0]]).build())
+
+        then:
+        database.getAllItems()*.id == [7L]
+        database.updateByProperty(5L, source.room1).isEmpty()
+        database.updateByProperty(1L, new Room()).isEmpty()
+        database.updateByProperty(null, source.room1).isEmpty()
+    }
+
+    def "should delete the room with its items"() {
+        given:
+        database.saveAll([source.room1, new ObjectsProvider().room4])
+
+        when:
+        def deleted = database.deleteByProperty("101")
+
+        then:
+        deleted.get().id == 1L
+        database.getByProperty(1L).isEmpty()
+        database.getAllItems().size() == 6
+        database.getItemByProperty(1L).isEmpty()
+        database.deleteByProperty("101").isEmpty()
+    }
+
+    def "should return pages of rooms and items"() {
+        given:
+        database.saveAll([source.room1, new ObjectsProvider().room2, new ObjectsProvider().room4])
+        def filter = ItemFilter.builder().documentNumber("lrg/2024/08").build()
+
+        expect:
+        database.getPage(null, 2, null).content*.id == [1L, 2L]
+        database.getPage(null, 2, null).nextCursor == 2L
+        database.getPage(2L, 2, null).nextCursor == null
+        database.getPage(null, 5, filter).content*.id == [3L]
+        database.getItemsPage(18L, 5, null).content*.id == [19L, 20L]
+        database.getItemsPage(null, 3, null).nextCursor == 3L
+        database.getItemsPageFromObjectWithProperty("102", 10L, 2, null).content*.id == [11L, 12L]
+        database.getItemsPageFromObjectWithProperty("999", null, 2, null) == Page.empty()
+        database.streamAllItems().count() == 20
+    }
+
+    def "should search items by the number prefix and by the words of the description"() {
+        given:
+        database.save(source.room1)
+
+        expect:
+        database.searchItems("pst-22/", 10)*.id == [2L, 3L]
+        database.searchItems("hewlet packard", 10)*.id == [5L, 6L]
+        database.searchItems(" ", 10).isEmpty()
+
+        when:
+        database.updateItemByProperty(5L, Item.builder().inventoryNumber("PŚT-44/111").description("Laptop").build())
+        database.deleteItemByProperty(6L)
+
+        then:
+        database.searchItems("hewlet packard", 10).isEmpty()
+        database.searchItems("laptop", 10)*.id == [5L]
+    }
+
+    def "should value the items of the inventory and of the room, updated with every write of an item"() {
+        given:
+        def roomId = database.save(source.room1)
+        database.save(new ObjectsProvider().room2)
+        def value = { List<Item> items -> items.sum(0G) { it.itemPrice * it.itemQuantity } }
+
+        expect:
+        database.getValuation().get().totalValue == value(database.getAllItems())
+        database.getValuation().get().activeItems + database.getValuation().get().disposedItems == database.getAllItems().size()
+        database.getValuationOfObjectWithProperty("101").get().roomId == roomId
+        database.getValuationOfObjectWithProperty("101").get().totalValue == value(source.room1.itemsList)
+        database.getValuationOfObjectWithProperty("999").isEmpty()
+
+        when:
+        database.deleteItemByProperty(1L)
+        database.updateItemByProperty(2L, Item.builder().inventoryNumber("PŚT-44/111").itemQuantity(2).itemPrice(10G).build())
+
+        then:
+        database.getValuationOfObjectWithProperty(roomId).get().totalValue == value(database.getAllFromObjectWithProperty(roomId))
+        database.getValuation().get().totalValue == value(database.getAllItems())
+    }
+
+    def "should increase the versions of the content and of the room with every write"() {
+        given:
+        def roomId = database.save(source.room1)
+        def otherRoomId = database.save(new ObjectsProvider().room2)
+        def version = database.getVersion().get()
+        def roomVersion = database.getVersionOfObjectWithProperty("101").get()
+        def otherRoomVersion = database.getVersionOfObjectWithProperty(otherRoomId).get()
+
+        when:
+        database.updateItemByProperty(1L, Item.builder().inventoryNumber("PŚT-44/111").build())
+
+        then:
+        database.getVersion().get() > version
+        database.getVersionOfObjectWithProperty(roomId).get() > roomVersion
+        database.getVersionOfObjectWithProperty(otherRoomId).get() == otherRoomVersion
+
+        when:
+        version = database.getVersion().get()
+        database.deleteByProperty(otherRoomId)
+
+        then:
+        database.getVersion().get() > version
+        database.getVersionOfObjectWithProperty(otherRoomId).isEmpty()
+        database.getVersionOfObjectWithProperty(1).isEmpty()
+    }
+
+    def "should store items longer than a single slot in a chain of slots"() {
+        given:
+        def item = Item.builder().inventoryNumber("PŚT-77/777").description("d" * 1000).build()
+
+        when:
+        database.save(Room.builder().roomNumber("301").itemsList([item]).build())
+        database.close()
+        database = openDatabase()
+
+        then:
+        database.getItemByProperty("PŚT-77/777").get().description.length() == 1000
+    }
+}
@@ -0,0 +1,206 @@
+package pl.inventory.system.database.mapped
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class SlotFileTest extends Specification {
+
+    Path directory = Files.createTempDirectory("slots")
+    Path path = directory.resolve("records.slots")
+
+    def cleanup() {
+        Files.list(directory).forEach { Files.delete(it) }
+        Files.delete(directory)
+    }
+
+    static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8)
+    }
+
+    def "should read the written records by their head slots"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def longText = "x" * 100
+
+        when:
+        def first = file.write(bytes("first"))
+        def second = file.write(bytes(longText))
+
+        then:
+        new String(file.read(first), StandardCharsets.UTF_8) == "first"
+        new String(file.read(second), StandardCharsets.UTF_8) == longText
+
+        cleanup:
+        file.close()
+    }
+
+    def "should keep the head slot when the record is rewritten with a longer or shorter content"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def slot = file.write(bytes("short"))
+
+        when:
+        file.rewrite(slot, bytes("y" * 80))
+
+        then:
+        new String(file.read(slot), StandardCharsets.UTF_8) == "y" * 80
+
+        when:
+        file.rewrite(slot, bytes("z"))
+        def reused = file.write(bytes("w" * 40))
+
+        then:
+        new String(file.read(slot), StandardCharsets.UTF_8) == "z"
+        new String(file.read(reused), StandardCharsets.UTF_8) == "w" * 40
+        file.readAll()*.slot() == [slot, reused]
+
+        cleanup:
+        file.close()
+    }
+
+    def "should reuse slots of the freed records"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def first = file.write(bytes("first"))
+        file.write(bytes("second"))
+
+        when:
+        file.free(first)
+        def third = file.write(bytes("third"))
+
+        then:
+        third == first
+        file.readAll().collect { new String(it.content(), StandardCharsets.UTF_8) } == ["third", "second"]
+
+        when:
+        file.read(99)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        cleanup:
+        file.close()
+    }
+
+    def "should grow the file and restore the records after it is reopened"() {
+        given:
+        def file = new SlotFile(path, 64)
+        def slots = (1..3000).collect { file.write(bytes("record " + it)) }
+        file.free(slots[0])
+        file.close()
+
+        when:
+        def reopened = new SlotFile(path, 128)
+        def records = reopened.readAll()
+
+        then:
+        reopened.slotSize() == 64
+        records.size() == 2999
+        new String(records.last().content(), StandardCharsets.UTF_8) == "record 3000"
+        reopened.write(bytes("reused")) == slots[0]
+
+        cleanup:
+        reopened.close()
+    }
+
+    /**
+     * Overwrites the bytes of the closed file, as left by a write interrupted by a crash.
+     */
+    void patch(long position, ByteBuffer content) {
+        FileChannel.open(path, StandardOpenOption.WRITE).withCloseable { it.write(content, position) }
+    }
+
+    static long slotOffset(int slot, int slotSize) {
+        return 32 + (long) slot * slotSize
+    }
+
+    def "should not hand out a slot holding a record when the free-list head was not saved"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def first = file.write(bytes("first"))
+        def second = file.write(bytes("second"))
+        file.free(first)
+        def third = file.write(bytes("third"))
+        file.close()
+        patch(16, ByteBuffer.allocate(4).putInt(0, third))
+
+        when:
+        def reopened = new SlotFile(path, 32)
+        def fourth = reopened.write(bytes("fourth"))
+
+        then:
+        fourth != third
+        reopened.readAll().collect { new String(it.content(), StandardCharsets.UTF_8) } == ["third", "second", "fourth"]
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "should keep the old record and reuse the slots of an interrupted rewrite"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def slot = file.write(bytes("old"))
+        def orphan = file.write(bytes("n" * 60))
+        file.close()
+        patch(slotOffset(orphan, 32), ByteBuffer.wrap([2] as byte[]))
+
+        when:
+        def reopened = new SlotFile(path, 32)
+
+        then:
+        reopened.readAll()*.slot() == [slot]
+        new String(reopened.read(slot), StandardCharsets.UTF_8) == "old"
+
+        when:
+        reopened.rewrite(slot, bytes("r" * 60))
+        reopened.close()
+        reopened = new SlotFile(path, 32)
+
+        then:
+        new String(reopened.read(slot), StandardCharsets.UTF_8) == "r" * 60
+        reopened.write(bytes("next")) == orphan + 2
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "should release a record whose chain was torn"() {
+        given:
+        def file = new SlotFile(path, 32)
+        def kept = file.write(bytes("kept"))
+        def torn = file.write(bytes("t" * 60))
+        file.close()
+        patch(slotOffset(torn + 1, 32), ByteBuffer.wrap([0] as byte[]))
+
+        when:
+        def reopened = new SlotFile(path, 32)
+
+        then:
+        reopened.readAll()*.slot() == [kept]
+        reopened.write(bytes("reused")) == torn
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "should reject a file which is not a slot file or a too small slot"() {
+        when:
+        new SlotFile(path, 8)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        Files.write(path, bytes("not a slot file, but long enough to hold the header"))
+        new SlotFile(path, 32)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
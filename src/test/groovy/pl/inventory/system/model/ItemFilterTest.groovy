@@ -0,0 +1,39 @@
+package pl.inventory.system.model
+
+import spock.lang.Specification
+
+import java.time.LocalDate
+
+class ItemFilterTest extends Specification {
+    def item = Item.builder()
+            .incomingDate(LocalDate.of(2023, 4, 23))
+            .documentNumber("STK/2023/04")
+            .itemPrice(new BigDecimal("224.09"))
+            .build()
+
+    def "should match items meeting all specified criteria"() {
+        expect:
+        filter.test(item) == expected
+
+        where:
+        filter                                                                                    || expected
+        new ItemFilter()                                                                          || true
+        ItemFilter.builder().incomingFrom(LocalDate.of(2023, 4, 23)).build()                      || true
+        ItemFilter.builder().incomingTo(LocalDate.of(2023, 4, 22)).build()                        || false
+        ItemFilter.builder().outgoingFrom(LocalDate.of(2020, 1, 1)).build()                       || false
+        ItemFilter.builder().documentNumber("stk/2023/04").build()                                || true
+        ItemFilter.builder().documentNumber("STK/2023/05").build()                                || false
+        ItemFilter.builder().minPrice(new BigDecimal("224.090")).maxPrice(new BigDecimal("300")).build() || true
+        ItemFilter.builder().maxPrice(new BigDecimal("224")).build()                              || false
+        ItemFilter.builder().minPrice(new BigDecimal("100")).documentNumber("STK/2023/05").build() || false
+    }
+
+    def "should be empty only if no criteria is specified"() {
+        expect:
+        new ItemFilter().isEmpty()
+        !ItemFilter.builder().incomingTo(LocalDate.of(2023, 4, 22)).build().isEmpty()
+        !ItemFilter.builder().outgoingTo(LocalDate.of(2023, 4, 22)).build().isEmpty()
+        !ItemFilter.builder().documentNumber("STK/2023/05").build().isEmpty()
+        !ItemFilter.builder().maxPrice(BigDecimal.ONE).build().isEmpty()
+    }
+}
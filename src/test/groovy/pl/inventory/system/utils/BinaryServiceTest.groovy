@@ -0,0 +1,99 @@
+package pl.inventory.system.utils
+
+import pl.inventory.system.ObjectsProvider
+import pl.inventory.system.model.Item
+import pl.inventory.system.model.Room
+import pl.inventory.system.model.StoredItem
+import spock.lang.Specification
+
+class BinaryServiceTest extends Specification {
+    def serializer = new BinaryService()
+    def source = new ObjectsProvider()
+
+    def "should convert the room with its items back and forth"() {
+        given:
+        def room = source.room1
+        room.id = 7L
+        room.itemsList.eachWithIndex { item, index -> item.id = index + 1L }
+
+        when:
+        def document = serializer.serialize(room)
+        def restored = serializer.deserialize(document, Room.class)
+
+        then:
+        !document.contains("\n")
+        restored == room
+        restored.id == 7L
+        restored.itemsList*.id == room.itemsList*.id
+        restored.itemsList*.modificationDate == room.itemsList*.modificationDate
+        restored.itemsList*.user == room.itemsList*.user
+        serializer.readId(document) == 7L
+    }
+
+    def "should read the id of a stored item record from the id of its item"() {
+        given:
+        def item = source.table[0]
+        item.id = 123_456_789_012L
+        def storedItem = new StoredItem(98_765_432_101L, item)
+
+        when:
+        def document = serializer.serialize(storedItem)
+
+        then:
+        serializer.deserialize(document, StoredItem.class) == storedItem
+        serializer.readId(document) == 123_456_789_012L
+        serializer.canRead(document)
+        new JsonService().readId(new JsonService().serialize(storedItem)) == 123_456_789_012L
+    }
+
+    def "should keep null fields and exact prices"() {
+        given:
+        def item = Item.builder().itemPrice(new BigDecimal("-1234567890123456789.0100")).build()
+
+        when:
+        def restored = serializer.deserializeFromBytes(serializer.serializeToBytes(item), Item.class)
+
+        then:
+        restored == item
+        restored.itemPrice.scale() == 4
+        restored.id == null
+        serializer.readId(serializer.serialize(new Room())) == null
+        serializer.deserialize(serializer.serialize(new Room()), Room.class).itemsList == null
+    }
+
+    def "should be at least three times smaller than json"() {
+        given:
+        def room = source.room3
+
+        expect:
+        serializer.serialize(room).length() * 3 <= new JsonService().serialize(room).length()
+    }
+
+    def "should recognise its own documents"() {
+        expect:
+        serializer.canRead(serializer.serialize(source.room2))
+        !serializer.canRead(new JsonService().serialize(source.room2))
+        new JsonService().canRead(new JsonService().serialize(source.room2))
+        !new JsonService().canRead(serializer.serialize(source.room2))
+    }
+
+    def "should reject unsupported objects and malformed documents"() {
+        when:
+        serializer.serialize("text")
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        serializer.deserialize(serializer.serialize(source.table[0]), Room.class)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        serializer.deserialize("Ug", Room.class)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
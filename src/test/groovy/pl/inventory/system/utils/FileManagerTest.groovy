@@ -10,29 +10,6 @@ import java.nio.file.Path
 
 class FileManagerTest extends Specification {
 
-    def "create a backup file should fail on wrong file type"() {
-        def notCorrectFile = Path.of("wrongFile.html")
-
-        when:
-        FileManager.makeBackupFile(notCorrectFile)
-
-        then:
-        thrown(RuntimeException.class)
-
-        cleanup:
-        FileManager.deleteBackupFile(notCorrectFile)
-    }
-
-    def "delete backup file should fail on wrong file type"() {
-        def notCorrectFile = Path.of("someFile.html")
-
-        when:
-        FileManager.deleteBackupFile(notCorrectFile)
-
-        then:
-        thrown(RuntimeException.class)
-    }
-
     def "should crate a file with the given name"() {
         given:
         def fileName = "testFile.txt"
@@ -45,22 +22,6 @@ class FileManagerTest extends Specification {
         file.exists()
     }
 
-    def "should make a backup of specified file with '_COPY' extension"() {
-        given:
-        def file = new File("testFile.txt")
-
-        when:
-        FileManager.makeBackupFile(file.toPath())
-        File bacupFile = new File("testFile_COPY.txt")
-
-        then:
-        file.exists()
-        bacupFile.exists()
-
-        cleanup:
-        FileManager.deleteBackupFile(file.toPath())
-    }
-
     def "should delete created source file"() {
         given:
         def existingFile = new File("testFile.txt")
@@ -79,23 +40,11 @@ class FileManagerTest extends Specification {
         then:
         thrown(RuntimeException.class)
 
-        when:
-        FileManager.makeBackupFile(null)
-
-        then:
-        thrown(RuntimeException.class)
-
         when:
         FileManager.deleteFile(null)
 
         then:
         thrown(RuntimeException.class)
-
-        when:
-        FileManager.deleteBackupFile(null)
-
-        then:
-        thrown(RuntimeException.class)
     }
 
     def "file validation should throw an exceptions in various cases"() {
@@ -0,0 +1,64 @@
+package pl.inventory.system.utils
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class FileServiceTest extends Specification {
+    FileService fileService = new FileService()
+    Path directory = Files.createTempDirectory("fileService")
+    Path path = FileManager.createFile("ROOMS.txt", directory.toString())
+
+    def cleanup() {
+        fileService.close()
+        directory.toFile().deleteDir()
+    }
+
+    def "should replace the content of the file with all given lines, including repeated ones"() {
+        given:
+        fileService.writeLinesToFile(path, ["old 1", "old 2", "old 3"])
+
+        when:
+        fileService.writeLinesToFile(path, ["line", "other", "line", "line"])
+
+        then:
+        fileService.readAllFile(path) == ["line", "other", "line", "line"]
+        Files.list(directory).toList() == [path]
+    }
+
+    def "should leave an empty file if there are no lines"() {
+        given:
+        fileService.writeLinesToFile(path, ["line"])
+
+        when:
+        fileService.writeLinesToFile(path, [])
+
+        then:
+        Files.size(path) == 0
+    }
+
+    def "should measure the latencies and the sizes of the reads and writes"() {
+        given:
+        def registry = new SimpleMeterRegistry()
+        def meteredService = new FileService("os", 0L, registry)
+        def separator = System.lineSeparator().length()
+
+        when:
+        meteredService.writeLinesToFile(path, ["abc", "de"])
+        meteredService.appendLinesToFile(path, ["f"])
+        meteredService.readAllFile(path)
+
+        then:
+        registry.get("inventory.file.write").tag("operation", "replace").timer().count() == 1
+        registry.get("inventory.file.write").tag("operation", "append").timer().count() == 1
+        registry.get("inventory.file.read").timer().count() == 1
+        registry.get("inventory.file.bytes").tag("operation", "replace").summary().totalAmount() == 5 + 2 * separator
+        registry.get("inventory.file.bytes").tag("operation", "append").summary().totalAmount() == 1 + separator
+        registry.get("inventory.file.bytes").tag("operation", "read").summary().totalAmount() == 6 + 3 * separator
+
+        cleanup:
+        meteredService.close()
+    }
+}
@@ -0,0 +1,104 @@
+package pl.inventory.system.utils
+
+import pl.inventory.system.utils.GroupCommitWriter.SyncPolicy
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executors
+
+class GroupCommitWriterTest extends Specification {
+    Path path = Files.createTempFile("groupCommit", ".txt")
+
+    def cleanup() {
+        Files.deleteIfExists(path)
+    }
+
+    static byte[] bytes(String line) {
+        return (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)
+    }
+
+    def "should write the records of concurrent writers in the order of each writer"() {
+        given:
+        def writer = new GroupCommitWriter(policy, 5)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def tasks = (0..<8).collect { thread ->
+            { ->
+                (0..<50).collect { writer.append(path, bytes(thread + ":" + it)) }*.join()
+                return thread
+            } as Callable<Integer>
+        }
+        executor.invokeAll(tasks)*.get()
+        def lines = Files.readAllLines(path)
+
+        then:
+        lines.size() == 400
+        (0..<8).every { thread -> lines.findAll { it.startsWith(thread + ":") } == (0..<50).collect { thread + ":" + it } }
+
+        cleanup:
+        executor.shutdown()
+        writer.close()
+
+        where:
+        policy << SyncPolicy.values()
+    }
+
+    def "should write the enqueued records on close and reject the following ones"() {
+        given:
+        def writer = new GroupCommitWriter(SyncPolicy.INTERVAL, 60_000)
+        def written = (1..10).collect { writer.append(path, bytes(String.valueOf(it))) }
+
+        when:
+        writer.close()
+
+        then:
+        written.every { it.isDone() && !it.isCompletedExceptionally() }
+        Files.readAllLines(path) == (1..10).collect { String.valueOf(it) }
+        writer.append(path, bytes("11")).isCompletedExceptionally()
+    }
+
+    def "should complete the future exceptionally if the file cannot be written"() {
+        given:
+        def writer = new GroupCommitWriter(SyncPolicy.COMMIT, 0)
+        def missingPath = path.resolveSibling("missing-" + path.getFileName())
+
+        when:
+        writer.append(missingPath, bytes("line")).join()
+
+        then:
+        def e = thrown(CompletionException)
+        e.cause instanceof UncheckedIOException
+
+        when:
+        new FileService().appendLineToFile(missingPath, "line")
+
+        then:
+        thrown(UncheckedIOException)
+
+        cleanup:
+        writer.close()
+    }
+
+    def "should resolve the sync policy by its name"() {
+        expect:
+        SyncPolicy.of("commit") == SyncPolicy.COMMIT
+        SyncPolicy.of("OS") == SyncPolicy.OS
+
+        when:
+        SyncPolicy.of("sometimes")
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        new GroupCommitWriter(SyncPolicy.INTERVAL, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
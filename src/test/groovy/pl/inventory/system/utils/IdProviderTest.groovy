@@ -0,0 +1,80 @@
+package pl.inventory.system.utils
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+
+class IdProviderTest extends Specification {
+    def fileService = new FileService()
+    Path idPath = Path.of("idProviderTest.txt")
+
+    def cleanup() {
+        Files.deleteIfExists(idPath)
+    }
+
+    def "should reserve identifiers in blocks and store the first not reserved one"() {
+        given:
+        def idProvider = new IdProvider(idPath, fileService, 100)
+
+        when:
+        def ids = (1..150).collect { idProvider.getCurrentIdAndIncrement() }
+
+        then:
+        ids == (1L..150L).toList()
+        fileService.readAllFile(idPath) == ["201"]
+    }
+
+    def "should not reuse identifiers of the block reserved before restart"() {
+        given:
+        def idProvider = new IdProvider(idPath, fileService, 10)
+        3.times { idProvider.getCurrentIdAndIncrement() }
+
+        when:
+        def restartedProvider = new IdProvider(idPath, fileService, 10)
+
+        then:
+        restartedProvider.getCurrentIdAndIncrement() == 11L
+    }
+
+    def "should continue numbering from the id stored by the previous version of the file"() {
+        given:
+        FileManager.createFile(idPath.toFile())
+        fileService.writeToFile(idPath, "57")
+
+        expect:
+        new IdProvider(idPath, fileService).getCurrentIdAndIncrement() == 57L
+        fileService.readAllFile(idPath) == ["58"]
+    }
+
+    def "should hand out unique identifiers to concurrent callers"() {
+        given:
+        def idProvider = new IdProvider(idPath, fileService, 7)
+        def executor = Executors.newFixedThreadPool(8)
+        def ids = ConcurrentHashMap.newKeySet()
+
+        when:
+        def tasks = (1..8).collect {
+            { -> 500.times { ids.add(idProvider.getCurrentIdAndIncrement()) } } as Callable
+        }
+        executor.invokeAll(tasks).each { it.get() }
+
+        then:
+        ids.size() == 4000
+        ids.max() < Long.parseLong(fileService.readAllFile(idPath)[0])
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should reject not positive size of the block"() {
+        when:
+        new IdProvider(idPath, fileService, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -1,6 +1,7 @@
 package pl.inventory.system.utils
 
 import com.fasterxml.jackson.core.JsonProcessingException
+import pl.inventory.system.model.Room
 import spock.lang.Specification
 
 class JsonServiceTest extends Specification {
@@ -29,4 +30,49 @@ class JsonServiceTest extends Specification {
         def exception = thrown(RuntimeException.class)
         exception.cause instanceof JsonProcessingException
     }
+
+    def "should read a single numeric field of json object"() {
+        expect:
+        serializer.readLongField(json, "id") == expected
+
+        where:
+        json                                        || expected
+        '{"id":12,"roomNumber":"101"}'              || 12L
+        '{"itemsList":[{"id":3}],"id":7}'           || 7L
+        '{"roomNumber":"101"}'                      || null
+        '{"id":"12"}'                               || null
+        '[{"id":12}]'                               || null
+    }
+
+    def "should convert records of a json array or ndjson separately"() {
+        when:
+        def records = serializer.jsonRecordsToObjects(content, Room.class)
+
+        then:
+        records*.map { it.roomNumber }*.orElse(null) == expected
+
+        where:
+        content                                                       || expected
+        '[{"roomNumber":"101"},"wrong",{"roomNumber":"102"}]'         || ["101", null, "102"]
+        '{"roomNumber":"101"}\n\n{"roomNumber":\n{"roomNumber":"102"}' || ["101", null, "102"]
+        '  '                                                          || []
+    }
+
+    def "should throw an exception when the json array of records is invalid"() {
+        when:
+        serializer.jsonRecordsToObjects('[{"roomNumber":"101"}', Room.class)
+
+        then:
+        def exception = thrown(RuntimeException.class)
+        exception.cause instanceof JsonProcessingException
+    }
+
+    def "should throw an exception when reading a field of an invalid json"() {
+        when:
+        serializer.readLongField('{"roomNumber":', "id")
+
+        then:
+        def exception = thrown(RuntimeException.class)
+        exception.cause instanceof IOException
+    }
 }